@@ -1,6 +1,7 @@
 package com.freedom.chain;
 
 import com.freedom.chain.service.BlockService;
+import com.freedom.chain.websocket.MiningPoolServer;
 import com.freedom.chain.websocket.P2PClient;
 import com.freedom.chain.websocket.P2PServer;
 import jakarta.annotation.Resource;
@@ -17,6 +18,9 @@ public class BlockchainApplication implements ApplicationRunner {
     @Resource
     private P2PClient p2PClient;
 
+    @Resource
+    private MiningPoolServer miningPoolServer;
+
     @Resource
     private BlockService blockService;
 
@@ -29,6 +33,9 @@ public class BlockchainApplication implements ApplicationRunner {
     public void run(ApplicationArguments args) throws Exception {
         p2PServer.initP2PServer(blockService.getP2pport());
         p2PClient.connectToPeer(blockService.getAddress());
+        if (blockService.getPoolPort() > 0) {
+            miningPoolServer.initPoolServer(blockService.getPoolPort());
+        }
         System.out.println("*****难度系数******"+blockService.getDifficulty());
         System.out.println("*****端口号******"+blockService.getP2pport());
         System.out.println("*****节点地址******"+blockService.getAddress());
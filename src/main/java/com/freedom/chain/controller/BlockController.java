@@ -7,10 +7,15 @@ import com.freedom.chain.model.block.Block;
 import com.freedom.chain.model.block.BlockCache;
 import com.freedom.chain.model.ledger.PublicLedgerTransaction;
 import com.freedom.chain.service.BlockService;
+import com.freedom.chain.service.Mempool;
 import com.freedom.chain.service.PowService;
 import com.freedom.chain.service.TransactionService;
 import com.freedom.chain.utils.LedgerUtil;
+import com.freedom.chain.utils.SignatureCache;
+import com.freedom.chain.vo.BatchTransferResult;
+import com.freedom.chain.vo.MempoolInfo;
 import com.freedom.chain.vo.Result;
+import com.freedom.chain.vo.SignatureCacheStats;
 import jakarta.annotation.Resource;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -42,6 +47,9 @@ public class BlockController {
     @Resource
     TransactionService transactionService;
 
+    @Resource
+    Mempool mempool;
+
     @Resource
     com.freedom.chain.websocket.P2PClient p2PClient;
 
@@ -116,12 +124,7 @@ public class BlockController {
     @PostMapping("/transfer")
     public Result<String> transfer(@RequestBody TransferRequest request) {
         // 参数校验
-        Assert.notEmpty(request.getFromAddress(), "发送地址不能为空");
-        Assert.notEmpty(request.getToAddress(), "接收地址不能为空");
-        Assert.notNull(request.getAmount(), "转账金额不能为空");
-        Assert.greaterThanZero(request.getAmount(), "转账金额必须大于0");
-        Assert.notNull(request.getFee(), "手续费不能为空");
-        Assert.notNegative(request.getFee(), "手续费不能为负数");
+        transactionService.checkRequest(request);
         
         // 创建并提交交易
         String txHash = transactionService.createTransfer(request);
@@ -129,6 +132,16 @@ public class BlockController {
         return Result.success("交易创建成功，请等待矿工确认", txHash);
     }
 
+    /**
+     * 批量转账：一次提交多笔转账，逐笔返回结果（参数错误、余额不足等失败不影响其余转账）
+     * @param requests 转账请求列表
+     * @return 逐笔结果与吞吐（笔/秒）
+     */
+    @PostMapping("/transfer/batch")
+    public Result<BatchTransferResult> transferBatch(@RequestBody List<TransferRequest> requests) {
+        return Result.success(transactionService.createTransfers(requests));
+    }
+
     /**
      * 主动连接到指定的P2P节点
      */
@@ -150,6 +163,33 @@ public class BlockController {
         return Result.success(latestBlock.getTransactions());
     }
 
+    /**
+     * 查询交易池中的待确认交易（按手续费率从高到低）
+     * @return
+     */
+    @GetMapping("/mempool")
+    public Result<List<PublicLedgerTransaction>> queryMempool() {
+        return Result.success(mempool.transactions());
+    }
+
+    /**
+     * 查询交易池概况（内存占用、最低入池费率等）
+     * @return
+     */
+    @GetMapping("/mempool/info")
+    public Result<MempoolInfo> queryMempoolInfo() {
+        return Result.success(mempool.info());
+    }
+
+    /**
+     * 查询验签结果缓存的命中率
+     * @return
+     */
+    @GetMapping("/signatureCache")
+    public Result<SignatureCacheStats> querySignatureCache() {
+        return Result.success(SignatureCache.stats());
+    }
+
     /**
      * 查询所有交易记录
      * @return
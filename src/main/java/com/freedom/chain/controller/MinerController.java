@@ -0,0 +1,81 @@
+package com.freedom.chain.controller;
+
+import com.freedom.chain.service.MiningMetrics;
+import com.freedom.chain.service.MiningPoolService;
+import com.freedom.chain.service.MiningScheduler;
+import com.freedom.chain.vo.MinerStatus;
+import com.freedom.chain.vo.MiningMetricsVo;
+import com.freedom.chain.vo.PoolWorkerStats;
+import com.freedom.chain.vo.Result;
+import jakarta.annotation.Resource;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * @description: 后台挖矿控制
+ * @author: freedom
+ * @create: 2025-11-23
+ **/
+@RestController
+@RequestMapping("/miner")
+public class MinerController {
+
+    @Resource
+    MiningScheduler miningScheduler;
+
+    @Resource
+    MiningPoolService miningPoolService;
+
+    @Resource
+    MiningMetrics miningMetrics;
+
+    /**
+     * 启动后台挖矿
+     * @return
+     */
+    @GetMapping("/start")
+    public Result<MinerStatus> start() {
+        boolean started = miningScheduler.start();
+        return Result.success(started ? "后台挖矿已启动" : "后台挖矿已在运行", miningScheduler.status());
+    }
+
+    /**
+     * 停止后台挖矿
+     * @return
+     */
+    @GetMapping("/stop")
+    public Result<MinerStatus> stop() {
+        boolean stopped = miningScheduler.stop();
+        return Result.success(stopped ? "后台挖矿已停止" : "后台挖矿未运行", miningScheduler.status());
+    }
+
+    /**
+     * 查看后台挖矿状态
+     * @return
+     */
+    @GetMapping("/status")
+    public Result<MinerStatus> status() {
+        return Result.success(miningScheduler.status());
+    }
+
+    /**
+     * 查看挖矿指标：滚动算力、轮次结果、模板构建与出块耗时分布
+     * @return
+     */
+    @GetMapping("/metrics")
+    public Result<MiningMetricsVo> metrics() {
+        return Result.success(miningMetrics.snapshot());
+    }
+
+    /**
+     * 查看矿池worker的份额与算力统计
+     * @return
+     */
+    @GetMapping("/pool")
+    public Result<List<PoolWorkerStats>> pool() {
+        return Result.success(miningPoolService.workerStats());
+    }
+}
@@ -38,6 +38,14 @@ public class Block implements Serializable {
      * 工作量证明，计算正确hash值的次数
      */
     private int nonce;
+    /**
+     * 交易默克尔根（为空表示旧格式区块，hash覆盖完整交易JSON）
+     */
+    private String merkleRoot;
+    /**
+     * 出块时的挖矿目标值，紧凑格式（写入区块头参与哈希）
+     */
+    private int bits;
     /**
      * 当前区块存储的业务数据集合（例如转账交易信息、票据信息、合同信息等）
      */
@@ -1,11 +1,14 @@
 package com.freedom.chain.model.block;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson2.JSON;
-import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import com.freedom.chain.model.ledger.PublicLedgerTransaction;
+import com.freedom.chain.utils.BlockStore;
 import com.freedom.chain.utils.LedgerUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -17,8 +20,13 @@ import org.springframework.stereotype.Component;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @description:
@@ -42,6 +50,16 @@ public class BlockCache implements CommandLineRunner {
      */
     private List<PublicLedgerTransaction> packedTransactions = new CopyOnWriteArrayList<>();
 
+    /**
+     * 链尾版本号：每次链尾变化（新增区块、替换链）时递增，挖矿线程据此判断当前工作是否过期
+     */
+    private final AtomicLong tipEpoch = new AtomicLong();
+
+    /**
+     * 从本地文件加载（含从 block.json 迁移）的旧格式区块（无默克尔根）的哈希，只有这些区块允许按旧格式校验
+     */
+    private final Set<String> legacyBlockHashes = ConcurrentHashMap.newKeySet();
+
     /**
      * 当前节点的socket对象
      */
@@ -68,6 +86,112 @@ public class BlockCache implements CommandLineRunner {
     @Value("${block.address}")
     private String address;
 
+    /**
+     * 并行挖矿线程数（小于等于0时取CPU核数）
+     */
+    @Value("${block.miningThreads:0}")
+    private int miningThreads;
+
+    /**
+     * 启动后是否自动开始后台挖矿
+     */
+    @Value("${block.autoMine:false}")
+    private boolean autoMine;
+
+    /**
+     * 挖矿时检查待打包交易并刷新区块模板的间隔（毫秒）
+     */
+    @Value("${block.templateRefreshMs:2000}")
+    private long templateRefreshMs;
+
+    /**
+     * 挖矿哈希内核：digest（默认）/ scalar / vector，见 HeaderHashKernels
+     */
+    @Value("${block.miningKernel:digest}")
+    private String miningKernel;
+
+    /**
+     * 矿池服务端口（小于等于0时不启动矿池）
+     */
+    @Value("${block.poolPort:0}")
+    private int poolPort;
+
+    /**
+     * 矿池份额难度（十六进制前导零个数，低于区块难度，用于统计worker算力）
+     */
+    @Value("${block.poolShareDifficulty:3}")
+    private int poolShareDifficulty;
+
+    /**
+     * 矿池每个worker连接每秒最多处理的领取工作请求数
+     */
+    @Value("${block.poolGetWorkPerSecond:5}")
+    private double poolGetWorkPerSecond;
+
+    /**
+     * 交易池内存上限（字节，按条目估算占用），超过后按后代包得分驱逐低费率交易
+     */
+    @Value("${block.mempoolMaxBytes:100000000}")
+    private long mempoolMaxBytes;
+
+    /**
+     * 交易池中交易的过期时间（小时），超时未确认的交易连同后代移除
+     */
+    @Value("${block.mempoolExpiryHours:336}")
+    private long mempoolExpiryHours;
+
+    /**
+     * 交易池定时写入 file/mempool.dat 的间隔（秒，小于等于0时只在停机时写入）
+     */
+    @Value("${block.mempoolDumpIntervalSeconds:300}")
+    private long mempoolDumpIntervalSeconds;
+
+    /**
+     * 交易公告批量发送间隔（毫秒），间隔内的新交易合并为一条公告消息
+     */
+    @Value("${block.txRelayIntervalMs:1000}")
+    private long txRelayIntervalMs;
+
+    /**
+     * 区块交易、批量验签与批量转账签名的并行线程数（小于等于0时取CPU核数）
+     */
+    @Value("${block.verifyThreads:0}")
+    private int verifyThreads;
+
+    /**
+     * 区块段文件的大小上限（字节），当前段写满后切换到新段
+     */
+    @Value("${block.blockSegmentBytes:67108864}")
+    private long blockSegmentBytes;
+
+    /**
+     * 区块追加后的落盘策略：always 每次追加后 fsync，interval 按 blockFsyncIntervalMs 定时 fsync，never 交给操作系统
+     */
+    @Value("${block.blockFsync:always}")
+    private String blockFsync;
+
+    /**
+     * blockFsync 为 interval 时的落盘间隔（毫秒）
+     */
+    @Value("${block.blockFsyncIntervalMs:1000}")
+    private long blockFsyncIntervalMs;
+
+    /**
+     * 只追加的区块存储（file/blocks 目录下的段文件）
+     */
+    private BlockStore blockStore;
+
+    @PostConstruct
+    public void initBlockStore() {
+        blockStore = new BlockStore(Paths.get("file/blocks"), Paths.get("file/block.json"), blockSegmentBytes,
+                BlockStore.FsyncPolicy.of(blockFsync), blockFsyncIntervalMs);
+    }
+
+    @PreDestroy
+    public void closeBlockStore() {
+        blockStore.close();
+    }
+
     /**
      * 获取最新的区块，即当前链上最后一个区块
      *
@@ -79,22 +203,22 @@ public class BlockCache implements CommandLineRunner {
 
     @Override
     public void run(String... args) throws Exception {
-        String blocks = Files.readString(Paths.get("file/block.json"));
-        JSONArray blockDatas = JSON.parseArray(blocks);
-        if(CollUtil.isNotEmpty(blockDatas)){
-            log.info("init local block file... ");
+        List<Block> blocks = blockStore.load();
+        if(CollUtil.isNotEmpty(blocks)){
+            log.info("init local block store... ");
             //缓存到内存
-            for (int i = 0; i < blockDatas.size(); i++) {
-                JSONObject jsonObject = blockDatas.getJSONObject(i);
-                jsonObject.keySet().forEach(key -> {
-                    Block block = JSON.to( Block.class,jsonObject.getJSONObject(key));
-                    this.blockChain.add(block);
-                    // 同步记录交易到内存的已打包集合
-                    if (block.getTransactions() != null) {
-                        this.packedTransactions.addAll(block.getTransactions());
-                    }
-                });
+            this.blockChain.addAll(blocks);
+            // 同步记录交易到内存的已打包集合
+            List<PublicLedgerTransaction> transactions = new ArrayList<>();
+            for (Block block : blocks) {
+                if (StrUtil.isEmpty(block.getMerkleRoot())) {
+                    this.legacyBlockHashes.add(block.getHash());
+                }
+                if (block.getTransactions() != null) {
+                    transactions.addAll(block.getTransactions());
+                }
             }
+            this.packedTransactions.addAll(transactions);
         }
         String mineInfo = Files.readString(Paths.get("file/mineInfo.json"));
         JSONObject mineInfoDatas = JSON.parseObject(mineInfo);
@@ -103,7 +227,18 @@ public class BlockCache implements CommandLineRunner {
             this.minerAddress = mineInfoDatas.keySet().iterator().next();
         }
         
-        // 加载UTXO快照（如不存在则等待后续通过区块回放重建）
-        LedgerUtil.loadUtxoSnapshot();
+        // 加载UTXO快照：快照对应的链尾与加载到的链尾不一致时（区块存储截断了损坏的记录、快照缺失或为旧格式）按区块回放重建
+        String snapshotTip = LedgerUtil.loadUtxoSnapshot();
+        Block tip = getLatestBlock();
+        String chainTip = tip != null ? tip.getHash() : null;
+        if (!Objects.equals(snapshotTip, chainTip)) {
+            LedgerUtil.UtxoSet utxos = new LedgerUtil.UtxoSet();
+            for (Block block : blocks) {
+                utxos.connectTransactions(block.getTransactions());
+            }
+            LedgerUtil.replaceUtxoSet(utxos);
+            LedgerUtil.saveUtxoSnapshot(chainTip);
+            log.warn("UTXO快照与区块链尾不一致（快照: {}，链尾: {}），已回放 {} 个区块重建", snapshotTip, chainTip, blocks.size());
+        }
     }
 }
@@ -0,0 +1,140 @@
+package com.freedom.chain.model.block;
+
+import com.freedom.chain.utils.CryptoUtil;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @description: 区块头模板，区块哈希 = SHA-256(区块头)，区块头为固定80字节（大端序）：
+ * previousHash(32) | merkleRoot(32) | timestamp(8) | bits(4) | nonce(4)
+ * 交易只通过默克尔根参与哈希，挖矿时前76字节固定不变，每次尝试只改写末尾的nonce槽位
+ * @author: freedom
+ * @create: 2025-11-22
+ **/
+public class BlockHeaderTemplate {
+
+    /**
+     * 区块头长度（字节）
+     */
+    public static final int HEADER_SIZE = 80;
+
+    /**
+     * nonce槽位在区块头中的偏移
+     */
+    public static final int NONCE_OFFSET = 76;
+
+    /**
+     * 哈希长度（字节）
+     */
+    private static final int HASH_SIZE = 32;
+
+    /**
+     * nonce为0的区块头字节
+     */
+    private final byte[] header;
+
+    /**
+     * 前一个区块的hash值
+     */
+    @Getter
+    private final String previousHash;
+
+    /**
+     * 交易默克尔根
+     */
+    @Getter
+    private final String merkleRoot;
+
+    /**
+     * 生成区块的时间戳
+     */
+    @Getter
+    private final long timestamp;
+
+    /**
+     * 挖矿目标值（紧凑格式）
+     */
+    @Getter
+    private final int bits;
+
+    public BlockHeaderTemplate(String previousHash, String merkleRoot, long timestamp, int bits) {
+        this.previousHash = previousHash;
+        this.merkleRoot = merkleRoot;
+        this.timestamp = timestamp;
+        this.bits = bits;
+        this.header = encodeHeader(previousHash, merkleRoot, timestamp, bits, 0);
+    }
+
+    /**
+     * @description: 每个挖矿线程持有一份区块头副本，只在其中改写nonce
+     * @author: freedom
+     * @date: 2025/11/22 12:10
+     * @param: []
+     * @return: byte[]
+     **/
+    public byte[] newHeaderBuffer() {
+        return header.clone();
+    }
+
+    /**
+     * @description: 计算指定nonce的区块哈希，结果写入out（32字节），不产生新的对象
+     * @author: freedom
+     * @date: 2025/11/22 12:10
+     * @param: [headerBuffer, nonce, out] newHeaderBuffer() 得到的区块头副本、nonce、输出缓冲区
+     * @return: void
+     **/
+    public void hash(byte[] headerBuffer, int nonce, byte[] out) {
+        writeNonce(headerBuffer, nonce);
+        CryptoUtil.sha256Into(headerBuffer, 0, HEADER_SIZE, out, 0);
+    }
+
+    /**
+     * @description: 序列化区块头
+     * @author: freedom
+     * @date: 2025/11/22 12:10
+     * @param: [previousHash, merkleRoot, timestamp, bits, nonce]
+     * @return: byte[]
+     **/
+    public static byte[] encodeHeader(String previousHash, String merkleRoot, long timestamp, int bits, int nonce) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        buffer.put(hashToBytes(previousHash));
+        buffer.put(hashToBytes(merkleRoot));
+        buffer.putLong(timestamp);
+        buffer.putInt(bits);
+        buffer.putInt(nonce);
+        return buffer.array();
+    }
+
+    /**
+     * @description: nonce按大端序写入区块头末尾4字节
+     * @author: freedom
+     * @date: 2025/11/22 12:10
+     * @param: [headerBuffer, nonce]
+     * @return: void
+     **/
+    private static void writeNonce(byte[] headerBuffer, int nonce) {
+        headerBuffer[NONCE_OFFSET] = (byte) (nonce >>> 24);
+        headerBuffer[NONCE_OFFSET + 1] = (byte) (nonce >>> 16);
+        headerBuffer[NONCE_OFFSET + 2] = (byte) (nonce >>> 8);
+        headerBuffer[NONCE_OFFSET + 3] = (byte) nonce;
+    }
+
+    /**
+     * @description: 十六进制哈希转32字节，空值（创世区块的previousHash）视为全零
+     * @author: freedom
+     * @date: 2025/11/22 12:10
+     * @param: [hash]
+     * @return: byte[]
+     **/
+    private static byte[] hashToBytes(String hash) {
+        if (hash == null || hash.isEmpty()) {
+            return new byte[HASH_SIZE];
+        }
+        byte[] bytes = CryptoUtil.hexToBytes(hash);
+        if (bytes.length != HASH_SIZE) {
+            throw new IllegalArgumentException("哈希长度不合法: " + hash);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,25 @@
+package com.freedom.chain.model.block;
+
+import lombok.Getter;
+
+/**
+ * @description: 链尾变化事件（新增区块、替换链），用于通知挖矿等组件当前工作已过期
+ * @author: freedom
+ * @create: 2025-11-23
+ **/
+@Getter
+public class ChainTipEvent {
+    /**
+     * 新的链尾区块
+     */
+    private final Block tip;
+    /**
+     * 变化后的链尾版本号
+     */
+    private final long epoch;
+
+    public ChainTipEvent(Block tip, long epoch) {
+        this.tip = tip;
+        this.epoch = epoch;
+    }
+}
@@ -3,17 +3,22 @@ package com.freedom.chain.model.ledger;
 import com.freedom.chain.utils.AddressUtil;
 import com.freedom.chain.utils.CryptoUtil;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
 import java.math.BigInteger;
 import java.util.Collections;
+import java.util.function.BiFunction;
 
 /**
  * 挖矿奖励交易（Coinbase Transaction）：区块的第一笔交易，无输入，向矿工发放奖励
  */
 @Data
+@EqualsAndHashCode(callSuper = false)
 public class CoinbaseTransaction extends PublicLedgerTransaction {
     // 区块奖励金额（固定，如比特币初始50 BTC，每4年减半）
     private static final BigInteger BLOCK_REWARD = BigInteger.valueOf(50_00000000L); // 50 BTC（以聪为单位）
+    // Coinbase交易的发起方地址（全零，无发起方）
+    public static final String COINBASE_ADDRESS = "0x0000000000000000000000000000000000000000";
 
     /**
      * 构造方法：直接生成挖矿奖励交易
@@ -21,12 +26,23 @@ public class CoinbaseTransaction extends PublicLedgerTransaction {
      * @param blockHeight 区块高度（用于生成唯一交易哈希，避免重复）
      */
     public CoinbaseTransaction(String minerAddress, long blockHeight) {
+        this(minerAddress, blockHeight, 0);
+    }
+
+    /**
+     * 构造方法：带额外nonce的挖矿奖励交易
+     * @param minerAddress 矿工地址（接收奖励）
+     * @param blockHeight 区块高度
+     * @param extraNonce 额外nonce（区块头nonce空间耗尽时递增，改变交易哈希从而改变默克尔根）
+     */
+    public CoinbaseTransaction(String minerAddress, long blockHeight, long extraNonce) {
         // 1. 基础字段设置
-        super.setFromAddress("0x0000000000000000000000000000000000000000"); // 全零地址（无发起方）
+        super.setFromAddress(COINBASE_ADDRESS); // 全零地址（无发起方）
         super.setToAddress(minerAddress); // 接收方=矿工地址
         super.setTimestamp(System.currentTimeMillis());
         super.setChainId(1);
-        super.setMemo("Coinbase for block " + blockHeight); // 备注区块高度
+        // 备注区块高度，额外nonce追加在末尾（verify按空格取第4段解析高度，不受影响）
+        super.setMemo("Coinbase for block " + blockHeight + (extraNonce > 0 ? " extraNonce " + extraNonce : ""));
         super.setVersion(1);
 
         // 2. 交易输出（仅一个：矿工接收奖励）
@@ -63,8 +79,22 @@ public class CoinbaseTransaction extends PublicLedgerTransaction {
     // 重写父类的verify方法（Coinbase交易无需验证签名和输入，仅验证基础合法性）
     @Override
     public boolean verify() {
+        return verifyCoinbase(this);
+    }
+
+    /**
+     * 是否为Coinbase交易（发起方为全零地址）；从区块JSON反序列化的交易不是 CoinbaseTransaction 实例，按地址判断
+     */
+    public static boolean isCoinbase(PublicLedgerTransaction tx) {
+        return COINBASE_ADDRESS.equals(tx.getFromAddress());
+    }
+
+    /**
+     * 验证Coinbase交易的基础合法性（奖励金额、全零地址、无输入、交易哈希），适用于反序列化得到的交易
+     */
+    public static boolean verifyCoinbase(PublicLedgerTransaction tx) {
         // 1. 验证输出金额是否等于区块奖励
-        BigInteger totalOutput = super.getUtxoOutputs().stream()
+        BigInteger totalOutput = tx.getUtxoOutputs().stream()
                 .map(UtxoOutput::getAmount)
                 .reduce(BigInteger.ZERO, BigInteger::add);
         if (!totalOutput.equals(BLOCK_REWARD)) {
@@ -72,28 +102,30 @@ public class CoinbaseTransaction extends PublicLedgerTransaction {
         }
 
         // 2. 验证fromAddress是全零地址
-        if (!"0x0000000000000000000000000000000000000000".equals(super.getFromAddress())) {
+        if (!isCoinbase(tx)) {
             return false;
         }
 
         // 3. 验证无输入
-        if (super.getUtxoInputs() != null && !super.getUtxoInputs().isEmpty()) {
+        if (tx.getUtxoInputs() != null && !tx.getUtxoInputs().isEmpty()) {
             return false;
         }
 
         // 4. 验证交易哈希正确
         String tempTxHash = CryptoUtil.sha256(
-                super.getFromAddress() + 
-                super.getToAddress() + 
-                super.getTimestamp() + 
-                (super.getMemo().contains("block ") ? Long.parseLong(super.getMemo().split(" ")[3]) : 0) +
-                super.getUtxoOutputs().toString() + 
-                super.getMemo()
+                tx.getFromAddress() +
+                tx.getToAddress() +
+                tx.getTimestamp() +
+                (tx.getMemo().contains("block ") ? Long.parseLong(tx.getMemo().split(" ")[3]) : 0) +
+                tx.getUtxoOutputs().toString() +
+                tx.getMemo()
         );
-        if (!tempTxHash.equals(super.getTxHash())) {
-            return false;
-        }
+        return tempTxHash.equals(tx.getTxHash());
+    }
 
-        return true;
+    // Coinbase交易无输入，与输入金额的查询方式无关
+    @Override
+    public boolean verify(BiFunction<String, Integer, BigInteger> utxoAmount) {
+        return verify();
     }
-}
\ No newline at end of file
+}
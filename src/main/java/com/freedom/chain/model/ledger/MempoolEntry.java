@@ -0,0 +1,132 @@
+package com.freedom.chain.model.ledger;
+
+import com.alibaba.fastjson2.JSON;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @description: 交易池条目：待确认交易及其入池时计算的排序字段
+ * 序列化大小、手续费、费率只在入池时计算一次，排序与打包直接读取基本类型字段，不再序列化交易或做 BigDecimal 除法
+ * 池内父子关系与祖先/后代统计（含自身）由 Mempool 在持锁时维护
+ * @author: freedom
+ * @create: 2025-11-25
+ **/
+@Getter
+public class MempoolEntry {
+
+    /**
+     * 每个条目在各索引（哈希表、跳表、输出点索引、父子集合）中的固定开销估算（字节）
+     */
+    private static final long ENTRY_OVERHEAD = 1024;
+
+    /**
+     * 反序列化后的交易对象相对JSON大小的膨胀系数估算
+     */
+    private static final long OBJECT_EXPANSION = 2;
+
+    /**
+     * 待确认交易
+     */
+    private final PublicLedgerTransaction transaction;
+    /**
+     * 交易哈希
+     */
+    private final String txHash;
+    /**
+     * 序列化大小（字节）
+     */
+    private final long size;
+    /**
+     * 手续费（聪）
+     */
+    private final long fee;
+    /**
+     * 手续费率（聪/字节）
+     */
+    private final double feeRate;
+    /**
+     * 入池时间（毫秒）
+     */
+    private final long entryTime;
+    /**
+     * 占用内存估算（字节）
+     */
+    private final long usage;
+    /**
+     * 池中的父交易（本交易花费其输出）
+     */
+    private final Set<String> parents = new HashSet<>();
+    /**
+     * 池中的子交易（花费本交易的输出）
+     */
+    private final Set<String> children = new HashSet<>();
+    /**
+     * 池中祖先交易数、总大小、总手续费（均含自身）
+     */
+    private int ancestorCount = 1;
+    private long ancestorSize;
+    private long ancestorFee;
+    /**
+     * 池中后代交易数、总大小、总手续费（均含自身）
+     */
+    private int descendantCount = 1;
+    private long descendantSize;
+    private long descendantFee;
+
+    public MempoolEntry(PublicLedgerTransaction transaction, long entryTime) {
+        this.transaction = transaction;
+        this.txHash = transaction.getTxHash();
+        this.size = serializedSize(transaction);
+        this.fee = transaction.getFee() != null ? transaction.getFee().longValueExact() : 0;
+        this.feeRate = size > 0 ? (double) fee / size : 0;
+        this.entryTime = entryTime;
+        this.usage = ENTRY_OVERHEAD + OBJECT_EXPANSION * size;
+        this.ancestorSize = size;
+        this.ancestorFee = fee;
+        this.descendantSize = size;
+        this.descendantFee = fee;
+    }
+
+    /**
+     * 交易的序列化大小（字节），与区块中交易的JSON表示一致
+     */
+    public static long serializedSize(PublicLedgerTransaction transaction) {
+        return JSON.toJSONString(transaction).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * 祖先包费率：祖先（含自身）总手续费 / 总大小，子交易可为低费率的父交易补足手续费（CPFP）
+     */
+    public double getAncestorFeeRate() {
+        return ancestorSize > 0 ? (double) ancestorFee / ancestorSize : 0;
+    }
+
+    /**
+     * 后代包得分：自身费率与后代包（含自身）费率中的较大者，交易池超限时先驱逐得分最低的交易及其后代
+     */
+    public double getDescendantScore() {
+        double descendantFeeRate = descendantSize > 0 ? (double) descendantFee / descendantSize : 0;
+        return Math.max(feeRate, descendantFeeRate);
+    }
+
+    /**
+     * 祖先集合变化时累加（移除祖先时传负值）
+     */
+    public void addAncestorState(int count, long size, long fee) {
+        this.ancestorCount += count;
+        this.ancestorSize += size;
+        this.ancestorFee += fee;
+    }
+
+    /**
+     * 后代集合变化时累加（移除后代时传负值）
+     */
+    public void addDescendantState(int count, long size, long fee) {
+        this.descendantCount += count;
+        this.descendantSize += size;
+        this.descendantFee += fee;
+    }
+}
@@ -3,6 +3,7 @@ package com.freedom.chain.model.ledger;
 import com.freedom.chain.enumst.TransactionStatus;
 import com.freedom.chain.utils.CryptoUtil;
 import com.freedom.chain.utils.LedgerUtil;
+import com.freedom.chain.utils.SignatureCache;
 import com.freedom.chain.utils.SignatureUtil;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +11,8 @@ import lombok.extern.slf4j.Slf4j;
 import java.math.BigInteger;
 import java.security.PrivateKey;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 
@@ -109,11 +112,19 @@ public class PublicLedgerTransaction {
      * @return:
      **/
     public void calculateFee() {
+        calculateFee(LedgerUtil::getUtxoAmount);
+    }
+
+    /**
+     * @description: 计算交易手续费，输入金额由 utxoAmount 查询（可同时查询账本与交易池中未确认交易的输出）
+     * @author: freedom
+     * @date: 2025/11/26 10:10
+     * @param: [utxoAmount] (prevTxHash, prevOutIndex) -> 金额，不存在时返回0
+     * @return: void
+     **/
+    public void calculateFee(BiFunction<String, Integer, BigInteger> utxoAmount) {
         BigInteger totalInput = utxoInputs.stream()
-                .map(input -> {
-                    // 从账本中查询prevTxHash对应的UTXO金额（实际需遍历区块）
-                    return LedgerUtil.getUtxoAmount(input.getPrevTxHash(), input.getPrevOutIndex());
-                })
+                .map(input -> utxoAmount.apply(input.getPrevTxHash(), input.getPrevOutIndex()))
                 .reduce(BigInteger.ZERO, BigInteger::add);
 
         BigInteger totalOutput = utxoOutputs.stream()
@@ -137,8 +148,7 @@ public class PublicLedgerTransaction {
      **/
     public void sign(PrivateKey privateKey) {
         // 对交易哈希签名（减少签名数据量，提高验证效率）
-        byte[] hashBytes = CryptoUtil.sha256Bytes(txHash.getBytes());
-        this.signature = SignatureUtil.ecdsaSign(hashBytes, privateKey); // 自定义ECDSA工具类
+        this.signature = SignatureUtil.ecdsaSign(signingData(), privateKey); // 自定义ECDSA工具类
     }
 
 
@@ -150,7 +160,39 @@ public class PublicLedgerTransaction {
      * @return:
      **/
     public boolean verify() {
+        return verify(LedgerUtil::getUtxoAmount);
+    }
+
+    /**
+     * @description: 交易验证，输入金额由 utxoAmount 查询（花费交易池中未确认交易的输出时使用）
+     * @author: freedom
+     * @date: 2025/11/26 10:10
+     * @param: [utxoAmount] (prevTxHash, prevOutIndex) -> 金额，不存在时返回0
+     * @return: boolean
+     **/
+    public boolean verify(BiFunction<String, Integer, BigInteger> utxoAmount) {
         // ① 验证交易哈希未被篡改
+        if (!verifyHash()) {
+            return false;
+        }
+
+        // ② 验证签名合法（用fromAddress对应的公钥验证）
+        if (!verifySignature()) {
+            return false;
+        }
+
+        // ③④ 验证输入与手续费
+        return verifyInputs(utxoAmount);
+    }
+
+    /**
+     * @description: 按核心字段重新计算交易哈希，验证交易内容未被篡改
+     * @author: freedom
+     * @date: 2025/11/27 10:30
+     * @param: []
+     * @return: boolean
+     **/
+    public boolean verifyHash() {
         String tempTxHash = CryptoUtil.sha256(version +
                 fromAddress +
                 toAddress +
@@ -159,26 +201,62 @@ public class PublicLedgerTransaction {
                 memo +
                 utxoInputs.stream().map(UtxoInput::toHashString).collect(Collectors.joining(",")) +
                 utxoOutputs.stream().map(UtxoOutput::toString).collect(Collectors.joining(",")));
-        if (!tempTxHash.equals(txHash)) {
-            return false;
-        }
+        return tempTxHash.equals(txHash);
+    }
 
-        // ② 验证签名合法（用fromAddress对应的公钥验证）
-        byte[] hashBytes = CryptoUtil.sha256Bytes(txHash.getBytes());
-        if (!SignatureUtil.ecdsaVerify(hashBytes, signature, publicKey)) {
-            return false;
-        }
+    /**
+     * @description: 用交易中的公钥验证对交易哈希的ECDSA签名，验证通过的结果记入 SignatureCache，同一交易再次验证时跳过曲线运算
+     * @author: freedom
+     * @date: 2025/11/27 18:00
+     * @param: []
+     * @return: boolean
+     **/
+    public boolean verifySignature() {
+        return SignatureCache.verify(txHash, signature, publicKey,
+                () -> SignatureUtil.ecdsaVerify(signingData(), signature, publicKey));
+    }
+
+    /**
+     * @description: 被签名的数据：交易哈希字符串的SHA-256
+     * @author: freedom
+     * @date: 2025/11/28 16:00
+     * @param: []
+     * @return: byte[]
+     **/
+    public byte[] signingData() {
+        return CryptoUtil.sha256Bytes(txHash.getBytes());
+    }
 
+    /**
+     * @description: 验证所有输入UTXO未被花费且手续费合法（不含签名验证，签名已验证过的交易重新入池时使用）
+     * @author: freedom
+     * @date: 2025/11/27 10:30
+     * @param: [utxoAmount] (prevTxHash, prevOutIndex) -> 金额，不存在时返回0
+     * @return: boolean
+     **/
+    public boolean verifyInputs(BiFunction<String, Integer, BigInteger> utxoAmount) {
+        return verifyInputs(utxoAmount, LedgerUtil::isUtxoSpent);
+    }
+
+    /**
+     * @description: 验证所有输入UTXO未被花费且手续费合法，花费状态由 utxoSpent 查询（按新链回放UTXO集合时使用）
+     * @author: freedom
+     * @date: 2025/11/29 10:00
+     * @param: [utxoAmount, utxoSpent] (prevTxHash, prevOutIndex) -> 金额 / 是否已花费
+     * @return: boolean
+     **/
+    public boolean verifyInputs(BiFunction<String, Integer, BigInteger> utxoAmount,
+                                BiPredicate<String, Integer> utxoSpent) {
         // ③ 验证所有输入UTXO未被花费（查询账本）
         for (UtxoInput utxoInput : utxoInputs) {
-            if (LedgerUtil.isUtxoSpent(utxoInput.getPrevTxHash(), utxoInput.getPrevOutIndex())) {
+            if (utxoSpent.test(utxoInput.getPrevTxHash(), utxoInput.getPrevOutIndex())) {
                 log.warn("UTXO 被花费, 验证失败,hash:{}",txHash);
                 return false;
             }
         }
 
         // ④ 验证手续费合法（输入≥输出）
-        calculateFee();
+        calculateFee(utxoAmount);
         return fee.compareTo(BigInteger.ZERO) >= 0;
     }
 }
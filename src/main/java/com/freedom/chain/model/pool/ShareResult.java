@@ -0,0 +1,39 @@
+package com.freedom.chain.model.pool;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @description: 份额校验结果
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+@Getter
+@Setter
+public class ShareResult implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /**
+     * 工作单元编号
+     */
+    private long jobId;
+    /**
+     * 提交的nonce
+     */
+    private int nonce;
+    /**
+     * 份额是否被接受
+     */
+    private boolean accepted;
+    /**
+     * 是否同时满足区块目标值并成功出块
+     */
+    private boolean blockFound;
+    /**
+     * 拒绝原因（unknown-job / stale / out-of-range / unit-full / duplicate / low-difficulty）
+     */
+    private String reason;
+}
@@ -0,0 +1,35 @@
+package com.freedom.chain.model.pool;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @description: worker提交的份额（节点按工作单元重新计算哈希校验，不信任worker上报的哈希）
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+@Getter
+@Setter
+public class ShareSubmit implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /**
+     * 工作单元编号
+     */
+    private long jobId;
+    /**
+     * 命中份额目标值的nonce
+     */
+    private int nonce;
+
+    public ShareSubmit() {
+    }
+
+    public ShareSubmit(long jobId, int nonce) {
+        this.jobId = jobId;
+        this.nonce = nonce;
+    }
+}
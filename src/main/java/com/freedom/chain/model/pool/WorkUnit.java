@@ -0,0 +1,61 @@
+package com.freedom.chain.model.pool;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * @description: 矿池下发给worker的工作单元：区块头模板 + nonce区间
+ * 每个单元使用独立的额外nonce（写入Coinbase交易，默克尔根各不相同），不同worker的搜索空间互不重叠
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+@Getter
+@Setter
+public class WorkUnit implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /**
+     * 工作单元编号，提交份额时回传
+     */
+    private long jobId;
+    /**
+     * 待挖区块高度
+     */
+    private long height;
+    /**
+     * 前一个区块的hash值
+     */
+    private String previousHash;
+    /**
+     * 交易默克尔根（含本单元的Coinbase交易）
+     */
+    private String merkleRoot;
+    /**
+     * 区块时间戳
+     */
+    private long timestamp;
+    /**
+     * 区块目标值（紧凑格式）
+     */
+    private int bits;
+    /**
+     * 份额目标值（紧凑格式），哈希满足该值即可提交份额
+     */
+    private int shareBits;
+    /**
+     * Coinbase交易中的额外nonce
+     */
+    private long extraNonce;
+    /**
+     * nonce搜索区间（含两端，按无符号32位）
+     */
+    private long nonceStart;
+    private long nonceEnd;
+    /**
+     * 链尾已变化，worker应立即丢弃之前的工作单元
+     */
+    private boolean cleanJobs;
+}
@@ -0,0 +1,223 @@
+package com.freedom.chain.service;
+
+import com.freedom.chain.model.ledger.MempoolEntry;
+import com.freedom.chain.model.ledger.PublicLedgerTransaction;
+import com.freedom.chain.model.ledger.UtxoInput;
+import com.freedom.chain.utils.BlockConstant;
+import com.freedom.chain.utils.LedgerUtil;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * @description: 区块组装：按祖先包费率贪心选择交易（CPFP）
+ * 每次取祖先包费率最高的交易，连同尚未入块的池中祖先一起打包（父交易在前）；
+ * 包入块后，其后代的祖先包扣除已入块部分，按调整后的费率重新参与比较
+ * 低费率父交易可由高费率子交易带动入块，子交易也不会在父交易之前或缺少父交易时被选中
+ * @author: freedom
+ * @create: 2025-11-26
+ **/
+@Component
+@Slf4j
+public class BlockAssembler {
+
+    /**
+     * 区块接近装满后，连续放不下的包超过该数量即停止选择
+     */
+    private static final int MAX_CONSECUTIVE_FAILURES = 1000;
+
+    /**
+     * 剩余空间小于该值视为接近装满（字节）
+     */
+    private static final long BLOCK_FULL_MARGIN = 4000;
+
+    /**
+     * 调整后的包费率从高到低
+     */
+    private static final Comparator<ModifiedEntry> MODIFIED_ORDER = (a, b) -> {
+        int cmp = Double.compare(b.feeRate(), a.feeRate());
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Long.compare(a.entry.getEntryTime(), b.entry.getEntryTime());
+        return cmp != 0 ? cmp : a.entry.getTxHash().compareTo(b.entry.getTxHash());
+    };
+
+    @Resource
+    private Mempool mempool;
+
+    /**
+     * @description: 从交易池选择交易（不含Coinbase），按包内拓扑顺序排列
+     * @author: freedom
+     * @date: 2025/11/26 10:10
+     * @param: [reservedSize] 已占用的区块大小（Coinbase）
+     * @return: java.util.List<com.freedom.chain.model.ledger.PublicLedgerTransaction>
+     **/
+    public List<PublicLedgerTransaction> assemble(long reservedSize) {
+        List<PublicLedgerTransaction> selected = new ArrayList<>();
+        long blockSize = reservedSize;
+        long totalFee = 0;
+        int packages = 0;
+        // 交易池锁保证组装期间父子关系与祖先统计不变
+        synchronized (mempool) {
+            Set<MempoolEntry> inBlock = new HashSet<>();
+            Set<MempoolEntry> failed = new HashSet<>();
+            Map<MempoolEntry, ModifiedEntry> modified = new HashMap<>();
+            TreeSet<ModifiedEntry> modifiedOrder = new TreeSet<>(MODIFIED_ORDER);
+            Iterator<MempoolEntry> iterator = mempool.byAncestorFeeRate().iterator();
+            MempoolEntry next = null;
+            int consecutiveFailures = 0;
+
+            while (true) {
+                // 1. 跳过已入块、已失败或祖先包已调整（以调整后的费率为准）的交易
+                while (next == null || inBlock.contains(next) || failed.contains(next) || modified.containsKey(next)) {
+                    next = iterator.hasNext() ? iterator.next() : null;
+                    if (next == null) {
+                        break;
+                    }
+                }
+                // 2. 在原始祖先包与调整后的包中取费率更高者（已入块或已失败的调整包直接丢弃）
+                while (!modifiedOrder.isEmpty() && (inBlock.contains(modifiedOrder.first().entry)
+                        || failed.contains(modifiedOrder.first().entry))) {
+                    modified.remove(modifiedOrder.pollFirst().entry);
+                }
+                ModifiedEntry best = modifiedOrder.isEmpty() ? null : modifiedOrder.first();
+                MempoolEntry candidate;
+                long packageSize;
+                if (next != null && (best == null || next.getAncestorFeeRate() >= best.feeRate())) {
+                    candidate = next;
+                    packageSize = next.getAncestorSize();
+                    next = null;
+                } else if (best != null) {
+                    candidate = best.entry;
+                    packageSize = best.size;
+                    modifiedOrder.pollFirst();
+                    modified.remove(candidate);
+                } else {
+                    break;
+                }
+
+                // 3. 放不下：接近装满时连续失败过多则停止
+                if (blockSize + packageSize > BlockConstant.MAX_BLOCK_SIZE) {
+                    failed.add(candidate);
+                    consecutiveFailures++;
+                    if (consecutiveFailures > MAX_CONSECUTIVE_FAILURES
+                            && blockSize > BlockConstant.MAX_BLOCK_SIZE - BLOCK_FULL_MARGIN) {
+                        break;
+                    }
+                    continue;
+                }
+
+                // 4. 包 = 尚未入块的祖先 + 自身，按祖先数排序保证父交易在前
+                List<MempoolEntry> pkg = new ArrayList<>();
+                for (MempoolEntry ancestor : mempool.ancestorsOf(candidate)) {
+                    if (!inBlock.contains(ancestor)) {
+                        pkg.add(ancestor);
+                    }
+                }
+                pkg.add(candidate);
+                if (!validatePackage(pkg, failed)) {
+                    failed.add(candidate);
+                    continue;
+                }
+                pkg.sort(Comparator.comparingInt(MempoolEntry::getAncestorCount));
+
+                // 5. 入块（包内交易不再作为调整包参与比较），并调整包内交易的后代的祖先包
+                for (MempoolEntry entry : pkg) {
+                    selected.add(entry.getTransaction());
+                    inBlock.add(entry);
+                    blockSize += entry.getSize();
+                    totalFee += entry.getFee();
+                    ModifiedEntry mod = modified.remove(entry);
+                    if (mod != null) {
+                        modifiedOrder.remove(mod);
+                    }
+                }
+                for (MempoolEntry entry : pkg) {
+                    for (MempoolEntry descendant : mempool.descendantsOf(entry)) {
+                        if (inBlock.contains(descendant)) {
+                            continue;
+                        }
+                        ModifiedEntry mod = modified.get(descendant);
+                        if (mod == null) {
+                            mod = new ModifiedEntry(descendant);
+                            modified.put(descendant, mod);
+                        } else {
+                            modifiedOrder.remove(mod);
+                        }
+                        mod.size -= entry.getSize();
+                        mod.fee -= entry.getFee();
+                        modifiedOrder.add(mod);
+                    }
+                }
+                packages++;
+                consecutiveFailures = 0;
+            }
+        }
+        log.info("区块组装完成，交易数: {}，交易包: {}，区块大小: {} 字节，手续费合计: {} 聪",
+                selected.size(), packages, blockSize, totalFee);
+        return selected;
+    }
+
+    /**
+     * 包内交易逐笔验证，无效的交易记入 failed，其后代之后不会再被选中
+     */
+    private boolean validatePackage(List<MempoolEntry> pkg, Set<MempoolEntry> failed) {
+        for (MempoolEntry entry : pkg) {
+            if (failed.contains(entry)) {
+                return false;
+            }
+            if (!isValid(entry)) {
+                failed.add(entry);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 检查输入仍未被花费：签名与手续费已在入池时验证，这里只确认引用的输出存在于账本或池中父交易，且未被账本花费
+     */
+    private boolean isValid(MempoolEntry entry) {
+        PublicLedgerTransaction tx = entry.getTransaction();
+        for (UtxoInput input : tx.getUtxoInputs()) {
+            if (LedgerUtil.isUtxoSpent(input.getPrevTxHash(), input.getPrevOutIndex())
+                    || mempool.getUtxoAmount(input.getPrevTxHash(), input.getPrevOutIndex()).signum() == 0) {
+                log.warn("交易的输入已被花费或不存在: {}", tx.getTxHash());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @description: 部分祖先已入块后调整的包（剩余祖先 + 自身）
+     * @author: freedom
+     * @date: 2025/11/26 10:10
+     **/
+    private static class ModifiedEntry {
+        final MempoolEntry entry;
+        long size;
+        long fee;
+
+        ModifiedEntry(MempoolEntry entry) {
+            this.entry = entry;
+            this.size = entry.getAncestorSize();
+            this.fee = entry.getAncestorFee();
+        }
+
+        double feeRate() {
+            return size > 0 ? (double) fee / size : 0;
+        }
+    }
+}
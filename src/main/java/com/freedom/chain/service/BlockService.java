@@ -3,12 +3,13 @@ package com.freedom.chain.service;
 import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
-import com.alibaba.fastjson2.TypeReference;
 import com.freedom.chain.enumst.ResultCodeEnum;
 import com.freedom.chain.enumst.TransactionStatus;
 import com.freedom.chain.error.BusinessException;
 import com.freedom.chain.model.block.Block;
 import com.freedom.chain.model.block.BlockCache;
+import com.freedom.chain.model.block.BlockHeaderTemplate;
+import com.freedom.chain.model.block.ChainTipEvent;
 import com.freedom.chain.model.ledger.CoinbaseTransaction;
 import com.freedom.chain.model.ledger.PublicLedgerTransaction;
 import com.freedom.chain.po.SerializableKeyPair;
@@ -18,6 +19,7 @@ import com.google.common.collect.Maps;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.java_websocket.WebSocket;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ResourceUtils;
 
@@ -27,9 +29,15 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.KeyPair;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
@@ -44,6 +52,24 @@ public class BlockService {
     @Resource
     BlockCache blockCache;
 
+    @Resource
+    ApplicationEventPublisher eventPublisher;
+
+    @Resource
+    Mempool mempool;
+
+    @Resource
+    BlockValidator blockValidator;
+
+    @Resource
+    WalletKeyStore walletKeyStore;
+
+    /**
+     * 链锁：区块链与UTXO集合的所有修改（创世、本地出块与P2P收到的区块、替换区块链）串行执行，
+     * 验证、追加、更新UTXO与清理交易池在同一次加锁内完成
+     */
+    private final ReentrantLock chainLock = new ReentrantLock();
+
     /**
      * @description: 创建创世区块
      * @author: freedom
@@ -52,6 +78,7 @@ public class BlockService {
      * @return: void
      **/
     public void createGenesisBlock() {
+        chainLock.lock();
         try {
             // 添加检查，确保只有在区块链为空时才创建创世区块
             if (!blockCache.getBlockChain().isEmpty()) {
@@ -66,27 +93,24 @@ public class BlockService {
             //封装业务数据
             List<PublicLedgerTransaction> tsaList = generateGenesisTransactions(blockHeight);
             genesisBlock.setTransactions(tsaList);
+            genesisBlock.setMerkleRoot(MerkleUtil.computeRoot(tsaList));
+            genesisBlock.setBits(getNextBits(blockCache.getBlockChain(), null));
             //设置创世区块的hash值
-            genesisBlock.setHash(calculateHash(genesisBlock.getPreviousHash(),genesisBlock.getTimestamp(),tsaList,1));
+            genesisBlock.setHash(calculateHeaderHash(genesisBlock.getPreviousHash(), genesisBlock.getMerkleRoot(),
+                    genesisBlock.getTimestamp(), genesisBlock.getBits(), genesisBlock.getNonce()));
             //添加到已打包保存的业务数据集合中
             blockCache.getPackedTransactions().addAll(tsaList);
             //添加到区块链中
             blockCache.getBlockChain().add(genesisBlock);
+            publishChainTip(genesisBlock);
             log.info("创世区块生成成功: {}", JSON.toJSONString(genesisBlock));
-            List<Map<String,Block>> blockDatas = Lists.newArrayList();
-            Map<String,Block> map = Maps.newHashMap();
-            map.put(genesisBlock.getHash(),genesisBlock);
-            blockDatas.add(map);
             //保存到本地
-            File file = ResourceUtils.getFile("file/block.json");
-            try (FileWriter fileWriter = new FileWriter(file)){
-                fileWriter.write(JSON.toJSONString(blockDatas));
-                JSON.toJSONString(genesisBlock);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+            saveBlockToFile(genesisBlock);
+            LedgerUtil.saveUtxoSnapshot(genesisBlock.getHash());
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            chainLock.unlock();
         }
     }
 
@@ -95,81 +119,107 @@ public class BlockService {
      * @param nonce
      * @param previousHash
      * @param hash
+     * @param merkleRoot
+     * @param bits
      * @param blockTxs
      * @return
      */
-    public Block createNewBlock(int nonce, String previousHash, String hash,long start, List<PublicLedgerTransaction> blockTxs) {
-        Block block = new Block();
-        block.setIndex(blockCache.getBlockChain().size() + 1);
-        //时间戳
-        block.setTimestamp(start);
-        block.setTransactions(blockTxs);
-        //工作量证明，计算正确hash值的次数
-        block.setNonce(nonce);
-        //上一区块的哈希
-        block.setPreviousHash(previousHash);
-        //当前区块的哈希
-        block.setHash(hash);
-        if (addBlock(block)) {
-            return block;
+    public Block createNewBlock(int nonce, String previousHash, String hash, long start, String merkleRoot,
+                                int bits, List<PublicLedgerTransaction> blockTxs) {
+        // 区块高度按当前链长计算，与连接区块在同一次加锁内完成
+        chainLock.lock();
+        try {
+            Block block = new Block();
+            block.setIndex(blockCache.getBlockChain().size() + 1);
+            //时间戳
+            block.setTimestamp(start);
+            block.setTransactions(blockTxs);
+            //交易默克尔根与目标值，和nonce一起构成区块头
+            block.setMerkleRoot(merkleRoot);
+            block.setBits(bits);
+            //工作量证明，计算正确hash值的次数
+            block.setNonce(nonce);
+            //上一区块的哈希
+            block.setPreviousHash(previousHash);
+            //当前区块的哈希
+            block.setHash(hash);
+            if (addBlock(block)) {
+                return block;
+            }
+            return null;
+        } finally {
+            chainLock.unlock();
         }
-        return null;
     }
 
     /**
-     * 添加新区块到当前节点的区块链中
+     * 添加新区块到当前节点的区块链中（本地出块与P2P收到的区块共用，持有链锁执行）
      *
      * @param newBlock
      */
     public boolean addBlock(Block newBlock) {
-        //先对新区块的合法性进行校验
-        if (isValidNewBlock(newBlock, blockCache.getLatestBlock())) {
-            blockCache.getBlockChain().add(newBlock);
-            // 新区块的业务数据需要加入到已打包的交易集合里去
-            blockCache.getPackedTransactions().addAll(newBlock.getTransactions());
-            
-            // 持久化到本地文件
-            saveBlockToFile(newBlock);
-            
-            return true;
+        chainLock.lock();
+        try {
+            //先对新区块的合法性进行校验：区块头，再验证交易（哈希与签名并行，UTXO按顺序）
+            if (isValidNewBlock(newBlock, blockCache.getLatestBlock()) && blockValidator.validateTransactions(newBlock)) {
+                blockCache.getBlockChain().add(newBlock);
+                // 更新UTXO（本地出块与P2P收到的区块一致），先内存，后文件：快照在区块追加到存储之后保存
+                LedgerUtil.getUtxoSet().connectTransactions(newBlock.getTransactions());
+                // 新区块的业务数据需要加入到已打包的交易集合里去
+                blockCache.getPackedTransactions().addAll(newBlock.getTransactions());
+                // 已确认的交易及与之冲突的交易移出交易池（先于链尾事件，挖矿与矿池按新链尾重建模板时不会再选中）
+                mempool.removeForBlock(newBlock.getTransactions());
+                // 通知挖矿线程当前工作已过期
+                publishChainTip(newBlock);
+
+                // 持久化到本地文件：先追加区块，再保存以该区块为链尾的UTXO快照
+                saveBlockToFile(newBlock);
+                LedgerUtil.saveUtxoSnapshot(newBlock.getHash());
+
+                return true;
+            }
+            return false;
+        } finally {
+            chainLock.unlock();
         }
-        return false;
     }
-    
+
+    /**
+     * 链尾变化：递增链尾版本号并发布事件（挖矿线程以版本号判断工作是否过期）
+     * @param tip 新的链尾区块
+     */
+    private void publishChainTip(Block tip) {
+        long epoch = blockCache.getTipEpoch().incrementAndGet();
+        eventPublisher.publishEvent(new ChainTipEvent(tip, epoch));
+    }
+
     /**
-     * 将区块保存到本地文件
+     * 将区块追加到本地区块存储（只追加一条记录，不重写整条链）
      * @param block 要保存的区块
      */
     private void saveBlockToFile(Block block) {
         try {
-            File file = ResourceUtils.getFile("file/block.json");
-            
-            // 读取现有区块数据
-            List<Map<String, Block>> blockDatas = Lists.newArrayList();
-            if (file.exists() && file.length() > 0) {
-                String existingContent = new String(Files.readAllBytes(file.toPath()));
-                if (!existingContent.trim().isEmpty()) {
-                    blockDatas = JSON.parseObject(existingContent,
-                        new TypeReference<List<Map<String, Block>>>(){}.getType());
-                }
-            }
-            
-            // 添加新区块
-            Map<String, Block> map = Maps.newHashMap();
-            map.put(block.getHash(), block);
-            blockDatas.add(map);
-            
-            // 写入文件
-            try (FileWriter fileWriter = new FileWriter(file)) {
-                fileWriter.write(JSON.toJSONString(blockDatas));
-                log.info("区块 #{} 已保存到本地文件: {}", block.getIndex(), block.getHash());
-            }
+            blockCache.getBlockStore().append(block);
+            log.info("区块 #{} 已保存到本地文件: {}", block.getIndex(), block.getHash());
         } catch (IOException e) {
             log.error("保存区块到文件失败", e);
             throw new BusinessException(ResultCodeEnum.ERROR, "保存区块到文件失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 用替换后的整条链重写本地区块存储
+     * @param blocks 新的区块链
+     */
+    private void saveChainToFile(List<Block> blocks) {
+        try {
+            blockCache.getBlockStore().rewrite(blocks);
+        } catch (IOException e) {
+            log.error("保存区块链到文件失败", e);
+            throw new BusinessException(ResultCodeEnum.ERROR, "保存区块链到文件失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 验证新区块是否有效
      *
@@ -178,6 +228,18 @@ public class BlockService {
      * @return
      */
     public boolean isValidNewBlock(Block newBlock, Block previousBlock) {
+        return isValidNewBlock(newBlock, previousBlock, blockCache.getBlockChain());
+    }
+
+    /**
+     * 验证新区块是否有效
+     *
+     * @param newBlock
+     * @param previousBlock
+     * @param chain previousBlock 所在的链，用于计算新区块应满足的目标值
+     * @return
+     */
+    public boolean isValidNewBlock(Block newBlock, Block previousBlock, List<Block> chain) {
         // 处理创世区块的情况（previousBlock 为 null）
         if (previousBlock == null) {
             // 创世区块的 previousHash 应该为空或特定值
@@ -185,28 +247,186 @@ public class BlockService {
                 log.error("创世区块的前一个区块hash应该是空值");
                 return false;
             }
-            // 验证创世区块hash值的正确性
-            String hash = calculateHash(newBlock.getPreviousHash(), newBlock.getTimestamp(),
-                    newBlock.getTransactions(), newBlock.getNonce());
-            if (!hash.equals(newBlock.getHash())) {
-                log.info("创世区块的hash无效: {}, {}", hash, newBlock.getHash());
+            if (newBlock.getIndex() != 1) {
+                log.error("创世区块高度应该是1，实际为 {}", newBlock.getIndex());
                 return false;
             }
-            // 验证hash是否满足难度要求
-            return isValidHash(newBlock.getHash());
+            // 验证创世区块hash值的正确性及难度要求
+            return isValidBlockHash(newBlock, null, getNextBits(chain, null));
         }
         if (!previousBlock.getHash().equals(newBlock.getPreviousHash())) {
             log.info("新区块的前一个区块hash验证不通过");
             return false;
+        }
+        // 难度调整的时机与窗口起点都按区块高度确定，高度必须与前一区块连续
+        if (newBlock.getIndex() != previousBlock.getIndex() + 1) {
+            log.info("新区块高度 {} 与前一区块高度 {} 不连续", newBlock.getIndex(), previousBlock.getIndex());
+            return false;
+        }
+        if (!isValidTimestamp(newBlock, previousBlock, chain)) {
+            return false;
         } else {
-            // 验证新区块hash值的正确性
-            String hash = calculateHash(newBlock.getPreviousHash(),newBlock.getTimestamp(), newBlock.getTransactions(), newBlock.getNonce());
-            log.info("验证新区块hash值的正确性hash: {}, newBlock info:{}" ,hash,JSON.toJSONString(newBlock));
-            if (!hash.equals(newBlock.getHash())) {
+            // 验证新区块hash值的正确性及难度要求
+            return isValidBlockHash(newBlock, previousBlock, getNextBits(chain, previousBlock));
+        }
+    }
+
+    /**
+     * 验证区块hash：新格式区块先校验默克尔根，再对80字节区块头做哈希；旧格式区块（无默克尔根）按完整交易JSON计算
+     * 旧格式区块只接受从本地文件加载（含从 block.json 迁移）的区块，且不能跟在新格式区块之后，
+     * 否则对等节点省略默克尔根即可绕过目标值检查
+     *
+     * @param block
+     * @param previousBlock 前一区块，创世区块为null
+     * @param expectedBits 该高度应满足的目标值
+     * @return
+     */
+    private boolean isValidBlockHash(Block block, Block previousBlock, int expectedBits) {
+        if (isLegacyBlock(block)) {
+            if (previousBlock != null && !isLegacyBlock(previousBlock)) {
+                log.info("区块 #{} 为旧格式，不能跟在新格式区块之后", block.getIndex());
+                return false;
+            }
+            if (!blockCache.getLegacyBlockHashes().contains(block.getHash())) {
+                log.info("区块 #{} 为旧格式，且不是本地已有的区块: {}", block.getIndex(), block.getHash());
                 return false;
             }
-            return isValidHash(newBlock.getHash());
+            String hash = calculateHash(block.getPreviousHash(), block.getTimestamp(), block.getTransactions(), block.getNonce());
+            if (!hash.equals(block.getHash())) {
+                log.info("区块 #{} 的hash无效: {}, {}", block.getIndex(), hash, block.getHash());
+                return false;
+            }
+            return isValidHash(block.getHash());
+        }
+        String merkleRoot = MerkleUtil.computeRoot(block.getTransactions());
+        if (!merkleRoot.equals(block.getMerkleRoot())) {
+            log.info("区块 #{} 的默克尔根无效: {}, {}", block.getIndex(), merkleRoot, block.getMerkleRoot());
+            return false;
+        }
+        if (block.getBits() != expectedBits || !TargetUtil.isValidBits(block.getBits())) {
+            log.info("区块 #{} 的目标值不符合要求: {}, 期望: {}", block.getIndex(),
+                    Integer.toHexString(block.getBits()), Integer.toHexString(expectedBits));
+            return false;
+        }
+        String hash = calculateHeaderHash(block.getPreviousHash(), block.getMerkleRoot(), block.getTimestamp(),
+                block.getBits(), block.getNonce());
+        if (!hash.equals(block.getHash())) {
+            log.info("区块 #{} 的hash无效: {}, {}", block.getIndex(), hash, block.getHash());
+            return false;
+        }
+        // 哈希按大端无符号整数不大于目标值
+        return CryptoUtil.meetsTarget(CryptoUtil.hexToBytes(hash), TargetUtil.bitsToTargetBytes(block.getBits()));
+    }
+
+    /**
+     * 计算当前链尾之后的新区块应满足的目标值
+     *
+     * @return
+     */
+    public int getNextBits() {
+        return getNextBits(blockCache.getBlockChain(), blockCache.getLatestBlock());
+    }
+
+    /**
+     * 计算 previousBlock 之后的新区块应满足的目标值（紧凑格式）
+     * 每 DIFFICULTY_ADJUST_WINDOW 个区块按窗口内实际耗时与期望耗时的比例等比例调整一次，其余高度沿用上一区块的目标值；
+     * 创世区块或前一区块为旧格式区块（只可能是链首从本地文件加载的区块）时，使用配置的初始难度换算出的目标值；
+     * 出现新格式区块之后不再回到初始目标值
+     *
+     * @param chain
+     * @param previousBlock
+     * @return
+     */
+    public int getNextBits(List<Block> chain, Block previousBlock) {
+        int initialBits = TargetUtil.difficultyToBits(getDifficulty());
+        if (previousBlock == null || isLegacyBlock(previousBlock)) {
+            return initialBits;
+        }
+        int window = BlockConstant.DIFFICULTY_ADJUST_WINDOW;
+        if (previousBlock.getIndex() % window != 0) {
+            return previousBlock.getBits();
+        }
+        Block windowStart = findBlockByIndex(chain, previousBlock.getIndex() - window);
+        if (windowStart == null) {
+            return previousBlock.getBits();
+        }
+        long actualTimespan = previousBlock.getTimestamp() - windowStart.getTimestamp();
+        int nextBits = TargetUtil.retarget(previousBlock.getBits(), actualTimespan,
+                BlockConstant.EXPECTED_BLOCK_TIME_MS * window);
+        if (nextBits != previousBlock.getBits()) {
+            log.info("目标值调整: {} -> {} (窗口实际耗时: {}ms)", Integer.toHexString(previousBlock.getBits()),
+                    Integer.toHexString(nextBits), actualTimespan);
         }
+        return nextBits;
+    }
+
+    /**
+     * 验证区块时间戳：必须大于前 MEDIAN_TIME_SPAN 个区块时间戳的中位数，且不能超前本地时间 MAX_FUTURE_BLOCK_TIME_MS 以上，
+     * 否则可以伪造窗口耗时操纵目标值调整；旧格式区块只来自本地文件，不做检查
+     *
+     * @param newBlock
+     * @param previousBlock
+     * @param chain
+     * @return
+     */
+    private boolean isValidTimestamp(Block newBlock, Block previousBlock, List<Block> chain) {
+        if (isLegacyBlock(newBlock)) {
+            return true;
+        }
+        long maxTimestamp = System.currentTimeMillis() + BlockConstant.MAX_FUTURE_BLOCK_TIME_MS;
+        if (newBlock.getTimestamp() > maxTimestamp) {
+            log.info("区块 #{} 的时间戳 {} 超前本地时间过多", newBlock.getIndex(), newBlock.getTimestamp());
+            return false;
+        }
+        long medianTimePast = getMedianTimePast(chain, previousBlock);
+        if (newBlock.getTimestamp() <= medianTimePast) {
+            log.info("区块 #{} 的时间戳 {} 不大于前 {} 个区块时间戳的中位数 {}", newBlock.getIndex(),
+                    newBlock.getTimestamp(), BlockConstant.MEDIAN_TIME_SPAN, medianTimePast);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 以 previousBlock 结尾的最多 MEDIAN_TIME_SPAN 个区块时间戳的中位数
+     *
+     * @param chain
+     * @param previousBlock
+     * @return
+     */
+    public long getMedianTimePast(List<Block> chain, Block previousBlock) {
+        List<Long> timestamps = new ArrayList<>(BlockConstant.MEDIAN_TIME_SPAN);
+        timestamps.add(previousBlock.getTimestamp());
+        for (int i = 1; i < BlockConstant.MEDIAN_TIME_SPAN; i++) {
+            Block block = findBlockByIndex(chain, previousBlock.getIndex() - i);
+            if (block == null) {
+                break;
+            }
+            timestamps.add(block.getTimestamp());
+        }
+        Collections.sort(timestamps);
+        return timestamps.get(timestamps.size() / 2);
+    }
+
+    /**
+     * 旧格式区块：没有默克尔根，哈希按完整交易JSON计算，也没有目标值
+     */
+    private static boolean isLegacyBlock(Block block) {
+        return StrUtil.isEmpty(block.getMerkleRoot());
+    }
+
+    /**
+     * 按区块高度查找区块（区块高度从1开始，正常情况下与链中位置一一对应）
+     *
+     * @param chain
+     * @param index
+     * @return
+     */
+    private Block findBlockByIndex(List<Block> chain, int index) {
+        if (index >= 1 && index <= chain.size() && chain.get(index - 1).getIndex() == index) {
+            return chain.get(index - 1);
+        }
+        return chain.stream().filter(block -> block.getIndex() == index).findFirst().orElse(null);
     }
 
     /**
@@ -229,11 +449,15 @@ public class BlockService {
     public boolean isValidChain(List<Block> chain) {
         Block block = null;
         Block lastBlock = chain.get(0);
+        if (lastBlock.getIndex() != 1) {
+            log.info("区块链首个区块的高度应该是1，实际为 {}", lastBlock.getIndex());
+            return false;
+        }
         int currentIndex = 1;
         while (currentIndex < chain.size()) {
             block = chain.get(currentIndex);
 
-            if (!isValidNewBlock(block, lastBlock)) {
+            if (!isValidNewBlock(block, lastBlock, chain)) {
                 return false;
             }
 
@@ -244,28 +468,85 @@ public class BlockService {
     }
 
     /**
-     * 替换本地区块链
+     * 替换本地区块链：新链逐块验证交易并回放到新的UTXO集合，全部通过后与区块链一起换入（持有链锁执行），
+     * 被替换区块中未被新链包含的交易重新加入交易池
      *
      * @param newBlocks
      */
     public void replaceChain(List<Block> newBlocks) {
-        List<Block> localBlockChain = blockCache.getBlockChain();
-        List<PublicLedgerTransaction> localpackedTransactions = blockCache.getPackedTransactions();
-        if (isValidChain(newBlocks) && newBlocks.size() > localBlockChain.size()) {
-            localBlockChain = newBlocks;
+        chainLock.lock();
+        try {
+            List<Block> localBlockChain = blockCache.getBlockChain();
+            if (newBlocks.size() <= localBlockChain.size() || !isValidChain(newBlocks)) {
+                log.warn("接收的区块链无效");
+                return;
+            }
+            LedgerUtil.UtxoSet utxos = replayUtxos(newBlocks);
+            if (utxos == null) {
+                log.warn("接收的区块链包含无效交易");
+                return;
+            }
+            List<PublicLedgerTransaction> disconnected = disconnectedTransactions(localBlockChain, newBlocks);
             //替换已打包保存的业务数据集合
-            localpackedTransactions.clear();
-            localBlockChain.forEach(block -> {
-                localpackedTransactions.addAll(block.getTransactions());
-            });
-            blockCache.setBlockChain(localBlockChain);
-            blockCache.setPackedTransactions(localpackedTransactions);
-            log.info("替换后的本节点区块链：{}",JSON.toJSONString(blockCache.getBlockChain()));
-        } else {
-            log.warn("接收的区块链无效");
+            List<PublicLedgerTransaction> packedTransactions = new CopyOnWriteArrayList<>();
+            newBlocks.forEach(block -> packedTransactions.addAll(block.getTransactions()));
+            // 区块链与UTXO集合一起换入
+            blockCache.setBlockChain(new CopyOnWriteArrayList<>(newBlocks));
+            LedgerUtil.replaceUtxoSet(utxos);
+            blockCache.setPackedTransactions(packedTransactions);
+            // 按新的UTXO集合重建交易池（先于链尾事件，挖矿与矿池按新链尾重建模板时不会选中已失效的交易）
+            mempool.resubmitAfterReorg(disconnected);
+            publishChainTip(blockCache.getLatestBlock());
+            saveChainToFile(blockCache.getBlockChain());
+            LedgerUtil.saveUtxoSnapshot(blockCache.getLatestBlock().getHash());
+            log.info("区块链已替换，高度: {}，被替换区块中的交易 {} 笔", blockCache.getLatestBlock().getIndex(), disconnected.size());
+        } finally {
+            chainLock.unlock();
         }
     }
 
+    /**
+     * 从空的UTXO集合开始按顺序回放新链，每个区块连接前用回放到该处的集合验证交易；任一区块无效时返回null
+     * 旧格式区块只会来自本地文件（isValidChain 已检查），按原样回放
+     */
+    private LedgerUtil.UtxoSet replayUtxos(List<Block> blocks) {
+        LedgerUtil.UtxoSet utxos = new LedgerUtil.UtxoSet();
+        for (Block block : blocks) {
+            if (!isLegacyBlock(block) && !blockValidator.validateTransactions(block, utxos)) {
+                log.info("回放区块 #{} 时交易验证失败", block.getIndex());
+                return null;
+            }
+            utxos.connectTransactions(block.getTransactions());
+        }
+        return utxos;
+    }
+
+    /**
+     * 本地链中不在新链上的区块所包含、且新链未包含的非Coinbase交易，按原区块顺序排列（父交易在前）
+     */
+    private List<PublicLedgerTransaction> disconnectedTransactions(List<Block> localBlocks, List<Block> newBlocks) {
+        Set<String> newBlockHashes = new HashSet<>();
+        Set<String> newTxHashes = new HashSet<>();
+        for (Block block : newBlocks) {
+            newBlockHashes.add(block.getHash());
+            if (block.getTransactions() != null) {
+                block.getTransactions().forEach(tx -> newTxHashes.add(tx.getTxHash()));
+            }
+        }
+        List<PublicLedgerTransaction> disconnected = new ArrayList<>();
+        for (Block block : localBlocks) {
+            if (newBlockHashes.contains(block.getHash()) || block.getTransactions() == null) {
+                continue;
+            }
+            for (PublicLedgerTransaction tx : block.getTransactions()) {
+                if (!CoinbaseTransaction.isCoinbase(tx) && !newTxHashes.contains(tx.getTxHash())) {
+                    disconnected.add(tx);
+                }
+            }
+        }
+        return disconnected;
+    }
+
     /**
      * @description: 当前节点的socket对象
      * @author: freedom
@@ -311,7 +592,18 @@ public class BlockService {
     }
 
     /**
-     * @description: 挖矿的难度系数
+     * @description: 矿池服务端口（小于等于0时不启动矿池）
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param:
+     * @return:
+     **/
+    public int getPoolPort() {
+        return blockCache.getPoolPort();
+    }
+
+    /**
+     * @description: 配置的初始挖矿难度系数（十六进制前导零个数），实际目标值见 getNextBits
      * @author: freedom
      * @date: 2025/11/21 23:19
      * @param:
@@ -346,6 +638,33 @@ public class BlockService {
         return CryptoUtil.sha256(previousHash + timeStamp + nonce+ JSON.toJSONString(currentTransactions) );
     }
 
+    /**
+     * 计算区块头的hash（新格式区块），交易只通过默克尔根参与计算
+     *
+     * @param previousHash
+     * @param merkleRoot
+     * @param timeStamp
+     * @param bits
+     * @param nonce
+     * @return
+     */
+    public String calculateHeaderHash(String previousHash, String merkleRoot, long timeStamp, int bits, int nonce) {
+        return CryptoUtil.sha256(BlockHeaderTemplate.encodeHeader(previousHash, merkleRoot, timeStamp, bits, nonce));
+    }
+
+    /**
+     * 构建挖矿用的区块头模板：逐nonce计算的结果与 calculateHeaderHash 完全一致
+     *
+     * @param previousHash
+     * @param merkleRoot
+     * @param timeStamp
+     * @param bits
+     * @return
+     */
+    public BlockHeaderTemplate createHeaderTemplate(String previousHash, String merkleRoot, long timeStamp, int bits) {
+        return new BlockHeaderTemplate(previousHash, merkleRoot, timeStamp, bits);
+    }
+
 
     /**
      * 生成创世区块的交易记录
@@ -376,6 +695,8 @@ public class BlockService {
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
+            // 新密钥立即对转账可用
+            walletKeyStore.reload();
         }else {
             String mineInfo = Files.readString(Path.of("file/mineInfo.json"));
             JSONObject mineInfoDatas = JSON.parseObject(mineInfo);
@@ -0,0 +1,199 @@
+package com.freedom.chain.service;
+
+import com.freedom.chain.model.block.Block;
+import com.freedom.chain.model.block.BlockCache;
+import com.freedom.chain.model.ledger.CoinbaseTransaction;
+import com.freedom.chain.model.ledger.PublicLedgerTransaction;
+import com.freedom.chain.model.ledger.UtxoInput;
+import com.freedom.chain.model.ledger.UtxoOutput;
+import com.freedom.chain.utils.LedgerUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @description: 区块交易验证，分两个阶段：
+ * 1. 无状态检查（交易哈希重新计算 + ECDSA验签）与账本无关，在 ForkJoin 线程池中按区间拆分并行执行，任一交易失败后其余任务尽快停止；
+ * 2. 依赖UTXO的检查（输入存在且未花费、区块内不重复花费、手续费非负）必须按区块内顺序串行执行，区块内后面的交易可以花费前面交易的输出
+ * 验签占验证耗时的绝大部分，大区块的验证耗时约为 交易数 / CPU核数
+ * @author: freedom
+ * @create: 2025-11-27
+ **/
+@Component
+@Slf4j
+public class BlockValidator {
+
+    /**
+     * 单个任务不再拆分的交易数
+     */
+    private static final int LEAF_SIZE = 8;
+
+    @Resource
+    private BlockCache blockCache;
+
+    private ForkJoinPool verifyPool;
+
+    @PostConstruct
+    public void init() {
+        int configured = blockCache.getVerifyThreads();
+        int parallelism = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+        verifyPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("block-verify-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        verifyPool.shutdownNow();
+    }
+
+    /**
+     * @description: 验证区块中的全部交易（调用时账本为区块连接前的状态）
+     * @author: freedom
+     * @date: 2025/11/27 18:00
+     * @param: [block]
+     * @return: boolean
+     **/
+    public boolean validateTransactions(Block block) {
+        return validateTransactions(block, LedgerUtil.getUtxoSet());
+    }
+
+    /**
+     * @description: 按指定的UTXO集合验证区块中的全部交易（替换区块链时逐块回放新链使用）
+     * @author: freedom
+     * @date: 2025/11/29 10:00
+     * @param: [block, utxos] utxos 为区块连接前的UTXO集合
+     * @return: boolean
+     **/
+    public boolean validateTransactions(Block block, LedgerUtil.UtxoSet utxos) {
+        List<PublicLedgerTransaction> txs = block.getTransactions();
+        if (txs == null || txs.isEmpty()) {
+            log.info("区块 #{} 没有交易", block.getIndex());
+            return false;
+        }
+        long start = System.nanoTime();
+        // 1. 无状态检查并行执行
+        AtomicBoolean failed = new AtomicBoolean(false);
+        if (!verifyPool.invoke(new StatelessCheck(txs, 0, txs.size(), failed))) {
+            log.info("区块 #{} 包含哈希或签名无效的交易", block.getIndex());
+            return false;
+        }
+        long statelessNanos = System.nanoTime() - start;
+        // 2. 依赖UTXO的检查按顺序执行
+        if (!checkInputs(block, txs, utxos)) {
+            return false;
+        }
+        log.info("区块 #{} 交易验证通过: {} 笔，哈希与签名 {}ms（并行度 {}），UTXO {}ms", block.getIndex(), txs.size(),
+                statelessNanos / 1_000_000, verifyPool.getParallelism(), (System.nanoTime() - start - statelessNanos) / 1_000_000);
+        return true;
+    }
+
+    /**
+     * 按区块内顺序检查输入：引用的输出存在于账本或区块内之前的交易，未被账本或区块内之前的交易花费，手续费非负
+     */
+    private boolean checkInputs(Block block, List<PublicLedgerTransaction> txs, LedgerUtil.UtxoSet utxos) {
+        Map<String, BigInteger> created = new HashMap<>();
+        Set<String> spent = new HashSet<>();
+        for (int i = 0; i < txs.size(); i++) {
+            PublicLedgerTransaction tx = txs.get(i);
+            if (i > 0) {
+                for (UtxoInput input : tx.getUtxoInputs()) {
+                    String key = LedgerUtil.buildUtxoKey(input.getPrevTxHash(), input.getPrevOutIndex());
+                    if (!spent.add(key)) {
+                        log.info("区块 #{} 内重复花费同一输出: {}", block.getIndex(), key);
+                        return false;
+                    }
+                    if (!created.containsKey(key)
+                            && utxos.getUtxoAmount(input.getPrevTxHash(), input.getPrevOutIndex()).signum() == 0) {
+                        log.info("区块 #{} 的交易 {} 引用的输出不存在: {}", block.getIndex(), tx.getTxHash(), key);
+                        return false;
+                    }
+                }
+                try {
+                    if (!tx.verifyInputs((prevTxHash, prevOutIndex) -> {
+                        BigInteger amount = created.get(LedgerUtil.buildUtxoKey(prevTxHash, prevOutIndex));
+                        return amount != null ? amount : utxos.getUtxoAmount(prevTxHash, prevOutIndex);
+                    }, utxos::isUtxoSpent)) {
+                        log.info("区块 #{} 的交易 {} 花费了已花费的输出", block.getIndex(), tx.getTxHash());
+                        return false;
+                    }
+                } catch (IllegalArgumentException e) {
+                    log.info("区块 #{} 的交易 {} 无效: {}", block.getIndex(), tx.getTxHash(), e.getMessage());
+                    return false;
+                }
+            }
+            for (UtxoOutput output : tx.getUtxoOutputs()) {
+                created.put(LedgerUtil.buildUtxoKey(tx.getTxHash(), output.getOutputIndex()), output.getAmount());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @description: 并行的无状态检查：区间大于 LEAF_SIZE 时二分拆分，第一笔交易必须是Coinbase，其余交易不能是
+     * @author: freedom
+     * @date: 2025/11/27 18:00
+     **/
+    private static class StatelessCheck extends RecursiveTask<Boolean> {
+        private final List<PublicLedgerTransaction> txs;
+        private final int from;
+        private final int to;
+        private final AtomicBoolean failed;
+
+        StatelessCheck(List<PublicLedgerTransaction> txs, int from, int to, AtomicBoolean failed) {
+            this.txs = txs;
+            this.from = from;
+            this.to = to;
+            this.failed = failed;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                StatelessCheck right = new StatelessCheck(txs, mid, to, failed);
+                right.fork();
+                boolean leftValid = new StatelessCheck(txs, from, mid, failed).compute();
+                return right.join() && leftValid;
+            }
+            for (int i = from; i < to; i++) {
+                if (failed.get()) {
+                    return false;
+                }
+                if (!isValid(txs.get(i), i == 0)) {
+                    failed.set(true);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isValid(PublicLedgerTransaction tx, boolean first) {
+            try {
+                if (first) {
+                    return CoinbaseTransaction.verifyCoinbase(tx);
+                }
+                return !CoinbaseTransaction.isCoinbase(tx) && tx.getUtxoInputs() != null && !tx.getUtxoInputs().isEmpty()
+                        && tx.verifyHash() && tx.verifySignature();
+            } catch (RuntimeException e) {
+                // 公钥或签名格式错误
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,795 @@
+package com.freedom.chain.service;
+
+import com.freedom.chain.enumst.ResultCodeEnum;
+import com.freedom.chain.model.block.BlockCache;
+import com.freedom.chain.error.BusinessException;
+import com.freedom.chain.model.ledger.MempoolEntry;
+import com.freedom.chain.model.ledger.PublicLedgerTransaction;
+import com.freedom.chain.model.ledger.UtxoInput;
+import com.freedom.chain.model.ledger.UtxoOutput;
+import com.freedom.chain.utils.LedgerUtil;
+import com.freedom.chain.utils.ScheduledTasks;
+import com.freedom.chain.vo.MempoolInfo;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @description: 交易池：只保存待确认交易，按手续费率从高到低排序（跳表，插入/删除 O(log n)），
+ * 区块连接时移除其中已确认的交易；打包区块时从费率最高处顺序读取，耗时与区块大小成正比，与链长度无关
+ * 同时维护 输出点(prevTxHash:prevOutIndex) -> 花费交易 的索引，入池时 O(1) 发现双花：
+ * 冲突交易声明可替换（输入 sequence 小于 0xFFFFFFFE）且新交易费率与手续费都更高时替换，否则拒绝
+ * 交易可以花费池中未确认交易的输出，池中记录父子关系与祖先包的大小、手续费，供 BlockAssembler 按祖先包费率打包（CPFP）
+ * 内存上限：按条目估算占用内存，超过 block.mempoolMaxBytes 时驱逐后代包得分最低的交易（连同后代），
+ * 并把最低入池费率抬高到被驱逐包的费率之上，之后随时间指数衰减；入池超过 block.mempoolExpiryHours 的交易定时过期移除
+ * 写操作串行执行，读操作（查询）无锁，遍历为弱一致视图；父子关系与祖先统计只能在持有本对象锁时读取
+ * @author: freedom
+ * @create: 2025-11-25
+ **/
+@Component
+@Slf4j
+public class Mempool {
+
+    /**
+     * 费率从高到低；费率相同时先入池的优先；最后按交易哈希区分（只比较入池时缓存的字段）
+     */
+    private static final Comparator<MempoolEntry> FEE_RATE_ORDER = (a, b) -> {
+        int cmp = Double.compare(b.getFeeRate(), a.getFeeRate());
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Long.compare(a.getEntryTime(), b.getEntryTime());
+        return cmp != 0 ? cmp : a.getTxHash().compareTo(b.getTxHash());
+    };
+
+    /**
+     * 祖先包费率从高到低，其余同 FEE_RATE_ORDER；祖先统计变化前必须先移出索引
+     */
+    private static final Comparator<MempoolEntry> ANCESTOR_FEE_RATE_ORDER = (a, b) -> {
+        int cmp = Double.compare(b.getAncestorFeeRate(), a.getAncestorFeeRate());
+        return cmp != 0 ? cmp : FEE_RATE_ORDER.compare(a, b);
+    };
+
+    /**
+     * 声明可替换的最大 sequence
+     */
+    private static final long MAX_REPLACEABLE_SEQUENCE = 0xFFFFFFFDL;
+
+    /**
+     * 池中祖先交易数上限（含自身），限制祖先/后代遍历的开销
+     */
+    private static final int MAX_ANCESTORS = 25;
+
+    /**
+     * 驱逐后最低入池费率在被驱逐包费率之上的增量（聪/字节）
+     */
+    private static final double INCREMENTAL_FEE_RATE = 1.0;
+
+    /**
+     * 最低入池费率衰减的半衰期（毫秒），交易池占用较低时衰减更快
+     */
+    private static final long ROLLING_FEE_HALF_LIFE_MS = 12 * 60 * 60 * 1000L;
+
+    /**
+     * 过期检查间隔（秒）
+     */
+    private static final long EXPIRY_CHECK_SECONDS = 60;
+
+    /**
+     * 后代包得分从低到高（驱逐顺序）；得分相同时后入池的先驱逐；后代统计变化前必须先移出索引
+     */
+    private static final Comparator<MempoolEntry> EVICTION_ORDER = (a, b) -> {
+        int cmp = Double.compare(a.getDescendantScore(), b.getDescendantScore());
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Long.compare(b.getEntryTime(), a.getEntryTime());
+        return cmp != 0 ? cmp : a.getTxHash().compareTo(b.getTxHash());
+    };
+
+    /**
+     * 入池时间从早到晚（过期顺序）
+     */
+    private static final Comparator<MempoolEntry> ENTRY_TIME_ORDER = Comparator
+            .comparingLong(MempoolEntry::getEntryTime)
+            .thenComparing(MempoolEntry::getTxHash);
+
+    @Resource
+    private BlockCache blockCache;
+
+    /**
+     * 交易哈希 -> 条目
+     */
+    private final Map<String, MempoolEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 按费率排序的索引
+     */
+    private final NavigableSet<MempoolEntry> byFeeRate = new ConcurrentSkipListSet<>(FEE_RATE_ORDER);
+
+    /**
+     * 按祖先包费率排序的索引
+     */
+    private final NavigableSet<MempoolEntry> byAncestorFeeRate = new ConcurrentSkipListSet<>(ANCESTOR_FEE_RATE_ORDER);
+
+    /**
+     * 按后代包得分排序的索引（驱逐用）
+     */
+    private final NavigableSet<MempoolEntry> byDescendantScore = new ConcurrentSkipListSet<>(EVICTION_ORDER);
+
+    /**
+     * 按入池时间排序的索引（过期用）
+     */
+    private final NavigableSet<MempoolEntry> byEntryTime = new ConcurrentSkipListSet<>(ENTRY_TIME_ORDER);
+
+    /**
+     * 池中交易序列化大小合计（字节）
+     */
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    /**
+     * 池占用内存估算合计（字节）
+     */
+    private final AtomicLong totalUsage = new AtomicLong();
+
+    /**
+     * 驱逐后抬高的最低入池费率（聪/字节）及其更新时间，仅持锁时读写
+     */
+    private double rollingMinimumFeeRate;
+    private long lastRollingFeeUpdate;
+
+    private ScheduledExecutorService expiryExecutor;
+
+    /**
+     * 输出点 -> 池中花费该输出点的交易哈希
+     */
+    private final Map<String, String> spentOutpoints = new ConcurrentHashMap<>();
+
+    /**
+     * 交易池版本号：每次增删交易时递增，挖矿模板据此判断是否需要重新选择交易
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        expiryExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("mempool-expiry").setDaemon(true).build());
+        ScheduledTasks.scheduleWithFixedDelay(expiryExecutor, "交易池过期检查", this::expire, EXPIRY_CHECK_SECONDS,
+                EXPIRY_CHECK_SECONDS, TimeUnit.SECONDS);
+        log.info("交易池初始化完成，内存上限: {} 字节，过期时间: {} 小时", blockCache.getMempoolMaxBytes(),
+                blockCache.getMempoolExpiryHours());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        expiryExecutor.shutdownNow();
+    }
+
+    /**
+     * @description: 加入待确认交易（调用方已完成验证），交易已在池中时忽略；
+     * 费率低于当前最低入池费率、与池中交易冲突且不满足替换规则、或加入后因交易池超限被驱逐时抛出 BusinessException
+     * @author: freedom
+     * @date: 2025/11/25 10:20
+     * @param: [tx]
+     * @return: boolean 是否新加入
+     **/
+    public boolean add(PublicLedgerTransaction tx) {
+        return add(tx, System.currentTimeMillis());
+    }
+
+    /**
+     * @description: 按指定入池时间加入待确认交易（重启后从持久化文件恢复时保留原入池时间，过期与排序不受重启影响）
+     * @author: freedom
+     * @date: 2025/11/27 10:30
+     * @param: [tx, entryTime]
+     * @return: boolean 是否新加入
+     **/
+    public synchronized boolean add(PublicLedgerTransaction tx, long entryTime) {
+        if (entries.containsKey(tx.getTxHash())) {
+            return false;
+        }
+        MempoolEntry entry = new MempoolEntry(tx, entryTime);
+        double minFeeRate = getMinFeeRate();
+        if (entry.getFeeRate() < minFeeRate) {
+            throw new BusinessException(ResultCodeEnum.FAILED, String.format(
+                    "交易池已满，手续费率 %.4f 低于最低入池费率 %.4f 聪/字节", entry.getFeeRate(), minFeeRate));
+        }
+
+        // 1. 冲突检测：每个输入查一次索引；引用池中交易输出的输入确定父交易
+        Set<String> outpoints = new HashSet<>();
+        Map<String, MempoolEntry> conflicts = new LinkedHashMap<>();
+        Set<MempoolEntry> parents = new HashSet<>();
+        for (UtxoInput input : tx.getUtxoInputs()) {
+            String outpoint = LedgerUtil.buildUtxoKey(input.getPrevTxHash(), input.getPrevOutIndex());
+            if (!outpoints.add(outpoint)) {
+                throw new BusinessException(ResultCodeEnum.FAILED, "交易重复花费同一输出: " + outpoint);
+            }
+            String spender = spentOutpoints.get(outpoint);
+            if (spender != null) {
+                conflicts.putIfAbsent(spender, entries.get(spender));
+            }
+            MempoolEntry parent = entries.get(input.getPrevTxHash());
+            if (parent != null) {
+                parents.add(parent);
+            }
+        }
+
+        // 2. 祖先数量限制
+        Set<MempoolEntry> ancestors = collectAncestors(parents);
+        if (ancestors.size() + 1 > MAX_ANCESTORS) {
+            throw new BusinessException(ResultCodeEnum.FAILED, "未确认的祖先交易过多: " + ancestors.size());
+        }
+
+        // 3. 费用替换：被替换的交易连同其后代一起移除
+        if (!conflicts.isEmpty()) {
+            Set<MempoolEntry> replaced = collectDescendants(conflicts.values(), true);
+            if (!Collections.disjoint(replaced, parents)) {
+                throw new BusinessException(ResultCodeEnum.FAILED, "替换交易不能花费被替换交易的输出");
+            }
+            checkReplacement(entry, conflicts.values(), replaced);
+            for (MempoolEntry conflict : conflicts.values()) {
+                remove(conflict.getTxHash());
+                log.info("交易 {} 被费用更高的交易 {} 替换", conflict.getTxHash(), entry.getTxHash());
+            }
+        }
+
+        // 4. 建立父子关系，累计祖先包，祖先的后代包加上本交易
+        for (MempoolEntry parent : parents) {
+            entry.getParents().add(parent.getTxHash());
+            parent.getChildren().add(entry.getTxHash());
+        }
+        for (MempoolEntry ancestor : ancestors) {
+            entry.addAncestorState(1, ancestor.getSize(), ancestor.getFee());
+            reindexDescendantState(ancestor, 1, entry.getSize(), entry.getFee());
+        }
+
+        entries.put(entry.getTxHash(), entry);
+        byFeeRate.add(entry);
+        byAncestorFeeRate.add(entry);
+        byDescendantScore.add(entry);
+        byEntryTime.add(entry);
+        for (String outpoint : outpoints) {
+            spentOutpoints.put(outpoint, entry.getTxHash());
+        }
+        totalBytes.addAndGet(entry.getSize());
+        totalUsage.addAndGet(entry.getUsage());
+        version.incrementAndGet();
+        log.info("交易入池: {}，费率: {} 聪/字节，祖先包费率: {} 聪/字节，池中交易数: {}", entry.getTxHash(),
+                String.format("%.4f", entry.getFeeRate()), String.format("%.4f", entry.getAncestorFeeRate()), entries.size());
+
+        // 5. 超过内存上限时驱逐，新交易自身被驱逐则视为拒绝
+        trimToSize();
+        if (!entries.containsKey(entry.getTxHash())) {
+            throw new BusinessException(ResultCodeEnum.FAILED, "交易池已满，交易费率过低被驱逐");
+        }
+        return true;
+    }
+
+    /**
+     * @description: 在一次加锁内加入一批待确认交易（调用方已完成验证），父交易需排在子交易之前；
+     * 单笔被拒绝不影响其余交易，先加入的交易被后加入的交易驱逐时同样视为拒绝
+     * @author: freedom
+     * @date: 2025/11/29 14:00
+     * @param: [txs]
+     * @return: java.util.Map<java.lang.String,java.lang.String> 被拒绝的交易哈希 -> 原因
+     **/
+    public synchronized Map<String, String> addAll(List<PublicLedgerTransaction> txs) {
+        Map<String, String> rejected = new LinkedHashMap<>();
+        long entryTime = System.currentTimeMillis();
+        for (PublicLedgerTransaction tx : txs) {
+            try {
+                add(tx, entryTime);
+            } catch (BusinessException e) {
+                rejected.put(tx.getTxHash(), e.getMessage());
+            }
+        }
+        for (PublicLedgerTransaction tx : txs) {
+            if (!rejected.containsKey(tx.getTxHash()) && !entries.containsKey(tx.getTxHash())) {
+                rejected.put(tx.getTxHash(), "交易池已满，交易费率过低被驱逐");
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * @description: 移除交易及其在池中的全部后代（后代花费了它的输出，随之失效）
+     * @author: freedom
+     * @date: 2025/11/25 10:20
+     * @param: [txHash]
+     * @return: com.freedom.chain.model.ledger.MempoolEntry 不在池中时返回null
+     **/
+    public synchronized MempoolEntry remove(String txHash) {
+        MempoolEntry entry = entries.get(txHash);
+        if (entry == null) {
+            return null;
+        }
+        removeAll(collectDescendants(List.of(entry), true));
+        return entry;
+    }
+
+    /**
+     * @description: 区块连接后移除已被区块确认的交易（后代保留，祖先统计扣除已确认部分），
+     * 以及与区块交易花费同一输出点的冲突交易（连同后代）
+     * @author: freedom
+     * @date: 2025/11/25 10:20
+     * @param: [blockTxs]
+     * @return: int 移除的交易数
+     **/
+    public synchronized int removeForBlock(List<PublicLedgerTransaction> blockTxs) {
+        if (blockTxs == null) {
+            return 0;
+        }
+        int confirmed = 0;
+        int conflicted = 0;
+        for (PublicLedgerTransaction tx : blockTxs) {
+            MempoolEntry entry = entries.get(tx.getTxHash());
+            if (entry != null) {
+                for (MempoolEntry descendant : collectDescendants(List.of(entry), false)) {
+                    reindexAncestorState(descendant, -1, -entry.getSize(), -entry.getFee());
+                }
+                removeEntry(entry);
+                confirmed++;
+            }
+        }
+        for (PublicLedgerTransaction tx : blockTxs) {
+            for (UtxoInput input : tx.getUtxoInputs()) {
+                String spender = spentOutpoints.get(LedgerUtil.buildUtxoKey(input.getPrevTxHash(), input.getPrevOutIndex()));
+                if (spender == null) {
+                    continue;
+                }
+                int before = entries.size();
+                remove(spender);
+                conflicted += before - entries.size();
+                log.info("交易 {} 与区块中的交易 {} 冲突，连同后代移出交易池", spender, tx.getTxHash());
+            }
+        }
+        if (confirmed > 0 || conflicted > 0) {
+            log.info("区块已确认 {} 笔池中交易，移除冲突交易 {} 笔，池中剩余: {}", confirmed, conflicted, entries.size());
+        }
+        return confirmed + conflicted;
+    }
+
+    /**
+     * @description: 区块链替换（新的UTXO集合已生效）后重建交易池：先加入被替换区块中的交易（按原区块顺序，父交易在前），
+     * 再按原入池时间加回池中原有交易；已被新链确认、与新链冲突或引用的输出已不存在的交易丢弃
+     * 被替换区块中的交易在连接时已验过签名，这里只按新的UTXO集合检查输入
+     * @author: freedom
+     * @date: 2025/11/29 10:00
+     * @param: [disconnected] 被替换区块中未被新链包含的非Coinbase交易
+     * @return: int 重建后池中的交易数
+     **/
+    public synchronized int resubmitAfterReorg(List<PublicLedgerTransaction> disconnected) {
+        List<MempoolEntry> previous = snapshot();
+        for (MempoolEntry entry : previous) {
+            removeEntry(entry);
+        }
+        long now = System.currentTimeMillis();
+        int resubmitted = 0;
+        for (PublicLedgerTransaction tx : disconnected) {
+            if (resubmit(tx, now)) {
+                resubmitted++;
+            }
+        }
+        int kept = 0;
+        for (MempoolEntry entry : previous) {
+            if (resubmit(entry.getTransaction(), entry.getEntryTime())) {
+                kept++;
+            }
+        }
+        log.info("区块链替换后重建交易池：被替换区块中的交易重新入池 {}/{} 笔，原有交易保留 {}/{} 笔",
+                resubmitted, disconnected.size(), kept, previous.size());
+        return entries.size();
+    }
+
+    /**
+     * @description: 当前最低入池费率（聪/字节）：驱逐后抬高，随时间按半衰期衰减，交易池占用越低衰减越快；
+     * 客户端可据此调整手续费
+     * @author: freedom
+     * @date: 2025/11/26 16:40
+     * @param: []
+     * @return: double 交易池未满过或已衰减到可忽略时返回0
+     **/
+    public synchronized double getMinFeeRate() {
+        if (rollingMinimumFeeRate == 0) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        long halfLife = ROLLING_FEE_HALF_LIFE_MS;
+        long maxBytes = blockCache.getMempoolMaxBytes();
+        if (totalUsage.get() < maxBytes / 4) {
+            halfLife /= 4;
+        } else if (totalUsage.get() < maxBytes / 2) {
+            halfLife /= 2;
+        }
+        rollingMinimumFeeRate /= Math.pow(2.0, (double) (now - lastRollingFeeUpdate) / halfLife);
+        lastRollingFeeUpdate = now;
+        if (rollingMinimumFeeRate < INCREMENTAL_FEE_RATE / 2) {
+            rollingMinimumFeeRate = 0;
+        }
+        return rollingMinimumFeeRate;
+    }
+
+    /**
+     * @description: 交易池概况
+     * @author: freedom
+     * @date: 2025/11/26 16:40
+     * @param: []
+     * @return: com.freedom.chain.vo.MempoolInfo
+     **/
+    public MempoolInfo info() {
+        MempoolInfo info = new MempoolInfo();
+        info.setSize(entries.size());
+        info.setBytes(totalBytes.get());
+        info.setUsage(totalUsage.get());
+        info.setMaxUsage(blockCache.getMempoolMaxBytes());
+        info.setMinFeeRate(getMinFeeRate());
+        info.setExpiryHours(blockCache.getMempoolExpiryHours());
+        return info;
+    }
+
+    /**
+     * @description: 输出点是否已被池中交易花费（构造新交易选择输入时跳过）
+     * @author: freedom
+     * @date: 2025/11/25 15:30
+     * @param: [prevTxHash, prevOutIndex]
+     * @return: boolean
+     **/
+    public boolean isSpent(String prevTxHash, int prevOutIndex) {
+        return spentOutpoints.containsKey(LedgerUtil.buildUtxoKey(prevTxHash, prevOutIndex));
+    }
+
+    /**
+     * @description: 查询输入引用的金额：先查账本中的UTXO，不存在时查池中未确认交易的输出
+     * @author: freedom
+     * @date: 2025/11/26 10:10
+     * @param: [prevTxHash, prevOutIndex]
+     * @return: java.math.BigInteger 不存在时返回0
+     **/
+    public BigInteger getUtxoAmount(String prevTxHash, int prevOutIndex) {
+        BigInteger amount = LedgerUtil.getUtxoAmount(prevTxHash, prevOutIndex);
+        if (amount.signum() > 0) {
+            return amount;
+        }
+        MempoolEntry parent = entries.get(prevTxHash);
+        if (parent == null) {
+            return BigInteger.ZERO;
+        }
+        return parent.getTransaction().getUtxoOutputs().stream()
+                .filter(output -> output.getOutputIndex() == prevOutIndex)
+                .map(UtxoOutput::getAmount)
+                .findFirst()
+                .orElse(BigInteger.ZERO);
+    }
+
+    /**
+     * @description: 某地址在池中未确认交易里尚未被花费的输出（如转账的找零），按交易哈希分组
+     * @author: freedom
+     * @date: 2025/11/26 10:10
+     * @param: [address]
+     * @return: java.util.Map<java.lang.String,java.util.List<com.freedom.chain.model.ledger.UtxoOutput>>
+     **/
+    public Map<String, List<UtxoOutput>> getUnspentOutputsByAddress(String address) {
+        Map<String, List<UtxoOutput>> result = new LinkedHashMap<>();
+        for (MempoolEntry entry : byFeeRate) {
+            List<UtxoOutput> outputs = entry.getTransaction().getUtxoOutputs().stream()
+                    .filter(output -> address.equals(output.getRecipientAddress())
+                            && !isSpent(entry.getTxHash(), output.getOutputIndex()))
+                    .toList();
+            if (!outputs.isEmpty()) {
+                result.put(entry.getTxHash(), outputs);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @description: 条目在池中的全部祖先（不含自身），调用方需持有本对象锁
+     * @author: freedom
+     * @date: 2025/11/26 10:10
+     * @param: [entry]
+     * @return: java.util.Set<com.freedom.chain.model.ledger.MempoolEntry>
+     **/
+    Set<MempoolEntry> ancestorsOf(MempoolEntry entry) {
+        Set<MempoolEntry> parents = new HashSet<>();
+        for (String parent : entry.getParents()) {
+            parents.add(entries.get(parent));
+        }
+        return collectAncestors(parents);
+    }
+
+    /**
+     * @description: 条目在池中的全部后代（不含自身），调用方需持有本对象锁
+     * @author: freedom
+     * @date: 2025/11/26 10:10
+     * @param: [entry]
+     * @return: java.util.Set<com.freedom.chain.model.ledger.MempoolEntry>
+     **/
+    Set<MempoolEntry> descendantsOf(MempoolEntry entry) {
+        return collectDescendants(List.of(entry), false);
+    }
+
+    /**
+     * 按祖先包费率从高到低的索引，调用方需持有本对象锁
+     */
+    NavigableSet<MempoolEntry> byAncestorFeeRate() {
+        return byAncestorFeeRate;
+    }
+
+    /**
+     * @description: 内存超限时按后代包得分从低到高驱逐（连同后代），并抬高最低入池费率
+     * @author: freedom
+     * @date: 2025/11/26 16:40
+     * @param: []
+     * @return: void
+     **/
+    private void trimToSize() {
+        long maxBytes = blockCache.getMempoolMaxBytes();
+        int evicted = 0;
+        while (totalUsage.get() > maxBytes && !byDescendantScore.isEmpty()) {
+            MempoolEntry worst = byDescendantScore.first();
+            double removedFeeRate = (double) worst.getDescendantFee() / worst.getDescendantSize() + INCREMENTAL_FEE_RATE;
+            if (removedFeeRate > getMinFeeRate()) {
+                rollingMinimumFeeRate = removedFeeRate;
+                lastRollingFeeUpdate = System.currentTimeMillis();
+            }
+            int before = entries.size();
+            remove(worst.getTxHash());
+            evicted += before - entries.size();
+        }
+        if (evicted > 0) {
+            log.info("交易池超过内存上限，驱逐 {} 笔交易，最低入池费率: {} 聪/字节", evicted,
+                    String.format("%.4f", rollingMinimumFeeRate));
+        }
+    }
+
+    /**
+     * @description: 定时任务：移除入池时间超过过期时间的交易（连同后代）
+     * @author: freedom
+     * @date: 2025/11/26 16:40
+     * @param: []
+     * @return: void
+     **/
+    private void expire() {
+        long cutoff = System.currentTimeMillis() - blockCache.getMempoolExpiryHours() * 60 * 60 * 1000L;
+        int expired = 0;
+        synchronized (this) {
+            while (!byEntryTime.isEmpty() && byEntryTime.first().getEntryTime() < cutoff) {
+                int before = entries.size();
+                remove(byEntryTime.first().getTxHash());
+                expired += before - entries.size();
+            }
+        }
+        if (expired > 0) {
+            log.info("移除过期交易 {} 笔，池中剩余: {}", expired, entries.size());
+        }
+    }
+
+    /**
+     * 移除一组交易（包含其全部后代），按祖先数从多到少移除，保证移除时其祖先关系仍完整
+     */
+    private void removeAll(Collection<MempoolEntry> removed) {
+        List<MempoolEntry> ordered = new ArrayList<>(removed);
+        ordered.sort(Comparator.comparingInt(MempoolEntry::getAncestorCount).reversed());
+        for (MempoolEntry entry : ordered) {
+            removeEntry(entry);
+        }
+    }
+
+    /**
+     * 从父交易出发收集全部祖先（含父交易本身）
+     */
+    private Set<MempoolEntry> collectAncestors(Collection<MempoolEntry> parents) {
+        Set<MempoolEntry> ancestors = new HashSet<>();
+        Deque<MempoolEntry> stack = new ArrayDeque<>(parents);
+        while (!stack.isEmpty()) {
+            MempoolEntry current = stack.pop();
+            if (ancestors.add(current)) {
+                for (String parent : current.getParents()) {
+                    stack.push(entries.get(parent));
+                }
+            }
+        }
+        return ancestors;
+    }
+
+    /**
+     * 收集全部后代，includeRoots 为 true 时结果包含起点
+     */
+    private Set<MempoolEntry> collectDescendants(Collection<MempoolEntry> roots, boolean includeRoots) {
+        Set<MempoolEntry> descendants = new HashSet<>();
+        Deque<MempoolEntry> stack = new ArrayDeque<>();
+        for (MempoolEntry root : roots) {
+            if (includeRoots) {
+                stack.push(root);
+            } else {
+                root.getChildren().forEach(child -> stack.push(entries.get(child)));
+            }
+        }
+        while (!stack.isEmpty()) {
+            MempoolEntry current = stack.pop();
+            if (descendants.add(current)) {
+                for (String child : current.getChildren()) {
+                    stack.push(entries.get(child));
+                }
+            }
+        }
+        return descendants;
+    }
+
+    /**
+     * 按当前UTXO集合与池中交易检查输入后重新入池，输入不存在、已花费或入池被拒绝时返回false
+     */
+    private boolean resubmit(PublicLedgerTransaction tx, long entryTime) {
+        try {
+            for (UtxoInput input : tx.getUtxoInputs()) {
+                if (getUtxoAmount(input.getPrevTxHash(), input.getPrevOutIndex()).signum() == 0) {
+                    return false;
+                }
+            }
+            return tx.verifyInputs(this::getUtxoAmount) && add(tx, entryTime);
+        } catch (BusinessException | IllegalArgumentException e) {
+            log.info("交易 {} 未能重新入池: {}", tx.getTxHash(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 从所有索引中移除单个条目：池中祖先的后代包扣除本交易，并解除与池中父子交易的关系
+     */
+    private void removeEntry(MempoolEntry entry) {
+        if (!entries.containsKey(entry.getTxHash())) {
+            return;
+        }
+        for (MempoolEntry ancestor : ancestorsOf(entry)) {
+            reindexDescendantState(ancestor, -1, -entry.getSize(), -entry.getFee());
+        }
+        entries.remove(entry.getTxHash());
+        byFeeRate.remove(entry);
+        byAncestorFeeRate.remove(entry);
+        byDescendantScore.remove(entry);
+        byEntryTime.remove(entry);
+        totalBytes.addAndGet(-entry.getSize());
+        totalUsage.addAndGet(-entry.getUsage());
+        for (String parent : entry.getParents()) {
+            MempoolEntry parentEntry = entries.get(parent);
+            if (parentEntry != null) {
+                parentEntry.getChildren().remove(entry.getTxHash());
+            }
+        }
+        for (String child : entry.getChildren()) {
+            MempoolEntry childEntry = entries.get(child);
+            if (childEntry != null) {
+                childEntry.getParents().remove(entry.getTxHash());
+            }
+        }
+        for (UtxoInput input : entry.getTransaction().getUtxoInputs()) {
+            spentOutpoints.remove(LedgerUtil.buildUtxoKey(input.getPrevTxHash(), input.getPrevOutIndex()), entry.getTxHash());
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * 更新后代统计：先移出驱逐索引，更新后重新插入
+     */
+    private void reindexDescendantState(MempoolEntry entry, int count, long size, long fee) {
+        byDescendantScore.remove(entry);
+        entry.addDescendantState(count, size, fee);
+        byDescendantScore.add(entry);
+    }
+
+    /**
+     * 更新祖先统计：先移出排序索引，更新后重新插入
+     */
+    private void reindexAncestorState(MempoolEntry entry, int count, long size, long fee) {
+        byAncestorFeeRate.remove(entry);
+        entry.addAncestorState(count, size, fee);
+        byAncestorFeeRate.add(entry);
+    }
+
+    /**
+     * @description: 费用替换规则：直接冲突的交易必须声明可替换，新交易费率严格高于每笔直接冲突的交易，
+     * 手续费不低于全部被替换交易（含后代）之和
+     * @author: freedom
+     * @date: 2025/11/25 15:30
+     * @param: [replacement, conflicts, replaced]
+     * @return: void
+     **/
+    private void checkReplacement(MempoolEntry replacement, Collection<MempoolEntry> conflicts,
+                                  Collection<MempoolEntry> replaced) {
+        for (MempoolEntry conflict : conflicts) {
+            if (!signalsReplaceable(conflict.getTransaction())) {
+                throw new BusinessException(ResultCodeEnum.FAILED,
+                        "输入已被交易池中的交易花费且该交易不可替换: " + conflict.getTxHash());
+            }
+            if (replacement.getFeeRate() <= conflict.getFeeRate()) {
+                throw new BusinessException(ResultCodeEnum.FAILED,
+                        "替换交易的手续费率必须高于被替换交易: " + conflict.getTxHash());
+            }
+        }
+        long replacedFees = replaced.stream().mapToLong(MempoolEntry::getFee).sum();
+        if (replacement.getFee() < replacedFees) {
+            throw new BusinessException(ResultCodeEnum.FAILED, "替换交易的手续费不能低于被替换交易（含后代）的手续费之和");
+        }
+    }
+
+    /**
+     * 任一输入的 sequence 小于 0xFFFFFFFE 即声明可被费用替换
+     */
+    private boolean signalsReplaceable(PublicLedgerTransaction tx) {
+        return tx.getUtxoInputs().stream().anyMatch(input -> input.getSequence() <= MAX_REPLACEABLE_SEQUENCE);
+    }
+
+    public boolean contains(String txHash) {
+        return entries.containsKey(txHash);
+    }
+
+    public MempoolEntry get(String txHash) {
+        return entries.get(txHash);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @description: 按费率从高到低的只读视图
+     * @author: freedom
+     * @date: 2025/11/25 10:20
+     * @param: []
+     * @return: java.util.Collection<com.freedom.chain.model.ledger.MempoolEntry>
+     **/
+    public Collection<MempoolEntry> byFeeRate() {
+        return Collections.unmodifiableCollection(byFeeRate);
+    }
+
+    /**
+     * @description: 池中全部条目，父交易排在子交易之前（按祖先数排序），按此顺序重新加入即可恢复父子关系
+     * @author: freedom
+     * @date: 2025/11/27 10:30
+     * @param: []
+     * @return: java.util.List<com.freedom.chain.model.ledger.MempoolEntry>
+     **/
+    public synchronized List<MempoolEntry> snapshot() {
+        List<MempoolEntry> ordered = new ArrayList<>(entries.values());
+        ordered.sort(Comparator.comparingInt(MempoolEntry::getAncestorCount));
+        return ordered;
+    }
+
+    /**
+     * @description: 池中全部待确认交易（按费率从高到低）
+     * @author: freedom
+     * @date: 2025/11/25 10:20
+     * @param: []
+     * @return: java.util.List<com.freedom.chain.model.ledger.PublicLedgerTransaction>
+     **/
+    public List<PublicLedgerTransaction> transactions() {
+        return byFeeRate.stream().map(MempoolEntry::getTransaction).toList();
+    }
+}
@@ -0,0 +1,227 @@
+package com.freedom.chain.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.freedom.chain.error.BusinessException;
+import com.freedom.chain.model.block.BlockCache;
+import com.freedom.chain.model.ledger.MempoolEntry;
+import com.freedom.chain.model.ledger.PublicLedgerTransaction;
+import com.freedom.chain.utils.CryptoUtil;
+import com.freedom.chain.utils.ScheduledTasks;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @description: 交易池持久化：停机时与定时把池中交易写入 file/mempool.dat，启动（区块与UTXO加载完成）后重新入池
+ * 文件格式（GZIP压缩）：魔数、版本、写入时间、条数，之后每条为 入池时间 + 校验和 + 交易JSON（长度前缀），父交易在前
+ * 校验和 = SHA-256(交易哈希 + 签名 + 公钥)，只对已通过完整验证的池中交易写入；
+ * 加载时交易哈希重新计算且校验和一致则跳过ECDSA验签，只检查输入是否仍未花费与手续费，重启后可快速恢复大交易池
+ * 校验和只防止文件损坏或交易内容与签名不一致，与区块存储一样信任本地文件本身
+ * @author: freedom
+ * @create: 2025-11-27
+ **/
+@Component
+@Slf4j
+public class MempoolPersistence {
+
+    private static final Path MEMPOOL_FILE = Paths.get("file/mempool.dat");
+
+    private static final Path MEMPOOL_TMP_FILE = Paths.get("file/mempool.dat.tmp");
+
+    private static final int MAGIC = 0x4D504F4C;
+
+    private static final int FORMAT_VERSION = 1;
+
+    @Resource
+    private Mempool mempool;
+
+    @Resource
+    private BlockCache blockCache;
+
+    /**
+     * 加载完成前不写文件，避免用空交易池覆盖上次的持久化结果
+     */
+    private volatile boolean loaded;
+
+    /**
+     * 上次写入时的交易池版本号，池未变化时跳过定时写入
+     */
+    private volatile long dumpedVersion = -1;
+
+    private ScheduledExecutorService dumpExecutor;
+
+    @PostConstruct
+    public void init() {
+        long interval = blockCache.getMempoolDumpIntervalSeconds();
+        if (interval <= 0) {
+            return;
+        }
+        dumpExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("mempool-dump").setDaemon(true).build());
+        ScheduledTasks.scheduleWithFixedDelay(dumpExecutor, "交易池定时写入", this::dumpIfChanged, interval, interval,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (dumpExecutor != null) {
+            dumpExecutor.shutdownNow();
+        }
+        if (loaded) {
+            dump();
+        }
+    }
+
+    /**
+     * @description: 启动完成后（区块链与UTXO快照已由 BlockCache 加载）恢复交易池
+     * @author: freedom
+     * @date: 2025/11/27 10:30
+     * @param: []
+     * @return: void
+     **/
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            if (!Files.exists(MEMPOOL_FILE)) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            long cutoff = start - blockCache.getMempoolExpiryHours() * 60 * 60 * 1000L;
+            int restored = 0;
+            int fastPath = 0;
+            int skipped = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(Files.newInputStream(MEMPOOL_FILE))))) {
+                if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                    log.warn("交易池文件格式不匹配，忽略: {}", MEMPOOL_FILE);
+                    return;
+                }
+                long dumpTime = in.readLong();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    long entryTime = in.readLong();
+                    byte[] checksum = new byte[CryptoUtil.SHA256_SIZE];
+                    in.readFully(checksum);
+                    byte[] json = new byte[in.readInt()];
+                    in.readFully(json);
+                    if (entryTime < cutoff) {
+                        skipped++;
+                        continue;
+                    }
+                    PublicLedgerTransaction tx = JSON.parseObject(json, PublicLedgerTransaction.class);
+                    boolean trusted = MessageDigest.isEqual(checksum, checksum(tx));
+                    if (!restore(tx, entryTime, trusted)) {
+                        skipped++;
+                        continue;
+                    }
+                    restored++;
+                    if (trusted) {
+                        fastPath++;
+                    }
+                }
+                log.info("交易池已恢复: {} 笔（跳过验签 {} 笔），丢弃已确认/冲突/过期交易 {} 笔，文件写入于 {}，耗时 {}ms",
+                        restored, fastPath, skipped, dumpTime, System.currentTimeMillis() - start);
+            }
+        } catch (EOFException e) {
+            log.warn("交易池文件不完整，已恢复的交易保留: {}", MEMPOOL_FILE);
+        } catch (Exception e) {
+            log.error("交易池文件加载失败", e);
+        } finally {
+            dumpedVersion = mempool.getVersion();
+            loaded = true;
+        }
+    }
+
+    /**
+     * @description: 把池中交易写入临时文件后原子替换 file/mempool.dat
+     * @author: freedom
+     * @date: 2025/11/27 10:30
+     * @param: []
+     * @return: void
+     **/
+    public synchronized void dump() {
+        long start = System.currentTimeMillis();
+        long version = mempool.getVersion();
+        List<MempoolEntry> entries = mempool.snapshot();
+        try {
+            Files.createDirectories(MEMPOOL_FILE.toAbsolutePath().getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(MEMPOOL_TMP_FILE))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(start);
+                out.writeInt(entries.size());
+                for (MempoolEntry entry : entries) {
+                    PublicLedgerTransaction tx = entry.getTransaction();
+                    byte[] json = JSON.toJSONString(tx).getBytes(StandardCharsets.UTF_8);
+                    out.writeLong(entry.getEntryTime());
+                    out.write(checksum(tx));
+                    out.writeInt(json.length);
+                    out.write(json);
+                }
+            }
+            Files.move(MEMPOOL_TMP_FILE, MEMPOOL_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dumpedVersion = version;
+            log.info("交易池已写入文件: {} 笔，耗时 {}ms", entries.size(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.error("交易池写入文件失败", e);
+        }
+    }
+
+    /**
+     * 定时任务：交易池有变化时写入文件
+     */
+    private void dumpIfChanged() {
+        if (loaded && mempool.getVersion() != dumpedVersion) {
+            dump();
+        }
+    }
+
+    /**
+     * 重新入池：校验和一致时只重新计算交易哈希，跳过验签；输入已花费（交易已确认或冲突）时丢弃
+     */
+    private boolean restore(PublicLedgerTransaction tx, long entryTime, boolean trusted) {
+        try {
+            boolean valid = trusted
+                    ? tx.verifyHash() && tx.verifyInputs(mempool::getUtxoAmount)
+                    : tx.verify(mempool::getUtxoAmount);
+            return valid && mempool.add(tx, entryTime);
+        } catch (BusinessException | IllegalArgumentException e) {
+            log.info("交易 {} 未能重新入池: {}", tx.getTxHash(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 交易哈希、签名与公钥的校验和
+     */
+    private static byte[] checksum(PublicLedgerTransaction tx) {
+        String signature = tx.getSignature() != null ? CryptoUtil.bytesToHex(tx.getSignature()) : "";
+        return CryptoUtil.sha256Bytes((tx.getTxHash() + ":" + signature + ":" + tx.getPublicKey())
+                .getBytes(StandardCharsets.UTF_8));
+    }
+}
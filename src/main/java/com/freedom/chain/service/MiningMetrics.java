@@ -0,0 +1,201 @@
+package com.freedom.chain.service;
+
+import com.freedom.chain.utils.LatencyHistogram;
+import com.freedom.chain.utils.ScheduledTasks;
+import com.freedom.chain.vo.MiningMetricsVo;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description: 挖矿指标：各worker滚动算力、累计尝试次数、轮次结果、模板构建与出块耗时直方图
+ * worker按批次上报尝试次数，后台每秒采样一次累计值，滚动算力 = 窗口首尾累计值之差 / 窗口时长
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+@Component
+public class MiningMetrics {
+
+    /**
+     * 滚动窗口长度（采样次数，每秒一次）
+     */
+    private static final int WINDOW_SECONDS = 10;
+
+    /**
+     * 各worker累计尝试次数
+     */
+    private final Map<Integer, LongAdder> workerAttempts = new ConcurrentHashMap<>();
+
+    /**
+     * 各worker的采样环形缓冲（WINDOW_SECONDS + 1 个累计值）
+     */
+    private final Map<Integer, long[]> workerSamples = new ConcurrentHashMap<>();
+
+    /**
+     * 采样时间环形缓冲与写入位置（仅采样线程写）
+     */
+    private final long[] sampleTimes = new long[WINDOW_SECONDS + 1];
+    private volatile int sampleCursor;
+    private volatile int sampleCount;
+
+    private final AtomicLong roundsStarted = new AtomicLong();
+    private final AtomicLong roundsSucceeded = new AtomicLong();
+    private final AtomicLong roundsStale = new AtomicLong();
+    private final AtomicLong roundsCancelled = new AtomicLong();
+    private final AtomicLong templateRefreshes = new AtomicLong();
+    private final AtomicLong templateRolls = new AtomicLong();
+
+    /**
+     * 当前模板的创建时间，未在挖矿时为0
+     */
+    private volatile long templateCreatedAt;
+
+    private final LatencyHistogram prepareTransactions = new LatencyHistogram();
+    private final LatencyHistogram templateBuild = new LatencyHistogram();
+    private final LatencyHistogram blockConnect = new LatencyHistogram();
+
+    private ScheduledExecutorService sampler;
+
+    @PostConstruct
+    public void init() {
+        sampler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("mining-metrics").setDaemon(true).build());
+        ScheduledTasks.scheduleAtFixedRate(sampler, "挖矿指标采样", this::sample, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        sampler.shutdownNow();
+    }
+
+    /**
+     * worker上报一批哈希尝试
+     */
+    public void addAttempts(int workerId, long attempts) {
+        if (attempts > 0) {
+            workerAttempts.computeIfAbsent(workerId, id -> new LongAdder()).add(attempts);
+        }
+    }
+
+    public void roundStarted() {
+        roundsStarted.incrementAndGet();
+    }
+
+    /**
+     * @description: 记录一轮挖矿的结果
+     * @author: freedom
+     * @date: 2025/11/24 16:20
+     * @param: [succeeded, stale] 是否找到解、是否因链尾变化作废（两者皆否视为被停止）
+     * @return: void
+     **/
+    public void roundFinished(boolean succeeded, boolean stale) {
+        templateCreatedAt = 0;
+        if (succeeded) {
+            roundsSucceeded.incrementAndGet();
+        } else if (stale) {
+            roundsStale.incrementAndGet();
+        } else {
+            roundsCancelled.incrementAndGet();
+        }
+    }
+
+    /**
+     * 记录一次模板构建（默克尔根 + 区块头）
+     */
+    public void templateBuilt(long nanos) {
+        templateBuild.record(nanos);
+        templateCreatedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 模板因新交易刷新
+     */
+    public void templateRefreshed() {
+        templateRefreshes.incrementAndGet();
+    }
+
+    /**
+     * 模板因nonce空间耗尽滚动
+     */
+    public void templateRolled() {
+        templateRolls.incrementAndGet();
+    }
+
+    public void recordPrepareTransactions(long nanos) {
+        prepareTransactions.record(nanos);
+    }
+
+    public void recordBlockConnect(long nanos) {
+        blockConnect.record(nanos);
+    }
+
+    /**
+     * @description: 当前指标快照
+     * @author: freedom
+     * @date: 2025/11/24 16:20
+     * @param: []
+     * @return: com.freedom.chain.vo.MiningMetricsVo
+     **/
+    public MiningMetricsVo snapshot() {
+        MiningMetricsVo vo = new MiningMetricsVo();
+        vo.setWindowSeconds(WINDOW_SECONDS);
+        Map<Integer, Double> rates = new TreeMap<>();
+        double total = 0;
+        int count = sampleCount;
+        int newest = (sampleCursor + sampleTimes.length - 1) % sampleTimes.length;
+        int oldest = count < sampleTimes.length ? 0 : sampleCursor;
+        long elapsedMs = sampleTimes[newest] - sampleTimes[oldest];
+        for (Map.Entry<Integer, long[]> entry : workerSamples.entrySet()) {
+            long[] samples = entry.getValue();
+            double rate = count > 1 && elapsedMs > 0 ? (samples[newest] - samples[oldest]) * 1000.0 / elapsedMs : 0;
+            rates.put(entry.getKey(), rate);
+            total += rate;
+        }
+        vo.setWorkerHashrate(rates);
+        vo.setHashrate(total);
+        vo.setTotalAttempts(workerAttempts.values().stream().mapToLong(LongAdder::sum).sum());
+        vo.setRoundsStarted(roundsStarted.get());
+        vo.setRoundsSucceeded(roundsSucceeded.get());
+        vo.setRoundsStale(roundsStale.get());
+        vo.setRoundsCancelled(roundsCancelled.get());
+        vo.setTemplateRefreshes(templateRefreshes.get());
+        vo.setTemplateRolls(templateRolls.get());
+        long createdAt = templateCreatedAt;
+        vo.setTemplateAgeMs(createdAt > 0 ? System.currentTimeMillis() - createdAt : -1);
+        vo.setPrepareTransactions(prepareTransactions.snapshot());
+        vo.setTemplateBuild(templateBuild.snapshot());
+        vo.setBlockConnect(blockConnect.snapshot());
+        return vo;
+    }
+
+    /**
+     * 每秒采样一次各worker的累计尝试次数
+     */
+    private void sample() {
+        int cursor = sampleCursor;
+        for (Map.Entry<Integer, LongAdder> entry : workerAttempts.entrySet()) {
+            long attempts = entry.getValue().sum();
+            // 新出现的worker用当前累计值填满窗口，避免首个窗口的算力虚高
+            long[] samples = workerSamples.computeIfAbsent(entry.getKey(), id -> {
+                long[] initial = new long[sampleTimes.length];
+                Arrays.fill(initial, attempts);
+                return initial;
+            });
+            samples[cursor] = attempts;
+        }
+        sampleTimes[cursor] = System.currentTimeMillis();
+        sampleCount = Math.min(sampleCount + 1, sampleTimes.length);
+        sampleCursor = (cursor + 1) % sampleTimes.length;
+    }
+}
@@ -0,0 +1,522 @@
+package com.freedom.chain.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.freedom.chain.model.block.Block;
+import com.freedom.chain.model.block.BlockCache;
+import com.freedom.chain.model.block.BlockHeaderTemplate;
+import com.freedom.chain.model.block.ChainTipEvent;
+import com.freedom.chain.model.ledger.PublicLedgerTransaction;
+import com.freedom.chain.model.p2p.Message;
+import com.freedom.chain.model.pool.ShareResult;
+import com.freedom.chain.model.pool.ShareSubmit;
+import com.freedom.chain.model.pool.WorkUnit;
+import com.freedom.chain.utils.BlockConstant;
+import com.freedom.chain.utils.CryptoUtil;
+import com.freedom.chain.utils.MerkleUtil;
+import com.freedom.chain.utils.TargetUtil;
+import com.freedom.chain.vo.PoolWorkerStats;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.WebSocket;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * @description: 矿池服务：把工作量证明分发给多个worker进程（可位于不同主机）
+ * 节点基于 PowService.prepareValidTransactions 构建区块模板，为每个worker下发独立额外nonce的工作单元，
+ * worker提交满足份额目标值的nonce，节点重新计算哈希校验并统计份额与算力，满足区块目标值时通过 PowService.submitBlock 出块
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+@Service
+@Slf4j
+public class MiningPoolService {
+
+    /**
+     * 保留的工作单元数上限（链尾变化时全部作废）
+     */
+    private static final long MAX_ISSUED_UNITS = 4096;
+
+    /**
+     * 每个工作单元期望的份额数：nonce区间按 份额期望哈希次数 × 该值 划分，单元内的去重集合随之有界
+     */
+    private static final long SHARES_PER_UNIT = 1024;
+
+    /**
+     * 单个工作单元最多接受的份额数（期望值的4倍，正常worker不会达到），超过后要求worker领取新单元
+     */
+    private static final int MAX_SHARES_PER_UNIT = (int) SHARES_PER_UNIT * 4;
+
+    /**
+     * 32位nonce空间的最大值（无符号）
+     */
+    private static final long MAX_NONCE = 0xFFFFFFFFL;
+
+    /**
+     * 算力统计的滑动窗口：桶数 × 每桶时长
+     */
+    private static final int HASHRATE_BUCKETS = 30;
+    private static final long HASHRATE_BUCKET_MS = 10_000;
+
+    @Resource
+    private BlockCache blockCache;
+
+    @Resource
+    private BlockService blockService;
+
+    @Resource
+    private PowService powService;
+
+    @Resource
+    private Mempool mempool;
+
+    /**
+     * 已订阅的worker
+     */
+    private final Map<WebSocket, PoolWorker> workers = new ConcurrentHashMap<>();
+
+    /**
+     * 已下发的工作单元（jobId → 单元）
+     */
+    private final Cache<Long, IssuedUnit> issuedUnits = CacheBuilder.newBuilder()
+            .maximumSize(MAX_ISSUED_UNITS)
+            .build();
+
+    /**
+     * 工作单元编号 / 额外nonce序号（额外nonce在进程内唯一，保证各单元默克尔根不同）
+     */
+    private final AtomicLong jobSeq = new AtomicLong();
+    private final AtomicLong extraNonceSeq = new AtomicLong();
+
+    /**
+     * 当前区块模板（不含Coinbase交易）
+     */
+    private volatile PoolTemplate template;
+
+    /**
+     * 链尾变化后重新下发工作的线程，不阻塞出块线程
+     */
+    private final ExecutorService notifyExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("mining-pool-notify").setDaemon(true).build());
+
+    @PreDestroy
+    public void destroy() {
+        notifyExecutor.shutdownNow();
+    }
+
+    /**
+     * @description: 处理worker消息
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: [webSocket, msg]
+     * @return: void
+     **/
+    public void handleMessage(WebSocket webSocket, String msg) {
+        try {
+            Message message = JSON.parseObject(msg, Message.class);
+            switch (message.getType()) {
+                case BlockConstant.POOL_SUBSCRIBE:
+                    subscribe(webSocket, message.getData());
+                    break;
+                case BlockConstant.POOL_GET_WORK:
+                    requestWork(webSocket);
+                    break;
+                case BlockConstant.POOL_SUBMIT:
+                    handleSubmit(webSocket, JSON.parseObject(message.getData(), ShareSubmit.class));
+                    break;
+                default:
+                    log.warn("未知的矿池消息类型: {}", message.getType());
+            }
+        } catch (Exception e) {
+            log.error("处理矿池worker：{} 的消息错误:{}", webSocket.getRemoteSocketAddress(), e.getMessage());
+        }
+    }
+
+    /**
+     * @description: worker断开连接
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: [webSocket]
+     * @return: void
+     **/
+    public void removeWorker(WebSocket webSocket) {
+        PoolWorker worker = workers.remove(webSocket);
+        if (worker != null) {
+            log.info("矿池worker已断开: {}，接受份额: {}，出块: {}", worker.name, worker.sharesAccepted.get(),
+                    worker.blocksFound.get());
+        }
+    }
+
+    /**
+     * @description: 各worker的份额与算力统计
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: []
+     * @return: java.util.List<com.freedom.chain.vo.PoolWorkerStats>
+     **/
+    public List<PoolWorkerStats> workerStats() {
+        long now = System.currentTimeMillis();
+        return workers.values().stream()
+                .map(worker -> worker.toStats(now))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @description: 链尾变化：已下发的工作单元全部过期，向所有worker下发新的工作
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: [event]
+     * @return: void
+     **/
+    @EventListener
+    public void onChainTipChanged(ChainTipEvent event) {
+        issuedUnits.invalidateAll();
+        if (workers.isEmpty()) {
+            return;
+        }
+        notifyExecutor.execute(() -> workers.keySet().forEach(webSocket -> sendWork(webSocket, true)));
+    }
+
+    /**
+     * @description: worker订阅：登记后立即下发工作
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: [webSocket, name]
+     * @return: void
+     **/
+    private void subscribe(WebSocket webSocket, String name) {
+        String workerName = name == null || name.isBlank() ? String.valueOf(webSocket.getRemoteSocketAddress()) : name;
+        workers.put(webSocket, new PoolWorker(workerName, String.valueOf(webSocket.getRemoteSocketAddress()),
+                blockCache.getPoolGetWorkPerSecond()));
+        log.info("矿池worker已连接: {}，地址: {}", workerName, webSocket.getRemoteSocketAddress());
+        sendWork(webSocket, true);
+    }
+
+    /**
+     * @description: worker主动领取工作：按连接限流，超过速率的请求直接丢弃（worker未收到新单元时会重新请求）
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: [webSocket]
+     * @return: void
+     **/
+    private void requestWork(WebSocket webSocket) {
+        PoolWorker worker = workers.get(webSocket);
+        if (worker == null) {
+            return;
+        }
+        if (!worker.getWorkLimiter.tryAcquire()) {
+            worker.getWorkThrottled.incrementAndGet();
+            log.debug("worker {} 领取工作过于频繁，忽略本次请求", worker.name);
+            return;
+        }
+        sendWork(webSocket, false);
+    }
+
+    /**
+     * @description: 下发一个新的工作单元
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: [webSocket, cleanJobs]
+     * @return: void
+     **/
+    private void sendWork(WebSocket webSocket, boolean cleanJobs) {
+        PoolWorker worker = workers.get(webSocket);
+        if (worker == null || !webSocket.isOpen()) {
+            return;
+        }
+        WorkUnit unit = issueUnit(worker);
+        if (unit == null) {
+            log.warn("本地还没有创世区块，暂不下发工作: {}", worker.name);
+            return;
+        }
+        unit.setCleanJobs(cleanJobs);
+        webSocket.send(JSON.toJSONString(new Message(BlockConstant.POOL_WORK, JSON.toJSONString(unit))));
+    }
+
+    /**
+     * @description: 生成工作单元：模板交易 + 使用新额外nonce的Coinbase交易
+     * nonce区间按份额难度划分（期望 SHARES_PER_UNIT 个份额，最多完整的32位空间），区间耗尽后worker领取新单元
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: [worker]
+     * @return: com.freedom.chain.model.pool.WorkUnit
+     **/
+    private WorkUnit issueUnit(PoolWorker worker) {
+        PoolTemplate current = currentTemplate();
+        if (current == null) {
+            return null;
+        }
+        long extraNonce = extraNonceSeq.incrementAndGet();
+        List<PublicLedgerTransaction> transactions = Lists.newArrayListWithCapacity(current.transactions.size() + 1);
+        transactions.add(powService.createCoinbaseTransaction(current.height, extraNonce));
+        transactions.addAll(current.transactions);
+        String merkleRoot = MerkleUtil.computeRoot(transactions);
+        BlockHeaderTemplate header = blockService.createHeaderTemplate(current.previousHash, merkleRoot,
+                System.currentTimeMillis(), current.bits);
+
+        long jobId = jobSeq.incrementAndGet();
+        issuedUnits.put(jobId, new IssuedUnit(current, header, transactions));
+        worker.workUnits.incrementAndGet();
+
+        WorkUnit unit = new WorkUnit();
+        unit.setJobId(jobId);
+        unit.setHeight(current.height);
+        unit.setPreviousHash(header.getPreviousHash());
+        unit.setMerkleRoot(header.getMerkleRoot());
+        unit.setTimestamp(header.getTimestamp());
+        unit.setBits(header.getBits());
+        unit.setShareBits(current.shareBits);
+        unit.setExtraNonce(extraNonce);
+        unit.setNonceStart(0);
+        unit.setNonceEnd(current.nonceEnd);
+        return unit;
+    }
+
+    /**
+     * @description: 当前区块模板；链尾变化或交易池变化时重新选择交易
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: []
+     * @return: com.freedom.chain.service.MiningPoolService.PoolTemplate
+     **/
+    private synchronized PoolTemplate currentTemplate() {
+        // 先读链尾版本号再读链尾，与 PowService 一致
+        long epoch = blockCache.getTipEpoch().get();
+        long mempoolVersion = mempool.getVersion();
+        PoolTemplate current = template;
+        if (current != null && current.epoch == epoch && current.mempoolVersion == mempoolVersion) {
+            return current;
+        }
+        Block latestBlock = blockCache.getLatestBlock();
+        if (latestBlock == null) {
+            return null;
+        }
+        long height = latestBlock.getIndex() + 1;
+        // 区块连接时已确认交易先移出交易池，再发布链尾事件，这里选出的都是未确认交易
+        List<PublicLedgerTransaction> prepared = powService.prepareValidTransactions(height, 0);
+        List<PublicLedgerTransaction> transactions = Lists.newArrayList(prepared.subList(1, prepared.size()));
+
+        int bits = blockService.getNextBits();
+        // 份额目标值不能比区块目标值更难
+        int shareBits = TargetUtil.difficultyToBits(blockCache.getPoolShareDifficulty());
+        if (TargetUtil.bitsToTarget(shareBits).compareTo(TargetUtil.bitsToTarget(bits)) < 0) {
+            shareBits = bits;
+        }
+        template = new PoolTemplate(epoch, mempoolVersion, latestBlock.getHash(), height, bits, shareBits, transactions);
+        log.info("矿池区块模板已更新，高度: {}，交易数: {}", height, transactions.size() + 1);
+        return template;
+    }
+
+    /**
+     * @description: 校验份额：重新计算区块头哈希，满足份额目标值计入统计，满足区块目标值时出块
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: [webSocket, submit]
+     * @return: void
+     **/
+    private void handleSubmit(WebSocket webSocket, ShareSubmit submit) {
+        PoolWorker worker = workers.get(webSocket);
+        if (worker == null || submit == null) {
+            return;
+        }
+        ShareResult result = new ShareResult();
+        result.setJobId(submit.getJobId());
+        result.setNonce(submit.getNonce());
+
+        IssuedUnit unit = issuedUnits.getIfPresent(submit.getJobId());
+        byte[] hashBytes = new byte[CryptoUtil.SHA256_SIZE];
+        if (unit == null) {
+            result.setReason("unknown-job");
+        } else if (unit.template.epoch != blockCache.getTipEpoch().get()) {
+            result.setReason("stale");
+        } else if (Integer.toUnsignedLong(submit.getNonce()) > unit.template.nonceEnd) {
+            result.setReason("out-of-range");
+        } else if (unit.submittedNonces.size() >= MAX_SHARES_PER_UNIT) {
+            result.setReason("unit-full");
+        } else if (!unit.submittedNonces.add(submit.getNonce())) {
+            result.setReason("duplicate");
+        } else {
+            unit.header.hash(unit.header.newHeaderBuffer(), submit.getNonce(), hashBytes);
+            if (!CryptoUtil.meetsTarget(hashBytes, unit.template.shareTarget)) {
+                result.setReason("low-difficulty");
+            } else {
+                result.setAccepted(true);
+            }
+        }
+
+        if (result.isAccepted()) {
+            worker.acceptShare(unit.template.shareWork);
+            if (CryptoUtil.meetsTarget(hashBytes, unit.template.target)) {
+                String hash = CryptoUtil.bytesToHex(hashBytes);
+                log.info("矿池worker {} 找到区块解，高度: {}，nonce: {}，hash: {}", worker.name, unit.template.height,
+                        submit.getNonce(), hash);
+                Block block = powService.submitBlock(unit.header, submit.getNonce(), hash, unit.transactions);
+                if (block != null) {
+                    worker.blocksFound.incrementAndGet();
+                    result.setBlockFound(true);
+                }
+            }
+        } else {
+            worker.sharesRejected.incrementAndGet();
+            log.debug("拒绝worker {} 的份额，jobId: {}，原因: {}", worker.name, submit.getJobId(), result.getReason());
+        }
+        webSocket.send(JSON.toJSONString(new Message(BlockConstant.POOL_SUBMIT_RESULT, JSON.toJSONString(result))));
+    }
+
+    /**
+     * @description: 矿池区块模板（同一链尾、同一批交易，各工作单元只有Coinbase交易不同）
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     **/
+    private static class PoolTemplate {
+        final long epoch;
+        final long mempoolVersion;
+        final String previousHash;
+        final long height;
+        final int bits;
+        final int shareBits;
+        final byte[] target;
+        final byte[] shareTarget;
+        /**
+         * 每个份额代表的期望哈希次数
+         */
+        final double shareWork;
+        /**
+         * 工作单元nonce区间的上界（含，按无符号32位）
+         */
+        final long nonceEnd;
+        /**
+         * 不含Coinbase的交易
+         */
+        final List<PublicLedgerTransaction> transactions;
+
+        PoolTemplate(long epoch, long mempoolVersion, String previousHash, long height, int bits, int shareBits,
+                     List<PublicLedgerTransaction> transactions) {
+            this.epoch = epoch;
+            this.mempoolVersion = mempoolVersion;
+            this.previousHash = previousHash;
+            this.height = height;
+            this.bits = bits;
+            this.shareBits = shareBits;
+            this.target = TargetUtil.bitsToTargetBytes(bits);
+            this.shareTarget = TargetUtil.bitsToTargetBytes(shareBits);
+            this.shareWork = TargetUtil.expectedHashes(shareBits);
+            this.nonceEnd = (long) Math.min(MAX_NONCE, Math.max(shareWork * SHARES_PER_UNIT, 1) - 1);
+            this.transactions = transactions;
+        }
+    }
+
+    /**
+     * @description: 已下发的工作单元
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     **/
+    private static class IssuedUnit {
+        final PoolTemplate template;
+        final BlockHeaderTemplate header;
+        final List<PublicLedgerTransaction> transactions;
+        /**
+         * 已提交的nonce，拒绝重复份额；最多 MAX_SHARES_PER_UNIT 个
+         */
+        final Set<Integer> submittedNonces = ConcurrentHashMap.newKeySet();
+
+        IssuedUnit(PoolTemplate template, BlockHeaderTemplate header, List<PublicLedgerTransaction> transactions) {
+            this.template = template;
+            this.header = header;
+            this.transactions = transactions;
+        }
+    }
+
+    /**
+     * @description: worker的份额统计
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     **/
+    private static class PoolWorker {
+        final String name;
+        final String address;
+        final long connectedAt = System.currentTimeMillis();
+        final AtomicLong workUnits = new AtomicLong();
+        final AtomicLong sharesAccepted = new AtomicLong();
+        final AtomicLong sharesRejected = new AtomicLong();
+        final AtomicLong blocksFound = new AtomicLong();
+        final AtomicLong getWorkThrottled = new AtomicLong();
+        volatile long lastShareAt;
+        /**
+         * 主动领取工作的限流
+         */
+        final RateLimiter getWorkLimiter;
+        /**
+         * 滑动窗口内各桶已接受份额代表的期望哈希次数之和，及各桶对应的时间片序号
+         */
+        private final double[] bucketWork = new double[HASHRATE_BUCKETS];
+        private final long[] bucketSlot = new long[HASHRATE_BUCKETS];
+
+        PoolWorker(String name, String address, double getWorkPerSecond) {
+            this.name = name;
+            this.address = address;
+            this.getWorkLimiter = RateLimiter.create(Math.max(getWorkPerSecond, 0.1));
+        }
+
+        void acceptShare(double shareWork) {
+            long now = System.currentTimeMillis();
+            sharesAccepted.incrementAndGet();
+            lastShareAt = now;
+            long slot = now / HASHRATE_BUCKET_MS;
+            int index = (int) (slot % HASHRATE_BUCKETS);
+            synchronized (this) {
+                if (bucketSlot[index] != slot) {
+                    bucketSlot[index] = slot;
+                    bucketWork[index] = 0;
+                }
+                bucketWork[index] += shareWork;
+            }
+        }
+
+        /**
+         * 最近 HASHRATE_BUCKETS 个时间片（含当前未满的一片）内的算力；连接时间不足一个窗口时按实际连接时长计算
+         */
+        synchronized double hashrate(long now) {
+            long currentSlot = now / HASHRATE_BUCKET_MS;
+            long oldestSlot = currentSlot - HASHRATE_BUCKETS + 1;
+            double work = 0;
+            for (int i = 0; i < HASHRATE_BUCKETS; i++) {
+                if (bucketSlot[i] >= oldestSlot && bucketSlot[i] <= currentSlot) {
+                    work += bucketWork[i];
+                }
+            }
+            long windowStart = Math.max(connectedAt, oldestSlot * HASHRATE_BUCKET_MS);
+            return work / (Math.max(now - windowStart, 1) / 1000.0);
+        }
+
+        PoolWorkerStats toStats(long now) {
+            PoolWorkerStats stats = new PoolWorkerStats();
+            stats.setName(name);
+            stats.setAddress(address);
+            stats.setConnectedAt(connectedAt);
+            stats.setWorkUnits(workUnits.get());
+            stats.setSharesAccepted(sharesAccepted.get());
+            stats.setSharesRejected(sharesRejected.get());
+            stats.setBlocksFound(blocksFound.get());
+            stats.setLastShareAt(lastShareAt);
+            stats.setGetWorkThrottled(getWorkThrottled.get());
+            stats.setHashrate(hashrate(now));
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.freedom.chain.service;
+
+import com.freedom.chain.error.Assert;
+import com.freedom.chain.model.block.Block;
+import com.freedom.chain.model.block.BlockCache;
+import com.freedom.chain.vo.MinerStatus;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @description: 后台挖矿调度：在独立线程中连续挖矿，链尾变化时由 PowService 立即中止过期的挖矿轮次，
+ * 本调度线程随即基于新链尾重建区块模板并继续挖矿
+ * @author: freedom
+ * @create: 2025-11-23
+ **/
+@Service
+@Slf4j
+public class MiningScheduler {
+
+    /**
+     * 挖矿出错后的退避时间（毫秒），避免异常时空转
+     */
+    private static final long ERROR_BACKOFF_MS = 1000;
+
+    @Resource
+    private PowService powService;
+
+    @Resource
+    private BlockCache blockCache;
+
+    /**
+     * 后台挖矿线程
+     */
+    private volatile Thread minerThread;
+
+    /**
+     * 是否处于运行状态
+     */
+    private volatile boolean running;
+
+    /**
+     * 本次启动的时间
+     */
+    private volatile long startedAt;
+
+    /**
+     * 已执行的挖矿轮次 / 成功出块数
+     */
+    private final AtomicLong rounds = new AtomicLong();
+    private final AtomicLong blocksMined = new AtomicLong();
+
+    /**
+     * 最近一次挖出的区块高度
+     */
+    private volatile int lastMinedHeight;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void autoStart() {
+        if (blockCache.isAutoMine() && blockCache.getLatestBlock() != null) {
+            start();
+        }
+    }
+
+    /**
+     * @description: 启动后台挖矿
+     * @author: freedom
+     * @date: 2025/11/23 15:10
+     * @param: []
+     * @return: boolean 之前未运行且本次成功启动返回true
+     **/
+    public synchronized boolean start() {
+        Assert.notNull(blockCache.getLatestBlock(), "请先创建创世区块");
+        if (running) {
+            return false;
+        }
+        running = true;
+        startedAt = System.currentTimeMillis();
+        minerThread = new Thread(this::runLoop, "mining-scheduler");
+        minerThread.setDaemon(true);
+        minerThread.start();
+        log.info("后台挖矿已启动");
+        return true;
+    }
+
+    /**
+     * @description: 停止后台挖矿，立即中止正在进行的挖矿轮次
+     * @author: freedom
+     * @date: 2025/11/23 15:10
+     * @param: []
+     * @return: boolean 之前处于运行状态返回true
+     **/
+    public synchronized boolean stop() {
+        if (!running) {
+            return false;
+        }
+        running = false;
+        minerThread = null;
+        // 不中断线程（避免打断区块持久化等IO），由停止标记与 keepRunning 检查结束本轮
+        powService.abortMining();
+        log.info("后台挖矿已停止");
+        return true;
+    }
+
+    /**
+     * @description: 后台挖矿状态
+     * @author: freedom
+     * @date: 2025/11/23 15:10
+     * @param: []
+     * @return: com.freedom.chain.vo.MinerStatus
+     **/
+    public MinerStatus status() {
+        MinerStatus status = new MinerStatus();
+        status.setRunning(running);
+        status.setStartedAt(running ? startedAt : 0);
+        status.setRounds(rounds.get());
+        status.setBlocksMined(blocksMined.get());
+        status.setLastMinedHeight(lastMinedHeight);
+        status.setTipEpoch(blockCache.getTipEpoch().get());
+        Block latestBlock = blockCache.getLatestBlock();
+        status.setChainHeight(latestBlock != null ? latestBlock.getIndex() : 0);
+        return status;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        stop();
+    }
+
+    /**
+     * @description: 挖矿主循环：每轮结束（出块、链尾变化中止、无交易）后都基于最新链尾重新开始
+     * @author: freedom
+     * @date: 2025/11/23 15:10
+     * @param: []
+     * @return: void
+     **/
+    private void runLoop() {
+        Thread self = Thread.currentThread();
+        while (running && minerThread == self) {
+            try {
+                rounds.incrementAndGet();
+                Block block = powService.mine(() -> running && minerThread == self);
+                if (block != null) {
+                    blocksMined.incrementAndGet();
+                    lastMinedHeight = block.getIndex();
+                }
+            } catch (Exception e) {
+                log.error("后台挖矿异常", e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -25,6 +25,9 @@ public class P2PService {
     @Resource
     private BlockService blockService;
 
+    @Resource
+    private TransactionRelay transactionRelay;
+
     /**
      * 客户端和服务端共用的消息处理方法
      * @param webSocket
@@ -53,6 +56,18 @@ public class P2PService {
                 case BlockConstant.RESPONSE_BLOCKCHAIN:
                     handleBlockChainResponse(message.getData(), sockets);
                     break;
+                //其他节点公告新交易的哈希:5
+                case BlockConstant.INV_TX:
+                    transactionRelay.handleInventory(webSocket, message.getData());
+                    break;
+                //其他节点请求交易:6
+                case BlockConstant.GET_TX:
+                    transactionRelay.handleGetTransactions(webSocket, message.getData());
+                    break;
+                //接收到其他节点发送的交易:7
+                case BlockConstant.TX_DATA:
+                    transactionRelay.handleTransactions(webSocket, message.getData());
+                    break;
             }
         } catch (Exception e) {
             log.error("处理IP地址为：{}，端口号为：{}的p2p消息错误:{}",webSocket.getRemoteSocketAddress().getAddress().toString(),
@@ -3,21 +3,40 @@ package com.freedom.chain.service;
 import com.alibaba.fastjson2.JSON;
 import com.freedom.chain.model.block.Block;
 import com.freedom.chain.model.block.BlockCache;
+import com.freedom.chain.model.block.BlockHeaderTemplate;
+import com.freedom.chain.model.block.ChainTipEvent;
 import com.freedom.chain.model.ledger.CoinbaseTransaction;
+import com.freedom.chain.model.ledger.MempoolEntry;
 import com.freedom.chain.model.ledger.PublicLedgerTransaction;
-import com.freedom.chain.model.ledger.UtxoInput;
 import com.freedom.chain.model.p2p.Message;
 import com.freedom.chain.utils.BlockConstant;
-import com.freedom.chain.utils.LedgerUtil;
+import com.freedom.chain.utils.CryptoUtil;
+import com.freedom.chain.utils.HeaderHashKernel;
+import com.freedom.chain.utils.HeaderHashKernels;
+import com.freedom.chain.utils.MerkleUtil;
+import com.freedom.chain.utils.ScheduledTasks;
+import com.freedom.chain.utils.TargetUtil;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 
 /**
  * @description: 工作量
@@ -36,6 +55,76 @@ public class PowService {
     @Resource
     private P2PService p2PService;
 
+    @Resource
+    private MiningMetrics miningMetrics;
+
+    @Resource
+    private Mempool mempool;
+
+    @Resource
+    private BlockAssembler blockAssembler;
+
+    /**
+     * nonce为32位，按无符号范围搜索
+     */
+    private static final long NONCE_SPACE_MAX = 0xFFFFFFFFL;
+
+    /**
+     * worker每批尝试次数：每批上报一次指标并检查是否需要退出
+     */
+    private static final int ATTEMPT_BATCH = 10000;
+
+    /**
+     * 并行挖矿线程池
+     */
+    private ExecutorService miningExecutor;
+
+    /**
+     * 挖矿过程中定时刷新区块模板（纳入新到达的交易）
+     */
+    private ScheduledExecutorService templateRefresher;
+
+    /**
+     * 挖矿worker数量
+     */
+    private int workerCount;
+
+    /**
+     * 实际使用的哈希内核（启动时由配置解析，见 HeaderHashKernels.resolve）
+     */
+    private String kernelType;
+
+    /**
+     * 同一时间只允许一轮挖矿（后台挖矿与 /mine 请求互斥）
+     */
+    private final ReentrantLock miningLock = new ReentrantLock();
+
+    /**
+     * 正在进行的挖矿轮次
+     */
+    private volatile MiningRound currentRound;
+
+    @PostConstruct
+    public void init() {
+        int configured = blockCache.getMiningThreads();
+        workerCount = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+        miningExecutor = Executors.newFixedThreadPool(workerCount,
+                new ThreadFactoryBuilder().setNameFormat("pow-worker-%d").setDaemon(true).build());
+        long refreshMs = Math.max(blockCache.getTemplateRefreshMs(), 100);
+        templateRefresher = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("template-refresher").setDaemon(true).build());
+        ScheduledTasks.scheduleWithFixedDelay(templateRefresher, "刷新区块模板", this::refreshTemplate, refreshMs, refreshMs,
+                TimeUnit.MILLISECONDS);
+        kernelType = HeaderHashKernels.resolve(blockCache.getMiningKernel());
+        log.info("挖矿线程池初始化完成，worker数量: {}，哈希内核: {}，模板刷新间隔: {}ms", workerCount, kernelType, refreshMs);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        templateRefresher.shutdownNow();
+        miningExecutor.shutdownNow();
+    }
+
     /**
      * @description: 通过“挖矿”进行工作量证明，实现节点间的共识
      * @author: freedom
@@ -44,200 +133,375 @@ public class PowService {
      * @return:
      **/
     public Block mine() {
-        // 1. 动态调整难度（基于最近N个区块的出块时间）
-        adjustDifficultyOptimized();
-        // 2. 准备交易数据（过滤、排序、限制大小）
-        List<PublicLedgerTransaction> blockTransactions = prepareValidTransactions();
-        if (blockTransactions.isEmpty()) {
-            log.warn("没有可打包的有效交易，放弃挖矿");
-            return null;
-        }
-        // 3. 执行工作量证明
-        MiningResult result = proofOfWork(blockTransactions);
-        if (result == null) {
-            log.error("挖矿失败");
-            return null;
+        return mine(() -> true);
+    }
+
+    /**
+     * @description: 挖矿，keepRunning 返回false时尽快结束本轮（供后台挖矿停止使用）
+     * @author: freedom
+     * @date: 2025/11/23 15:10
+     * @param: [keepRunning]
+     * @return: com.freedom.chain.model.block.Block
+     **/
+    public Block mine(BooleanSupplier keepRunning) {
+        miningLock.lock();
+        try {
+            if (!keepRunning.getAsBoolean()) {
+                return null;
+            }
+            return mineRound(keepRunning);
+        } finally {
+            miningLock.unlock();
         }
-        // 4. 创建并广播区块
-        return createAndBroadcastBlock(result, blockTransactions);
     }
 
     /**
-     * @description: 动态调整难度
+     * @description: 中止当前挖矿轮次（后台挖矿停止时调用）
      * @author: freedom
-     * @date: 2025/11/22 11:40
+     * @date: 2025/11/23 15:10
      * @param: []
      * @return: void
      **/
-    private void adjustDifficultyOptimized() {
-        List<Block> blockchain = blockService.getBlockChain();
-        int chainSize = blockchain.size();
-
-        // 至少需要11个区块（10个间隔）才能计算平均时间
-        if (chainSize < BlockConstant.DIFFICULTY_ADJUST_WINDOW + 1) {
-            return;
+    public void abortMining() {
+        MiningRound round = currentRound;
+        if (round != null) {
+            round.stop.set(true);
         }
+    }
 
-        // 取最近10个区块的出块时间间隔
-        long totalTime = 0;
-        int startIndex = chainSize - BlockConstant.DIFFICULTY_ADJUST_WINDOW - 1;
-        for (int i = startIndex + 1; i <= chainSize - 1; i++) {
-            totalTime += blockchain.get(i).getTimestamp() - blockchain.get(i - 1).getTimestamp();
-        }
-
-        long averageTime = totalTime / BlockConstant.DIFFICULTY_ADJUST_WINDOW;
-        int currentDifficulty = blockService.getDifficulty();
-        int newDifficulty = currentDifficulty;
-
-        // 根据平均时间调整难度（目标10分钟/块）
-        if (averageTime < BlockConstant.EXPECTED_BLOCK_TIME_MS * 0.8) {
-            newDifficulty++; // 出块过快，提高难度
-        } else if (averageTime > BlockConstant.EXPECTED_BLOCK_TIME_MS * 1.2) {
-            newDifficulty = Math.max(1, currentDifficulty - 1); // 出块过慢，降低难度（最低为1）
+    /**
+     * @description: 链尾变化时立即中止基于旧链尾的挖矿轮次，无需worker逐nonce查询链
+     * @author: freedom
+     * @date: 2025/11/23 15:10
+     * @param: [event]
+     * @return: void
+     **/
+    @EventListener
+    public void onChainTipChanged(ChainTipEvent event) {
+        MiningRound round = currentRound;
+        if (round != null && round.epoch < event.getEpoch() && round.stop.compareAndSet(false, true)) {
+            log.info("链尾已变化（高度: {}），终止当前挖矿", event.getTip() != null ? event.getTip().getIndex() : 0);
         }
+    }
 
-        if (newDifficulty != currentDifficulty) {
-            blockCache.setDifficulty(newDifficulty);
-            log.info("难度调整: {} -> {} (平均出块时间: {}ms)",
-                    currentDifficulty, newDifficulty, averageTime);
+    /**
+     * @description: 执行一轮挖矿
+     * @author: freedom
+     * @date: 2025/11/19 23:37
+     * @param: []
+     * @return: com.freedom.chain.model.block.Block
+     **/
+    private Block mineRound(BooleanSupplier keepRunning) {
+        // 1. 执行工作量证明（交易在轮次内准备，挖矿过程中模板会随新交易刷新）
+        MiningResult result = proofOfWork(keepRunning);
+        if (result == null) {
+            log.error("挖矿失败");
+            return null;
         }
+        // 2. 创建并广播区块（使用命中解的那一版模板中的交易）
+        return createAndBroadcastBlock(result);
     }
 
     /**
      * @description: 准备交易数据（过滤、排序、限制大小）
      * @author: freedom
      * @date: 2025/11/22 11:36
-     * @param: []
+     * @param: [blockHeight, extraNonce]
      * @return: java.util.List<com.freedom.chain.model.ledger.PublicLedgerTransaction>
      **/
-    private List<PublicLedgerTransaction> prepareValidTransactions() {
+    public List<PublicLedgerTransaction> prepareValidTransactions(long blockHeight, long extraNonce) {
         List<PublicLedgerTransaction> candidateTxs = Lists.newArrayList();
-        Block latestBlock = blockCache.getLatestBlock();
-        long blockHeight = latestBlock != null ? latestBlock.getIndex() + 1 : 1;
 
         // 1. 添加Coinbase交易（挖矿奖励）
-        CoinbaseTransaction coinbaseTx = createCoinbaseTransaction(blockHeight);
+        CoinbaseTransaction coinbaseTx = createCoinbaseTransaction(blockHeight, extraNonce);
         candidateTxs.add(coinbaseTx);
-        long currentBlockSize = estimateTransactionSize(coinbaseTx);
-
-        // 2. 筛选并排序待处理交易
-        List<PublicLedgerTransaction> validPendingTxs = blockCache.getPackedTransactions().stream()
-                .filter(this::isValidTransaction) // 验证交易有效性
-                .sorted(Comparator.comparingDouble(this::calculateTxPriority).reversed()) // 按优先级排序
-                .toList();
-
-        // 3. 填充区块（不超过最大区块大小）
-        for (PublicLedgerTransaction tx : validPendingTxs) {
-            long txSize = estimateTransactionSize(tx);
-            if (currentBlockSize + txSize > BlockConstant.MAX_BLOCK_SIZE) {
-                log.info("区块大小已达上限，停止添加交易");
-                break;
-            }
-            candidateTxs.add(tx);
-            currentBlockSize += txSize;
-        }
+        long currentBlockSize = MempoolEntry.serializedSize(coinbaseTx);
+
+        // 2. 按祖先包费率从交易池选择交易，装满区块即停止（只处理进入区块的交易，与链长度无关）
+        candidateTxs.addAll(blockAssembler.assemble(currentBlockSize));
 
         return candidateTxs;
     }
 
     /**
-     * @description: 按优先级排序
+     * @description: 执行工作量证明（多线程并行搜索nonce）
      * @author: freedom
-     * @date: 2025/11/22 11:36
-     * @param: [tx]
-     * @return: double
+     * @date: 2025/11/22 11:40
+     * @param: [keepRunning]
+     * @return: com.freedom.chain.service.PowService.MiningResult
      **/
-    private double calculateTxPriority(PublicLedgerTransaction tx) {
-        long txSize = estimateTransactionSize(tx);
-        if (txSize == 0) return 0;
-
-        // 基础优先级：手续费率（聪/字节）
-        double feeRate = new BigDecimal(tx.getFee())
-                .divide(new BigDecimal(txSize), 10, BigDecimal.ROUND_HALF_UP)
-                .doubleValue();
-
-        // 增加交易年龄权重（未确认时间越长优先级越高）
-        long age = System.currentTimeMillis() - tx.getTimestamp();
-        return feeRate * (1 + Math.min(age / (24 * 60 * 60 * 1000), 7)); // 最大7天加权
+    private MiningResult proofOfWork(BooleanSupplier keepRunning) {
+        // 先记录链尾版本号再读取链尾，保证之后的任何链尾变化都能被检测到
+        long epoch = blockCache.getTipEpoch().get();
+        Block latestBlock = blockCache.getLatestBlock();
+        String previousHash = latestBlock != null ? latestBlock.getHash() : "";
+        long blockHeight = latestBlock != null ? latestBlock.getIndex() + 1 : 1;
+        int bits = blockService.getNextBits();
+        MiningRound round = new MiningRound(epoch, previousHash, blockHeight, bits, keepRunning);
+
+        // 准备交易数据（按费率选择、限制大小），先记录交易池版本号，之后交易池变化时刷新模板
+        round.mempoolVersion = mempool.getVersion();
+        List<PublicLedgerTransaction> transactions = timedPrepareTransactions(blockHeight);
+        if (transactions.isEmpty()) {
+            log.warn("没有可打包的有效交易，放弃挖矿");
+            return null;
+        }
+        round.job = createJob(round, transactions, System.currentTimeMillis(), 0, null);
+        miningMetrics.roundStarted();
+
+        log.info("开始挖矿，目标值: {}，难度: {}，线程数: {}", Integer.toHexString(bits),
+                String.format("%.2f", TargetUtil.bitsToDifficulty(bits)), workerCount);
+        long start = System.currentTimeMillis();
+
+        // 所有worker共享的停止标记与结果，任一线程找到解、链尾变化或被中止后其余线程立即退出
+        currentRound = round;
+        AtomicReference<MiningResult> found = new AtomicReference<>();
+        List<Callable<Void>> workers = Lists.newArrayListWithCapacity(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            final int workerId = i;
+            workers.add(() -> {
+                searchNonce(workerId, round, start, found);
+                return null;
+            });
+        }
+
+        try {
+            miningExecutor.invokeAll(workers);
+        } catch (InterruptedException e) {
+            round.stop.set(true);
+            Thread.currentThread().interrupt();
+            log.info("挖矿被中断");
+            return null;
+        } finally {
+            currentRound = null;
+            miningMetrics.roundFinished(found.get() != null, blockCache.getTipEpoch().get() != round.epoch);
+        }
+        return found.get();
     }
 
     /**
-     * @description: 验证交易有效性
+     * @description: 单个worker的nonce搜索：按步长workerCount交错划分32位nonce空间，互不重叠
+     * 每次尝试前检查模板版本，模板被刷新或滚动后切换到新模板并从头搜索；
+     * 本worker的nonce区间耗尽时滚动时间戳/额外nonce，生成新的搜索空间，不会停在高难度上；
+     * 哈希内核一次计算 lanes 个nonce：n, n+workerCount, ..., n+(lanes-1)*workerCount
      * @author: freedom
-     * @date: 2025/11/22 11:36
-     * @param: [tx]
-     * @return: boolean
+     * @date: 2025/11/22 11:40
+     * @param: [workerId, round, start, found]
+     * @return: void
      **/
-    private boolean isValidTransaction(PublicLedgerTransaction tx) {
-        if (!tx.verify()) {
-            log.warn("交易签名验证失败: {}", tx.getTxHash());
-            return false;
+    private void searchNonce(int workerId, MiningRound round, long start, AtomicReference<MiningResult> found) {
+        AtomicBoolean stop = round.stop;
+        AtomicLong tipEpoch = blockCache.getTipEpoch();
+        MiningJob job = round.job;
+        HeaderHashKernel kernel = HeaderHashKernels.create(kernelType);
+        kernel.init(job.template.newHeaderBuffer());
+        int lanes = kernel.lanes();
+        long laneSpan = (long) (lanes - 1) * workerCount;
+        byte[] hashes = new byte[lanes * CryptoUtil.SHA256_SIZE];
+        int attempts = 0;
+        long n = workerId;
+        try {
+            while (!stop.get()) {
+                // 链尾版本号变化说明有新块被添加（一次volatile读，避免无效挖矿）
+                if (tipEpoch.get() != round.epoch) {
+                    if (stop.compareAndSet(false, true)) {
+                        log.info("检测到新块已生成，终止当前挖矿");
+                    }
+                    return;
+                }
+
+                MiningJob latest = round.job;
+                if (latest != job) {
+                    // 模板已更新：内核切换到新的区块头，nonce从头开始
+                    job = latest;
+                    kernel.init(job.template.newHeaderBuffer());
+                    n = workerId;
+                } else if (n + laneSpan > NONCE_SPACE_MAX) {
+                    rollJob(round, job);
+                    continue;
+                }
+
+                kernel.hash((int) n, workerCount, hashes);
+                for (int lane = 0; lane < lanes; lane++) {
+                    if (!CryptoUtil.meetsTarget(hashes, lane * CryptoUtil.SHA256_SIZE, round.target)) {
+                        continue;
+                    }
+                    if (stop.compareAndSet(false, true)) {
+                        int nonce = (int) (n + (long) lane * workerCount);
+                        long elapsed = System.currentTimeMillis() - start;
+                        // 只有命中时才格式化十六进制
+                        String hash = CryptoUtil.bytesToHex(Arrays.copyOfRange(hashes,
+                                lane * CryptoUtil.SHA256_SIZE, (lane + 1) * CryptoUtil.SHA256_SIZE));
+                        found.set(new MiningResult(hash, nonce, job, elapsed));
+                        log.info("挖矿成功，耗时: {}ms, worker: {}, 模板版本: {}, nonce: {}, hash: {}",
+                                elapsed, workerId, job.version, nonce, hash);
+                    }
+                    return;
+                }
+                n += (long) lanes * workerCount;
+
+                // 每批尝试上报一次指标，并检查是否需要退出
+                attempts += lanes;
+                if (attempts >= ATTEMPT_BATCH) {
+                    miningMetrics.addAttempts(workerId, attempts);
+                    attempts = 0;
+                    if (Thread.currentThread().isInterrupted() || !round.keepRunning.getAsBoolean()) {
+                        stop.set(true);
+                        log.info("挖矿被中断，worker: {}, 当前nonce: {}", workerId, n);
+                        return;
+                    }
+                }
+            }
+        } finally {
+            // 上报最后一批不足 ATTEMPT_BATCH 的尝试次数
+            miningMetrics.addAttempts(workerId, attempts);
         }
-        return true;
     }
 
     /**
-     * @description: 执行工作量证明
+     * @description: 定时任务：挖矿过程中交易池变化时重新选择交易并发布新模板，
+     * worker在下一次尝试时切换，线程池与本轮挖矿保持不变
      * @author: freedom
-     * @date: 2025/11/22 11:40
-     * @param: [transactions]
-     * @return: com.freedom.chain.service.PowService.MiningResult
+     * @date: 2025/11/23 18:30
+     * @param: []
+     * @return: void
      **/
-    private MiningResult proofOfWork(List<PublicLedgerTransaction> transactions) {
-        Block latestBlock = blockCache.getLatestBlock();
-        String previousHash = latestBlock != null ? latestBlock.getHash() : "";
-        long timestamp = System.currentTimeMillis();
-        int nonce = 0;
-        String target = new String(new char[blockService.getDifficulty()]).replace('\0', '0');
-
-        log.info("开始挖矿，难度: {}，目标前缀: {}", blockService.getDifficulty(), target);
-        long start = System.currentTimeMillis();
-
-        while (true) {
-            // 检查是否有新块被添加（避免无效挖矿）
-            if (latestBlock != null && blockCache.getLatestBlock().getIndex() > latestBlock.getIndex()) {
-                log.info("检测到新块已生成，终止当前挖矿");
-                return null;
+    private void refreshTemplate() {
+        MiningRound round = currentRound;
+        if (round == null || round.stop.get() || round.job == null) {
+            return;
+        }
+        long mempoolVersion = mempool.getVersion();
+        if (mempoolVersion == round.mempoolVersion) {
+            return;
+        }
+        round.mempoolVersion = mempoolVersion;
+        List<PublicLedgerTransaction> transactions = timedPrepareTransactions(round.blockHeight);
+        synchronized (round) {
+            MiningJob current = round.job;
+            if (round.stop.get() || sameTransactions(current.transactions, transactions)) {
+                return;
             }
+            round.job = createJob(round, transactions, System.currentTimeMillis(), 0, current);
+            miningMetrics.templateRefreshed();
+            log.info("交易池已变化，刷新区块模板，版本: {}，交易数: {}", round.job.version, transactions.size());
+        }
+    }
 
-            String hash = blockService.calculateHash(previousHash, timestamp, transactions, nonce);
-            if (hash.startsWith(target)) {
-                long elapsed = System.currentTimeMillis() - start;
-                log.info("挖矿成功，耗时: {}ms, nonce: {}, hash: {}", elapsed, nonce, hash);
-                return new MiningResult(hash, nonce, timestamp, elapsed);
+    /**
+     * @description: nonce空间耗尽时滚动模板：时钟已前进则只更新时间戳（默克尔根不变），
+     * 否则递增Coinbase交易中的额外nonce，重新计算默克尔根
+     * @author: freedom
+     * @date: 2025/11/23 18:30
+     * @param: [round, exhausted]
+     * @return: void
+     **/
+    private void rollJob(MiningRound round, MiningJob exhausted) {
+        synchronized (round) {
+            // 其他worker已经滚动或刷新过模板
+            if (round.job != exhausted || round.stop.get()) {
+                return;
             }
+            miningMetrics.templateRolled();
+            long now = System.currentTimeMillis();
+            if (now > exhausted.template.getTimestamp()) {
+                round.job = createJob(round, exhausted.transactions, now, exhausted.extraNonce, exhausted);
+                log.info("nonce空间已耗尽，滚动时间戳，模板版本: {}", round.job.version);
+            } else {
+                long extraNonce = exhausted.extraNonce + 1;
+                List<PublicLedgerTransaction> transactions = Lists.newArrayList(exhausted.transactions);
+                transactions.set(0, createCoinbaseTransaction(round.blockHeight, extraNonce));
+                round.job = createJob(round, transactions, now, extraNonce, exhausted);
+                log.info("nonce空间已耗尽，滚动额外nonce: {}，模板版本: {}", extraNonce, round.job.version);
+            }
+        }
+    }
 
-            nonce++;
-            // 每10000次尝试检查一次是否需要退出
-            if (nonce % 10000 == 0 && Thread.currentThread().isInterrupted()) {
-                log.info("挖矿被中断，当前nonce: {}", nonce);
-                return null;
+    /**
+     * @description: 构建一版挖矿模板；交易只通过默克尔根进入区块头，交易不变时复用上一版的默克尔根
+     * @author: freedom
+     * @date: 2025/11/23 18:30
+     * @param: [round, transactions, timestamp, extraNonce, previous]
+     * @return: com.freedom.chain.service.PowService.MiningJob
+     **/
+    private MiningJob createJob(MiningRound round, List<PublicLedgerTransaction> transactions, long timestamp,
+                                long extraNonce, MiningJob previous) {
+        long begin = System.nanoTime();
+        String merkleRoot = previous != null && previous.transactions == transactions
+                ? previous.template.getMerkleRoot()
+                : MerkleUtil.computeRoot(transactions);
+        BlockHeaderTemplate template = blockService.createHeaderTemplate(round.previousHash, merkleRoot, timestamp, round.bits);
+        long version = previous != null ? previous.version + 1 : 0;
+        miningMetrics.templateBuilt(System.nanoTime() - begin);
+        return new MiningJob(version, template, transactions, extraNonce);
+    }
+
+    /**
+     * @description: 选择交易并记录耗时
+     * @author: freedom
+     * @date: 2025/11/24 16:20
+     * @param: [blockHeight]
+     * @return: java.util.List<com.freedom.chain.model.ledger.PublicLedgerTransaction>
+     **/
+    private List<PublicLedgerTransaction> timedPrepareTransactions(long blockHeight) {
+        long begin = System.nanoTime();
+        List<PublicLedgerTransaction> transactions = prepareValidTransactions(blockHeight, 0);
+        miningMetrics.recordPrepareTransactions(System.nanoTime() - begin);
+        return transactions;
+    }
+
+    /**
+     * @description: 两版模板的交易是否相同（忽略第一笔Coinbase交易）
+     * @author: freedom
+     * @date: 2025/11/23 18:30
+     * @param: [current, candidate]
+     * @return: boolean
+     **/
+    private boolean sameTransactions(List<PublicLedgerTransaction> current, List<PublicLedgerTransaction> candidate) {
+        if (current.size() != candidate.size()) {
+            return false;
+        }
+        for (int i = 1; i < current.size(); i++) {
+            if (!current.get(i).getTxHash().equals(candidate.get(i).getTxHash())) {
+                return false;
             }
         }
+        return true;
     }
 
     /**
      * @description: 创建并广播区块
      * @author: freedom
      * @date: 2025/11/22 11:40
-     * @param: [result, transactions]
+     * @param: [result]
      * @return: com.freedom.chain.model.block.Block
      **/
-    private Block createAndBroadcastBlock(MiningResult result, List<PublicLedgerTransaction> transactions) {
+    private Block createAndBroadcastBlock(MiningResult result) {
+        return submitBlock(result.template, result.nonce, result.hash, result.transactions);
+    }
+
+    /**
+     * @description: 提交满足目标值的解：创建区块、更新UTXO并广播（本地挖矿与矿池worker共用，串行执行避免同高度重复出块）
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: [template, nonce, hash, transactions]
+     * @return: com.freedom.chain.model.block.Block 解已过期（链尾已变化）时返回null
+     **/
+    public synchronized Block submitBlock(BlockHeaderTemplate template, int nonce, String hash,
+                                          List<PublicLedgerTransaction> transactions) {
+        long begin = System.nanoTime();
         Block newBlock = blockService.createNewBlock(
-                result.nonce,
-                blockCache.getLatestBlock().getHash(),
-                result.hash,
-                result.timestamp,
+                nonce,
+                template.getPreviousHash(),
+                hash,
+                template.getTimestamp(),
+                template.getMerkleRoot(),
+                template.getBits(),
                 transactions
         );
 
         if (newBlock != null) {
-            // 标记交易为已打包并更新UTXO
-            updateUtxos(transactions);
-            blockCache.getPackedTransactions().removeAll(transactions);
-
-            // 广播新区块
+            // 广播新区块（UTXO已在连接区块时更新）
             Message msg = new Message();
             msg.setType(BlockConstant.RESPONSE_LATEST_BLOCK);
             msg.setData(JSON.toJSONString(newBlock));
@@ -245,54 +509,24 @@ public class PowService {
 
             log.info("区块创建成功，高度: {}", newBlock.getIndex());
         }
+        miningMetrics.recordBlockConnect(System.nanoTime() - begin);
         return newBlock;
     }
 
-    /**
-     * @description: 标记交易为已打包并更新UTXO
-     * @author: freedom
-     * @date: 2025/11/22 11:37
-     * @param: [transactions]
-     * @return: void
-     **/
-    private void updateUtxos(List<PublicLedgerTransaction> transactions) {
-        for (PublicLedgerTransaction tx : transactions) {
-            // 标记输入的UTXO为已花费
-            for (UtxoInput input : tx.getUtxoInputs()) {
-                LedgerUtil.markUtxoAsSpent(input.getPrevTxHash(), input.getPrevOutIndex());
-            }
-            // 添加输出的UTXO
-            LedgerUtil.addUtxos(tx.getTxHash(), tx.getUtxoOutputs());
-        }
-        // 先内存，后文件：更新完成后保存快照
-        LedgerUtil.saveUtxoSnapshot();
-    }
-
     /**
      * @description: 添加Coinbase交易（挖矿奖励）
      * @author: freedom
      * @date: 2025/11/22 11:40
-     * @param: [blockHeight]
+     * @param: [blockHeight, extraNonce]
      * @return: com.freedom.chain.model.ledger.CoinbaseTransaction
      **/
-    private CoinbaseTransaction createCoinbaseTransaction(long blockHeight) {
+    public CoinbaseTransaction createCoinbaseTransaction(long blockHeight, long extraNonce) {
         // 使用当前节点的矿工地址（实际应从配置或密钥对中获取）
         String minerAddress = blockCache.getMinerAddress();
         if (minerAddress == null || minerAddress.isEmpty()) {
             blockCache.setMinerAddress(minerAddress);
         }
-        return new CoinbaseTransaction(minerAddress, blockHeight);
-    }
-
-    /**
-     * @description: 预估数据大小
-     * @author: freedom
-     * @date: 2025/11/22 11:39
-     * @param: [tx]
-     * @return: long
-     **/
-    private long estimateTransactionSize(PublicLedgerTransaction tx) {
-        return JSON.toJSONString(tx).getBytes(StandardCharsets.UTF_8).length;
+        return new CoinbaseTransaction(minerAddress, blockHeight, extraNonce);
     }
 
     /**
@@ -303,15 +537,101 @@ public class PowService {
     private static class MiningResult {
         String hash;
         int nonce;
-        long timestamp;
+        BlockHeaderTemplate template;
+        List<PublicLedgerTransaction> transactions;
         long elapsedTime;
 
-        MiningResult(String hash, int nonce, long timestamp, long elapsedTime) {
+        MiningResult(String hash, int nonce, MiningJob job, long elapsedTime) {
             this.hash = hash;
             this.nonce = nonce;
-            this.timestamp = timestamp;
+            this.template = job.template;
+            this.transactions = job.transactions;
             this.elapsedTime = elapsedTime;
         }
     }
 
+    /**
+     * @description: 一版挖矿模板（不可变），刷新或滚动时整体替换
+     * @author: freedom
+     * @date: 2025/11/23 18:30
+     **/
+    private static class MiningJob {
+        /**
+         * 模板版本号（轮次内递增）
+         */
+        final long version;
+        /**
+         * 区块头模板
+         */
+        final BlockHeaderTemplate template;
+        /**
+         * 打包的交易（第一笔为Coinbase）
+         */
+        final List<PublicLedgerTransaction> transactions;
+        /**
+         * Coinbase交易中的额外nonce
+         */
+        final long extraNonce;
+
+        MiningJob(long version, BlockHeaderTemplate template, List<PublicLedgerTransaction> transactions, long extraNonce) {
+            this.version = version;
+            this.template = template;
+            this.transactions = transactions;
+            this.extraNonce = extraNonce;
+        }
+    }
+
+    /**
+     * @description: 一轮挖矿的共享状态
+     * @author: freedom
+     * @date: 2025/11/23 15:10
+     **/
+    private static class MiningRound {
+        /**
+         * 本轮开始时的链尾版本号
+         */
+        final long epoch;
+        /**
+         * 前一个区块的hash值
+         */
+        final String previousHash;
+        /**
+         * 待挖区块高度
+         */
+        final long blockHeight;
+        /**
+         * 挖矿目标值（紧凑格式）
+         */
+        final int bits;
+        /**
+         * 目标值每轮只展开一次，worker逐nonce按字节比较
+         */
+        final byte[] target;
+        /**
+         * 停止标记（找到解、链尾变化、被中止）
+         */
+        final AtomicBoolean stop = new AtomicBoolean(false);
+        /**
+         * 外部停止条件
+         */
+        final BooleanSupplier keepRunning;
+        /**
+         * 当前模板，worker每次尝试前读取
+         */
+        volatile MiningJob job;
+        /**
+         * 上次选择交易时的交易池版本号（仅刷新任务读写）
+         */
+        volatile long mempoolVersion;
+
+        MiningRound(long epoch, String previousHash, long blockHeight, int bits, BooleanSupplier keepRunning) {
+            this.epoch = epoch;
+            this.previousHash = previousHash;
+            this.blockHeight = blockHeight;
+            this.bits = bits;
+            this.target = TargetUtil.bitsToTargetBytes(bits);
+            this.keepRunning = keepRunning;
+        }
+    }
+
 }
@@ -0,0 +1,39 @@
+package com.freedom.chain.service;
+
+import com.freedom.chain.model.block.BlockCache;
+import com.freedom.chain.utils.ParallelRange;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * @description: 交易签名与验签共用的有界并行线程池（线程数 block.verifyThreads，0 表示CPU核数）：
+ * 批量转账的并行构建与签名（TransactionService）、P2P 收到交易的批量验签（TransactionRelay）都提交到这里
+ * @author: freedom
+ * @create: 2025-11-29
+ **/
+@Component
+public class SignatureWorkers {
+
+    @Resource
+    private BlockCache blockCache;
+
+    private ParallelRange parallel;
+
+    @PostConstruct
+    public void init() {
+        int configured = blockCache.getVerifyThreads();
+        parallel = new ParallelRange(configured > 0 ? configured : Runtime.getRuntime().availableProcessors(),
+                "tx-signature-%d");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        parallel.close();
+    }
+
+    public ParallelRange parallel() {
+        return parallel;
+    }
+}
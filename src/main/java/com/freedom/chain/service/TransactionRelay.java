@@ -0,0 +1,348 @@
+package com.freedom.chain.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.freedom.chain.error.BusinessException;
+import com.freedom.chain.model.block.BlockCache;
+import com.freedom.chain.model.ledger.MempoolEntry;
+import com.freedom.chain.model.ledger.PublicLedgerTransaction;
+import com.freedom.chain.model.p2p.Message;
+import com.freedom.chain.utils.BatchSignatureVerifier;
+import com.freedom.chain.utils.BlockConstant;
+import com.freedom.chain.utils.ScheduledTasks;
+import com.freedom.chain.utils.SignatureCache;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.WebSocket;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description: P2P交易广播：新交易入池后只向邻居节点公告交易哈希（INV_TX），对方按需请求（GET_TX）后再批量发送交易（TX_DATA）
+ * 每个邻居维护一个"已知交易"过滤器（两代滚动的布隆过滤器），对方公告过、请求过或发给过对方的交易不再公告；
+ * 公告先进入每个邻居的待发送队列，由定时任务按 block.txRelayIntervalMs 合并成批发送，交易洪峰时不会逐笔发消息
+ * 交易只接受向该邻居请求过的（TX_DATA 中未请求的交易直接丢弃），先用 BatchSignatureVerifier 并行验签，再逐笔检查输入并入池
+ * @author: freedom
+ * @create: 2025-11-27
+ **/
+@Component
+@Slf4j
+public class TransactionRelay {
+
+    /**
+     * 单条 INV_TX / GET_TX / TX_DATA 消息最多携带的交易数，超出部分忽略（INV）或分批发送
+     */
+    private static final int MAX_BATCH = 1000;
+
+    /**
+     * 已知交易过滤器每一代容纳的交易数，写满后切换到新一代，旧一代保留一轮
+     */
+    private static final int KNOWN_FILTER_CAPACITY = 50_000;
+
+    private static final double KNOWN_FILTER_FPP = 0.000_001;
+
+    /**
+     * 已向某个邻居请求、尚未收到的交易，超时后允许向其他邻居重新请求（毫秒）
+     */
+    private static final long REQUEST_TIMEOUT_MS = 60_000;
+
+    @Resource
+    private BlockService blockService;
+
+    @Resource
+    private BlockCache blockCache;
+
+    @Resource
+    private Mempool mempool;
+
+    @Resource
+    private SignatureWorkers signatureWorkers;
+
+    private final Map<WebSocket, PeerState> peers = new ConcurrentHashMap<>();
+
+    /**
+     * 交易哈希 -> 向哪个邻居、何时请求
+     */
+    private final Map<String, InFlightRequest> inFlight = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService trickleExecutor;
+
+    private BatchSignatureVerifier signatureVerifier;
+
+    @PostConstruct
+    public void init() {
+        signatureVerifier = new BatchSignatureVerifier(signatureWorkers.parallel());
+        long interval = Math.max(1, blockCache.getTxRelayIntervalMs());
+        trickleExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("tx-relay").setDaemon(true).build());
+        ScheduledTasks.scheduleWithFixedDelay(trickleExecutor, "交易公告", this::trickle, interval, interval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        trickleExecutor.shutdownNow();
+    }
+
+    /**
+     * @description: 公告新入池的交易：加入所有邻居（已知该交易的除外）的待发送队列，由定时任务批量发送
+     * @author: freedom
+     * @date: 2025/11/27 15:20
+     * @param: [txHash]
+     * @return: void
+     **/
+    public void announce(String txHash) {
+        for (WebSocket socket : blockService.getSockets()) {
+            PeerState peer = peer(socket);
+            if (!peer.isKnown(txHash)) {
+                peer.queue(txHash);
+            }
+        }
+    }
+
+    /**
+     * @description: 处理邻居公告的交易哈希：记为对方已知，请求本地交易池没有且未向其他邻居请求中的交易
+     * @author: freedom
+     * @date: 2025/11/27 15:20
+     * @param: [socket, data] data 为交易哈希的JSON数组
+     * @return: void
+     **/
+    public void handleInventory(WebSocket socket, String data) {
+        List<String> hashes = JSON.parseArray(data, String.class);
+        if (hashes == null) {
+            return;
+        }
+        PeerState peer = peer(socket);
+        long now = System.currentTimeMillis();
+        List<String> wanted = new ArrayList<>();
+        for (String txHash : hashes.subList(0, Math.min(hashes.size(), MAX_BATCH))) {
+            peer.markKnown(txHash);
+            if (mempool.contains(txHash)) {
+                continue;
+            }
+            InFlightRequest request = inFlight.get(txHash);
+            if (request != null && now - request.requestedAt() < REQUEST_TIMEOUT_MS && request.socket().isOpen()) {
+                continue;
+            }
+            inFlight.put(txHash, new InFlightRequest(socket, now));
+            wanted.add(txHash);
+        }
+        if (!wanted.isEmpty()) {
+            send(socket, BlockConstant.GET_TX, JSON.toJSONString(wanted));
+        }
+    }
+
+    /**
+     * @description: 处理邻居的交易请求：从交易池取出交易（父交易在前）批量返回，池中已没有的忽略
+     * @author: freedom
+     * @date: 2025/11/27 15:20
+     * @param: [socket, data] data 为交易哈希的JSON数组
+     * @return: void
+     **/
+    public void handleGetTransactions(WebSocket socket, String data) {
+        List<String> hashes = JSON.parseArray(data, String.class);
+        if (hashes == null) {
+            return;
+        }
+        PeerState peer = peer(socket);
+        List<MempoolEntry> found = new ArrayList<>();
+        for (String txHash : hashes.subList(0, Math.min(hashes.size(), MAX_BATCH))) {
+            MempoolEntry entry = mempool.get(txHash);
+            if (entry != null) {
+                found.add(entry);
+                peer.markKnown(txHash);
+            }
+        }
+        if (found.isEmpty()) {
+            return;
+        }
+        found.sort(Comparator.comparingInt(MempoolEntry::getAncestorCount));
+        send(socket, BlockConstant.TX_DATA, JSON.toJSONString(found.stream().map(MempoolEntry::getTransaction).toList()));
+    }
+
+    /**
+     * @description: 处理邻居发来的交易：只接受向该邻居请求过且尚未收到的交易，验证后入池，新入池的交易继续向其他邻居公告
+     * @author: freedom
+     * @date: 2025/11/27 15:20
+     * @param: [socket, data] data 为交易的JSON数组
+     * @return: void
+     **/
+    public void handleTransactions(WebSocket socket, String data) {
+        List<PublicLedgerTransaction> received = JSON.parseArray(data, PublicLedgerTransaction.class);
+        if (received == null) {
+            return;
+        }
+        PeerState peer = peer(socket);
+        // 先按请求记录过滤，未请求的交易不验签、不入池
+        List<PublicLedgerTransaction> transactions = new ArrayList<>();
+        int unrequested = 0;
+        for (PublicLedgerTransaction tx : received.subList(0, Math.min(received.size(), MAX_BATCH))) {
+            String txHash = tx.getTxHash();
+            if (txHash == null) {
+                continue;
+            }
+            InFlightRequest request = inFlight.get(txHash);
+            if (request == null || request.socket() != socket || !inFlight.remove(txHash, request)) {
+                unrequested++;
+                continue;
+            }
+            peer.markKnown(txHash);
+            transactions.add(tx);
+        }
+        if (unrequested > 0) {
+            log.info("丢弃 {} 发送的未请求交易 {} 笔", socket.getRemoteSocketAddress(), unrequested);
+        }
+        verifySignatures(transactions);
+        int accepted = 0;
+        for (PublicLedgerTransaction tx : transactions) {
+            String txHash = tx.getTxHash();
+            if (mempool.contains(txHash)) {
+                continue;
+            }
+            try {
+                if (!tx.verify(mempool::getUtxoAmount)) {
+                    log.info("邻居发送的交易验证失败: {}", txHash);
+                    continue;
+                }
+                if (mempool.add(tx)) {
+                    accepted++;
+                    announce(txHash);
+                }
+            } catch (BusinessException | IllegalArgumentException e) {
+                log.info("邻居发送的交易未能入池: {}, {}", txHash, e.getMessage());
+            }
+        }
+        if (accepted > 0) {
+            log.info("从 {} 接收交易 {} 笔，入池 {} 笔", socket.getRemoteSocketAddress(), transactions.size(), accepted);
+        }
+    }
+
+    /**
+     * 批量并行验签（跳过池中已有与已缓存的交易），验证通过的写入 SignatureCache，之后逐笔入池时不再做曲线运算
+     */
+    private void verifySignatures(List<PublicLedgerTransaction> transactions) {
+        List<PublicLedgerTransaction> pending = new ArrayList<>();
+        List<BatchSignatureVerifier.Item> items = new ArrayList<>();
+        for (PublicLedgerTransaction tx : transactions) {
+            try {
+                if (tx.getTxHash() == null || mempool.contains(tx.getTxHash()) || !tx.verifyHash()
+                        || SignatureCache.contains(tx.getTxHash(), tx.getSignature(), tx.getPublicKey())) {
+                    continue;
+                }
+            } catch (RuntimeException e) {
+                // 字段缺失，留给逐笔验证拒绝
+                continue;
+            }
+            pending.add(tx);
+            items.add(new BatchSignatureVerifier.Item(tx.signingData(), tx.getSignature(), tx.getPublicKey()));
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+        boolean[] results = signatureVerifier.verify(items);
+        for (int i = 0; i < results.length; i++) {
+            PublicLedgerTransaction tx = pending.get(i);
+            if (results[i]) {
+                SignatureCache.add(tx.getTxHash(), tx.getSignature(), tx.getPublicKey());
+            }
+        }
+    }
+
+    /**
+     * 定时任务：把每个邻居的待公告交易合并成批发送（父交易在前），并清理已断开邻居与超时的请求
+     * 已断开邻居的请求一并清理，之后其他邻居公告时可重新请求
+     */
+    private void trickle() {
+        peers.keySet().removeIf(socket -> !socket.isOpen());
+        long now = System.currentTimeMillis();
+        inFlight.values().removeIf(request -> now - request.requestedAt() >= REQUEST_TIMEOUT_MS || !request.socket().isOpen());
+        for (Map.Entry<WebSocket, PeerState> e : peers.entrySet()) {
+            List<MempoolEntry> pending = new ArrayList<>();
+            for (String txHash : e.getValue().drain()) {
+                MempoolEntry entry = mempool.get(txHash);
+                // 等待期间已确认、被替换或对方已通过其他途径得知的交易不再公告
+                if (entry != null && !e.getValue().isKnown(txHash)) {
+                    pending.add(entry);
+                    e.getValue().markKnown(txHash);
+                }
+            }
+            pending.sort(Comparator.comparingInt(MempoolEntry::getAncestorCount));
+            for (int from = 0; from < pending.size(); from += MAX_BATCH) {
+                List<String> batch = pending.subList(from, Math.min(pending.size(), from + MAX_BATCH)).stream()
+                        .map(MempoolEntry::getTxHash).toList();
+                send(e.getKey(), BlockConstant.INV_TX, JSON.toJSONString(batch));
+            }
+        }
+    }
+
+    private PeerState peer(WebSocket socket) {
+        return peers.computeIfAbsent(socket, s -> new PeerState());
+    }
+
+    private void send(WebSocket socket, int type, String data) {
+        if (socket.isOpen()) {
+            socket.send(JSON.toJSONString(new Message(type, data)));
+        }
+    }
+
+    /**
+     * @description: 一次交易请求：只接受被请求的邻居发回的该交易
+     * @author: freedom
+     * @date: 2025/11/27 15:20
+     **/
+    private record InFlightRequest(WebSocket socket, long requestedAt) {
+    }
+
+    /**
+     * @description: 单个邻居的已知交易过滤器与待公告队列
+     * @author: freedom
+     * @date: 2025/11/27 15:20
+     **/
+    private static class PeerState {
+        private BloomFilter<String> current = newFilter();
+        private BloomFilter<String> previous = newFilter();
+        private int currentCount;
+        private Set<String> pending = new LinkedHashSet<>();
+
+        synchronized boolean isKnown(String txHash) {
+            return current.mightContain(txHash) || previous.mightContain(txHash);
+        }
+
+        synchronized void markKnown(String txHash) {
+            if (current.put(txHash) && ++currentCount >= KNOWN_FILTER_CAPACITY) {
+                previous = current;
+                current = newFilter();
+                currentCount = 0;
+            }
+        }
+
+        synchronized void queue(String txHash) {
+            pending.add(txHash);
+        }
+
+        synchronized Set<String> drain() {
+            Set<String> drained = pending;
+            pending = new LinkedHashSet<>();
+            return drained;
+        }
+
+        private static BloomFilter<String> newFilter() {
+            return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), KNOWN_FILTER_CAPACITY, KNOWN_FILTER_FPP);
+        }
+    }
+}
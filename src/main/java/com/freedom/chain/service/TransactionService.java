@@ -1,36 +1,37 @@
 package com.freedom.chain.service;
 
 import com.alibaba.fastjson2.JSON;
-import com.alibaba.fastjson2.TypeReference;
 import com.freedom.chain.dto.TransferRequest;
 import com.freedom.chain.enumst.ResultCodeEnum;
 import com.freedom.chain.enumst.TransactionStatus;
 import com.freedom.chain.error.Assert;
 import com.freedom.chain.error.BusinessException;
-import com.freedom.chain.model.block.BlockCache;
 import com.freedom.chain.model.ledger.PublicLedgerTransaction;
 import com.freedom.chain.model.ledger.UtxoInput;
 import com.freedom.chain.model.ledger.UtxoOutput;
-import com.freedom.chain.po.SerializableKeyPair;
-import com.freedom.chain.utils.CryptoUtil;
 import com.freedom.chain.utils.LedgerUtil;
-import com.freedom.chain.utils.SignatureUtil;
+import com.freedom.chain.vo.BatchTransferResult;
+import com.freedom.chain.vo.TransferResult;
 import com.google.common.collect.Lists;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.util.ResourceUtils;
 
-import java.io.File;
-import java.io.FileReader;
+import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.security.PrivateKey;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
 
 /**
  * @description: 交易服务
+ * 选择UTXO时先在 reservedOutpoints 中预留，交易入池（或失败）后释放，并发的单笔转账与批量转账不会选中同一输出；
+ * 批量转账先顺序预留全部转账的输入，再在线程池中并行构建、签名与验证，最后一次性入池
  * @author: freedom
  * @create: 2025-11-28
  **/
@@ -38,8 +39,46 @@ import java.util.Map;
 @Slf4j
 public class TransactionService {
 
+    /**
+     * 单次批量转账的最大笔数
+     */
+    private static final int MAX_BATCH_TRANSFERS = 10_000;
+
+    private static final BigDecimal SATOSHIS_PER_BTC = new BigDecimal("100000000");
+
+    @Resource
+    private Mempool mempool;
+
     @Resource
-    private BlockCache blockCache;
+    private TransactionRelay transactionRelay;
+
+    @Resource
+    private WalletKeyStore walletKeyStore;
+
+    @Resource
+    private SignatureWorkers signatureWorkers;
+
+    /**
+     * 已被构建中的转账预留、尚未入池的输出
+     */
+    private final Set<String> reservedOutpoints = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @description: 转账请求参数校验
+     * @author: freedom
+     * @date: 2025/11/29 14:00
+     * @param: [request]
+     * @return: void
+     **/
+    public void checkRequest(TransferRequest request) {
+        Assert.notNull(request, "转账请求不能为空");
+        Assert.notEmpty(request.getFromAddress(), "发送地址不能为空");
+        Assert.notEmpty(request.getToAddress(), "接收地址不能为空");
+        Assert.notNull(request.getAmount(), "转账金额不能为空");
+        Assert.greaterThanZero(request.getAmount(), "转账金额必须大于0");
+        Assert.notNull(request.getFee(), "手续费不能为空");
+        Assert.notNegative(request.getFee(), "手续费不能为负数");
+    }
 
     /**
      * 创建转账交易
@@ -47,106 +86,21 @@ public class TransactionService {
      * @return 交易哈希
      */
     public String createTransfer(TransferRequest request) {
+        Reservation reservation = null;
         try {
             // 1. 获取发送方私钥
-            SerializableKeyPair senderKeyPair = getSenderKeyPair(request.getFromAddress());
-            Assert.notNull(senderKeyPair, "未找到发送方密钥，无法签名交易");
-
-            // 2. 将BigDecimal转换为BigInteger（聪为单位，1 BTC = 100,000,000 聪）
-            BigInteger amount = request.getAmount().multiply(new java.math.BigDecimal("100000000")).toBigInteger();
-            BigInteger fee = request.getFee().multiply(new java.math.BigDecimal("100000000")).toBigInteger();
-            BigInteger totalAmount = amount.add(fee);
-
-            // 3. 查找可用的UTXO
-            List<UtxoInput> inputs = Lists.newArrayList();
-            BigInteger totalInput = BigInteger.ZERO;
-
-            // 获取发送方的所有可用UTXO
-            Map<String, List<UtxoOutput>> utxos = LedgerUtil.getUtxosByAddress(request.getFromAddress());
-            
-            // 遍历所有交易的UTXO
-            for (Map.Entry<String, List<UtxoOutput>> entry : utxos.entrySet()) {
-                String txHash = entry.getKey();
-                List<UtxoOutput> outputs = entry.getValue();
-                
-                for (int i = 0; i < outputs.size(); i++) {
-                    UtxoOutput output = outputs.get(i);
-                    if (output.getRecipientAddress().equals(request.getFromAddress())) {
-                        // 创建输入
-                        UtxoInput input = new UtxoInput();
-                        input.setPrevTxHash(txHash);
-                        input.setPrevOutIndex(i);
-                        inputs.add(input);
-                        
-                        totalInput = totalInput.add(output.getAmount());
-                        
-                        // 如果已经足够支付，停止收集
-                        if (totalInput.compareTo(totalAmount) >= 0) {
-                            break;
-                        }
-                    }
-                }
-                
-                if (totalInput.compareTo(totalAmount) >= 0) {
-                    break;
-                }
-            }
+            WalletKeyStore.WalletKey senderKey = walletKeyStore.get(request.getFromAddress());
+            Assert.notNull(senderKey, "未找到发送方密钥，无法签名交易");
 
-            // 4. 检查余额是否足够
-            if (totalInput.compareTo(totalAmount) < 0) {
-                throw new BusinessException(ResultCodeEnum.FAILED, 
-                    "余额不足，当前可用: " + totalInput + " 聪，需要: " + totalAmount + " 聪");
-            }
+            // 2~4. 查找并预留可用的UTXO，余额不足时抛出异常
+            reservation = reserve(request, new SpendableOutputs(request.getFromAddress()));
 
-            // 5. 创建输出
-            List<UtxoOutput> outputs = Lists.newArrayList();
-            
-            // 给接收方的输出
-            UtxoOutput receiverOutput = new UtxoOutput();
-            receiverOutput.setRecipientAddress(request.getToAddress());
-            receiverOutput.setAmount(amount);
-            receiverOutput.setOutputIndex(0);
-            outputs.add(receiverOutput);
-
-            // 找零输出（如果有）
-            BigInteger change = totalInput.subtract(totalAmount);
-            if (change.compareTo(BigInteger.ZERO) > 0) {
-                UtxoOutput changeOutput = new UtxoOutput();
-                changeOutput.setRecipientAddress(request.getFromAddress());
-                changeOutput.setAmount(change);
-                changeOutput.setOutputIndex(1);
-                outputs.add(changeOutput);
-            }
+            // 5~9. 构建、签名并验证交易
+            PublicLedgerTransaction transaction = buildTransaction(request, senderKey, reservation);
 
-            // 6. 创建交易对象
-            PublicLedgerTransaction transaction = new PublicLedgerTransaction();
-            transaction.setVersion(1);
-            transaction.setFromAddress(request.getFromAddress());
-            transaction.setToAddress(request.getToAddress());
-            transaction.setTimestamp(System.currentTimeMillis());
-            transaction.setUtxoInputs(inputs);
-            transaction.setUtxoOutputs(outputs);
-            transaction.setFee(fee);
-            transaction.setStatus(TransactionStatus.PENDING);
-            transaction.setChainId(1);
-            transaction.setMemo("Transfer");
-            byte[] decodePrivateKey = Base64.getDecoder().decode(senderKeyPair.getPrivateKeyBase64());
-            byte[] decodePublicKey = Base64.getDecoder().decode(senderKeyPair.getPublicKeyBase64());
-            transaction.setPublicKey(CryptoUtil.bytesToHex(decodePublicKey));
-
-            // 7. 生成交易哈希
-            transaction.generateTxHash();
-
-            // 8. 签名交易
-            PrivateKey privateKey = SignatureUtil.parseECPrivateKey(decodePrivateKey, SignatureUtil.CURVE_NAME);
-            transaction.sign(privateKey);
-
-            // 9. 验证交易
-            boolean isValid = transaction.verify();
-            Assert.isTrue(isValid, "交易验证失败");
-
-            // 10. 添加到待处理交易池
-            blockCache.getPackedTransactions().add(transaction);
+            // 10. 添加到交易池，并向邻居节点公告
+            mempool.add(transaction);
+            transactionRelay.announce(transaction.getTxHash());
 
             log.info("转账交易创建成功: {}", transaction.getTxHash());
             log.info("交易详情: {}", JSON.toJSONString(transaction));
@@ -158,32 +112,270 @@ public class TransactionService {
         } catch (Exception e) {
             log.error("创建转账交易失败", e);
             throw new BusinessException(ResultCodeEnum.ERROR, "创建交易失败: " + e.getMessage(), e);
+        } finally {
+            if (reservation != null) {
+                release(reservation);
+            }
+        }
+    }
+
+    /**
+     * @description: 批量转账：按请求顺序预留全部转账的UTXO（同一发送方的后续转账不会选中前面已预留的输出），
+     * 并行构建、签名与验证，再一次性入池；单笔失败不影响其余转账，结果与请求顺序一致
+     * 批内转账只花费预留时已存在的输出，不花费同一批次中其他转账的找零
+     * @author: freedom
+     * @date: 2025/11/29 14:00
+     * @param: [requests]
+     * @return: com.freedom.chain.vo.BatchTransferResult
+     **/
+    public BatchTransferResult createTransfers(List<TransferRequest> requests) {
+        Assert.isTrue(requests != null && !requests.isEmpty(), "转账列表不能为空");
+        Assert.isTrue(requests.size() <= MAX_BATCH_TRANSFERS, "单次批量转账最多 " + MAX_BATCH_TRANSFERS + " 笔");
+        long start = System.nanoTime();
+        int size = requests.size();
+        TransferResult[] results = new TransferResult[size];
+        Reservation[] reservations = new Reservation[size];
+        WalletKeyStore.WalletKey[] keys = new WalletKeyStore.WalletKey[size];
+        try {
+            // 1. 顺序校验并预留UTXO，同一发送方的可用输出只查询一次
+            Map<String, SpendableOutputs> spendable = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                TransferRequest request = requests.get(i);
+                try {
+                    checkRequest(request);
+                    keys[i] = walletKeyStore.get(request.getFromAddress());
+                    Assert.notNull(keys[i], "未找到发送方密钥，无法签名交易");
+                    reservations[i] = reserve(request,
+                            spendable.computeIfAbsent(request.getFromAddress(), SpendableOutputs::new));
+                } catch (BusinessException e) {
+                    results[i] = failure(i, null, e.getMessage());
+                }
+            }
+
+            // 2. 并行构建、签名与验证
+            PublicLedgerTransaction[] transactions = new PublicLedgerTransaction[size];
+            runInParallel(size, i -> {
+                if (reservations[i] == null) {
+                    return;
+                }
+                try {
+                    transactions[i] = buildTransaction(requests.get(i), keys[i], reservations[i]);
+                } catch (BusinessException e) {
+                    results[i] = failure(i, null, e.getMessage());
+                } catch (Exception e) {
+                    log.error("构建转账交易失败", e);
+                    results[i] = failure(i, null, "创建交易失败: " + e.getMessage());
+                }
+            });
+
+            // 3. 一次性入池，入池成功的向邻居节点公告
+            List<PublicLedgerTransaction> built = new ArrayList<>();
+            for (PublicLedgerTransaction transaction : transactions) {
+                if (transaction != null) {
+                    built.add(transaction);
+                }
+            }
+            Map<String, String> rejected = built.isEmpty() ? Map.of() : mempool.addAll(built);
+            for (int i = 0; i < size; i++) {
+                if (transactions[i] == null) {
+                    continue;
+                }
+                String txHash = transactions[i].getTxHash();
+                String reason = rejected.get(txHash);
+                if (reason != null) {
+                    results[i] = failure(i, txHash, reason);
+                    continue;
+                }
+                transactionRelay.announce(txHash);
+                TransferResult result = new TransferResult();
+                result.setIndex(i);
+                result.setSuccess(true);
+                result.setTxHash(txHash);
+                results[i] = result;
+            }
+        } finally {
+            for (Reservation reservation : reservations) {
+                if (reservation != null) {
+                    release(reservation);
+                }
+            }
         }
+
+        BatchTransferResult batch = new BatchTransferResult();
+        batch.setTotal(size);
+        batch.setItems(List.of(results));
+        batch.setSucceeded((int) batch.getItems().stream().filter(TransferResult::isSuccess).count());
+        batch.setFailed(size - batch.getSucceeded());
+        long elapsedNanos = System.nanoTime() - start;
+        batch.setElapsedMs(elapsedNanos / 1_000_000);
+        batch.setTransfersPerSecond(batch.getSucceeded() / Math.max(elapsedNanos / 1e9, 1e-9));
+        log.info("批量转账完成: {} 笔，成功 {} 笔，耗时 {}ms，{} 笔/秒", size, batch.getSucceeded(), batch.getElapsedMs(),
+                String.format("%.1f", batch.getTransfersPerSecond()));
+        return batch;
+    }
+
+    /**
+     * 按顺序从发送方的可用输出中预留足够支付金额与手续费的输入，余额不足时释放已预留的输出并抛出异常
+     */
+    private Reservation reserve(TransferRequest request, SpendableOutputs spendable) {
+        // 2. 将BigDecimal转换为BigInteger（聪为单位，1 BTC = 100,000,000 聪）
+        BigInteger amount = request.getAmount().multiply(SATOSHIS_PER_BTC).toBigInteger();
+        BigInteger fee = request.getFee().multiply(SATOSHIS_PER_BTC).toBigInteger();
+        Reservation reservation = new Reservation(amount, fee);
+        BigInteger totalAmount = amount.add(fee);
+
+        // 3. 查找可用的UTXO：跳过已被交易池中待确认交易花费或已被其他转账预留的输出
+        int begin = spendable.cursor;
+        while (spendable.cursor < spendable.outputs.size() && reservation.totalInput.compareTo(totalAmount) < 0) {
+            Spendable output = spendable.outputs.get(spendable.cursor++);
+            if (mempool.isSpent(output.txHash, output.outputIndex) || !reservedOutpoints.add(output.outpoint)) {
+                continue;
+            }
+            UtxoInput input = new UtxoInput();
+            input.setPrevTxHash(output.txHash);
+            input.setPrevOutIndex(output.outputIndex);
+            reservation.inputs.add(input);
+            reservation.outpoints.add(output.outpoint);
+            reservation.totalInput = reservation.totalInput.add(output.amount);
+        }
+
+        // 4. 检查余额是否足够，不足时归还预留的输出，后续金额更小的转账仍可使用
+        if (reservation.totalInput.compareTo(totalAmount) < 0) {
+            release(reservation);
+            spendable.cursor = begin;
+            throw new BusinessException(ResultCodeEnum.FAILED,
+                    "余额不足，当前可用: " + reservation.totalInput + " 聪，需要: " + totalAmount + " 聪");
+        }
+        return reservation;
+    }
+
+    private void release(Reservation reservation) {
+        reservation.outpoints.forEach(reservedOutpoints::remove);
+    }
+
+    /**
+     * 用预留的输入构建交易，签名后做完整验证
+     */
+    private PublicLedgerTransaction buildTransaction(TransferRequest request, WalletKeyStore.WalletKey senderKey,
+                                                     Reservation reservation) {
+        // 5. 创建输出
+        List<UtxoOutput> outputs = Lists.newArrayList();
+
+        // 给接收方的输出
+        UtxoOutput receiverOutput = new UtxoOutput();
+        receiverOutput.setRecipientAddress(request.getToAddress());
+        receiverOutput.setAmount(reservation.amount);
+        receiverOutput.setOutputIndex(0);
+        outputs.add(receiverOutput);
+
+        // 找零输出（如果有）
+        BigInteger change = reservation.totalInput.subtract(reservation.amount).subtract(reservation.fee);
+        if (change.compareTo(BigInteger.ZERO) > 0) {
+            UtxoOutput changeOutput = new UtxoOutput();
+            changeOutput.setRecipientAddress(request.getFromAddress());
+            changeOutput.setAmount(change);
+            changeOutput.setOutputIndex(1);
+            outputs.add(changeOutput);
+        }
+
+        // 6. 创建交易对象
+        PublicLedgerTransaction transaction = new PublicLedgerTransaction();
+        transaction.setVersion(1);
+        transaction.setFromAddress(request.getFromAddress());
+        transaction.setToAddress(request.getToAddress());
+        transaction.setTimestamp(System.currentTimeMillis());
+        transaction.setUtxoInputs(reservation.inputs);
+        transaction.setUtxoOutputs(outputs);
+        transaction.setFee(reservation.fee);
+        transaction.setStatus(TransactionStatus.PENDING);
+        transaction.setChainId(1);
+        transaction.setMemo("Transfer");
+        transaction.setPublicKey(senderKey.getPublicKeyHex());
+
+        // 7. 生成交易哈希
+        transaction.generateTxHash();
+
+        // 8. 签名交易
+        transaction.sign(senderKey.getPrivateKey());
+
+        // 9. 验证交易
+        boolean isValid = transaction.verify(mempool::getUtxoAmount);
+        Assert.isTrue(isValid, "交易验证失败");
+        return transaction;
     }
 
     /**
-     * 获取发送方密钥对
-     * @param address 地址
-     * @return 密钥对
+     * 在共享的签名线程池中对 [0, size) 并行执行，等待全部完成
      */
-    private SerializableKeyPair getSenderKeyPair(String address) {
+    private void runInParallel(int size, IntConsumer task) {
         try {
-            // 从文件中读取密钥信息
-            File file = ResourceUtils.getFile("file/mineInfo.json");
-            try (FileReader reader = new FileReader(file)) {
-                StringBuilder sb = new StringBuilder();
-                int ch;
-                while ((ch = reader.read()) != -1) {
-                    sb.append((char) ch);
+            signatureWorkers.parallel().run(size, task);
+        } catch (IllegalStateException e) {
+            throw new BusinessException(ResultCodeEnum.ERROR, "批量转账失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static TransferResult failure(int index, String txHash, String message) {
+        TransferResult result = new TransferResult();
+        result.setIndex(index);
+        result.setSuccess(false);
+        result.setTxHash(txHash);
+        result.setMessage(message);
+        return result;
+    }
+
+    /**
+     * @description: 一笔转账预留的输入
+     * @author: freedom
+     * @date: 2025/11/29 14:00
+     **/
+    private static class Reservation {
+        private final BigInteger amount;
+        private final BigInteger fee;
+        private final List<UtxoInput> inputs = Lists.newArrayList();
+        private final List<String> outpoints = new ArrayList<>();
+        private BigInteger totalInput = BigInteger.ZERO;
+
+        Reservation(BigInteger amount, BigInteger fee) {
+            this.amount = amount;
+            this.fee = fee;
+        }
+    }
+
+    /**
+     * @description: 发送方的可用输出（先已确认的，再交易池中未确认交易的输出，如上一笔转账的找零），
+     * cursor 之前的输出已被本批次的转账预留或不可用
+     * @author: freedom
+     * @date: 2025/11/29 14:00
+     **/
+    private class SpendableOutputs {
+        private final List<Spendable> outputs = new ArrayList<>();
+        private int cursor;
+
+        SpendableOutputs(String address) {
+            Map<String, List<UtxoOutput>> utxos = new LinkedHashMap<>(LedgerUtil.getUtxosByAddress(address));
+            utxos.putAll(mempool.getUnspentOutputsByAddress(address));
+            for (Map.Entry<String, List<UtxoOutput>> entry : utxos.entrySet()) {
+                for (UtxoOutput output : entry.getValue()) {
+                    if (address.equals(output.getRecipientAddress())) {
+                        outputs.add(new Spendable(entry.getKey(), output));
+                    }
                 }
-                
-                Map<String, SerializableKeyPair> keyPairMap = JSON.parseObject(sb.toString(),
-                        new TypeReference<Map<String, SerializableKeyPair>>() {}.getType());
-                return JSON.parseObject(JSON.toJSONString(keyPairMap.get(address)), SerializableKeyPair.class);
             }
-        } catch (Exception e) {
-            log.error("获取密钥对失败", e);
-            return null;
+        }
+    }
+
+    private static class Spendable {
+        private final String txHash;
+        private final int outputIndex;
+        private final BigInteger amount;
+        private final String outpoint;
+
+        Spendable(String txHash, UtxoOutput output) {
+            this.txHash = txHash;
+            this.outputIndex = output.getOutputIndex();
+            this.amount = output.getAmount();
+            this.outpoint = LedgerUtil.buildUtxoKey(txHash, output.getOutputIndex());
         }
     }
 }
@@ -0,0 +1,179 @@
+package com.freedom.chain.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.TypeReference;
+import com.freedom.chain.po.SerializableKeyPair;
+import com.freedom.chain.utils.CryptoUtil;
+import com.freedom.chain.utils.SignatureUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @description: 内存中的钱包密钥库：启动时读取一次 file/mineInfo.json，按地址缓存解码后的私钥、公钥与公钥十六进制，
+ * 转账签名时直接取用，不再逐次读文件、解析JSON与解码密钥
+ * 文件可包含多个地址；取用时最多每 CHECK_INTERVAL_MS 检查一次文件的修改时间与大小，变化后才重新加载，
+ * 本节点写入该文件后（如生成创世区块）调用 reload 立即生效
+ * @author: freedom
+ * @create: 2025-11-29
+ **/
+@Component
+@Slf4j
+public class WalletKeyStore {
+
+    private static final Path MINE_INFO_FILE = Paths.get("file/mineInfo.json");
+
+    /**
+     * 两次检查文件是否变化的最小间隔（毫秒）
+     */
+    private static final long CHECK_INTERVAL_MS = 1000;
+
+    /**
+     * 地址 -> 密钥，整体替换，读取无需加锁
+     */
+    private volatile Map<String, WalletKey> keys = Collections.emptyMap();
+
+    /**
+     * 已加载文件的修改时间与大小，用于判断文件是否变化
+     */
+    private volatile long loadedModifiedTime = -1;
+    private volatile long loadedSize = -1;
+
+    private volatile long lastCheckTime;
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * @description: 取得地址对应的密钥，不存在时返回null
+     * @author: freedom
+     * @date: 2025/11/29 10:00
+     * @param: [address]
+     * @return: com.freedom.chain.service.WalletKeyStore.WalletKey
+     **/
+    public WalletKey get(String address) {
+        reloadIfChanged();
+        return address == null ? null : keys.get(address);
+    }
+
+    /**
+     * @description: 钱包中的全部地址（按文件中的顺序）
+     * @author: freedom
+     * @date: 2025/11/29 10:00
+     * @param: []
+     * @return: java.util.Set<java.lang.String>
+     **/
+    public Set<String> addresses() {
+        reloadIfChanged();
+        return keys.keySet();
+    }
+
+    /**
+     * @description: 重新读取密钥文件；文件不存在或为空时清空密钥库，单个地址解码失败时跳过该地址
+     * @author: freedom
+     * @date: 2025/11/29 10:00
+     * @param: []
+     * @return: void
+     **/
+    public synchronized void reload() {
+        lastCheckTime = System.currentTimeMillis();
+        try {
+            if (!Files.exists(MINE_INFO_FILE)) {
+                keys = Collections.emptyMap();
+                loadedModifiedTime = -1;
+                loadedSize = -1;
+                return;
+            }
+            BasicFileAttributes attributes = Files.readAttributes(MINE_INFO_FILE, BasicFileAttributes.class);
+            String content = Files.readString(MINE_INFO_FILE);
+            Map<String, SerializableKeyPair> keyPairMap = content.isBlank() ? null
+                    : JSON.parseObject(content, new TypeReference<LinkedHashMap<String, SerializableKeyPair>>() {}.getType());
+            Map<String, WalletKey> loaded = new LinkedHashMap<>();
+            if (keyPairMap != null) {
+                keyPairMap.forEach((address, keyPair) -> {
+                    try {
+                        loaded.put(address, decode(keyPair));
+                    } catch (Exception e) {
+                        log.error("钱包地址 {} 的密钥解码失败", address, e);
+                    }
+                });
+            }
+            keys = Collections.unmodifiableMap(loaded);
+            loadedModifiedTime = attributes.lastModifiedTime().toMillis();
+            loadedSize = attributes.size();
+            log.info("加载钱包密钥 {} 个", loaded.size());
+        } catch (IOException e) {
+            log.error("钱包密钥文件读取失败", e);
+        }
+    }
+
+    /**
+     * 距上次检查超过 CHECK_INTERVAL_MS 时比较文件的修改时间与大小，变化则重新加载
+     */
+    private void reloadIfChanged() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheckTime < CHECK_INTERVAL_MS) {
+            return;
+        }
+        lastCheckTime = now;
+        long modifiedTime = -1;
+        long size = -1;
+        try {
+            if (Files.exists(MINE_INFO_FILE)) {
+                BasicFileAttributes attributes = Files.readAttributes(MINE_INFO_FILE, BasicFileAttributes.class);
+                modifiedTime = attributes.lastModifiedTime().toMillis();
+                size = attributes.size();
+            }
+        } catch (IOException e) {
+            log.warn("钱包密钥文件状态读取失败: {}", e.getMessage());
+            return;
+        }
+        if (modifiedTime != loadedModifiedTime || size != loadedSize) {
+            reload();
+        }
+    }
+
+    private static WalletKey decode(SerializableKeyPair keyPair) throws Exception {
+        byte[] privateKeyBytes = Base64.getDecoder().decode(keyPair.getPrivateKeyBase64());
+        String publicKeyHex = CryptoUtil.bytesToHex(Base64.getDecoder().decode(keyPair.getPublicKeyBase64()));
+        PrivateKey privateKey = SignatureUtil.parseECPrivateKey(privateKeyBytes, SignatureUtil.CURVE_NAME);
+        return new WalletKey(privateKey, SignatureUtil.parsePublicKey(publicKeyHex), publicKeyHex);
+    }
+
+    /**
+     * @description: 一个地址解码后的密钥
+     * @author: freedom
+     * @date: 2025/11/29 10:00
+     **/
+    @Getter
+    public static class WalletKey {
+        private final PrivateKey privateKey;
+        private final PublicKey publicKey;
+        /**
+         * X.509编码公钥的十六进制，写入交易的 publicKey 字段
+         */
+        private final String publicKeyHex;
+
+        WalletKey(PrivateKey privateKey, PublicKey publicKey, String publicKeyHex) {
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            this.publicKeyHex = publicKeyHex;
+        }
+    }
+}
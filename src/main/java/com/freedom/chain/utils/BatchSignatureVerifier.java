@@ -0,0 +1,120 @@
+package com.freedom.chain.utils;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @description: 批量ECDSA验签：把一批 (哈希, 签名, 公钥) 交给 ParallelRange 分段并行调用 SignatureUtil.ecdsaVerify
+ * verify 返回逐项结果；verifyAll 只关心是否全部有效，任一失败后其余分段尽快停止
+ * 公钥或签名格式错误的项视为无效，不抛出异常
+ * @author: freedom
+ * @create: 2025-11-28
+ **/
+public class BatchSignatureVerifier implements AutoCloseable {
+
+    private final ParallelRange parallel;
+
+    /**
+     * 是否由本对象创建线程池（close 时关闭）
+     */
+    private final boolean ownsParallel;
+
+    /**
+     * 使用独立的线程池（基准测试等单独使用时）
+     */
+    public BatchSignatureVerifier(int threads) {
+        this.parallel = new ParallelRange(threads, "sig-verify-%d");
+        this.ownsParallel = true;
+    }
+
+    /**
+     * 使用共享的线程池，close 时不关闭
+     */
+    public BatchSignatureVerifier(ParallelRange parallel) {
+        this.parallel = parallel;
+        this.ownsParallel = false;
+    }
+
+    public int threads() {
+        return parallel.threads();
+    }
+
+    /**
+     * @description: 逐项验证，返回与 items 顺序一致的结果
+     * @author: freedom
+     * @date: 2025/11/28 16:00
+     * @param: [items]
+     * @return: boolean[]
+     **/
+    public boolean[] verify(List<Item> items) {
+        boolean[] results = new boolean[items.size()];
+        run(items, results, null);
+        return results;
+    }
+
+    /**
+     * @description: 全部有效时返回true；发现无效项后不再验证剩余项
+     * @author: freedom
+     * @date: 2025/11/28 16:00
+     * @param: [items]
+     * @return: boolean
+     **/
+    public boolean verifyAll(List<Item> items) {
+        AtomicBoolean failed = new AtomicBoolean(false);
+        run(items, new boolean[items.size()], failed);
+        return !failed.get();
+    }
+
+    @Override
+    public void close() {
+        if (ownsParallel) {
+            parallel.close();
+        }
+    }
+
+    /**
+     * 分段并行验证，结果写入 results；failed 不为null时任一失败即置位，其余项检查后跳过
+     */
+    private void run(List<Item> items, boolean[] results, AtomicBoolean failed) {
+        parallel.run(items.size(), i -> {
+            if (failed != null && failed.get()) {
+                return;
+            }
+            results[i] = verify(items.get(i));
+            if (!results[i] && failed != null) {
+                failed.set(true);
+            }
+        });
+    }
+
+    private static boolean verify(Item item) {
+        try {
+            return SignatureUtil.ecdsaVerify(item.data, item.signature, item.publicKeyHex);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @description: 一项待验证的签名
+     * @author: freedom
+     * @date: 2025/11/28 16:00
+     **/
+    @Getter
+    public static class Item {
+        /**
+         * 被签名的数据（交易哈希的SHA-256）
+         */
+        private final byte[] data;
+        private final byte[] signature;
+        private final String publicKeyHex;
+
+        public Item(byte[] data, byte[] signature, String publicKeyHex) {
+            this.data = data;
+            this.signature = signature;
+            this.publicKeyHex = publicKeyHex;
+        }
+    }
+}
@@ -18,6 +18,30 @@ public class BlockConstant {
     // 返回整个区块链
     public final static int RESPONSE_BLOCKCHAIN = 4;
 
+    // 公告交易哈希（data为交易哈希的JSON数组）
+    public final static int INV_TX = 5;
+
+    // 请求交易（data为交易哈希的JSON数组）
+    public final static int GET_TX = 6;
+
+    // 返回交易（data为交易的JSON数组，父交易在前）
+    public final static int TX_DATA = 7;
+
+    // 矿池worker订阅（worker → 节点，data为worker名称）
+    public final static int POOL_SUBSCRIBE = 101;
+
+    // 矿池worker请求新的工作单元（worker → 节点，当前单元的nonce区间已耗尽）
+    public final static int POOL_GET_WORK = 102;
+
+    // 下发工作单元（节点 → worker）
+    public final static int POOL_WORK = 103;
+
+    // 提交份额（worker → 节点）
+    public final static int POOL_SUBMIT = 104;
+
+    // 份额校验结果（节点 → worker）
+    public final static int POOL_SUBMIT_RESULT = 105;
+
     // 最大区块大小（字节）
     public static final long MAX_BLOCK_SIZE = 1_000_000;
 
@@ -25,5 +49,11 @@ public class BlockConstant {
     public static final int DIFFICULTY_ADJUST_WINDOW = 10;
     // 期望出块时间（毫秒）- 10分钟
     public static final long EXPECTED_BLOCK_TIME_MS = 600_000;
+    // 单次难度调整的最大倍数
+    public static final long MAX_ADJUST_FACTOR = 4;
+    // 计算时间戳中位数的区块数量：新区块时间戳必须大于前若干区块时间戳的中位数
+    public static final int MEDIAN_TIME_SPAN = 11;
+    // 区块时间戳允许超前本地时间的最大值（毫秒）- 2小时
+    public static final long MAX_FUTURE_BLOCK_TIME_MS = 7_200_000;
 
 }
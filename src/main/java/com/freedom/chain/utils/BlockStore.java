@@ -0,0 +1,419 @@
+package com.freedom.chain.utils;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.freedom.chain.model.block.Block;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * @description: 只追加的区块存储：区块按链上顺序写入目录下的段文件（blocks-000000.seg、blocks-000001.seg ...），
+ * 每个段以 魔数 + 版本 开头，之后每条记录为 长度（4字节）+ CRC32C（4字节）+ 区块JSON，当前段达到 segmentBytes 后切换到新段；
+ * 新增区块只追加一条记录，不再读取并重写整条链。追加后按 fsync 策略落盘：
+ * ALWAYS 每次追加后 force；INTERVAL 由后台线程每隔 fsyncIntervalMs 对有新数据的段 force；NEVER 交给操作系统
+ * 加载时逐条校验长度与校验和，遇到不完整或损坏的记录（写入中途停机）在此处截断，其后的段改名为 .corrupt 保留，链从对等节点补齐
+ * 链替换时整条链先写入临时目录并落盘，再整体替换目录；目录中没有段文件而存在旧格式的 block.json 时一次性迁移
+ * @author: freedom
+ * @create: 2025-11-29
+ **/
+@Slf4j
+public class BlockStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x424C4B53;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int SEGMENT_HEADER_BYTES = 8;
+
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    /**
+     * 单条记录的长度上限，超过视为损坏
+     */
+    private static final int MAX_RECORD_BYTES = 256 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "blocks-";
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    /**
+     * @description: 追加后的落盘策略
+     * @author: freedom
+     * @date: 2025/11/29 16:00
+     **/
+    public enum FsyncPolicy {
+        ALWAYS, INTERVAL, NEVER;
+
+        public static FsyncPolicy of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Path dir;
+
+    private final Path tmpDir;
+
+    private final Path oldDir;
+
+    private final Path legacyFile;
+
+    private final long segmentBytes;
+
+    private final FsyncPolicy fsyncPolicy;
+
+    private ScheduledExecutorService fsyncExecutor;
+
+    /**
+     * 当前追加的段
+     */
+    private FileChannel channel;
+
+    private int segmentIndex;
+
+    /**
+     * 当前段有尚未 force 的数据
+     */
+    private boolean dirty;
+
+    public BlockStore(Path dir, Path legacyFile, long segmentBytes, FsyncPolicy fsyncPolicy, long fsyncIntervalMs) {
+        this.dir = dir;
+        this.tmpDir = dir.resolveSibling(dir.getFileName() + ".tmp");
+        this.oldDir = dir.resolveSibling(dir.getFileName() + ".old");
+        this.legacyFile = legacyFile;
+        this.segmentBytes = Math.max(SEGMENT_HEADER_BYTES + RECORD_HEADER_BYTES, segmentBytes);
+        this.fsyncPolicy = fsyncPolicy;
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            long interval = Math.max(1, fsyncIntervalMs);
+            fsyncExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("block-fsync").setDaemon(true).build());
+            ScheduledTasks.scheduleWithFixedDelay(fsyncExecutor, "区块段落盘", this::flush, interval, interval,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @description: 加载全部区块（按写入顺序），截断末尾损坏的记录，并打开最后一个段用于追加；首次启动时迁移旧格式文件
+     * @author: freedom
+     * @date: 2025/11/29 16:00
+     * @param: []
+     * @return: java.util.List<com.freedom.chain.model.block.Block>
+     **/
+    public synchronized List<Block> load() throws IOException {
+        long start = System.currentTimeMillis();
+        recoverSwap();
+        Files.createDirectories(dir);
+        List<Path> segments = segments(dir);
+        if (segments.isEmpty() && Files.exists(legacyFile) && Files.size(legacyFile) > 0) {
+            return migrate();
+        }
+        List<Block> blocks = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            long size = Files.size(segment);
+            long valid = readSegment(segment, size, blocks);
+            if (valid < size) {
+                log.warn("区块段 {} 在偏移 {} 处记录不完整或损坏，截断 {} 字节", segment.getFileName(), valid, size - valid);
+                try (FileChannel truncate = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                    truncate.truncate(valid);
+                }
+                for (Path later : segments.subList(i + 1, segments.size())) {
+                    Path corrupt = later.resolveSibling(later.getFileName() + ".corrupt");
+                    Files.move(later, corrupt, StandardCopyOption.REPLACE_EXISTING);
+                    log.warn("损坏位置之后的区块段已改名保留: {}", corrupt.getFileName());
+                }
+                segments = segments.subList(0, i + 1);
+                break;
+            }
+        }
+        openForAppend(segments);
+        log.info("区块存储已加载: {} 个区块，{} 个段，耗时 {}ms", blocks.size(), segments.size(),
+                System.currentTimeMillis() - start);
+        return blocks;
+    }
+
+    /**
+     * @description: 在链尾追加一个区块，按 fsync 策略落盘
+     * @author: freedom
+     * @date: 2025/11/29 16:00
+     * @param: [block]
+     * @return: void
+     **/
+    public synchronized void append(Block block) throws IOException {
+        if (channel == null) {
+            throw new IllegalStateException("区块存储尚未加载");
+        }
+        if (channel.size() >= segmentBytes) {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                channel.force(false);
+            }
+            channel.close();
+            channel = openSegment(dir, ++segmentIndex);
+            dirty = false;
+        }
+        writeRecord(channel, block);
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            channel.force(false);
+        } else {
+            dirty = true;
+        }
+    }
+
+    /**
+     * @description: 用整条新链替换存储内容（链替换时调用）：写入临时目录并落盘后整体替换，中途停机时保留旧链或完整的新链
+     * @author: freedom
+     * @date: 2025/11/29 16:00
+     * @param: [blocks]
+     * @return: void
+     **/
+    public synchronized void rewrite(List<Block> blocks) throws IOException {
+        deleteDirectory(tmpDir);
+        Files.createDirectories(tmpDir);
+        int index = 0;
+        FileChannel out = openSegment(tmpDir, index);
+        try {
+            for (Block block : blocks) {
+                if (out.size() >= segmentBytes) {
+                    out.force(false);
+                    out.close();
+                    out = openSegment(tmpDir, ++index);
+                }
+                writeRecord(out, block);
+            }
+            out.force(false);
+        } finally {
+            out.close();
+        }
+        closeChannel();
+        try {
+            if (Files.exists(dir)) {
+                Files.move(dir, oldDir, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.move(tmpDir, dir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            reopenAfterFailedSwap(e);
+            throw e;
+        }
+        openForAppend(segments(dir));
+        try {
+            deleteDirectory(oldDir);
+        } catch (IOException e) {
+            log.warn("删除旧的区块段目录失败，下次加载时清理: {}", e.getMessage());
+        }
+        log.info("区块存储已重写: {} 个区块，{} 个段", blocks.size(), index + 1);
+    }
+
+    /**
+     * 目录替换失败：原目录已移走时移回，重新打开原目录继续追加，避免之后的追加都因未加载而失败
+     */
+    private void reopenAfterFailedSwap(IOException cause) {
+        try {
+            if (!Files.exists(dir) && Files.exists(oldDir)) {
+                Files.move(oldDir, dir, StandardCopyOption.ATOMIC_MOVE);
+            }
+            openForAppend(segments(dir));
+            log.warn("区块存储替换失败，继续使用原区块段: {}", cause.getMessage());
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * @description: 把当前段尚未落盘的数据 force 到磁盘
+     * @author: freedom
+     * @date: 2025/11/29 16:00
+     * @param: []
+     * @return: void
+     **/
+    public synchronized void flush() throws IOException {
+        if (dirty && channel != null) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (fsyncExecutor != null) {
+            fsyncExecutor.shutdownNow();
+        }
+        try {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                flush();
+            }
+            closeChannel();
+        } catch (IOException e) {
+            log.error("区块存储关闭失败", e);
+        }
+    }
+
+    /**
+     * 旧格式 block.json（[{区块哈希: 区块}, ...]）一次性迁移为段文件，完成后改名为 block.json.migrated
+     */
+    private List<Block> migrate() throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        JSONArray blockDatas = JSON.parseArray(Files.readString(legacyFile));
+        if (blockDatas != null) {
+            for (int i = 0; i < blockDatas.size(); i++) {
+                JSONObject jsonObject = blockDatas.getJSONObject(i);
+                for (String key : jsonObject.keySet()) {
+                    blocks.add(JSON.to(Block.class, jsonObject.getJSONObject(key)));
+                }
+            }
+        }
+        rewrite(blocks);
+        Path migrated = legacyFile.resolveSibling(legacyFile.getFileName() + ".migrated");
+        Files.move(legacyFile, migrated, StandardCopyOption.REPLACE_EXISTING);
+        log.info("已将 {} 中的 {} 个区块迁移到 {}，原文件改名为 {}", legacyFile, blocks.size(), dir, migrated.getFileName());
+        return blocks;
+    }
+
+    /**
+     * 上次目录替换中途停机：临时目录只在新链完整落盘后才参与改名，目录缺失时优先启用临时目录，其次恢复旧目录，其余残留目录删除
+     */
+    private void recoverSwap() throws IOException {
+        if (!Files.exists(dir) && Files.exists(tmpDir)) {
+            Files.move(tmpDir, dir, StandardCopyOption.ATOMIC_MOVE);
+            log.warn("上次区块存储替换未完成，已启用新写入的区块段");
+        } else if (!Files.exists(dir) && Files.exists(oldDir)) {
+            Files.move(oldDir, dir, StandardCopyOption.ATOMIC_MOVE);
+            log.warn("上次区块存储替换未完成，已恢复原区块段");
+        }
+        deleteDirectory(tmpDir);
+        deleteDirectory(oldDir);
+    }
+
+    private void openForAppend(List<Path> segments) throws IOException {
+        if (segments.isEmpty()) {
+            segmentIndex = 0;
+            channel = openSegment(dir, segmentIndex);
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            segmentIndex = segmentIndex(last);
+            channel = FileChannel.open(last, StandardOpenOption.WRITE);
+            if (channel.size() < SEGMENT_HEADER_BYTES) {
+                channel.truncate(0);
+                writeHeader(channel);
+            }
+            channel.position(channel.size());
+        }
+        dirty = false;
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * 逐条读取段中的记录，返回最后一条完整且校验和正确的记录之后的偏移（段头无效时为0）
+     */
+    private static long readSegment(Path segment, long size, List<Block> blocks) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            if (size < SEGMENT_HEADER_BYTES || in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return 0;
+            }
+            long offset = SEGMENT_HEADER_BYTES;
+            CRC32C crc = new CRC32C();
+            while (offset + RECORD_HEADER_BYTES <= size) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES || offset + RECORD_HEADER_BYTES + length > size) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                blocks.add(JSON.parseObject(payload, Block.class));
+                offset += RECORD_HEADER_BYTES + length;
+            }
+            return offset;
+        }
+    }
+
+    private static FileChannel openSegment(Path dir, int index) throws IOException {
+        FileChannel segment = FileChannel.open(dir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        writeHeader(segment);
+        return segment;
+    }
+
+    private static void writeHeader(FileChannel segment) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+        writeFully(segment, header);
+    }
+
+    private static void writeRecord(FileChannel segment, Block block) throws IOException {
+        byte[] payload = JSON.toJSONString(block).getBytes(StandardCharsets.UTF_8);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length)
+                .putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        writeFully(segment, record);
+    }
+
+    private static void writeFully(FileChannel segment, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            segment.write(buffer);
+        }
+    }
+
+    /**
+     * 目录中的段文件，按编号排序
+     */
+    private static List<Path> segments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return new ArrayList<>(files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted(Comparator.comparingInt(BlockStore::segmentIndex))
+                    .toList());
+        }
+    }
+
+    private static int segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
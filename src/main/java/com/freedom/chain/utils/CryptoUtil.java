@@ -1,39 +1,48 @@
 package com.freedom.chain.utils;
 
-import lombok.extern.slf4j.Slf4j;
-
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HexFormat;
 
 /**
  * @description: 密码学工具类
+ * 摘要对象按线程复用（MessageDigest非线程安全，getInstance 涉及provider查找，开销较大），
+ * 热点路径使用 xxxInto 系列方法直接把结果写入调用方提供的缓冲区，String 版本只是在其上做十六进制格式化
  * @author: freedom
  * @create: 2025-11-19
  **/
-@Slf4j
 public class CryptoUtil {
 
     private static final HexFormat HEX_FORMAT = HexFormat.of().withUpperCase();
 
+    /**
+     * SHA-256 摘要长度（字节）
+     */
+    public static final int SHA256_SIZE = 32;
+
+    /**
+     * RIPEMD-160 摘要长度（字节）
+     */
+    public static final int RIPEMD160_SIZE = 20;
+
+    private static final ThreadLocal<MessageDigest> SHA256_DIGEST = ThreadLocal.withInitial(() -> newDigest("SHA-256"));
+
+    // RIPEMD-160 由 BouncyCastle 提供（SignatureUtil 静态块中注册）
+    private static final ThreadLocal<MessageDigest> RIPEMD160_DIGEST = ThreadLocal.withInitial(() -> newDigest("RIPEMD160"));
+
+    // sha256Ripemd160 的中间结果缓冲区
+    private static final ThreadLocal<byte[]> SHA256_SCRATCH = ThreadLocal.withInitial(() -> new byte[SHA256_SIZE]);
+
     /**
      * SHA256散列函数
      * @param str
      * @return
      */
     public static String sha256(String str) {
-        MessageDigest messageDigest;
-        String encodeStr = "";
-        try {
-            messageDigest = MessageDigest.getInstance("SHA-256");
-            messageDigest.update(str.getBytes(StandardCharsets.UTF_8));
-            encodeStr = sha256(messageDigest.digest());
-        } catch (Exception e) {
-            log.error("getSHA256 is error :{}" , e.getMessage());
-        }
-        return encodeStr;
-
+        return sha256(str.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
@@ -42,30 +51,53 @@ public class CryptoUtil {
      * @return
      */
     public static String sha256(byte[] bytes) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            // 直接对二进制数据哈希
-            byte[] hashBytes = digest.digest(bytes);
-            // 转16进制字符串（用于脚本存储）
-            return HEX_FORMAT.formatHex(hashBytes);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256算法不支持", e);
-        }
+        byte[] hashBytes = new byte[SHA256_SIZE];
+        sha256Into(bytes, 0, bytes.length, hashBytes, 0);
+        // 转16进制字符串（用于脚本存储）
+        return HEX_FORMAT.formatHex(hashBytes);
     }
 
     /**
      * @description: SHA-256哈希（返回字节数组）
-     * @author: freedom 
+     * @author: freedom
      * @date: 2025/11/21 23:53
      * @param: bytes 待哈希的字节数组（如交易哈希的字节形式）
      * @return: 32字节哈希数组（签名时使用）
      **/
     public static byte[] sha256Bytes(byte[] bytes) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            return digest.digest(bytes);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256算法不支持", e);
+        byte[] hashBytes = new byte[SHA256_SIZE];
+        sha256Into(bytes, 0, bytes.length, hashBytes, 0);
+        return hashBytes;
+    }
+
+    /**
+     * @description: SHA-256哈希，结果写入调用方缓冲区，不分配新对象
+     * @author: freedom
+     * @date: 2025/11/22 13:20
+     * @param: [input, offset, length, out, outOffset] 输入数据及区间、输出缓冲区及偏移（需预留32字节）
+     * @return: void
+     **/
+    public static void sha256Into(byte[] input, int offset, int length, byte[] out, int outOffset) {
+        MessageDigest digest = SHA256_DIGEST.get();
+        digest.update(input, offset, length);
+        finish(digest, out, outOffset, SHA256_SIZE);
+    }
+
+    /**
+     * @description: SHA-256哈希，消费 input 的剩余字节（position 移动到 limit），结果写入 out 当前位置并前移32字节
+     * @author: freedom
+     * @date: 2025/11/22 13:20
+     * @param: [input, out]
+     * @return: void
+     **/
+    public static void sha256Into(ByteBuffer input, ByteBuffer out) {
+        MessageDigest digest = SHA256_DIGEST.get();
+        digest.update(input);
+        if (out.hasArray()) {
+            finish(digest, out.array(), out.arrayOffset() + out.position(), SHA256_SIZE);
+            out.position(out.position() + SHA256_SIZE);
+        } else {
+            out.put(digest.digest());
         }
     }
 
@@ -77,17 +109,70 @@ public class CryptoUtil {
      * @return 20字节哈希数组（地址核心部分）
      */
     public static byte[] sha256Ripemd160(byte[] bytes) {
-        try {
-            // 第一步：SHA-256哈希
-            MessageDigest sha256Digest = MessageDigest.getInstance("SHA-256");
-            byte[] sha256Bytes = sha256Digest.digest(bytes);
+        byte[] hashBytes = new byte[RIPEMD160_SIZE];
+        sha256Ripemd160Into(bytes, 0, bytes.length, hashBytes, 0);
+        return hashBytes;
+    }
 
-            // 第二步：RIPEMD-160哈希（需导入BouncyCastle依赖，Java标准库无此算法）
-            MessageDigest ripemd160Digest = MessageDigest.getInstance("RIPEMD160");
-            return ripemd160Digest.digest(sha256Bytes);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("哈希算法不支持（需导入BouncyCastle）", e);
+    /**
+     * @description: SHA-256 + RIPEMD-160哈希，结果写入调用方缓冲区（需预留20字节）
+     * @author: freedom
+     * @date: 2025/11/22 13:20
+     * @param: [input, offset, length, out, outOffset]
+     * @return: void
+     **/
+    public static void sha256Ripemd160Into(byte[] input, int offset, int length, byte[] out, int outOffset) {
+        byte[] sha256Bytes = SHA256_SCRATCH.get();
+        sha256Into(input, offset, length, sha256Bytes, 0);
+        MessageDigest ripemd160Digest = RIPEMD160_DIGEST.get();
+        ripemd160Digest.update(sha256Bytes, 0, SHA256_SIZE);
+        finish(ripemd160Digest, out, outOffset, RIPEMD160_SIZE);
+    }
+
+    /**
+     * @description: 原始哈希是否满足“十六进制前导零个数”的难度要求，等价于 hex.startsWith("000...")，无需格式化十六进制
+     * @author: freedom
+     * @date: 2025/11/22 13:20
+     * @param: [hash, difficulty]
+     * @return: boolean
+     **/
+    public static boolean hasLeadingZeroNibbles(byte[] hash, int difficulty) {
+        int fullBytes = difficulty >> 1;
+        for (int i = 0; i < fullBytes; i++) {
+            if (hash[i] != 0) {
+                return false;
+            }
+        }
+        return (difficulty & 1) == 0 || (hash[fullBytes] & 0xF0) == 0;
+    }
+
+    /**
+     * @description: 原始哈希按大端无符号整数是否小于等于目标值（逐字节比较，无需格式化十六进制或构造BigInteger）
+     * @author: freedom
+     * @date: 2025/11/23 10:20
+     * @param: [hash, target] 32字节哈希、32字节大端目标值（TargetUtil.bitsToTargetBytes）
+     * @return: boolean
+     **/
+    public static boolean meetsTarget(byte[] hash, byte[] target) {
+        return meetsTarget(hash, 0, target);
+    }
+
+    /**
+     * @description: 同 meetsTarget，哈希位于 hash[offset, offset+32)（多lane挖矿内核的输出）
+     * @author: freedom
+     * @date: 2025/11/24 20:30
+     * @param: [hash, offset, target]
+     * @return: boolean
+     **/
+    public static boolean meetsTarget(byte[] hash, int offset, byte[] target) {
+        for (int i = 0; i < SHA256_SIZE; i++) {
+            int h = hash[offset + i] & 0xFF;
+            int t = target[i] & 0xFF;
+            if (h != t) {
+                return h < t;
+            }
         }
+        return true;
     }
 
     /**
@@ -101,4 +186,35 @@ public class CryptoUtil {
         return HEX_FORMAT.formatHex(bytes);
     }
 
+    /**
+     * @description: 十六进制字符串 → 字节数组（大小写均可）
+     * @author: freedom
+     * @date: 2025/11/22 12:10
+     * @param: [hex]
+     * @return: byte[]
+     **/
+    public static byte[] hexToBytes(String hex) {
+        return HEX_FORMAT.parseHex(hex);
+    }
+
+    /**
+     * 完成摘要计算并写入输出缓冲区（digest 调用后摘要对象自动重置，可继续复用）
+     */
+    private static void finish(MessageDigest digest, byte[] out, int outOffset, int length) {
+        try {
+            digest.digest(out, outOffset, length);
+        } catch (DigestException e) {
+            digest.reset();
+            throw new IllegalArgumentException("输出缓冲区不足", e);
+        }
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("哈希算法不支持: " + algorithm, e);
+        }
+    }
+
 }
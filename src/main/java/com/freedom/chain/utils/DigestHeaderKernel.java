@@ -0,0 +1,39 @@
+package com.freedom.chain.utils;
+
+import com.freedom.chain.model.block.BlockHeaderTemplate;
+
+/**
+ * @description: 基于 MessageDigest 的区块头哈希内核（默认内核）：每个nonce对完整80字节区块头做一次 SHA-256，
+ * 可利用JDK对SHA指令集的内建优化
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+public class DigestHeaderKernel implements HeaderHashKernel {
+
+    private final byte[] header = new byte[BlockHeaderTemplate.HEADER_SIZE];
+
+    @Override
+    public String name() {
+        return "digest";
+    }
+
+    @Override
+    public int lanes() {
+        return 1;
+    }
+
+    @Override
+    public void init(byte[] header) {
+        System.arraycopy(header, 0, this.header, 0, BlockHeaderTemplate.HEADER_SIZE);
+    }
+
+    @Override
+    public void hash(int firstNonce, int nonceStep, byte[] out) {
+        int offset = BlockHeaderTemplate.NONCE_OFFSET;
+        header[offset] = (byte) (firstNonce >>> 24);
+        header[offset + 1] = (byte) (firstNonce >>> 16);
+        header[offset + 2] = (byte) (firstNonce >>> 8);
+        header[offset + 3] = (byte) firstNonce;
+        CryptoUtil.sha256Into(header, 0, BlockHeaderTemplate.HEADER_SIZE, out, 0);
+    }
+}
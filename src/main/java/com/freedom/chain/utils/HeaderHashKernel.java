@@ -0,0 +1,39 @@
+package com.freedom.chain.utils;
+
+/**
+ * @description: 区块头哈希内核：对同一区块头模板一次计算 lanes() 个nonce的 SHA-256
+ * 实例有状态（预计算的中间状态），每个挖矿线程独占一个实例，按 init → 多次 hash 的方式使用
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+public interface HeaderHashKernel {
+
+    /**
+     * 内核名称（日志、基准测试使用）
+     */
+    String name();
+
+    /**
+     * 一次计算的nonce个数
+     */
+    int lanes();
+
+    /**
+     * @description: 切换到新的区块头模板（80字节，nonce槽位的内容会被忽略）
+     * @author: freedom
+     * @date: 2025/11/24 20:30
+     * @param: [header]
+     * @return: void
+     **/
+    void init(byte[] header);
+
+    /**
+     * @description: 计算 firstNonce + i * nonceStep（i = 0..lanes()-1）对应的区块哈希，
+     * 第i个哈希写入 out[i*32, i*32+32)，与 CryptoUtil.sha256Bytes(区块头) 逐字节一致
+     * @author: freedom
+     * @date: 2025/11/24 20:30
+     * @param: [firstNonce, nonceStep, out] 起始nonce、相邻lane的nonce间隔、输出缓冲区（至少 lanes()*32 字节）
+     * @return: void
+     **/
+    void hash(int firstNonce, int nonceStep, byte[] out);
+}
@@ -0,0 +1,98 @@
+package com.freedom.chain.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @description: 区块头哈希内核工厂：digest（默认，MessageDigest）、scalar（中间状态 + 纯Java压缩）、
+ * vector（Vector API 多lane）。向量内核只在以 -Pvector 构建时编译进来，且需要以 --add-modules jdk.incubator.vector 启动，
+ * 类或模块缺失、CPU向量宽度不足时回退到 scalar
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+@Slf4j
+public class HeaderHashKernels {
+
+    public static final String DIGEST = "digest";
+    public static final String SCALAR = "scalar";
+    public static final String VECTOR = "vector";
+
+    private static final String VECTOR_KERNEL_CLASS = "com.freedom.chain.utils.VectorHeaderKernel";
+
+    /**
+     * 向量内核是否可用只探测一次
+     */
+    private static volatile Boolean vectorAvailable;
+
+    /**
+     * @description: 按名称创建内核（每个挖矿线程一个实例）
+     * @author: freedom
+     * @date: 2025/11/24 20:30
+     * @param: [type]
+     * @return: com.freedom.chain.utils.HeaderHashKernel
+     **/
+    public static HeaderHashKernel create(String type) {
+        if (VECTOR.equalsIgnoreCase(type)) {
+            HeaderHashKernel kernel = createVector();
+            return kernel != null ? kernel : new ScalarHeaderKernel();
+        }
+        if (SCALAR.equalsIgnoreCase(type)) {
+            return new ScalarHeaderKernel();
+        }
+        return new DigestHeaderKernel();
+    }
+
+    /**
+     * @description: 解析配置的内核名称为实际使用的内核（vector 不可用时为 scalar，未知名称为 digest），
+     * 启动时解析一次，各挖矿线程按解析结果创建内核，不再各自探测
+     * @author: freedom
+     * @date: 2025/11/24 20:30
+     * @param: [type]
+     * @return: java.lang.String
+     **/
+    public static String resolve(String type) {
+        if (VECTOR.equalsIgnoreCase(type)) {
+            return isVectorAvailable() ? VECTOR : SCALAR;
+        }
+        return SCALAR.equalsIgnoreCase(type) ? SCALAR : DIGEST;
+    }
+
+    /**
+     * @description: 向量内核是否可用（首次调用时探测并缓存结果）
+     * @author: freedom
+     * @date: 2025/11/24 20:30
+     * @param: []
+     * @return: boolean
+     **/
+    public static boolean isVectorAvailable() {
+        if (vectorAvailable == null) {
+            createVector();
+        }
+        return Boolean.TRUE.equals(vectorAvailable);
+    }
+
+    /**
+     * @description: 反射加载向量内核，保证缺少 jdk.incubator.vector 模块时其余代码不受影响
+     * @author: freedom
+     * @date: 2025/11/24 20:30
+     * @param: []
+     * @return: com.freedom.chain.utils.HeaderHashKernel 不可用时返回null
+     **/
+    public static HeaderHashKernel createVector() {
+        if (Boolean.FALSE.equals(vectorAvailable)) {
+            return null;
+        }
+        try {
+            HeaderHashKernel kernel = (HeaderHashKernel) Class.forName(VECTOR_KERNEL_CLASS)
+                    .getDeclaredConstructor()
+                    .newInstance();
+            vectorAvailable = true;
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            vectorAvailable = false;
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("向量挖矿内核不可用（需以 -Pvector 构建并以 --add-modules jdk.incubator.vector 启动），回退到标量内核: {}",
+                    cause.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.freedom.chain.utils;
+
+import com.freedom.chain.vo.HistogramSnapshot;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @description: 无锁耗时直方图：按2的幂划分桶（微秒），记录只做几次原子加，分位数取所在桶的上界
+ * 桶i覆盖 [2^(i-1), 2^i) 微秒，最后一个桶收纳所有更大的值
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+public class LatencyHistogram {
+
+    /**
+     * 桶数量：最大桶上界 2^30 微秒（约18分钟）
+     */
+    private static final int BUCKETS = 31;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong totalMicros = new AtomicLong();
+
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * @description: 记录一次耗时
+     * @author: freedom
+     * @date: 2025/11/24 16:20
+     * @param: [nanos]
+     * @return: void
+     **/
+    public void record(long nanos) {
+        long micros = Math.max(nanos / 1000, 0);
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * @description: 当前统计快照（并发记录时各字段之间允许轻微不一致）
+     * @author: freedom
+     * @date: 2025/11/24 16:20
+     * @param: []
+     * @return: com.freedom.chain.vo.HistogramSnapshot
+     **/
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        HistogramSnapshot snapshot = new HistogramSnapshot();
+        snapshot.setCount(total);
+        if (total == 0) {
+            return snapshot;
+        }
+        snapshot.setMeanMicros(totalMicros.get() / Math.max(count.get(), 1));
+        snapshot.setMaxMicros(maxMicros.get());
+        snapshot.setP50Micros(percentile(counts, total, 0.50));
+        snapshot.setP90Micros(percentile(counts, total, 0.90));
+        snapshot.setP99Micros(percentile(counts, total, 0.99));
+        return snapshot;
+    }
+
+    /**
+     * 分位数所在桶的上界（不超过观测到的最大值）
+     */
+    private long percentile(long[] counts, long total, double quantile) {
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(1L << i, maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+}
@@ -1,5 +1,7 @@
 package com.freedom.chain.utils;
 
+import com.freedom.chain.model.ledger.PublicLedgerTransaction;
+import com.freedom.chain.model.ledger.UtxoInput;
 import com.freedom.chain.model.ledger.UtxoOutput;
 
 import java.math.BigInteger;
@@ -8,19 +10,90 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
 import org.springframework.util.ResourceUtils;
 import java.io.File;
-import java.io.FileWriter;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 /**
  * @description: 公共账本UTXO管理工具类：模拟区块链节点对UTXO的存储和查询 实际场景中：UTXO数据持久化到数据库（如LevelDB），此处用内存Map模拟
+ * 静态方法读写当前生效的UTXO集合；替换区块链时先把新链回放到一个新的 UtxoSet，验证通过后再用 replaceUtxoSet 整体换入
  * @author: freedom
  * @create: 2025-11-21
  **/
 public class LedgerUtil {
-    // 核心存储：UTXO集合（key=prevTxHash+":"+prevOutIndex，唯一标识一个UTXO；value=UTXO详情）
-    private static final Map<String, UtxoEntry> UTXO_STORAGE = new ConcurrentHashMap<>();
+    // 当前生效的UTXO集合
+    private static volatile UtxoSet utxoSet = new UtxoSet();
+
+    /**
+     * @description: 一份UTXO集合（key=prevTxHash+":"+prevOutIndex，唯一标识一个UTXO；value=UTXO详情）
+     * @author: freedom
+     * @date: 2025/11/29 10:00
+     **/
+    public static class UtxoSet {
+        private final Map<String, UtxoEntry> storage = new ConcurrentHashMap<>();
+
+        /**
+         * 新增交易的全部输出
+         */
+        public void addUtxos(String txHash, List<UtxoOutput> outputs) {
+            for (UtxoOutput output : outputs) {
+                String utxoKey = buildUtxoKey(txHash, output.getOutputIndex());
+                UtxoEntry entry = new UtxoEntry();
+                entry.setPrevTxHash(txHash);
+                entry.setPrevOutIndex(output.getOutputIndex());
+                entry.setRecipientAddress(output.getRecipientAddress());
+                entry.setAmount(output.getAmount());
+                entry.setSpent(false); // 新生成的UTXO未被花费
+                storage.put(utxoKey, entry);
+            }
+        }
+
+        /**
+         * 查询UTXO金额，不存在则返回0
+         */
+        public BigInteger getUtxoAmount(String prevTxHash, int prevOutIndex) {
+            UtxoEntry entry = storage.get(buildUtxoKey(prevTxHash, prevOutIndex));
+            return entry != null ? entry.getAmount() : BigInteger.ZERO;
+        }
+
+        /**
+         * 检查UTXO是否已被花费
+         */
+        public boolean isUtxoSpent(String prevTxHash, int prevOutIndex) {
+            UtxoEntry entry = storage.get(buildUtxoKey(prevTxHash, prevOutIndex));
+            return entry != null && entry.isSpent();
+        }
+
+        /**
+         * 标记UTXO为已花费
+         */
+        public void markUtxoAsSpent(String prevTxHash, int prevOutIndex) {
+            UtxoEntry entry = storage.get(buildUtxoKey(prevTxHash, prevOutIndex));
+            if (entry != null) {
+                entry.setSpent(true);
+            }
+        }
+
+        /**
+         * 按顺序连接区块中的交易：输入引用的UTXO标记为已花费，输出新增为UTXO
+         */
+        public void connectTransactions(List<PublicLedgerTransaction> transactions) {
+            if (transactions == null) {
+                return;
+            }
+            for (PublicLedgerTransaction tx : transactions) {
+                if (tx.getUtxoInputs() != null) {
+                    for (UtxoInput input : tx.getUtxoInputs()) {
+                        markUtxoAsSpent(input.getPrevTxHash(), input.getPrevOutIndex());
+                    }
+                }
+                addUtxos(tx.getTxHash(), tx.getUtxoOutputs());
+            }
+        }
+    }
 
     // UTXO详情实体（账本内部存储，不对外暴露）
     @lombok.Data
@@ -38,16 +111,7 @@ public class LedgerUtil {
      * @param outputs 交易输出列表（每个输出对应一个UTXO）
      */
     public static void addUtxos(String txHash, List<UtxoOutput> outputs) {
-        for (UtxoOutput output : outputs) {
-            String utxoKey = buildUtxoKey(txHash, output.getOutputIndex());
-            UtxoEntry entry = new UtxoEntry();
-            entry.setPrevTxHash(txHash);
-            entry.setPrevOutIndex(output.getOutputIndex());
-            entry.setRecipientAddress(output.getRecipientAddress());
-            entry.setAmount(output.getAmount());
-            entry.setSpent(false); // 新生成的UTXO未被花费
-            UTXO_STORAGE.put(utxoKey, entry);
-        }
+        utxoSet.addUtxos(txHash, outputs);
     }
 
     /**
@@ -57,9 +121,7 @@ public class LedgerUtil {
      * @return UTXO金额（不存在则返回0）
      */
     public static BigInteger getUtxoAmount(String prevTxHash, int prevOutIndex) {
-        String utxoKey = buildUtxoKey(prevTxHash, prevOutIndex);
-        UtxoEntry entry = UTXO_STORAGE.get(utxoKey);
-        return entry != null ? entry.getAmount() : BigInteger.ZERO;
+        return utxoSet.getUtxoAmount(prevTxHash, prevOutIndex);
     }
 
     /**
@@ -69,9 +131,7 @@ public class LedgerUtil {
      * @return true=已花费，false=未花费
      */
     public static boolean isUtxoSpent(String prevTxHash, int prevOutIndex) {
-        String utxoKey = buildUtxoKey(prevTxHash, prevOutIndex);
-        UtxoEntry entry = UTXO_STORAGE.get(utxoKey);
-        return entry != null && entry.isSpent();
+        return utxoSet.isUtxoSpent(prevTxHash, prevOutIndex);
     }
 
     /**
@@ -80,11 +140,22 @@ public class LedgerUtil {
      * @param prevOutIndex 引用的输出索引
      */
     public static void markUtxoAsSpent(String prevTxHash, int prevOutIndex) {
-        String utxoKey = buildUtxoKey(prevTxHash, prevOutIndex);
-        UtxoEntry entry = UTXO_STORAGE.get(utxoKey);
-        if (entry != null) {
-            entry.setSpent(true);
-        }
+        utxoSet.markUtxoAsSpent(prevTxHash, prevOutIndex);
+    }
+
+    /**
+     * 当前生效的UTXO集合
+     */
+    public static UtxoSet getUtxoSet() {
+        return utxoSet;
+    }
+
+    /**
+     * 整体替换当前生效的UTXO集合（替换区块链时调用，新集合由新链回放得到）
+     * @param newUtxoSet 新的UTXO集合
+     */
+    public static void replaceUtxoSet(UtxoSet newUtxoSet) {
+        utxoSet = newUtxoSet;
     }
 
     /**
@@ -93,7 +164,7 @@ public class LedgerUtil {
      * @return 未花费UTXO列表
      */
     public static List<UtxoEntry> getUnspentUtxosByAddress(String address) {
-        return UTXO_STORAGE.values().stream()
+        return utxoSet.storage.values().stream()
                 .filter(entry -> address.equals(entry.getRecipientAddress()) && !entry.isSpent())
                 .collect(Collectors.toList());
     }
@@ -104,7 +175,7 @@ public class LedgerUtil {
      * @u8fd4回 Map<交易哈希, UTXO输出列表>
      */
     public static Map<String, List<UtxoOutput>> getUtxosByAddress(String address) {
-        return UTXO_STORAGE.values().stream()
+        return utxoSet.storage.values().stream()
                 .filter(entry -> address.equals(entry.getRecipientAddress()) && !entry.isSpent())
                 .collect(Collectors.groupingBy(
                     UtxoEntry::getPrevTxHash,
@@ -132,48 +203,58 @@ public class LedgerUtil {
     /**
      * 构建UTXO唯一键（prevTxHash + 分隔符 + prevOutIndex）
      */
-    private static String buildUtxoKey(String prevTxHash, int prevOutIndex) {
+    public static String buildUtxoKey(String prevTxHash, int prevOutIndex) {
         return prevTxHash + ":" + prevOutIndex;
     }
 
     // 测试用：清空UTXO存储（仅用于单元测试）
     public static void clearUtxos() {
-        UTXO_STORAGE.clear();
+        utxoSet = new UtxoSet();
     }
     
     /**
-     * 保存UTXO快照到本地文件（file/utxo.json）
+     * 保存UTXO快照到本地文件（file/utxo.json）：{tipHash: 快照对应的链尾区块哈希, utxos: [...]}
+     * 先写临时文件再改名，停机时不会留下写了一半的快照
+     * @param tipHash 快照对应的链尾区块哈希，区块追加到存储之后才保存
      */
-    public static void saveUtxoSnapshot() {
+    public static void saveUtxoSnapshot(String tipHash) {
         try {
             File file = ResourceUtils.getFile("file/utxo.json");
-            try (FileWriter writer = new FileWriter(file)) {
-                writer.write(JSON.toJSONString(UTXO_STORAGE.values()));
-            }
+            Path tmp = file.toPath().resolveSibling(file.getName() + ".tmp");
+            JSONObject snapshot = new JSONObject();
+            snapshot.put("tipHash", tipHash);
+            snapshot.put("utxos", utxoSet.storage.values());
+            Files.writeString(tmp, snapshot.toJSONString());
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (Exception ignored) {
         }
     }
     
     /**
      * 从本地文件加载UTXO快照到内存
+     * @return 快照对应的链尾区块哈希；快照不存在、无法读取或为旧格式（不含链尾）时返回null，由调用方按区块回放重建
      */
-    public static void loadUtxoSnapshot() {
+    public static String loadUtxoSnapshot() {
         try {
             File file = ResourceUtils.getFile("file/utxo.json");
             if (!file.exists() || file.length() == 0) {
-                return;
+                return null;
             }
             String content = new String(Files.readAllBytes(file.toPath()));
-            if (content == null || content.trim().isEmpty()) {
-                return;
+            if (content == null || !content.trim().startsWith("{")) {
+                return null;
             }
-            List<UtxoEntry> list = JSON.parseArray(content, UtxoEntry.class);
-            UTXO_STORAGE.clear();
+            JSONObject snapshot = JSON.parseObject(content);
+            List<UtxoEntry> list = snapshot.getList("utxos", UtxoEntry.class);
+            UtxoSet loaded = new UtxoSet();
             for (UtxoEntry entry : list) {
                 String key = buildUtxoKey(entry.getPrevTxHash(), entry.getPrevOutIndex());
-                UTXO_STORAGE.put(key, entry);
+                loaded.storage.put(key, entry);
             }
+            utxoSet = loaded;
+            return snapshot.getString("tipHash");
         } catch (Exception ignored) {
+            return null;
         }
     }
 }
@@ -0,0 +1,87 @@
+package com.freedom.chain.utils;
+
+import com.freedom.chain.model.ledger.PublicLedgerTransaction;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * @description: 默克尔树工具类：以交易哈希为叶子节点，两两拼接做SHA-256直到根节点
+ * 节点数为奇数时复制最后一个节点（与比特币一致）；叶子较多时每一层并行计算
+ * @author: freedom
+ * @create: 2025-11-22
+ **/
+public class MerkleUtil {
+
+    /**
+     * 单层节点数超过该阈值时使用并行计算
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    /**
+     * 哈希长度（字节）
+     */
+    private static final int HASH_SIZE = 32;
+
+    /**
+     * @description: 计算交易列表的默克尔根（十六进制），空列表返回全零哈希
+     * @author: freedom
+     * @date: 2025/11/22 12:10
+     * @param: [transactions]
+     * @return: java.lang.String
+     **/
+    public static String computeRoot(List<PublicLedgerTransaction> transactions) {
+        if (transactions == null || transactions.isEmpty()) {
+            return CryptoUtil.bytesToHex(new byte[HASH_SIZE]);
+        }
+        byte[][] level = new byte[transactions.size()][];
+        for (int i = 0; i < level.length; i++) {
+            level[i] = CryptoUtil.hexToBytes(transactions.get(i).getTxHash());
+        }
+        return CryptoUtil.bytesToHex(computeRoot(level));
+    }
+
+    /**
+     * @description: 自底向上逐层计算默克尔根
+     * @author: freedom
+     * @date: 2025/11/22 12:10
+     * @param: [leaves]
+     * @return: byte[]
+     **/
+    public static byte[] computeRoot(byte[][] leaves) {
+        byte[][] level = leaves;
+        while (level.length > 1) {
+            byte[][] current = level;
+            byte[][] parents = new byte[(current.length + 1) / 2][];
+            IntStream range = IntStream.range(0, parents.length);
+            if (parents.length >= PARALLEL_THRESHOLD) {
+                range = range.parallel();
+            }
+            range.forEach(i -> {
+                byte[] left = current[2 * i];
+                // 奇数个节点时最后一个节点与自身配对
+                byte[] right = 2 * i + 1 < current.length ? current[2 * i + 1] : left;
+                parents[i] = hashPair(left, right);
+            });
+            level = parents;
+        }
+        return level[0];
+    }
+
+    /**
+     * @description: 父节点哈希 = SHA-256(left || right)
+     * @author: freedom
+     * @date: 2025/11/22 12:10
+     * @param: [left, right]
+     * @return: byte[]
+     **/
+    private static byte[] hashPair(byte[] left, byte[] right) {
+        byte[] buf = new byte[left.length + right.length];
+        System.arraycopy(left, 0, buf, 0, left.length);
+        System.arraycopy(right, 0, buf, left.length, right.length);
+        // 拼接缓冲区已经是 left||right，哈希结果原地写回其前32字节即可作为父节点
+        CryptoUtil.sha256Into(buf, 0, buf.length, buf, 0);
+        return Arrays.copyOf(buf, HASH_SIZE);
+    }
+}
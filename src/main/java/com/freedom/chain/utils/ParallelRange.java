@@ -0,0 +1,97 @@
+package com.freedom.chain.utils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * @description: 有界的并行区间执行器：把 [0, size) 切分成若干段提交到固定大小的线程池，等待全部完成
+ * 线程池队列有界，队列满时由提交线程自己执行（背压），并发的批量请求不会无限堆积任务；
+ * 批量转账的并行签名与批量验签共用同一个实例
+ * @author: freedom
+ * @create: 2025-11-29
+ **/
+public class ParallelRange implements AutoCloseable {
+
+    /**
+     * 每个线程分到的段数：段越多负载越均衡，段越少调度开销越小
+     */
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    /**
+     * 少于该数量时直接在调用线程中执行
+     */
+    private static final int MIN_PARALLEL_SIZE = 4;
+
+    private final int threads;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param threads    线程数，小于1时按1处理
+     * @param nameFormat 线程名格式，如 "tx-parallel-%d"
+     */
+    public ParallelRange(int threads, String nameFormat) {
+        this.threads = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.threads * SEGMENTS_PER_THREAD * 4),
+                new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    /**
+     * @description: 对 [0, size) 中的每个下标并行执行 task，全部完成后返回；任一段抛出异常时在调用线程中重新抛出
+     * @author: freedom
+     * @date: 2025/11/29 16:00
+     * @param: [size, task]
+     * @return: void
+     **/
+    public void run(int size, IntConsumer task) {
+        if (size < MIN_PARALLEL_SIZE || threads == 1) {
+            runRange(task, 0, size);
+            return;
+        }
+        int segments = Math.min(size, threads * SEGMENTS_PER_THREAD);
+        List<Future<?>> futures = new ArrayList<>(segments);
+        for (int s = 0; s < segments; s++) {
+            int from = (int) ((long) size * s / segments);
+            int to = (int) ((long) size * (s + 1) / segments);
+            futures.add(executor.submit(() -> runRange(task, from, to)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("并行任务被中断", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("并行任务失败", e.getCause());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static void runRange(IntConsumer task, int from, int to) {
+        for (int i = from; i < to; i++) {
+            task.accept(i);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.freedom.chain.utils;
+
+/**
+ * @description: 纯Java的 SHA-256 区块头哈希内核，使用中间状态（midstate）：
+ * 80字节区块头按 SHA-256 分为两个64字节分组，第一个分组（previousHash + merkleRoot）与nonce无关，
+ * 每个模板只压缩一次；每个nonce只需压缩第二个分组（timestamp | bits | nonce | 填充），计算量减半
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+public class ScalarHeaderKernel implements HeaderHashKernel {
+
+    /**
+     * SHA-256 轮常量
+     */
+    static final int[] K = {
+            0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+            0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+            0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+            0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+            0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+            0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+            0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+            0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+    };
+
+    /**
+     * SHA-256 初始哈希值
+     */
+    static final int[] IV = {
+            0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+    };
+
+    /**
+     * 第二个分组的填充：0x80 结束标记与消息长度（80字节 = 640位）
+     */
+    static final int PADDING_WORD = 0x80000000;
+    static final int LENGTH_WORD = 80 * 8;
+
+    /**
+     * 第一个分组压缩后的中间状态
+     */
+    private final int[] midstate = new int[8];
+
+    /**
+     * 消息扩展缓冲区，W[0..2] 为 timestamp/bits，W[3] 为nonce，其余填充字在 init 中写好
+     */
+    private final int[] w = new int[64];
+
+    private final int[] state = new int[8];
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public int lanes() {
+        return 1;
+    }
+
+    @Override
+    public void init(byte[] header) {
+        computeMidstate(header, midstate);
+        w[0] = readInt(header, 64);
+        w[1] = readInt(header, 68);
+        w[2] = readInt(header, 72);
+        w[4] = PADDING_WORD;
+        for (int i = 5; i < 15; i++) {
+            w[i] = 0;
+        }
+        w[15] = LENGTH_WORD;
+    }
+
+    @Override
+    public void hash(int firstNonce, int nonceStep, byte[] out) {
+        w[3] = firstNonce;
+        System.arraycopy(midstate, 0, state, 0, 8);
+        compress(state, w);
+        for (int i = 0; i < 8; i++) {
+            writeInt(out, i * 4, state[i]);
+        }
+    }
+
+    /**
+     * @description: 压缩区块头的第一个分组（previousHash + merkleRoot），得到中间状态
+     * @author: freedom
+     * @date: 2025/11/24 20:30
+     * @param: [header, midstate]
+     * @return: void
+     **/
+    static void computeMidstate(byte[] header, int[] midstate) {
+        int[] block = new int[64];
+        for (int i = 0; i < 16; i++) {
+            block[i] = readInt(header, i * 4);
+        }
+        System.arraycopy(IV, 0, midstate, 0, 8);
+        compress(midstate, block);
+    }
+
+    /**
+     * @description: SHA-256 压缩函数：w[0..15] 为分组，w[16..63] 在此处扩展，结果累加到state
+     * @author: freedom
+     * @date: 2025/11/24 20:30
+     * @param: [state, w]
+     * @return: void
+     **/
+    static void compress(int[] state, int[] w) {
+        for (int t = 16; t < 64; t++) {
+            int w15 = w[t - 15];
+            int w2 = w[t - 2];
+            int s0 = Integer.rotateRight(w15, 7) ^ Integer.rotateRight(w15, 18) ^ (w15 >>> 3);
+            int s1 = Integer.rotateRight(w2, 17) ^ Integer.rotateRight(w2, 19) ^ (w2 >>> 10);
+            w[t] = w[t - 16] + s0 + w[t - 7] + s1;
+        }
+        int a = state[0], b = state[1], c = state[2], d = state[3];
+        int e = state[4], f = state[5], g = state[6], h = state[7];
+        for (int t = 0; t < 64; t++) {
+            int s1 = Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25);
+            int ch = (e & f) ^ (~e & g);
+            int t1 = h + s1 + ch + K[t] + w[t];
+            int s0 = Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22);
+            int maj = (a & b) ^ (a & c) ^ (b & c);
+            int t2 = s0 + maj;
+            h = g;
+            g = f;
+            f = e;
+            e = d + t1;
+            d = c;
+            c = b;
+            b = a;
+            a = t1 + t2;
+        }
+        state[0] += a;
+        state[1] += b;
+        state[2] += c;
+        state[3] += d;
+        state[4] += e;
+        state[5] += f;
+        state[6] += g;
+        state[7] += h;
+    }
+
+    static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8 | (bytes[offset + 3] & 0xFF);
+    }
+
+    static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,64 @@
+package com.freedom.chain.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description: 周期性定时任务的统一提交入口：任务抛出的异常在这里记录日志后吞掉，
+ * ScheduledExecutorService 在任务抛出异常后会静默取消后续执行，各任务无需再各自包一层 try/catch
+ * @author: freedom
+ * @create: 2025-11-27
+ **/
+@Slf4j
+public class ScheduledTasks {
+
+    /**
+     * @description: 周期性执行的任务，允许抛出受检异常
+     * @author: freedom
+     * @date: 2025/11/27 10:30
+     **/
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    /**
+     * @description: 按固定间隔（上次执行结束到下次开始）执行任务，单次失败只记录日志，不影响后续执行
+     * @author: freedom
+     * @date: 2025/11/27 10:30
+     * @param: [executor, name, task, initialDelay, delay, unit] name 用于失败日志
+     * @return: java.util.concurrent.ScheduledFuture<?>
+     **/
+    public static ScheduledFuture<?> scheduleWithFixedDelay(ScheduledExecutorService executor, String name, Task task,
+                                                            long initialDelay, long delay, TimeUnit unit) {
+        return executor.scheduleWithFixedDelay(guard(name, task), initialDelay, delay, unit);
+    }
+
+    /**
+     * @description: 按固定频率执行任务，单次失败只记录日志，不影响后续执行
+     * @author: freedom
+     * @date: 2025/11/27 10:30
+     * @param: [executor, name, task, initialDelay, period, unit] name 用于失败日志
+     * @return: java.util.concurrent.ScheduledFuture<?>
+     **/
+    public static ScheduledFuture<?> scheduleAtFixedRate(ScheduledExecutorService executor, String name, Task task,
+                                                         long initialDelay, long period, TimeUnit unit) {
+        return executor.scheduleAtFixedRate(guard(name, task), initialDelay, period, unit);
+    }
+
+    private static Runnable guard(String name, Task task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (InterruptedException e) {
+                // 线程池关闭时中断，保留中断标记
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("定时任务执行失败: {}", name, e);
+            }
+        };
+    }
+}
@@ -0,0 +1,688 @@
+package com.freedom.chain.utils;
+
+import org.bouncycastle.util.BigIntegers;
+
+import java.math.BigInteger;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.EllipticCurve;
+import java.util.Arrays;
+
+/**
+ * @description: secp256k1 专用的ECDSA验签实现，结果与 BouncyCastle 的 SHA256withECDSA 一致，省去通用曲线实现的开销：
+ * 1. 有限域元素用 10 个 26 位 long 分量表示，乘法结果利用 2^256 ≡ 2^32 + 977 (mod p) 约减，不使用 BigInteger；
+ * 2. 点运算使用 Jacobian 坐标（a = 0 的倍点公式、与仿射点的混合加法），验签过程中不做模逆；
+ * 3. u1·G + u2·Q 用 Shamir 技巧共享一条倍点链，并用 GLV 自同态 λ·(x, y) = (β·x, y) 把两个标量各拆成两个约 128 位的标量，倍点次数减半；
+ * 4. G 与 λ·G 的奇数倍点表在类加载时预计算（窗口 WINDOW_G），公钥的奇数倍点表在 prepare 时计算一次，由调用方缓存；
+ * 5. 最后比较 X == r·Z² (mod p)，不把结果点转换为仿射坐标
+ * @author: freedom
+ * @create: 2025-11-28
+ **/
+public final class Secp256k1Verifier {
+
+    static final BigInteger P = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16);
+    static final BigInteger N = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+    private static final BigInteger GX = new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16);
+    private static final BigInteger GY = new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16);
+    private static final BigInteger SEVEN = BigInteger.valueOf(7);
+
+    /**
+     * GLV 自同态参数：β³ ≡ 1 (mod p)，对应 λ = 0x5363AD4CC05C30E0A5261C028812645A122E22EA20816678DF02967C1B23BD72，
+     * λ³ ≡ 1 (mod n)，λ·(x, y) = (β·x, y)
+     */
+    private static final BigInteger BETA = new BigInteger("7AE96A2B657C07106E64479EAC3434E99CF0497512F58995C1396C28719501EE", 16);
+
+    /**
+     * 标量分解用的短格基 (a1, b1), (a2, b2)：a + b·λ ≡ 0 (mod n)
+     */
+    private static final BigInteger A1 = new BigInteger("3086D221A7D46BCDE86C90E49284EB15", 16);
+    private static final BigInteger B1 = new BigInteger("-E4437ED6010E88286F547FA90ABFE4C3", 16);
+    private static final BigInteger A2 = new BigInteger("114CA50F7A8E2F3F657C1108D9D44CFD8", 16);
+    private static final BigInteger B2 = A1;
+    private static final BigInteger HALF_N = N.shiftRight(1);
+
+    /**
+     * G 的 wNAF 窗口：每张表 2^(WINDOW_G-2) 个点，G 与 λ·G 两张表常驻内存
+     */
+    private static final int WINDOW_G = 12;
+
+    /**
+     * 公钥的 wNAF 窗口：每个公钥 2^(WINDOW_Q-2) 个点
+     */
+    private static final int WINDOW_Q = 6;
+
+    private static final int LIMBS = 10;
+    private static final long M26 = 0x3FFFFFFL;
+    private static final long M22 = 0x3FFFFFL;
+
+    /**
+     * 2·p 的分量表示，减法时先加上它保证各分量非负
+     */
+    private static final long[] TWO_P = {
+            0x3FFFC2FL * 2, 0x3FFFFBFL * 2, M26 * 2, M26 * 2, M26 * 2, M26 * 2, M26 * 2, M26 * 2, M26 * 2, M22 * 2};
+
+    private static final long[] FE_ZERO = new long[LIMBS];
+
+    private static final long[] FE_ONE = {1, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final long[] FE_BETA = fromBigInteger(BETA);
+
+    private static final PreparedKey G_TABLE = new PreparedKey(fromBigInteger(GX), fromBigInteger(GY), WINDOW_G);
+
+    private Secp256k1Verifier() {
+    }
+
+    /**
+     * @description: 公钥是否为 secp256k1 曲线上的点（其他曲线的公钥应使用通用实现验签）
+     * @author: freedom
+     * @date: 2025/11/28 20:00
+     * @param: [publicKey]
+     * @return: boolean
+     **/
+    public static boolean supports(PublicKey publicKey) {
+        if (!(publicKey instanceof ECPublicKey ecPublicKey) || ecPublicKey.getW() == ECPoint.POINT_INFINITY) {
+            return false;
+        }
+        ECParameterSpec params = ecPublicKey.getParams();
+        EllipticCurve curve = params.getCurve();
+        return curve.getField() instanceof ECFieldFp field && field.getP().equals(P)
+                && curve.getA().signum() == 0 && curve.getB().equals(SEVEN)
+                && params.getOrder().equals(N) && params.getCofactor() == 1
+                && params.getGenerator().getAffineX().equals(GX) && params.getGenerator().getAffineY().equals(GY);
+    }
+
+    /**
+     * @description: 预计算公钥的奇数倍点表（Q, 3Q, 5Q, ... 及其 λ 映射），结果不可变，可在多个线程间共享与缓存
+     * @author: freedom
+     * @date: 2025/11/28 20:00
+     * @param: [publicKey] 必须满足 supports(publicKey)
+     * @return: com.freedom.chain.utils.Secp256k1Verifier.PreparedKey
+     **/
+    public static PreparedKey prepare(PublicKey publicKey) {
+        if (!supports(publicKey)) {
+            throw new IllegalArgumentException("不是 secp256k1 公钥");
+        }
+        ECPoint w = ((ECPublicKey) publicKey).getW();
+        BigInteger x = w.getAffineX();
+        BigInteger y = w.getAffineY();
+        if (x.signum() < 0 || x.compareTo(P) >= 0 || y.signum() < 0 || y.compareTo(P) >= 0
+                || !y.multiply(y).subtract(x.pow(3)).subtract(SEVEN).mod(P).equals(BigInteger.ZERO)) {
+            throw new IllegalArgumentException("公钥不在 secp256k1 曲线上");
+        }
+        return new PreparedKey(fromBigInteger(x), fromBigInteger(y), WINDOW_Q);
+    }
+
+    /**
+     * @description: 验证签名 (r, s)：与 BouncyCastle ECDSASigner.verifySignature 相同，r、s 不在 [1, n-1] 内直接返回false
+     * @author: freedom
+     * @date: 2025/11/28 20:00
+     * @param: [hash, r, s, key] hash 为被签名数据的摘要（SHA256withECDSA 即 SHA-256(data)）
+     * @return: boolean
+     **/
+    public static boolean verify(byte[] hash, BigInteger r, BigInteger s, PreparedKey key) {
+        if (r.signum() <= 0 || r.compareTo(N) >= 0 || s.signum() <= 0 || s.compareTo(N) >= 0) {
+            return false;
+        }
+        BigInteger e = new BigInteger(1, hash);
+        int messageBits = hash.length * 8;
+        if (messageBits > N.bitLength()) {
+            e = e.shiftRight(messageBits - N.bitLength());
+        }
+        BigInteger c = BigIntegers.modOddInverseVar(N, s);
+        BigInteger u1 = e.multiply(c).mod(N);
+        BigInteger u2 = r.multiply(c).mod(N);
+
+        // u1·G + u2·Q = g1·G + g2·(λG) + q1·Q + q2·(λQ)，四个约128位的标量共享一条倍点链
+        BigInteger[] g = split(u1);
+        BigInteger[] q = split(u2);
+        int[][] digits = {wnaf(g[0], WINDOW_G), wnaf(g[1], WINDOW_G), wnaf(q[0], WINDOW_Q), wnaf(q[1], WINDOW_Q)};
+        boolean[] negative = {g[0].signum() < 0, g[1].signum() < 0, q[0].signum() < 0, q[1].signum() < 0};
+        long[][][] xs = {G_TABLE.x, G_TABLE.lambdaX, key.x, key.lambdaX};
+        long[][][] ys = {G_TABLE.y, G_TABLE.y, key.y, key.y};
+        int length = 0;
+        for (int[] d : digits) {
+            length = Math.max(length, d.length);
+        }
+
+        Engine engine = new Engine();
+        for (int i = length - 1; i >= 0; i--) {
+            engine.doublePoint();
+            for (int k = 0; k < 4; k++) {
+                if (i < digits[k].length && digits[k][i] != 0) {
+                    int digit = digits[k][i];
+                    int index = (Math.abs(digit) - 1) >> 1;
+                    engine.addAffine(xs[k][index], ys[k][index], (digit < 0) != negative[k]);
+                }
+            }
+        }
+        if (engine.infinity) {
+            return false;
+        }
+
+        // x(R) mod n == r  <=>  X == r·Z² 或 X == (r+n)·Z²（r+n < p 时）
+        long[] zz = new long[LIMBS];
+        long[] t = new long[LIMBS];
+        sqr(zz, engine.z);
+        mul(t, fromBigInteger(r), zz);
+        if (equal(t, engine.x)) {
+            return true;
+        }
+        BigInteger rn = r.add(N);
+        if (rn.compareTo(P) < 0) {
+            mul(t, fromBigInteger(rn), zz);
+            return equal(t, engine.x);
+        }
+        return false;
+    }
+
+    /**
+     * GLV 分解：k ≡ k1 + k2·λ (mod n)，|k1|、|k2| 约 128 位，结果可能为负
+     */
+    private static BigInteger[] split(BigInteger k) {
+        BigInteger c1 = B2.multiply(k).add(HALF_N).divide(N);
+        BigInteger c2 = B1.negate().multiply(k).add(HALF_N).divide(N);
+        BigInteger k1 = k.subtract(c1.multiply(A1)).subtract(c2.multiply(A2));
+        BigInteger k2 = c1.multiply(B1).add(c2.multiply(B2)).negate();
+        return new BigInteger[]{k1, k2};
+    }
+
+    /**
+     * 宽度为 w 的 NAF 表示（对 |k|）：非零位为 (-2^(w-1), 2^(w-1)) 内的奇数，任意 w 个相邻位中至多一个非零
+     */
+    private static int[] wnaf(BigInteger k, int w) {
+        BigInteger abs = k.abs();
+        int bits = abs.bitLength();
+        long[] words = new long[(bits + w) / 64 + 2];
+        for (int i = 0; i * 64 < bits; i++) {
+            words[i] = abs.shiftRight(i * 64).longValue();
+        }
+        int[] digits = new int[bits + w + 1];
+        int length = 0;
+        int carry = 0;
+        int bit = 0;
+        while (bit <= bits) {
+            if (((words[bit >>> 6] >>> bit) & 1) == carry) {
+                bit++;
+                continue;
+            }
+            int word = bits(words, bit, w) + carry;
+            carry = (word >> (w - 1)) & 1;
+            word -= carry << w;
+            digits[bit] = word;
+            length = bit + 1;
+            bit += w;
+        }
+        if (carry != 0) {
+            digits[bit] = 1;
+            length = bit + 1;
+        }
+        return Arrays.copyOf(digits, length);
+    }
+
+    /**
+     * 取 words 中从第 from 位开始的 count 位（count < 32）
+     */
+    private static int bits(long[] words, int from, int count) {
+        int index = from >>> 6;
+        int offset = from & 63;
+        long value = words[index] >>> offset;
+        if (offset + count > 64) {
+            value |= words[index + 1] << (64 - offset);
+        }
+        return (int) (value & ((1L << count) - 1));
+    }
+
+    // ---------------------------------------------------------------- 有限域 GF(p) 运算
+    // 元素 = Σ a[i]·2^(26·i)；每个运算的结果都经过约减：a[0..8] ≤ 2^26 + 2^16，a[9] < 2^22，值不一定小于 p
+
+    static long[] fromBigInteger(BigInteger v) {
+        long[] r = new long[LIMBS];
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] = v.shiftRight(26 * i).longValue() & (i == LIMBS - 1 ? M22 : M26);
+        }
+        return r;
+    }
+
+    static BigInteger toBigInteger(long[] a) {
+        long[] t = a.clone();
+        normalize(t);
+        BigInteger v = BigInteger.ZERO;
+        for (int i = LIMBS - 1; i >= 0; i--) {
+            v = v.shiftLeft(26).or(BigInteger.valueOf(t[i]));
+        }
+        return v;
+    }
+
+    /**
+     * 进位，并把 2^256 以上的部分按 2^256 ≡ 0x1000003D1 折回低位
+     */
+    private static void reduce(long[] r) {
+        for (int i = 0; i < LIMBS - 1; i++) {
+            r[i + 1] += r[i] >>> 26;
+            r[i] &= M26;
+        }
+        long hi = r[9] >>> 22;
+        r[9] &= M22;
+        r[0] += hi * 0x3D1L;
+        r[1] += (hi << 6) + (r[0] >>> 26);
+        r[0] &= M26;
+        r[2] += r[1] >>> 26;
+        r[1] &= M26;
+    }
+
+    /**
+     * 完全约减到 [0, p)，用于比较
+     */
+    private static void normalize(long[] r) {
+        reduce(r);
+        while (true) {
+            for (int i = 0; i < LIMBS - 1; i++) {
+                r[i + 1] += r[i] >>> 26;
+                r[i] &= M26;
+            }
+            long hi = r[9] >>> 22;
+            if (hi == 0) {
+                break;
+            }
+            r[9] &= M22;
+            r[0] += hi * 0x3D1L;
+            r[1] += hi << 6;
+        }
+        // 值 < 2^256；r >= p 时减去 p，即加上 2^256 - p = 0x1000003D1 后去掉 2^256
+        boolean high = r[9] == M22 && (r[2] & r[3] & r[4] & r[5] & r[6] & r[7] & r[8]) == M26;
+        if (high && (r[1] > 0x3FFFFBFL || (r[1] == 0x3FFFFBFL && r[0] >= 0x3FFFC2FL))) {
+            r[0] += 0x3D1L;
+            r[1] += 0x40L;
+            for (int i = 0; i < LIMBS - 1; i++) {
+                r[i + 1] += r[i] >>> 26;
+                r[i] &= M26;
+            }
+            r[9] &= M22;
+        }
+    }
+
+    private static boolean equal(long[] a, long[] b) {
+        long[] x = a.clone();
+        long[] y = b.clone();
+        normalize(x);
+        normalize(y);
+        return Arrays.equals(x, y);
+    }
+
+    /**
+     * 是否 ≡ 0 (mod p)；a 被完全约减（值不变）
+     */
+    private static boolean isZero(long[] a) {
+        normalize(a);
+        long bits = 0;
+        for (long limb : a) {
+            bits |= limb;
+        }
+        return bits == 0;
+    }
+
+    private static void add(long[] r, long[] a, long[] b) {
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] = a[i] + b[i];
+        }
+        reduce(r);
+    }
+
+    private static void sub(long[] r, long[] a, long[] b) {
+        subLazy(r, a, b);
+        reduce(r);
+    }
+
+    /**
+     * 不约减的减法，各分量 < 2^28，结果只能作为乘法的输入或立即完全约减
+     */
+    private static void subLazy(long[] r, long[] a, long[] b) {
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] = a[i] + TWO_P[i] - b[i];
+        }
+    }
+
+    private static void mulSmall(long[] r, long[] a, int k) {
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] = a[i] * k;
+        }
+        reduce(r);
+    }
+
+    /**
+     * r = a·b，展开为局部变量上的 100 次乘法；r 可以与 a、b 是同一数组
+     */
+    private static void mul(long[] r, long[] a, long[] b) {
+        long a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3], a4 = a[4], a5 = a[5], a6 = a[6], a7 = a[7], a8 = a[8],
+                a9 = a[9];
+        long b0 = b[0], b1 = b[1], b2 = b[2], b3 = b[3], b4 = b[4], b5 = b[5], b6 = b[6], b7 = b[7], b8 = b[8],
+                b9 = b[9];
+        long t0 = a0 * b0;
+        long t1 = a0 * b1 + a1 * b0;
+        long t2 = a0 * b2 + a1 * b1 + a2 * b0;
+        long t3 = a0 * b3 + a1 * b2 + a2 * b1 + a3 * b0;
+        long t4 = a0 * b4 + a1 * b3 + a2 * b2 + a3 * b1 + a4 * b0;
+        long t5 = a0 * b5 + a1 * b4 + a2 * b3 + a3 * b2 + a4 * b1 + a5 * b0;
+        long t6 = a0 * b6 + a1 * b5 + a2 * b4 + a3 * b3 + a4 * b2 + a5 * b1 + a6 * b0;
+        long t7 = a0 * b7 + a1 * b6 + a2 * b5 + a3 * b4 + a4 * b3 + a5 * b2 + a6 * b1 + a7 * b0;
+        long t8 = a0 * b8 + a1 * b7 + a2 * b6 + a3 * b5 + a4 * b4 + a5 * b3 + a6 * b2 + a7 * b1 + a8 * b0;
+        long t9 = a0 * b9 + a1 * b8 + a2 * b7 + a3 * b6 + a4 * b5 + a5 * b4 + a6 * b3 + a7 * b2 + a8 * b1 + a9 * b0;
+        long t10 = a1 * b9 + a2 * b8 + a3 * b7 + a4 * b6 + a5 * b5 + a6 * b4 + a7 * b3 + a8 * b2 + a9 * b1;
+        long t11 = a2 * b9 + a3 * b8 + a4 * b7 + a5 * b6 + a6 * b5 + a7 * b4 + a8 * b3 + a9 * b2;
+        long t12 = a3 * b9 + a4 * b8 + a5 * b7 + a6 * b6 + a7 * b5 + a8 * b4 + a9 * b3;
+        long t13 = a4 * b9 + a5 * b8 + a6 * b7 + a7 * b6 + a8 * b5 + a9 * b4;
+        long t14 = a5 * b9 + a6 * b8 + a7 * b7 + a8 * b6 + a9 * b5;
+        long t15 = a6 * b9 + a7 * b8 + a8 * b7 + a9 * b6;
+        long t16 = a7 * b9 + a8 * b8 + a9 * b7;
+        long t17 = a8 * b9 + a9 * b8;
+        long t18 = a9 * b9;
+        reduceWide(r, t0, t1, t2, t3, t4, t5, t6, t7, t8, t9, t10, t11, t12, t13, t14, t15, t16, t17, t18);
+    }
+
+    /**
+     * r = a²，交叉项合并后只需 55 次乘法
+     */
+    private static void sqr(long[] r, long[] a) {
+        long a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3], a4 = a[4], a5 = a[5], a6 = a[6], a7 = a[7], a8 = a[8],
+                a9 = a[9];
+        long b0 = a0 << 1, b1 = a1 << 1, b2 = a2 << 1, b3 = a3 << 1, b4 = a4 << 1, b5 = a5 << 1, b6 = a6 << 1,
+                b7 = a7 << 1, b8 = a8 << 1;
+        long t0 = a0 * a0;
+        long t1 = b0 * a1;
+        long t2 = b0 * a2 + a1 * a1;
+        long t3 = b0 * a3 + b1 * a2;
+        long t4 = b0 * a4 + b1 * a3 + a2 * a2;
+        long t5 = b0 * a5 + b1 * a4 + b2 * a3;
+        long t6 = b0 * a6 + b1 * a5 + b2 * a4 + a3 * a3;
+        long t7 = b0 * a7 + b1 * a6 + b2 * a5 + b3 * a4;
+        long t8 = b0 * a8 + b1 * a7 + b2 * a6 + b3 * a5 + a4 * a4;
+        long t9 = b0 * a9 + b1 * a8 + b2 * a7 + b3 * a6 + b4 * a5;
+        long t10 = b1 * a9 + b2 * a8 + b3 * a7 + b4 * a6 + a5 * a5;
+        long t11 = b2 * a9 + b3 * a8 + b4 * a7 + b5 * a6;
+        long t12 = b3 * a9 + b4 * a8 + b5 * a7 + a6 * a6;
+        long t13 = b4 * a9 + b5 * a8 + b6 * a7;
+        long t14 = b5 * a9 + b6 * a8 + a7 * a7;
+        long t15 = b6 * a9 + b7 * a8;
+        long t16 = b7 * a9 + a8 * a8;
+        long t17 = b8 * a9;
+        long t18 = a9 * a9;
+        reduceWide(r, t0, t1, t2, t3, t4, t5, t6, t7, t8, t9, t10, t11, t12, t13, t14, t15, t16, t17, t18);
+    }
+
+    /**
+     * 约减 19 个分量的乘积（各分量 < 2^58），结果满足 reduce 的范围（r[2] 可能略大于 2^26）
+     */
+    private static void reduceWide(long[] r, long t0, long t1, long t2, long t3, long t4, long t5, long t6, long t7,
+                                   long t8, long t9, long t10, long t11, long t12, long t13, long t14, long t15,
+                                   long t16, long t17, long t18) {
+        // 高位 t10..t18 进位到 t19（折回时乘以 0x3D10 不能溢出），再按 2^260 ≡ 0x1000003D10 = 0x400·2^26 + 0x3D10 折回低位；
+        // 低位 t0..t9 不超过 2^58，直接累加
+        t11 += t10 >>> 26;
+        t10 &= M26;
+        t12 += t11 >>> 26;
+        t11 &= M26;
+        t13 += t12 >>> 26;
+        t12 &= M26;
+        t14 += t13 >>> 26;
+        t13 &= M26;
+        t15 += t14 >>> 26;
+        t14 &= M26;
+        t16 += t15 >>> 26;
+        t15 &= M26;
+        t17 += t16 >>> 26;
+        t16 &= M26;
+        t18 += t17 >>> 26;
+        t17 &= M26;
+        long t19 = t18 >>> 26;
+        t18 &= M26;
+        t9 += t19 * 0x3D10L;
+        t10 += t19 * 0x400L;
+        t8 += t18 * 0x3D10L;
+        t9 += t18 * 0x400L;
+        t7 += t17 * 0x3D10L;
+        t8 += t17 * 0x400L;
+        t6 += t16 * 0x3D10L;
+        t7 += t16 * 0x400L;
+        t5 += t15 * 0x3D10L;
+        t6 += t15 * 0x400L;
+        t4 += t14 * 0x3D10L;
+        t5 += t14 * 0x400L;
+        t3 += t13 * 0x3D10L;
+        t4 += t13 * 0x400L;
+        t2 += t12 * 0x3D10L;
+        t3 += t12 * 0x400L;
+        t1 += t11 * 0x3D10L;
+        t2 += t11 * 0x400L;
+        t0 += t10 * 0x3D10L;
+        t1 += t10 * 0x400L;
+        // 再次进位，2^256 以上的部分按 2^256 ≡ 0x1000003D1 折回
+        t1 += t0 >>> 26;
+        t0 &= M26;
+        t2 += t1 >>> 26;
+        t1 &= M26;
+        t3 += t2 >>> 26;
+        t2 &= M26;
+        t4 += t3 >>> 26;
+        t3 &= M26;
+        t5 += t4 >>> 26;
+        t4 &= M26;
+        t6 += t5 >>> 26;
+        t5 &= M26;
+        t7 += t6 >>> 26;
+        t6 &= M26;
+        t8 += t7 >>> 26;
+        t7 &= M26;
+        t9 += t8 >>> 26;
+        t8 &= M26;
+        long hi = t9 >>> 22;
+        t9 &= M22;
+        t0 += hi * 0x3D1L;
+        t1 += (hi << 6) + (t0 >>> 26);
+        r[0] = t0 & M26;
+        r[1] = t1 & M26;
+        r[2] = t2 + (t1 >>> 26);
+        r[3] = t3;
+        r[4] = t4;
+        r[5] = t5;
+        r[6] = t6;
+        r[7] = t7;
+        r[8] = t8;
+        r[9] = t9;
+    }
+
+    private static void inverse(long[] r, long[] a) {
+        long[] inv = fromBigInteger(BigIntegers.modOddInverseVar(P, toBigInteger(a)));
+        System.arraycopy(inv, 0, r, 0, LIMBS);
+    }
+
+    // ---------------------------------------------------------------- 点运算
+
+    /**
+     * @description: 一次标量乘法的 Jacobian 累加点 (X, Y, Z)，仿射坐标为 (X/Z², Y/Z³)，以及运算用的临时数组
+     * @author: freedom
+     * @date: 2025/11/28 20:00
+     **/
+    private static final class Engine {
+        final long[] x = new long[LIMBS];
+        final long[] y = new long[LIMBS];
+        final long[] z = new long[LIMBS];
+        boolean infinity = true;
+
+        final long[] t1 = new long[LIMBS];
+        final long[] t2 = new long[LIMBS];
+        final long[] t3 = new long[LIMBS];
+        final long[] t4 = new long[LIMBS];
+        final long[] t5 = new long[LIMBS];
+        final long[] t6 = new long[LIMBS];
+        final long[] t7 = new long[LIMBS];
+
+        /**
+         * 倍点（a = 0，dbl-2009-l）：A = X², B = Y², C = B², D = 2((X+B)² - A - C), E = 3A,
+         * X3 = E² - 2D, Y3 = E(D - X3) - 8C, Z3 = 2YZ
+         */
+        void doublePoint() {
+            if (infinity) {
+                return;
+            }
+            long[] a = t1;
+            long[] b = t2;
+            long[] c = t3;
+            long[] d = t4;
+            long[] e = t5;
+            long[] f = t6;
+            sqr(a, x);
+            sqr(b, y);
+            sqr(c, b);
+            add(d, x, b);
+            sqr(d, d);
+            sub(d, d, a);
+            sub(d, d, c);
+            mulSmall(d, d, 2);
+            mulSmall(e, a, 3);
+            sqr(f, e);
+            mul(z, y, z);
+            mulSmall(z, z, 2);
+            mulSmall(a, d, 2);
+            sub(x, f, a);
+            sub(d, d, x);
+            mul(d, e, d);
+            mulSmall(c, c, 8);
+            sub(y, d, c);
+        }
+
+        /**
+         * 与仿射点 (ax, ±ay) 相加（madd）：H = ax·Z² - X, R = ay·Z³ - Y,
+         * X3 = R² - H³ - 2X·H², Y3 = R(X·H² - X3) - Y·H³, Z3 = Z·H
+         */
+        void addAffine(long[] ax, long[] ay, boolean negate) {
+            long[] py = ay;
+            if (negate) {
+                py = t7;
+                sub(py, FE_ZERO, ay);
+            }
+            if (infinity) {
+                System.arraycopy(ax, 0, x, 0, LIMBS);
+                System.arraycopy(py, 0, y, 0, LIMBS);
+                System.arraycopy(FE_ONE, 0, z, 0, LIMBS);
+                infinity = false;
+                return;
+            }
+            long[] zz = t1;
+            long[] h = t2;
+            long[] r = t3;
+            long[] hh = t4;
+            long[] hhh = t5;
+            long[] v = t6;
+            sqr(zz, z);
+            mul(h, ax, zz);
+            subLazy(h, h, x);
+            mul(r, z, zz);
+            mul(r, r, py);
+            subLazy(r, r, y);
+            if (isZero(h)) {
+                if (isZero(r)) {
+                    doublePoint();
+                } else {
+                    infinity = true;
+                }
+                return;
+            }
+            sqr(hh, h);
+            mul(hhh, h, hh);
+            mul(v, x, hh);
+            sqr(x, r);
+            sub(x, x, hhh);
+            mulSmall(zz, v, 2);
+            sub(x, x, zz);
+            sub(v, v, x);
+            mul(v, r, v);
+            mul(hhh, y, hhh);
+            sub(y, v, hhh);
+            mul(z, z, h);
+        }
+    }
+
+    /**
+     * @description: 预计算的奇数倍点表：x[i], y[i] 为 (2i+1)·P 的仿射坐标，lambdaX[i] = β·x[i] 对应 λ·(2i+1)·P
+     * @author: freedom
+     * @date: 2025/11/28 20:00
+     **/
+    public static final class PreparedKey {
+        private final long[][] x;
+        private final long[][] y;
+        private final long[][] lambdaX;
+
+        private PreparedKey(long[] px, long[] py, int window) {
+            int count = 1 << (window - 2);
+            Engine engine = new Engine();
+            // 2P 转为仿射坐标，之后依次加到 P 上得到 3P, 5P, ...
+            engine.addAffine(px, py, false);
+            engine.doublePoint();
+            long[][] twoP = toAffine(new long[][]{engine.x.clone()}, new long[][]{engine.y.clone()},
+                    new long[][]{engine.z.clone()});
+            long[][] jx = new long[count][];
+            long[][] jy = new long[count][];
+            long[][] jz = new long[count][];
+            engine = new Engine();
+            engine.addAffine(px, py, false);
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    engine.addAffine(twoP[0], twoP[1], false);
+                }
+                jx[i] = engine.x.clone();
+                jy[i] = engine.y.clone();
+                jz[i] = engine.z.clone();
+            }
+            long[][] affine = toAffine(jx, jy, jz);
+            this.x = new long[count][];
+            this.y = new long[count][];
+            this.lambdaX = new long[count][];
+            for (int i = 0; i < count; i++) {
+                x[i] = affine[2 * i];
+                y[i] = affine[2 * i + 1];
+                lambdaX[i] = new long[LIMBS];
+                mul(lambdaX[i], FE_BETA, x[i]);
+            }
+        }
+
+        /**
+         * 批量转换为仿射坐标（Montgomery 技巧，只做一次模逆），返回 [x0, y0, x1, y1, ...]
+         */
+        private static long[][] toAffine(long[][] jx, long[][] jy, long[][] jz) {
+            int count = jx.length;
+            long[][] prefix = new long[count][];
+            prefix[0] = jz[0].clone();
+            for (int i = 1; i < count; i++) {
+                prefix[i] = new long[LIMBS];
+                mul(prefix[i], prefix[i - 1], jz[i]);
+            }
+            long[] inv = new long[LIMBS];
+            inverse(inv, prefix[count - 1]);
+            long[][] out = new long[2 * count][];
+            long[] zInv = new long[LIMBS];
+            long[] zInv2 = new long[LIMBS];
+            for (int i = count - 1; i >= 0; i--) {
+                if (i > 0) {
+                    mul(zInv, inv, prefix[i - 1]);
+                    mul(inv, inv, jz[i]);
+                } else {
+                    System.arraycopy(inv, 0, zInv, 0, LIMBS);
+                }
+                sqr(zInv2, zInv);
+                long[] ax = new long[LIMBS];
+                long[] ay = new long[LIMBS];
+                mul(ax, jx[i], zInv2);
+                mul(zInv2, zInv2, zInv);
+                mul(ay, jy[i], zInv2);
+                normalize(ax);
+                normalize(ay);
+                out[2 * i] = ax;
+                out[2 * i + 1] = ay;
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.freedom.chain.utils;
+
+import com.freedom.chain.vo.SignatureCacheStats;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+
+/**
+ * @description: 验签结果缓存：只记录验证通过的 (交易哈希, 签名, 公钥)，同一笔交易在转账、入池、打包、区块验证时只做一次ECDSA运算
+ * 键为三者的SHA-256（固定32字节，与签名、公钥长度无关），按最近最少使用淘汰，超过上限后淘汰最久未命中的记录
+ * 交易内容与交易哈希的一致性仍由 verifyHash 每次检查，缓存只替代曲线运算
+ * @author: freedom
+ * @create: 2025-11-28
+ **/
+public class SignatureCache {
+
+    /**
+     * 缓存的验签记录上限（每条约 200 字节）
+     */
+    public static final int MAX_ENTRIES = 200_000;
+
+    private static final Cache<String, Boolean> VERIFIED = CacheBuilder.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .recordStats()
+            .build();
+
+    /**
+     * @description: 已缓存则直接返回true，否则执行验签，通过时写入缓存
+     * @author: freedom
+     * @date: 2025/11/28 10:10
+     * @param: [txHash, signature, publicKey, verifier] verifier 执行实际的ECDSA验签
+     * @return: boolean
+     **/
+    public static boolean verify(String txHash, byte[] signature, String publicKey, BooleanSupplier verifier) {
+        String key = key(txHash, signature, publicKey);
+        if (VERIFIED.getIfPresent(key) != null) {
+            return true;
+        }
+        boolean valid = verifier.getAsBoolean();
+        if (valid) {
+            VERIFIED.put(key, Boolean.TRUE);
+        }
+        return valid;
+    }
+
+    /**
+     * 是否已验证通过（批量验签前过滤已缓存的签名）
+     */
+    public static boolean contains(String txHash, byte[] signature, String publicKey) {
+        // 只查询是否存在，不计入命中率统计，也不刷新LRU顺序
+        return VERIFIED.asMap().containsKey(key(txHash, signature, publicKey));
+    }
+
+    /**
+     * 记录验证通过的签名（批量验签之后写入）
+     */
+    public static void add(String txHash, byte[] signature, String publicKey) {
+        VERIFIED.put(key(txHash, signature, publicKey), Boolean.TRUE);
+    }
+
+    /**
+     * @description: 命中率等统计
+     * @author: freedom
+     * @date: 2025/11/28 10:10
+     * @param: []
+     * @return: com.freedom.chain.vo.SignatureCacheStats
+     **/
+    public static SignatureCacheStats stats() {
+        CacheStats stats = VERIFIED.stats();
+        SignatureCacheStats result = new SignatureCacheStats();
+        result.setSize(VERIFIED.size());
+        result.setMaxSize(MAX_ENTRIES);
+        result.setHits(stats.hitCount());
+        result.setMisses(stats.missCount());
+        result.setHitRate(stats.hitRate());
+        result.setEvictions(stats.evictionCount());
+        return result;
+    }
+
+    private static String key(String txHash, byte[] signature, String publicKey) {
+        String source = txHash + ":" + (signature != null ? CryptoUtil.bytesToHex(signature) : "") + ":" + publicKey;
+        return CryptoUtil.sha256(source.getBytes(StandardCharsets.UTF_8));
+    }
+}
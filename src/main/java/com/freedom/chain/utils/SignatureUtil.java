@@ -1,11 +1,15 @@
 package com.freedom.chain.utils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.bouncycastle.crypto.signers.StandardDSAEncoding;
 import org.bouncycastle.jce.ECNamedCurveTable;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.jce.spec.ECNamedCurveParameterSpec;
 import org.bouncycastle.jce.spec.ECPrivateKeySpec;
 import org.bouncycastle.util.encoders.Hex;
 
+import java.math.BigInteger;
 import java.security.*;
 import java.security.spec.ECGenParameterSpec;
 import java.security.spec.InvalidKeySpecException;
@@ -25,11 +29,39 @@ public class SignatureUtil {
     // 椭圆曲线名称
     public static final String CURVE_NAME = "secp256k1";
     private static final String SIGN_ALGORITHM = "SHA256withECDSA"; // 哈希+签名算法
+    // 解码后的公钥缓存上限（按最近最少使用淘汰）
+    private static final int PUBLIC_KEY_CACHE_SIZE = 10_000;
     static {
         // 注册BouncyCastleProvider（必须初始化）
         Security.addProvider(new BouncyCastleProvider());
     }
 
+    // 公钥十六进制字符串 -> 解码后的公钥；同一地址的交易反复验签时跳过十六进制解码与X.509解析
+    private static final Cache<String, PublicKey> PUBLIC_KEYS = CacheBuilder.newBuilder()
+            .maximumSize(PUBLIC_KEY_CACHE_SIZE)
+            .build();
+
+    // 公钥十六进制字符串 -> secp256k1 验签用的预计算倍点表
+    private static final Cache<String, Secp256k1Verifier.PreparedKey> PREPARED_KEYS = CacheBuilder.newBuilder()
+            .maximumSize(PUBLIC_KEY_CACHE_SIZE)
+            .build();
+
+    // Signature / KeyFactory 不是线程安全的，每个线程复用一个实例，省去每次调用时的Provider查找
+    private static final ThreadLocal<Signature> SIGNATURE = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance(SIGN_ALGORITHM, PROVIDER);
+        } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+            throw new IllegalStateException("ECDSA签名算法不可用", e);
+        }
+    });
+    private static final ThreadLocal<KeyFactory> KEY_FACTORY = ThreadLocal.withInitial(() -> {
+        try {
+            return KeyFactory.getInstance("EC", PROVIDER);
+        } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+            throw new IllegalStateException("EC密钥工厂不可用", e);
+        }
+    });
+
     /**
      * @description: ECDSA签名（私钥签名）
      * @author: freedom
@@ -39,17 +71,18 @@ public class SignatureUtil {
      **/
     public static byte[] ecdsaSign(byte[] data, PrivateKey privateKey) {
         try {
-            Signature signature = Signature.getInstance(SIGN_ALGORITHM, PROVIDER);
+            Signature signature = SIGNATURE.get();
             signature.initSign(privateKey);
             signature.update(data); // 对哈希后的数据签名（避免原始数据过大）
             return signature.sign();
-        } catch (NoSuchAlgorithmException | NoSuchProviderException | InvalidKeyException | SignatureException e) {
+        } catch (InvalidKeyException | SignatureException e) {
             throw new RuntimeException("ECDSA签名失败", e);
         }
     }
 
     /**
-     * @description: ECDSA验签（公钥验签）
+     * @description: ECDSA验签（公钥验签）：secp256k1 公钥走专用实现 Secp256k1Verifier，其他曲线的公钥走JCA通用实现，
+     * 两者结果一致；公钥或签名格式错误时抛出异常
      * @author: freedom
      * @date: 2025/11/22 0:26
      * @param: [data, signature, publicKeyHex]
@@ -57,23 +90,67 @@ public class SignatureUtil {
      **/
     public static boolean ecdsaVerify(byte[] data, byte[] signature, String publicKeyHex) {
         try {
-            // 1. 将公钥十六进制字符串转为PublicKey对象
-            byte[] publicKeyBytes = Hex.decode(publicKeyHex);
-            X509EncodedKeySpec keySpec = new X509EncodedKeySpec(publicKeyBytes);
-            KeyFactory keyFactory = KeyFactory.getInstance("EC", PROVIDER);
-            PublicKey publicKey = keyFactory.generatePublic(keySpec);
-
-            // 2. 验证签名
-            Signature verifier = Signature.getInstance(SIGN_ALGORITHM, PROVIDER);
-            verifier.initVerify(publicKey);
-            verifier.update(data);
-            return verifier.verify(signature);
-        } catch (NoSuchAlgorithmException | NoSuchProviderException | InvalidKeySpecException |
-                 InvalidKeyException | SignatureException e) {
+            // 1. 取公钥的预计算倍点表（首次验签时解析公钥并计算）
+            Secp256k1Verifier.PreparedKey key = PREPARED_KEYS.getIfPresent(publicKeyHex);
+            if (key == null) {
+                PublicKey publicKey = parsePublicKey(publicKeyHex);
+                if (!Secp256k1Verifier.supports(publicKey)) {
+                    return jcaVerify(data, signature, publicKey);
+                }
+                key = Secp256k1Verifier.prepare(publicKey);
+                PREPARED_KEYS.put(publicKeyHex, key);
+            }
+
+            // 2. 解码DER签名并验证
+            BigInteger[] rs = decodeSignature(signature);
+            return Secp256k1Verifier.verify(CryptoUtil.sha256Bytes(data), rs[0], rs[1], key);
+        } catch (InvalidKeySpecException | InvalidKeyException | SignatureException e) {
             throw new RuntimeException("ECDSA验签失败", e);
         }
     }
 
+    /**
+     * @description: 通过JCA（BouncyCastle）验签，用于非 secp256k1 公钥以及与专用实现的对比测试
+     * @author: freedom
+     * @date: 2025/11/28 20:00
+     * @param: [data, signature, publicKey]
+     * @return: boolean
+     **/
+    public static boolean jcaVerify(byte[] data, byte[] signature, PublicKey publicKey)
+            throws InvalidKeyException, SignatureException {
+        Signature verifier = SIGNATURE.get();
+        verifier.initVerify(publicKey);
+        verifier.update(data);
+        return verifier.verify(signature);
+    }
+
+    /**
+     * 按 BouncyCastle 的规则解码DER签名：必须是严格DER编码的 (r, s)，且 0 <= r, s < n
+     */
+    private static BigInteger[] decodeSignature(byte[] signature) throws SignatureException {
+        try {
+            return StandardDSAEncoding.INSTANCE.decode(Secp256k1Verifier.N, signature);
+        } catch (Exception e) {
+            throw new SignatureException("签名格式错误", e);
+        }
+    }
+
+    /**
+     * @description: 解析X.509编码的公钥十六进制字符串，结果按字符串缓存（只缓存解析成功的公钥）
+     * @author: freedom
+     * @date: 2025/11/28 14:00
+     * @param: [publicKeyHex]
+     * @return: java.security.PublicKey
+     **/
+    public static PublicKey parsePublicKey(String publicKeyHex) throws InvalidKeySpecException {
+        PublicKey publicKey = PUBLIC_KEYS.getIfPresent(publicKeyHex);
+        if (publicKey == null) {
+            publicKey = KEY_FACTORY.get().generatePublic(new X509EncodedKeySpec(Hex.decode(publicKeyHex)));
+            PUBLIC_KEYS.put(publicKeyHex, publicKey);
+        }
+        return publicKey;
+    }
+
     /**
      * 生成ECDSA密钥对（公钥+私钥）
      * @return 密钥对（私钥用于签名，公钥用于验签/地址推导）
@@ -124,11 +201,11 @@ public class SignatureUtil {
         // 2. 两种解析方式（优先 PKCS#8 标准解析）
         try {
             // 方式 1：直接用 PKCS8EncodedKeySpec 解析（推荐，若私钥是标准 PKCS#8 格式）
-            KeyFactory keyFactory = KeyFactory.getInstance("EC", "BC"); // 指定 EC 算法和 BouncyCastle 提供者
+            KeyFactory keyFactory = KEY_FACTORY.get(); // EC 算法、BouncyCastle 提供者
             return keyFactory.generatePrivate(new PKCS8EncodedKeySpec(ecPrivateKeyBytes));
         } catch (Exception e) {
             // 方式 2：手动解析 PKCS#8 中的私钥参数（兼容部分非标准格式）
-            KeyFactory keyFactory = KeyFactory.getInstance("EC", "BC");
+            KeyFactory keyFactory = KEY_FACTORY.get();
             // 从 PKCS#8 字节数组中提取 EC 私钥的 scalar 值（核心参数）
             PKCS8EncodedKeySpec pkcs8Spec = new PKCS8EncodedKeySpec(ecPrivateKeyBytes);
             // 解析 PKCS#8 结构，获取私钥 scalar
@@ -0,0 +1,160 @@
+package com.freedom.chain.utils;
+
+import java.math.BigInteger;
+
+/**
+ * @description: 挖矿目标值工具类：256位目标值与紧凑格式（bits）互转、目标值调整
+ * bits 与比特币 nBits 格式一致：最高字节为目标值的字节长度，低3字节为目标值的最高3个有效字节
+ * 区块哈希（按大端无符号整数）小于等于目标值即满足工作量要求
+ * @author: freedom
+ * @create: 2025-11-23
+ **/
+public class TargetUtil {
+
+    /**
+     * 目标值字节长度
+     */
+    public static final int TARGET_SIZE = 32;
+
+    /**
+     * 最小难度（最大目标值）：相当于哈希十六进制至少1个前导零
+     */
+    public static final int POW_LIMIT_BITS = 0x200FFFFF;
+
+    /**
+     * 最大目标值
+     */
+    public static final BigInteger POW_LIMIT = bitsToTarget(POW_LIMIT_BITS);
+
+    /**
+     * 紧凑格式中的符号位，目标值不允许为负
+     */
+    private static final int SIGN_BIT = 0x00800000;
+
+    /**
+     * @description: 紧凑格式 → 256位目标值（非法的负数/溢出格式返回0，任何哈希都无法满足）
+     * @author: freedom
+     * @date: 2025/11/23 10:20
+     * @param: [bits]
+     * @return: java.math.BigInteger
+     **/
+    public static BigInteger bitsToTarget(int bits) {
+        int size = bits >>> 24;
+        int mantissa = bits & 0x007FFFFF;
+        if ((bits & SIGN_BIT) != 0 || size > TARGET_SIZE + 1) {
+            return BigInteger.ZERO;
+        }
+        BigInteger target = size <= 3
+                ? BigInteger.valueOf(mantissa >>> (8 * (3 - size)))
+                : BigInteger.valueOf(mantissa).shiftLeft(8 * (size - 3));
+        return target.bitLength() > TARGET_SIZE * 8 ? BigInteger.ZERO : target;
+    }
+
+    /**
+     * @description: 256位目标值 → 紧凑格式（精度为最高3个有效字节，向下取整）
+     * @author: freedom
+     * @date: 2025/11/23 10:20
+     * @param: [target]
+     * @return: int
+     **/
+    public static int targetToBits(BigInteger target) {
+        int size = (target.bitLength() + 7) / 8;
+        long mantissa = size <= 3
+                ? target.longValue() << (8 * (3 - size))
+                : target.shiftRight(8 * (size - 3)).longValue();
+        // 最高有效位会被当作符号位时，尾数右移一个字节
+        if ((mantissa & SIGN_BIT) != 0) {
+            mantissa >>= 8;
+            size++;
+        }
+        return (int) (mantissa | ((long) size << 24));
+    }
+
+    /**
+     * @description: 紧凑格式 → 32字节大端目标值，挖矿时每轮只转换一次，逐nonce按字节比较
+     * @author: freedom
+     * @date: 2025/11/23 10:20
+     * @param: [bits]
+     * @return: byte[]
+     **/
+    public static byte[] bitsToTargetBytes(int bits) {
+        byte[] raw = bitsToTarget(bits).toByteArray();
+        byte[] target = new byte[TARGET_SIZE];
+        // toByteArray 可能带有一个前导符号字节，按低位对齐拷贝
+        int length = Math.min(raw.length, TARGET_SIZE);
+        System.arraycopy(raw, raw.length - length, target, TARGET_SIZE - length, length);
+        return target;
+    }
+
+    /**
+     * @description: 难度系数（十六进制前导零个数）→ 紧凑格式，用于把配置的初始难度换算成目标值
+     * @author: freedom
+     * @date: 2025/11/23 10:20
+     * @param: [difficulty]
+     * @return: int
+     **/
+    public static int difficultyToBits(int difficulty) {
+        int zeroBits = Math.max(1, Math.min(difficulty, 63)) * 4;
+        BigInteger target = BigInteger.ONE.shiftLeft(TARGET_SIZE * 8 - zeroBits).subtract(BigInteger.ONE);
+        return targetToBits(target.min(POW_LIMIT));
+    }
+
+    /**
+     * @description: 紧凑格式是否合法：目标值大于0且不超过最大目标值
+     * @author: freedom
+     * @date: 2025/11/23 10:20
+     * @param: [bits]
+     * @return: boolean
+     **/
+    public static boolean isValidBits(int bits) {
+        BigInteger target = bitsToTarget(bits);
+        return target.signum() > 0 && target.compareTo(POW_LIMIT) <= 0;
+    }
+
+    /**
+     * @description: 按实际出块耗时等比例调整目标值：newTarget = oldTarget * actualTimespan / expectedTimespan
+     * 单次调整幅度限制在 MAX_ADJUST_FACTOR 倍以内，且不低于最小难度
+     * @author: freedom
+     * @date: 2025/11/23 10:20
+     * @param: [currentBits, actualTimespan, expectedTimespan]
+     * @return: int
+     **/
+    public static int retarget(int currentBits, long actualTimespan, long expectedTimespan) {
+        long factor = BlockConstant.MAX_ADJUST_FACTOR;
+        long timespan = Math.max(expectedTimespan / factor, Math.min(actualTimespan, expectedTimespan * factor));
+        BigInteger target = bitsToTarget(currentBits)
+                .multiply(BigInteger.valueOf(timespan))
+                .divide(BigInteger.valueOf(expectedTimespan));
+        if (target.signum() <= 0) {
+            target = BigInteger.ONE;
+        }
+        return targetToBits(target.min(POW_LIMIT));
+    }
+
+    /**
+     * @description: 找到一个满足目标值的哈希平均需要的尝试次数：2^256 / (target + 1)，用于按份额估算算力
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: [bits]
+     * @return: double
+     **/
+    public static double expectedHashes(int bits) {
+        BigInteger target = bitsToTarget(bits);
+        return BigInteger.ONE.shiftLeft(TARGET_SIZE * 8).doubleValue() / target.add(BigInteger.ONE).doubleValue();
+    }
+
+    /**
+     * @description: 相对最小难度的难度倍数（POW_LIMIT / target），用于展示与日志
+     * @author: freedom
+     * @date: 2025/11/23 10:20
+     * @param: [bits]
+     * @return: double
+     **/
+    public static double bitsToDifficulty(int bits) {
+        BigInteger target = bitsToTarget(bits);
+        if (target.signum() <= 0) {
+            return 0;
+        }
+        return POW_LIMIT.doubleValue() / target.doubleValue();
+    }
+}
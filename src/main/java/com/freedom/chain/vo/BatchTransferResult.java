@@ -0,0 +1,38 @@
+package com.freedom.chain.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @description: 批量转账结果
+ * @author: freedom
+ * @create: 2025-11-29
+ **/
+@Data
+public class BatchTransferResult {
+    /**
+     * 请求的转账笔数
+     */
+    private int total;
+    /**
+     * 入池成功的笔数
+     */
+    private int succeeded;
+    /**
+     * 失败的笔数
+     */
+    private int failed;
+    /**
+     * 预留UTXO、构建签名与入池的总耗时（毫秒）
+     */
+    private long elapsedMs;
+    /**
+     * 吞吐：入池成功笔数 / 总耗时（笔/秒）
+     */
+    private double transfersPerSecond;
+    /**
+     * 逐笔结果，与请求顺序一致
+     */
+    private List<TransferResult> items;
+}
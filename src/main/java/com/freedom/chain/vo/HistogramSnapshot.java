@@ -0,0 +1,30 @@
+package com.freedom.chain.vo;
+
+import lombok.Data;
+
+/**
+ * @description: 耗时直方图快照（单位：微秒，分位数为所在桶的上界）
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+@Data
+public class HistogramSnapshot {
+    /**
+     * 样本数
+     */
+    private long count;
+    /**
+     * 平均耗时
+     */
+    private long meanMicros;
+    /**
+     * 最大耗时
+     */
+    private long maxMicros;
+    /**
+     * 分位数
+     */
+    private long p50Micros;
+    private long p90Micros;
+    private long p99Micros;
+}
@@ -0,0 +1,36 @@
+package com.freedom.chain.vo;
+
+import lombok.Data;
+
+/**
+ * @description: 交易池概况
+ * @author: freedom
+ * @create: 2025-11-26
+ **/
+@Data
+public class MempoolInfo {
+    /**
+     * 池中交易数
+     */
+    private int size;
+    /**
+     * 交易序列化大小合计（字节）
+     */
+    private long bytes;
+    /**
+     * 估算内存占用（字节）
+     */
+    private long usage;
+    /**
+     * 内存上限（字节）
+     */
+    private long maxUsage;
+    /**
+     * 当前最低入池费率（聪/字节），交易池未满过时为0
+     */
+    private double minFeeRate;
+    /**
+     * 交易过期时间（小时）
+     */
+    private long expiryHours;
+}
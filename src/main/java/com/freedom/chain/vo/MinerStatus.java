@@ -0,0 +1,40 @@
+package com.freedom.chain.vo;
+
+import lombok.Data;
+
+/**
+ * @description: 后台挖矿状态
+ * @author: freedom
+ * @create: 2025-11-23
+ **/
+@Data
+public class MinerStatus {
+    /**
+     * 是否正在后台挖矿
+     */
+    private boolean running;
+    /**
+     * 本次启动时间（未运行时为0）
+     */
+    private long startedAt;
+    /**
+     * 已执行的挖矿轮次（含因链尾变化中止的轮次）
+     */
+    private long rounds;
+    /**
+     * 后台挖矿成功出块数
+     */
+    private long blocksMined;
+    /**
+     * 最近一次挖出的区块高度
+     */
+    private int lastMinedHeight;
+    /**
+     * 当前链高度
+     */
+    private int chainHeight;
+    /**
+     * 当前链尾版本号
+     */
+    private long tipEpoch;
+}
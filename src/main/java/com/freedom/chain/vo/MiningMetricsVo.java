@@ -0,0 +1,58 @@
+package com.freedom.chain.vo;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * @description: 挖矿指标
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+@Data
+public class MiningMetricsVo {
+    /**
+     * 滚动窗口长度（秒）
+     */
+    private int windowSeconds;
+    /**
+     * 全部worker的滚动算力（次/秒）
+     */
+    private double hashrate;
+    /**
+     * 各worker的滚动算力（次/秒），key为worker编号
+     */
+    private Map<Integer, Double> workerHashrate;
+    /**
+     * 累计哈希尝试次数
+     */
+    private long totalAttempts;
+    /**
+     * 挖矿轮次：开始 / 成功 / 因链尾变化作废 / 被停止
+     */
+    private long roundsStarted;
+    private long roundsSucceeded;
+    private long roundsStale;
+    private long roundsCancelled;
+    /**
+     * 模板刷新（新交易）与滚动（nonce空间耗尽）次数
+     */
+    private long templateRefreshes;
+    private long templateRolls;
+    /**
+     * 当前模板已使用的时间（毫秒），未在挖矿时为-1
+     */
+    private long templateAgeMs;
+    /**
+     * 选择交易（prepareValidTransactions）耗时
+     */
+    private HistogramSnapshot prepareTransactions;
+    /**
+     * 构建区块模板（默克尔根 + 区块头）耗时
+     */
+    private HistogramSnapshot templateBuild;
+    /**
+     * 提交解到区块上链（校验、持久化、UTXO更新、广播）耗时
+     */
+    private HistogramSnapshot blockConnect;
+}
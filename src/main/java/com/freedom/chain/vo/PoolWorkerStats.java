@@ -0,0 +1,49 @@
+package com.freedom.chain.vo;
+
+import lombok.Data;
+
+/**
+ * @description: 矿池worker统计
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+@Data
+public class PoolWorkerStats {
+    /**
+     * worker名称
+     */
+    private String name;
+    /**
+     * worker地址
+     */
+    private String address;
+    /**
+     * 连接时间
+     */
+    private long connectedAt;
+    /**
+     * 已下发的工作单元数
+     */
+    private long workUnits;
+    /**
+     * 接受 / 拒绝的份额数
+     */
+    private long sharesAccepted;
+    private long sharesRejected;
+    /**
+     * 找到的区块数
+     */
+    private long blocksFound;
+    /**
+     * 最近一次提交份额的时间
+     */
+    private long lastShareAt;
+    /**
+     * 因领取工作过于频繁被忽略的请求数
+     */
+    private long getWorkThrottled;
+    /**
+     * 按最近5分钟内已接受份额估算的算力（次/秒）
+     */
+    private double hashrate;
+}
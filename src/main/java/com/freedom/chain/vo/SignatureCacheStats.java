@@ -0,0 +1,36 @@
+package com.freedom.chain.vo;
+
+import lombok.Data;
+
+/**
+ * @description: 验签结果缓存统计
+ * @author: freedom
+ * @create: 2025-11-28
+ **/
+@Data
+public class SignatureCacheStats {
+    /**
+     * 当前缓存的验签记录数
+     */
+    private long size;
+    /**
+     * 记录数上限
+     */
+    private long maxSize;
+    /**
+     * 命中次数（跳过ECDSA运算）
+     */
+    private long hits;
+    /**
+     * 未命中次数（执行ECDSA运算）
+     */
+    private long misses;
+    /**
+     * 命中率（没有查询时为1）
+     */
+    private double hitRate;
+    /**
+     * 因超过上限被淘汰的记录数
+     */
+    private long evictions;
+}
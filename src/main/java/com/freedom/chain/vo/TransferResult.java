@@ -0,0 +1,28 @@
+package com.freedom.chain.vo;
+
+import lombok.Data;
+
+/**
+ * @description: 批量转账中单笔转账的结果
+ * @author: freedom
+ * @create: 2025-11-29
+ **/
+@Data
+public class TransferResult {
+    /**
+     * 在请求列表中的位置
+     */
+    private int index;
+    /**
+     * 是否已入池
+     */
+    private boolean success;
+    /**
+     * 交易哈希（签名前失败时为null）
+     */
+    private String txHash;
+    /**
+     * 失败原因
+     */
+    private String message;
+}
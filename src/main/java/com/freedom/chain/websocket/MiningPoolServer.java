@@ -0,0 +1,67 @@
+package com.freedom.chain.websocket;
+
+import com.freedom.chain.service.MiningPoolService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+
+/**
+ * @description: 矿池服务端，worker进程（PoolWorkerClient）通过websocket连接领取工作、提交份额
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+@Component
+@Slf4j
+public class MiningPoolServer {
+    @Resource
+    private MiningPoolService miningPoolService;
+
+    /**
+     * @description: 初始化矿池服务端
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: [port]
+     * @return: void
+     **/
+    public void initPoolServer(int port) {
+        WebSocketServer socketServer = new WebSocketServer(new InetSocketAddress(port)) {
+
+            @Override
+            public void onOpen(WebSocket webSocket, ClientHandshake clientHandshake) {
+                log.info("mining pool connection from address:{}", webSocket.getRemoteSocketAddress());
+            }
+
+            @Override
+            public void onClose(WebSocket webSocket, int i, String s, boolean b) {
+                miningPoolService.removeWorker(webSocket);
+            }
+
+            @Override
+            public void onMessage(WebSocket webSocket, String msg) {
+                miningPoolService.handleMessage(webSocket, msg);
+            }
+
+            @Override
+            public void onError(WebSocket webSocket, Exception e) {
+                if (webSocket != null) {
+                    miningPoolService.removeWorker(webSocket);
+                }
+                log.info("mining pool connection failed:{}", e.getMessage());
+            }
+
+            @Override
+            public void onStart() {
+
+            }
+
+        };
+        socketServer.start();
+        log.info("listening mining pool port on:{} ", port);
+    }
+
+}
@@ -0,0 +1,270 @@
+package com.freedom.chain.websocket;
+
+import com.alibaba.fastjson2.JSON;
+import com.freedom.chain.model.block.BlockHeaderTemplate;
+import com.freedom.chain.model.p2p.Message;
+import com.freedom.chain.model.pool.ShareResult;
+import com.freedom.chain.model.pool.ShareSubmit;
+import com.freedom.chain.model.pool.WorkUnit;
+import com.freedom.chain.utils.BlockConstant;
+import com.freedom.chain.utils.CryptoUtil;
+import com.freedom.chain.utils.HeaderHashKernel;
+import com.freedom.chain.utils.HeaderHashKernels;
+import com.freedom.chain.utils.ScheduledTasks;
+import com.freedom.chain.utils.TargetUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description: 独立运行的矿池worker（不启动Spring容器）：连接节点的矿池端口，领取工作单元，
+ * 多线程搜索nonce，把满足份额目标值的nonce提交给节点；断线后自动重连
+ * 启动：java -cp Blockchain.jar -Dloader.main=com.freedom.chain.websocket.PoolWorkerClient
+ * org.springframework.boot.loader.launch.PropertiesLauncher [ws://host:port] [worker名称] [线程数] [哈希内核]
+ * 哈希内核为 vector 时需以 -Pvector 构建，并加 --add-modules jdk.incubator.vector
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+@Slf4j
+public class PoolWorkerClient extends WebSocketClient {
+
+    /**
+     * 断线重连间隔（毫秒）
+     */
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    /**
+     * 算力日志输出间隔（秒）
+     */
+    private static final long REPORT_INTERVAL_SECONDS = 10;
+
+    /**
+     * 哈希次数累加的批量大小，减少共享计数器的竞争
+     */
+    private static final int HASH_COUNT_BATCH = 4096;
+
+    /**
+     * 请求新单元后未收到时重新请求的间隔（毫秒），节点会丢弃过于频繁的请求
+     */
+    private static final long GET_WORK_RETRY_MS = 1000;
+
+    private final String workerName;
+
+    private final int threads;
+
+    private final String kernelType;
+
+    /**
+     * 当前工作单元，搜索线程每次尝试前读取，收到新单元后立即切换
+     */
+    private volatile LocalJob currentJob;
+
+    private volatile boolean running = true;
+
+    private final LongAdder hashes = new LongAdder();
+    private final AtomicLong sharesSubmitted = new AtomicLong();
+    private final AtomicLong sharesAccepted = new AtomicLong();
+    private final AtomicLong blocksFound = new AtomicLong();
+
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    private ExecutorService hashExecutor;
+
+    private ScheduledExecutorService reporter;
+
+    public PoolWorkerClient(URI serverUri, String workerName, int threads, String kernelType) {
+        super(serverUri);
+        this.workerName = workerName;
+        this.threads = threads;
+        this.kernelType = HeaderHashKernels.resolve(kernelType);
+    }
+
+    public static void main(String[] args) throws Exception {
+        URI uri = new URI(args.length > 0 ? args[0] : "ws://127.0.0.1:7100");
+        String name = args.length > 1 ? args[1] : "worker-" + ProcessHandle.current().pid();
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String kernelType = args.length > 3 ? args[3] : HeaderHashKernels.DIGEST;
+        while (true) {
+            PoolWorkerClient client = new PoolWorkerClient(uri, name, threads, kernelType);
+            try {
+                if (client.connectBlocking()) {
+                    client.closed.await();
+                }
+            } finally {
+                client.shutdown();
+            }
+            log.info("与矿池的连接已断开，{}ms 后重连: {}", RECONNECT_DELAY_MS, uri);
+            Thread.sleep(RECONNECT_DELAY_MS);
+        }
+    }
+
+    @Override
+    public void onOpen(ServerHandshake serverHandshake) {
+        log.info("已连接矿池: {}，worker: {}，线程数: {}，哈希内核: {}", getURI(), workerName, threads,
+                kernelType);
+        hashExecutor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("pool-hash-%d").setDaemon(true).build());
+        for (int i = 0; i < threads; i++) {
+            final int threadId = i;
+            hashExecutor.execute(() -> searchNonce(threadId));
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("pool-report").setDaemon(true).build());
+        ScheduledTasks.scheduleAtFixedRate(reporter, "算力统计输出", this::report, REPORT_INTERVAL_SECONDS,
+                REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        send(JSON.toJSONString(new Message(BlockConstant.POOL_SUBSCRIBE, workerName)));
+    }
+
+    @Override
+    public void onMessage(String msg) {
+        Message message = JSON.parseObject(msg, Message.class);
+        switch (message.getType()) {
+            case BlockConstant.POOL_WORK:
+                WorkUnit unit = JSON.parseObject(message.getData(), WorkUnit.class);
+                currentJob = new LocalJob(unit);
+                log.info("收到工作单元: {}，高度: {}，额外nonce: {}{}", unit.getJobId(), unit.getHeight(),
+                        unit.getExtraNonce(), unit.isCleanJobs() ? "（链尾已变化）" : "");
+                break;
+            case BlockConstant.POOL_SUBMIT_RESULT:
+                ShareResult result = JSON.parseObject(message.getData(), ShareResult.class);
+                if (result.isAccepted()) {
+                    sharesAccepted.incrementAndGet();
+                }
+                if (result.isBlockFound()) {
+                    blocksFound.incrementAndGet();
+                    log.info("份额满足区块目标值，节点已出块，jobId: {}，nonce: {}", result.getJobId(), result.getNonce());
+                } else if (!result.isAccepted()) {
+                    log.info("份额被拒绝，jobId: {}，原因: {}", result.getJobId(), result.getReason());
+                }
+                break;
+            default:
+                log.warn("未知的矿池消息类型: {}", message.getType());
+        }
+    }
+
+    @Override
+    public void onClose(int code, String reason, boolean remote) {
+        running = false;
+        closed.countDown();
+    }
+
+    @Override
+    public void onError(Exception e) {
+        log.info("矿池连接异常: {}", e.getMessage());
+    }
+
+    /**
+     * @description: 单个搜索线程：按步长threads交错划分工作单元的nonce区间，内核每次计算 lanes 个nonce；区间耗尽后请求新单元
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     * @param: [threadId]
+     * @return: void
+     **/
+    private void searchNonce(int threadId) {
+        HeaderHashKernel kernel = HeaderHashKernels.create(kernelType);
+        int lanes = kernel.lanes();
+        long laneSpan = (long) (lanes - 1) * threads;
+        byte[] hashOut = new byte[lanes * CryptoUtil.SHA256_SIZE];
+        LocalJob job = null;
+        long n = 0;
+        int pending = 0;
+        while (running) {
+            LocalJob latest = currentJob;
+            if (latest == null) {
+                sleepQuietly(100);
+                continue;
+            }
+            if (latest != job) {
+                job = latest;
+                kernel.init(job.template.newHeaderBuffer());
+                n = job.unit.getNonceStart() + threadId;
+            }
+            if (n + laneSpan > job.unit.getNonceEnd()) {
+                // 只由一个线程请求新单元，其余线程等待切换；迟迟未收到时重新请求
+                long requestedAt = job.workRequestedAt.get();
+                long now = System.currentTimeMillis();
+                if ((requestedAt == 0 || now - requestedAt >= GET_WORK_RETRY_MS)
+                        && job.workRequestedAt.compareAndSet(requestedAt, now)) {
+                    send(JSON.toJSONString(new Message(BlockConstant.POOL_GET_WORK)));
+                }
+                sleepQuietly(10);
+                continue;
+            }
+
+            kernel.hash((int) n, threads, hashOut);
+            for (int lane = 0; lane < lanes; lane++) {
+                if (CryptoUtil.meetsTarget(hashOut, lane * CryptoUtil.SHA256_SIZE, job.shareTarget)) {
+                    int nonce = (int) (n + (long) lane * threads);
+                    sharesSubmitted.incrementAndGet();
+                    send(JSON.toJSONString(new Message(BlockConstant.POOL_SUBMIT,
+                            JSON.toJSONString(new ShareSubmit(job.unit.getJobId(), nonce)))));
+                }
+            }
+            n += (long) lanes * threads;
+            pending += lanes;
+            if (pending >= HASH_COUNT_BATCH) {
+                hashes.add(pending);
+                pending = 0;
+            }
+        }
+    }
+
+    /**
+     * 输出本地算力与份额统计
+     */
+    private void report() {
+        long count = hashes.sumThenReset();
+        log.info("worker: {}，算力: {} H/s，提交份额: {}，接受: {}，出块: {}", workerName,
+                count / REPORT_INTERVAL_SECONDS, sharesSubmitted.get(), sharesAccepted.get(), blocksFound.get());
+    }
+
+    private void shutdown() {
+        running = false;
+        if (hashExecutor != null) {
+            hashExecutor.shutdownNow();
+        }
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @description: worker本地的工作单元：区块头模板与份额目标值只在收到单元时展开一次
+     * @author: freedom
+     * @date: 2025/11/24 10:15
+     **/
+    private static class LocalJob {
+        final WorkUnit unit;
+        final BlockHeaderTemplate template;
+        final byte[] shareTarget;
+        /**
+         * 区间耗尽后最近一次请求新单元的时间，0表示尚未请求
+         */
+        final AtomicLong workRequestedAt = new AtomicLong();
+
+        LocalJob(WorkUnit unit) {
+            this.unit = unit;
+            this.template = new BlockHeaderTemplate(unit.getPreviousHash(), unit.getMerkleRoot(),
+                    unit.getTimestamp(), unit.getBits());
+            this.shareTarget = TargetUtil.bitsToTargetBytes(unit.getShareBits());
+        }
+    }
+}
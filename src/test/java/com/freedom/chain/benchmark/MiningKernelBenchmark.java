@@ -0,0 +1,114 @@
+package com.freedom.chain.benchmark;
+
+import com.freedom.chain.model.block.BlockHeaderTemplate;
+import com.freedom.chain.utils.CryptoUtil;
+import com.freedom.chain.utils.HeaderHashKernel;
+import com.freedom.chain.utils.HeaderHashKernels;
+import com.freedom.chain.utils.TargetUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @description: 挖矿内核基准测试：在同一区块头上先校验各内核结果与 CryptoUtil.sha256Bytes 逐字节一致，再单线程测量算力
+ * 位于测试源码中，不打入运行包；运行方式见 README（含向量内核时需以 -Pvector 编译并加 --add-modules jdk.incubator.vector）
+ * 参数：[每个内核的测量秒数]
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+public class MiningKernelBenchmark {
+
+    /**
+     * 正确性校验的nonce数量
+     */
+    private static final int VERIFY_NONCES = 4096;
+
+    public static void main(String[] args) {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Random random = new Random(20251124L);
+        byte[] previousHash = new byte[CryptoUtil.SHA256_SIZE];
+        byte[] merkleRoot = new byte[CryptoUtil.SHA256_SIZE];
+        random.nextBytes(previousHash);
+        random.nextBytes(merkleRoot);
+        String previous = CryptoUtil.bytesToHex(previousHash);
+        String merkle = CryptoUtil.bytesToHex(merkleRoot);
+        long timestamp = System.currentTimeMillis();
+        int bits = TargetUtil.difficultyToBits(4);
+        byte[] header = BlockHeaderTemplate.encodeHeader(previous, merkle, timestamp, bits, 0);
+
+        List<HeaderHashKernel> kernels = new ArrayList<>();
+        kernels.add(HeaderHashKernels.create(HeaderHashKernels.DIGEST));
+        kernels.add(HeaderHashKernels.create(HeaderHashKernels.SCALAR));
+        HeaderHashKernel vector = HeaderHashKernels.createVector();
+        if (vector != null) {
+            kernels.add(vector);
+        } else {
+            System.out.println("向量内核不可用（需以 -Pvector 编译并加 --add-modules jdk.incubator.vector），跳过");
+        }
+
+        double baseline = 0;
+        for (HeaderHashKernel kernel : kernels) {
+            kernel.init(header);
+            verify(kernel, previous, merkle, timestamp, bits);
+            // 预热，触发JIT编译
+            measure(kernel, 1);
+            double hashrate = measure(kernel, seconds);
+            if (baseline == 0) {
+                baseline = hashrate;
+            }
+            System.out.printf("%-10s lanes=%-2d %,14.0f H/s  %.2fx%n", kernel.name(), kernel.lanes(), hashrate,
+                    hashrate / baseline);
+        }
+    }
+
+    /**
+     * 与 CryptoUtil.sha256Bytes(完整区块头) 逐字节比较
+     */
+    private static void verify(HeaderHashKernel kernel, String previous, String merkle, long timestamp, int bits) {
+        int lanes = kernel.lanes();
+        byte[] out = new byte[lanes * CryptoUtil.SHA256_SIZE];
+        // 使用非1的步长，覆盖交错划分nonce的场景
+        int step = 3;
+        for (int first = 0; first < VERIFY_NONCES; first += lanes * step) {
+            kernel.hash(first, step, out);
+            for (int lane = 0; lane < lanes; lane++) {
+                int nonce = first + lane * step;
+                byte[] expected = CryptoUtil.sha256Bytes(
+                        BlockHeaderTemplate.encodeHeader(previous, merkle, timestamp, bits, nonce));
+                byte[] actual = Arrays.copyOfRange(out, lane * CryptoUtil.SHA256_SIZE, (lane + 1) * CryptoUtil.SHA256_SIZE);
+                if (!Arrays.equals(expected, actual)) {
+                    throw new IllegalStateException(kernel.name() + " 内核结果不一致，nonce: " + nonce);
+                }
+            }
+        }
+    }
+
+    /**
+     * 单线程测量算力（次/秒）
+     */
+    private static double measure(HeaderHashKernel kernel, int seconds) {
+        int lanes = kernel.lanes();
+        byte[] out = new byte[lanes * CryptoUtil.SHA256_SIZE];
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long begin = System.nanoTime();
+        long hashes = 0;
+        int nonce = 0;
+        // 每1024批检查一次时间；累加输出字节防止被JIT消除
+        int sink = 0;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 1024; i++) {
+                kernel.hash(nonce, 1, out);
+                sink += out[0];
+                nonce += lanes;
+            }
+            hashes += 1024L * lanes;
+        }
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        if (sink == Integer.MIN_VALUE) {
+            System.out.println(sink);
+        }
+        return hashes / elapsed;
+    }
+}
@@ -0,0 +1,278 @@
+package com.freedom.chain.benchmark;
+
+import com.freedom.chain.utils.BatchSignatureVerifier;
+import com.freedom.chain.utils.CryptoUtil;
+import com.freedom.chain.utils.SignatureUtil;
+import org.bouncycastle.crypto.signers.StandardDSAEncoding;
+import org.bouncycastle.jce.ECNamedCurveTable;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * @description: secp256k1 验签基准测试：
+ * 1. 在随机语料（有效签名、篡改数据、错配公钥、随机 (r, s)、s 取 n - s）上校验专用实现 SignatureUtil.ecdsaVerify 与 JCA（BouncyCastle）结果逐项一致；
+ * 2. 校验批量验签结果与逐笔验签一致；
+ * 3. 单线程对比专用实现与 JCA 的验签速度，再按不同线程数与批大小测量每秒验签次数
+ * 位于测试源码中，不打包进应用：mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt 后
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) com.freedom.chain.benchmark.SignatureVerifyBenchmark [每组参数的测量秒数]
+ * @author: freedom
+ * @create: 2025-11-28
+ **/
+public class SignatureVerifyBenchmark {
+
+    /**
+     * 签名所用的密钥对数量
+     */
+    private static final int KEY_COUNT = 64;
+
+    /**
+     * 预先生成的签名数量，测量时循环使用
+     */
+    private static final int CORPUS_SIZE = 4096;
+
+    private static final int[] BATCH_SIZES = {1, 16, 64, 256, 1024};
+
+    /**
+     * 与 JCA 对比的轮数，每轮遍历一次语料并随机篡改
+     */
+    private static final int JCA_COMPARE_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        Random random = new Random(20251128L);
+        List<BatchSignatureVerifier.Item> corpus = corpus(random);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(cores);
+
+        compareWithJca(corpus, random);
+        try (BatchSignatureVerifier verifier = new BatchSignatureVerifier(cores)) {
+            check(verifier, corpus, random);
+        }
+        System.out.printf("CPU核数 %d，签名 %d 个，每组测量 %d 秒%n", cores, corpus.size(), seconds);
+        // 预热，触发JIT编译
+        measureSingle(corpus, false, 1);
+        measureSingle(corpus, true, 1);
+        double jca = measureSingle(corpus, true, seconds);
+        double specialized = measureSingle(corpus, false, seconds);
+        System.out.printf("单线程 JCA %,12.0f verify/s，专用实现 %,12.0f verify/s  %.2fx%n", jca, specialized, specialized / jca);
+        double baseline = 0;
+        for (int threads : threadCounts) {
+            try (BatchSignatureVerifier verifier = new BatchSignatureVerifier(threads)) {
+                // 预热，触发JIT编译
+                measure(verifier, corpus, 64, 1);
+                for (int batchSize : BATCH_SIZES) {
+                    double rate = measure(verifier, corpus, batchSize, seconds);
+                    if (baseline == 0) {
+                        baseline = rate;
+                    }
+                    System.out.printf("threads=%-3d batch=%-5d %,12.0f verify/s  %.2fx%n", threads, batchSize, rate,
+                            rate / baseline);
+                }
+            }
+        }
+    }
+
+    /**
+     * 生成签名语料：随机32字节数据由随机选取的密钥签名
+     */
+    private static List<BatchSignatureVerifier.Item> corpus(Random random) {
+        List<KeyPair> keyPairs = new ArrayList<>(KEY_COUNT);
+        List<String> publicKeys = new ArrayList<>(KEY_COUNT);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            KeyPair keyPair = SignatureUtil.generateKeyPair();
+            keyPairs.add(keyPair);
+            publicKeys.add(SignatureUtil.publicKeyToHex(keyPair.getPublic()));
+        }
+        List<BatchSignatureVerifier.Item> corpus = new ArrayList<>(CORPUS_SIZE);
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            int k = random.nextInt(KEY_COUNT);
+            byte[] data = new byte[CryptoUtil.SHA256_SIZE];
+            random.nextBytes(data);
+            corpus.add(new BatchSignatureVerifier.Item(data, SignatureUtil.ecdsaSign(data, keyPairs.get(k).getPrivate()),
+                    publicKeys.get(k)));
+        }
+        return corpus;
+    }
+
+    /**
+     * 专用实现与 JCA 逐项对比，签名格式错误时两者都应抛出异常
+     */
+    private static void compareWithJca(List<BatchSignatureVerifier.Item> corpus, Random random) {
+        BigInteger n = ECNamedCurveTable.getParameterSpec(SignatureUtil.CURVE_NAME).getN();
+        int compared = 0;
+        int valid = 0;
+        for (int round = 0; round < JCA_COMPARE_ROUNDS; round++) {
+            for (int i = 0; i < corpus.size(); i++) {
+                BatchSignatureVerifier.Item item = corpus.get(i);
+                byte[] data = item.getData();
+                byte[] signature = item.getSignature();
+                String publicKey = item.getPublicKeyHex();
+                switch (random.nextInt(6)) {
+                    case 0 -> {
+                        data = data.clone();
+                        data[random.nextInt(data.length)] ^= 1;
+                    }
+                    case 1 -> publicKey = corpus.get(random.nextInt(corpus.size())).getPublicKeyHex();
+                    case 2 -> signature = encode(n, new BigInteger(256, random).mod(n), new BigInteger(256, random).mod(n));
+                    case 3 -> {
+                        BigInteger[] rs = decode(n, signature);
+                        signature = encode(n, rs[0], n.subtract(rs[1]));
+                    }
+                    default -> {
+                    }
+                }
+                Boolean expected = jcaVerify(data, signature, publicKey);
+                Boolean actual;
+                try {
+                    actual = SignatureUtil.ecdsaVerify(data, signature, publicKey);
+                } catch (RuntimeException e) {
+                    actual = null;
+                }
+                if (!Objects.equals(expected, actual)) {
+                    throw new IllegalStateException("专用实现与JCA结果不一致: " + actual + " / " + expected
+                            + "，签名 " + CryptoUtil.bytesToHex(signature));
+                }
+                compared++;
+                if (Boolean.TRUE.equals(actual)) {
+                    valid++;
+                }
+            }
+        }
+        System.out.printf("与JCA对比通过：%d 项，其中有效 %d 项%n", compared, valid);
+    }
+
+    /**
+     * JCA 验签；签名格式错误返回null
+     */
+    private static Boolean jcaVerify(byte[] data, byte[] signature, String publicKeyHex) {
+        try {
+            return SignatureUtil.jcaVerify(data, signature, SignatureUtil.parsePublicKey(publicKeyHex));
+        } catch (SignatureException e) {
+            return null;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("公钥解析失败", e);
+        }
+    }
+
+    private static BigInteger[] decode(BigInteger n, byte[] signature) {
+        try {
+            return StandardDSAEncoding.INSTANCE.decode(n, signature);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] encode(BigInteger n, BigInteger r, BigInteger s) {
+        try {
+            return StandardDSAEncoding.INSTANCE.encode(n, r, s);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 单线程逐笔验签的每秒次数
+     */
+    private static double measureSingle(List<BatchSignatureVerifier.Item> corpus, boolean jca, int seconds) {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long begin = System.nanoTime();
+        long verified = 0;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 256; i++) {
+                BatchSignatureVerifier.Item item = corpus.get((int) (verified % corpus.size()));
+                boolean valid = jca
+                        ? Boolean.TRUE.equals(jcaVerify(item.getData(), item.getSignature(), item.getPublicKeyHex()))
+                        : SignatureUtil.ecdsaVerify(item.getData(), item.getSignature(), item.getPublicKeyHex());
+                if (!valid) {
+                    throw new IllegalStateException("有效签名验证失败");
+                }
+                verified++;
+            }
+        }
+        return verified / ((System.nanoTime() - begin) / 1e9);
+    }
+
+    /**
+     * 混入篡改数据、错配公钥、格式错误签名的项，批量结果必须与逐笔验签一致
+     */
+    private static void check(BatchSignatureVerifier verifier, List<BatchSignatureVerifier.Item> corpus, Random random) {
+        List<BatchSignatureVerifier.Item> items = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            BatchSignatureVerifier.Item item = corpus.get(i);
+            switch (random.nextInt(8)) {
+                case 0 -> {
+                    byte[] data = item.getData().clone();
+                    data[random.nextInt(data.length)] ^= 1;
+                    items.add(new BatchSignatureVerifier.Item(data, item.getSignature(), item.getPublicKeyHex()));
+                }
+                case 1 -> items.add(new BatchSignatureVerifier.Item(item.getData(), item.getSignature(),
+                        corpus.get(i + 1).getPublicKeyHex()));
+                case 2 -> items.add(new BatchSignatureVerifier.Item(item.getData(), new byte[]{0x30, 0x01},
+                        item.getPublicKeyHex()));
+                default -> items.add(item);
+            }
+        }
+        boolean[] results = verifier.verify(items);
+        int valid = 0;
+        for (int i = 0; i < items.size(); i++) {
+            BatchSignatureVerifier.Item item = items.get(i);
+            boolean expected = verifyOne(item);
+            if (results[i] != expected) {
+                throw new IllegalStateException("批量验签结果与逐笔验签不一致，第 " + i + " 项");
+            }
+            if (expected) {
+                valid++;
+            }
+        }
+        if (!verifier.verifyAll(corpus.subList(0, 256)) || verifier.verifyAll(items) != (valid == items.size())) {
+            throw new IllegalStateException("verifyAll 结果错误");
+        }
+        System.out.printf("正确性校验通过：%d 项，其中有效 %d 项%n", items.size(), valid);
+    }
+
+    /**
+     * 逐笔验签，签名格式错误（ecdsaVerify 抛出异常）视为无效
+     */
+    private static boolean verifyOne(BatchSignatureVerifier.Item item) {
+        try {
+            return SignatureUtil.ecdsaVerify(item.getData(), item.getSignature(), item.getPublicKeyHex());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 按批调用 verifyAll 测量每秒验签次数
+     */
+    private static double measure(BatchSignatureVerifier verifier, List<BatchSignatureVerifier.Item> corpus,
+                                  int batchSize, int seconds) {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long begin = System.nanoTime();
+        long verified = 0;
+        int offset = 0;
+        while (System.nanoTime() < deadline) {
+            if (offset + batchSize > corpus.size()) {
+                offset = 0;
+            }
+            if (!verifier.verifyAll(corpus.subList(offset, offset + batchSize))) {
+                throw new IllegalStateException("有效签名验证失败");
+            }
+            offset += batchSize;
+            verified += batchSize;
+        }
+        return verified / ((System.nanoTime() - begin) / 1e9);
+    }
+}
@@ -0,0 +1,388 @@
+package com.freedom.chain.service;
+
+import com.freedom.chain.error.BusinessException;
+import com.freedom.chain.model.block.BlockCache;
+import com.freedom.chain.model.ledger.MempoolEntry;
+import com.freedom.chain.model.ledger.PublicLedgerTransaction;
+import com.freedom.chain.model.ledger.UtxoInput;
+import com.freedom.chain.model.ledger.UtxoOutput;
+import com.freedom.chain.utils.AddressUtil;
+import com.freedom.chain.utils.CryptoUtil;
+import com.freedom.chain.utils.LedgerUtil;
+import com.freedom.chain.utils.SignatureUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @description: 交易池祖先/后代统计相关的行为：CPFP打包、区块确认父交易后子交易留在池中、替换带后代的交易、驱逐整条祖先链、链替换后重建
+ * 交易均为真实签名的交易，根输出直接写入 LedgerUtil 的UTXO集合
+ * @author: freedom
+ * @create: 2025-11-26
+ **/
+class MempoolTest {
+
+    /**
+     * 每个根输出的金额（聪）
+     */
+    private static final long ROOT_AMOUNT = 1_000_000;
+
+    /**
+     * 不声明可替换的 sequence
+     */
+    private static final long FINAL_SEQUENCE = 0xFFFFFFFFL;
+
+    /**
+     * 声明可替换的 sequence
+     */
+    private static final long REPLACEABLE_SEQUENCE = 0xFFFFFFFDL;
+
+    private static final KeyPair KEY_PAIR = SignatureUtil.generateKeyPair();
+
+    private static final String ADDRESS = AddressUtil.publicKeyToAddress(KEY_PAIR.getPublic());
+
+    private final AtomicLong maxBytes = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicLong timestamps = new AtomicLong(1_700_000_000_000L);
+
+    /**
+     * 本测试构造过的交易
+     */
+    private final List<PublicLedgerTransaction> created = new ArrayList<>();
+
+    private Mempool mempool;
+
+    private BlockAssembler blockAssembler;
+
+    @BeforeEach
+    void setUp() {
+        LedgerUtil.clearUtxos();
+        BlockCache blockCache = mock(BlockCache.class);
+        when(blockCache.getMempoolMaxBytes()).thenAnswer(invocation -> maxBytes.get());
+        mempool = new Mempool();
+        ReflectionTestUtils.setField(mempool, "blockCache", blockCache);
+        blockAssembler = new BlockAssembler();
+        ReflectionTestUtils.setField(blockAssembler, "mempool", mempool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        LedgerUtil.clearUtxos();
+    }
+
+    @Test
+    void highFeeChildPullsLowFeeParentIntoBlock() {
+        PublicLedgerTransaction parent = spend(List.of(root("cpfp-parent")), 10, FINAL_SEQUENCE);
+        PublicLedgerTransaction middle = spend(List.of(root("cpfp-middle")), 20_000, FINAL_SEQUENCE);
+        PublicLedgerTransaction lonely = spend(List.of(root("cpfp-lonely")), 20, FINAL_SEQUENCE);
+        PublicLedgerTransaction child = spend(List.of(output(parent)), 100_000, FINAL_SEQUENCE);
+        mempool.add(parent);
+        mempool.add(middle);
+        mempool.add(lonely);
+        mempool.add(child);
+
+        MempoolEntry childEntry = mempool.get(child.getTxHash());
+        MempoolEntry parentEntry = mempool.get(parent.getTxHash());
+        assertEquals(2, childEntry.getAncestorCount());
+        assertEquals(parentEntry.getFee() + childEntry.getFee(), childEntry.getAncestorFee());
+        assertEquals(2, parentEntry.getDescendantCount());
+        assertTrue(parentEntry.getFeeRate() < mempool.get(lonely.getTxHash()).getFeeRate());
+
+        // 父交易自身费率最低，但与子交易组成的祖先包费率最高，应排在最前且父交易在子交易之前
+        assertEquals(List.of(parent.getTxHash(), child.getTxHash(), middle.getTxHash(), lonely.getTxHash()),
+                hashes(blockAssembler.assemble(0)));
+    }
+
+    @Test
+    void threeLevelChainIsPackedOnce() {
+        PublicLedgerTransaction top = spend(List.of(root("chain-top")), 100_000, FINAL_SEQUENCE);
+        PublicLedgerTransaction middle = spend(List.of(output(top)), 1_000, FINAL_SEQUENCE);
+        PublicLedgerTransaction bottom = spend(List.of(output(middle)), 60_000, FINAL_SEQUENCE);
+        mempool.add(top);
+        mempool.add(middle);
+        mempool.add(bottom);
+
+        // 顶层交易单独入块后，中间交易的调整包不能在底层交易的包入块后再被选中一次
+        List<String> selected = hashes(blockAssembler.assemble(0));
+        assertEquals(List.of(top.getTxHash(), middle.getTxHash(), bottom.getTxHash()), selected);
+        assertEquals(3, selected.stream().distinct().count());
+    }
+
+    @Test
+    void removeForBlockKeepsChildAndDeductsConfirmedParent() {
+        UtxoInput confirmedInput = root("confirm-grandparent");
+        PublicLedgerTransaction grandparent = spend(List.of(confirmedInput), 100, FINAL_SEQUENCE);
+        PublicLedgerTransaction parent = spend(List.of(output(grandparent)), 200, FINAL_SEQUENCE);
+        PublicLedgerTransaction child = spend(List.of(output(parent)), 300, FINAL_SEQUENCE);
+        mempool.add(grandparent);
+        mempool.add(parent);
+        mempool.add(child);
+        assertEquals(3, mempool.get(child.getTxHash()).getAncestorCount());
+
+        // 区块确认了祖父交易：写入账本后从池中移除，父、子交易留在池中
+        LedgerUtil.markUtxoAsSpent(confirmedInput.getPrevTxHash(), 0);
+        LedgerUtil.addUtxos(grandparent.getTxHash(), grandparent.getUtxoOutputs());
+        assertEquals(1, mempool.removeForBlock(List.of(grandparent)));
+
+        assertFalse(mempool.contains(grandparent.getTxHash()));
+        MempoolEntry parentEntry = mempool.get(parent.getTxHash());
+        MempoolEntry childEntry = mempool.get(child.getTxHash());
+        assertNotNull(parentEntry);
+        assertNotNull(childEntry);
+        assertTrue(parentEntry.getParents().isEmpty());
+        assertEquals(1, parentEntry.getAncestorCount());
+        assertEquals(parentEntry.getSize(), parentEntry.getAncestorSize());
+        assertEquals(parentEntry.getFee(), parentEntry.getAncestorFee());
+        assertEquals(2, childEntry.getAncestorCount());
+        assertEquals(parentEntry.getSize() + childEntry.getSize(), childEntry.getAncestorSize());
+        assertEquals(parentEntry.getFee() + childEntry.getFee(), childEntry.getAncestorFee());
+        assertEquals(2, parentEntry.getDescendantCount());
+        assertFalse(mempool.isSpent(confirmedInput.getPrevTxHash(), 0));
+        assertTrue(mempool.isSpent(grandparent.getTxHash(), 0));
+
+        // 剩余的父交易花费的是账本中的输出，仍可打包
+        assertEquals(List.of(parent.getTxHash(), child.getTxHash()), hashes(blockAssembler.assemble(0)));
+    }
+
+    @Test
+    void removeForBlockDropsConflictWithItsDescendants() {
+        UtxoInput contested = root("confirm-conflict");
+        PublicLedgerTransaction pooled = spend(List.of(contested), 100, FINAL_SEQUENCE);
+        PublicLedgerTransaction pooledChild = spend(List.of(output(pooled)), 100, FINAL_SEQUENCE);
+        PublicLedgerTransaction unrelated = spend(List.of(root("confirm-unrelated")), 100, FINAL_SEQUENCE);
+        mempool.add(pooled);
+        mempool.add(pooledChild);
+        mempool.add(unrelated);
+
+        PublicLedgerTransaction mined = spend(List.of(contested), 500, FINAL_SEQUENCE);
+        assertEquals(2, mempool.removeForBlock(List.of(mined)));
+        assertEquals(1, mempool.size());
+        assertTrue(mempool.contains(unrelated.getTxHash()));
+        assertFalse(mempool.isSpent(pooled.getTxHash(), 0));
+    }
+
+    @Test
+    void replacementEvictsConflictAndDescendants() {
+        UtxoInput contested = root("rbf");
+        PublicLedgerTransaction original = spend(List.of(contested), 1_000, REPLACEABLE_SEQUENCE);
+        PublicLedgerTransaction child = spend(List.of(output(original)), 5_000, FINAL_SEQUENCE);
+        PublicLedgerTransaction grandchild = spend(List.of(output(child)), 5_000, FINAL_SEQUENCE);
+        mempool.add(original);
+        mempool.add(child);
+        mempool.add(grandchild);
+
+        // 费率更高但手续费低于被替换交易及其后代之和：拒绝，池不变
+        PublicLedgerTransaction tooCheap = spend(List.of(contested), 10_000, FINAL_SEQUENCE);
+        assertThrows(BusinessException.class, () -> mempool.add(tooCheap));
+        assertEquals(3, mempool.size());
+        assertTrue(mempool.contains(grandchild.getTxHash()));
+
+        // 手续费覆盖全部被替换交易：原交易连同子孙交易一起移除
+        PublicLedgerTransaction replacement = spend(List.of(contested), 12_000, FINAL_SEQUENCE);
+        assertTrue(mempool.add(replacement));
+        assertEquals(1, mempool.size());
+        assertFalse(mempool.contains(original.getTxHash()));
+        assertFalse(mempool.contains(child.getTxHash()));
+        assertFalse(mempool.contains(grandchild.getTxHash()));
+        assertFalse(mempool.isSpent(original.getTxHash(), 0));
+        assertFalse(mempool.isSpent(child.getTxHash(), 0));
+        assertTrue(mempool.isSpent(contested.getPrevTxHash(), contested.getPrevOutIndex()));
+        MempoolEntry entry = mempool.get(replacement.getTxHash());
+        assertEquals(1, entry.getDescendantCount());
+        assertEquals(entry.getSize(), entry.getDescendantSize());
+
+        // 替换交易不声明可替换，再次替换被拒绝
+        PublicLedgerTransaction again = spend(List.of(contested), 50_000, FINAL_SEQUENCE);
+        assertThrows(BusinessException.class, () -> mempool.add(again));
+        assertTrue(mempool.contains(replacement.getTxHash()));
+    }
+
+    @Test
+    void replacementCannotSpendReplacedOutputs() {
+        UtxoInput contested = root("rbf-self");
+        PublicLedgerTransaction original = spend(List.of(contested), 1_000, REPLACEABLE_SEQUENCE);
+        mempool.add(original);
+        PublicLedgerTransaction replacement = spend(List.of(contested, output(original)), 50_000, FINAL_SEQUENCE);
+        assertThrows(BusinessException.class, () -> mempool.add(replacement));
+        assertTrue(mempool.contains(original.getTxHash()));
+    }
+
+    @Test
+    void evictionRemovesLowScoreAncestorChain() {
+        // 祖父交易的后代包得分最低：max(10, (10+20+30)/3) < 父交易 max(20, (20+30)/2) < 子交易 30（按相近的交易大小）
+        PublicLedgerTransaction grandparent = spend(List.of(root("evict-grandparent")), 10, FINAL_SEQUENCE);
+        PublicLedgerTransaction parent = spend(List.of(output(grandparent)), 20, FINAL_SEQUENCE);
+        PublicLedgerTransaction child = spend(List.of(output(parent)), 30, FINAL_SEQUENCE);
+        List<PublicLedgerTransaction> rich = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rich.add(spend(List.of(root("evict-rich-" + i)), 50_000, FINAL_SEQUENCE));
+        }
+        mempool.add(grandparent);
+        mempool.add(parent);
+        mempool.add(child);
+        rich.forEach(mempool::add);
+
+        // 上限为当前占用：下一笔入池时驱逐后代包得分最低的祖父交易，整条链随之移除
+        maxBytes.set(mempool.info().getUsage());
+        PublicLedgerTransaction newcomer = spend(List.of(root("evict-newcomer")), 50_000, FINAL_SEQUENCE);
+        assertTrue(mempool.add(newcomer));
+
+        assertFalse(mempool.contains(grandparent.getTxHash()));
+        assertFalse(mempool.contains(parent.getTxHash()));
+        assertFalse(mempool.contains(child.getTxHash()));
+        rich.forEach(tx -> assertTrue(mempool.contains(tx.getTxHash())));
+        assertTrue(mempool.contains(newcomer.getTxHash()));
+        assertTrue(mempool.info().getUsage() <= maxBytes.get());
+
+        // 最低入池费率被抬高到被驱逐包的费率之上，同样低费率的交易不能再入池
+        assertTrue(mempool.getMinFeeRate() > 0);
+        PublicLedgerTransaction cheap = spend(List.of(root("evict-cheap")), 10, FINAL_SEQUENCE);
+        assertThrows(BusinessException.class, () -> mempool.add(cheap));
+    }
+
+    @Test
+    void highFeeDescendantProtectsAncestorFromEviction() {
+        PublicLedgerTransaction parent = spend(List.of(root("protect-parent")), 10, FINAL_SEQUENCE);
+        PublicLedgerTransaction child = spend(List.of(output(parent)), 200_000, FINAL_SEQUENCE);
+        // 两个输入，交易比新入池的交易大，驱逐它一笔即可腾出足够空间
+        PublicLedgerTransaction modest = spend(List.of(root("protect-modest-0"), root("protect-modest-1")), 500,
+                FINAL_SEQUENCE);
+        mempool.add(parent);
+        mempool.add(child);
+        mempool.add(modest);
+        assertTrue(mempool.get(parent.getTxHash()).getDescendantScore() > mempool.get(modest.getTxHash()).getFeeRate());
+
+        maxBytes.set(mempool.info().getUsage());
+        PublicLedgerTransaction newcomer = spend(List.of(root("protect-newcomer")), 50_000, FINAL_SEQUENCE);
+        assertTrue(mempool.add(newcomer));
+
+        // 父交易自身费率最低，但子交易抬高了它的后代包得分，被驱逐的是费率一般的独立交易
+        assertTrue(mempool.contains(parent.getTxHash()));
+        assertTrue(mempool.contains(child.getTxHash()));
+        assertFalse(mempool.contains(modest.getTxHash()));
+    }
+
+    @Test
+    void resubmitAfterReorgRestoresDisconnectedAndDropsConflicts() {
+        UtxoInput rootA = root("reorg-a");
+        UtxoInput rootB = root("reorg-b");
+        PublicLedgerTransaction a = spend(List.of(rootA), 100, FINAL_SEQUENCE);
+        PublicLedgerTransaction b = spend(List.of(rootB), 100, FINAL_SEQUENCE);
+        PublicLedgerTransaction conflict = spend(List.of(rootB), 500, FINAL_SEQUENCE);
+        LedgerUtil.UtxoSet newChainUtxos = LedgerUtil.getUtxoSet();
+
+        // 旧链确认了 a、b，池中交易花费它们的输出
+        LedgerUtil.UtxoSet oldChainUtxos = new LedgerUtil.UtxoSet();
+        oldChainUtxos.addUtxos(a.getTxHash(), a.getUtxoOutputs());
+        oldChainUtxos.addUtxos(b.getTxHash(), b.getUtxoOutputs());
+        LedgerUtil.replaceUtxoSet(oldChainUtxos);
+        PublicLedgerTransaction child = spend(List.of(output(a)), 1000, FINAL_SEQUENCE);
+        PublicLedgerTransaction spendsB = spend(List.of(output(b)), 1000, FINAL_SEQUENCE);
+        mempool.add(child);
+        mempool.add(spendsB);
+        long childEntryTime = mempool.get(child.getTxHash()).getEntryTime();
+
+        // 新链不含 a、b，但包含与 b 冲突的交易
+        newChainUtxos.markUtxoAsSpent(rootB.getPrevTxHash(), 0);
+        newChainUtxos.addUtxos(conflict.getTxHash(), conflict.getUtxoOutputs());
+        LedgerUtil.replaceUtxoSet(newChainUtxos);
+        assertEquals(2, mempool.resubmitAfterReorg(List.of(a, b)));
+
+        assertTrue(mempool.contains(a.getTxHash()));
+        assertFalse(mempool.contains(b.getTxHash()));
+        assertFalse(mempool.contains(spendsB.getTxHash()));
+        MempoolEntry childEntry = mempool.get(child.getTxHash());
+        assertEquals(2, childEntry.getAncestorCount());
+        assertEquals(childEntryTime, childEntry.getEntryTime());
+        assertEquals(List.of(a.getTxHash(), child.getTxHash()), hashes(blockAssembler.assemble(0)));
+    }
+
+    /**
+     * 在账本中创建一个金额为 ROOT_AMOUNT 的已确认输出，返回花费它的输入
+     */
+    private static UtxoInput root(String name) {
+        UtxoOutput output = new UtxoOutput();
+        output.setRecipientAddress(ADDRESS);
+        output.setAmount(BigInteger.valueOf(ROOT_AMOUNT));
+        output.setOutputIndex(0);
+        String txHash = CryptoUtil.sha256(name);
+        LedgerUtil.addUtxos(txHash, List.of(output));
+        return input(txHash);
+    }
+
+    /**
+     * 花费交易的第0个输出
+     */
+    private static UtxoInput output(PublicLedgerTransaction tx) {
+        return input(tx.getTxHash());
+    }
+
+    private static UtxoInput input(String prevTxHash) {
+        UtxoInput input = new UtxoInput();
+        input.setPrevTxHash(prevTxHash);
+        input.setPrevOutIndex(0);
+        return input;
+    }
+
+    /**
+     * 构造并签名一笔交易：按 sequence 新建输入花费给定的输出点，唯一的输出为 输入总额 - 手续费
+     */
+    private PublicLedgerTransaction spend(List<UtxoInput> inputs, long fee, long sequence) {
+        long inputAmount = 0;
+        List<UtxoInput> txInputs = new ArrayList<>();
+        for (UtxoInput prevout : inputs) {
+            UtxoInput input = input(prevout.getPrevTxHash());
+            input.setSequence(sequence);
+            txInputs.add(input);
+            BigInteger amount = LedgerUtil.getUtxoAmount(input.getPrevTxHash(), input.getPrevOutIndex());
+            inputAmount += amount.signum() > 0 ? amount.longValue() : pendingAmount(input);
+        }
+        UtxoOutput output = new UtxoOutput();
+        output.setRecipientAddress(ADDRESS);
+        output.setAmount(BigInteger.valueOf(inputAmount - fee));
+        output.setOutputIndex(0);
+
+        PublicLedgerTransaction tx = new PublicLedgerTransaction();
+        tx.setFromAddress(ADDRESS);
+        tx.setToAddress(ADDRESS);
+        tx.setTimestamp(timestamps.incrementAndGet());
+        tx.setPublicKey(SignatureUtil.publicKeyToHex(KEY_PAIR.getPublic()));
+        tx.setUtxoInputs(txInputs);
+        tx.setUtxoOutputs(List.of(output));
+        tx.setFee(BigInteger.valueOf(fee));
+        tx.generateTxHash();
+        tx.sign(KEY_PAIR.getPrivate());
+        created.add(tx);
+        return tx;
+    }
+
+    /**
+     * 未确认交易的输出金额：在本测试构造过的交易中查找（交易可能已不在池中）
+     */
+    private long pendingAmount(UtxoInput input) {
+        return created.stream()
+                .filter(tx -> tx.getTxHash().equals(input.getPrevTxHash()))
+                .findFirst()
+                .map(tx -> tx.getUtxoOutputs().get(0).getAmount().longValue())
+                .orElseThrow(() -> new IllegalArgumentException("未知的输入: " + input.getPrevTxHash()));
+    }
+
+    private static List<String> hashes(List<PublicLedgerTransaction> txs) {
+        return txs.stream().map(PublicLedgerTransaction::getTxHash).toList();
+    }
+}
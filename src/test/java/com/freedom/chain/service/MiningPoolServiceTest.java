@@ -0,0 +1,288 @@
+package com.freedom.chain.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.freedom.chain.model.block.Block;
+import com.freedom.chain.model.block.BlockCache;
+import com.freedom.chain.model.block.BlockHeaderTemplate;
+import com.freedom.chain.model.ledger.CoinbaseTransaction;
+import com.freedom.chain.model.ledger.PublicLedgerTransaction;
+import com.freedom.chain.model.p2p.Message;
+import com.freedom.chain.model.pool.ShareResult;
+import com.freedom.chain.model.pool.ShareSubmit;
+import com.freedom.chain.model.pool.WorkUnit;
+import com.freedom.chain.utils.AddressUtil;
+import com.freedom.chain.utils.BlockConstant;
+import com.freedom.chain.utils.CryptoUtil;
+import com.freedom.chain.utils.HeaderHashKernels;
+import com.freedom.chain.utils.SignatureUtil;
+import com.freedom.chain.utils.TargetUtil;
+import com.freedom.chain.vo.PoolWorkerStats;
+import com.freedom.chain.websocket.MiningPoolServer;
+import com.freedom.chain.websocket.PoolWorkerClient;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @description: 矿池在本机端口上的端到端测试：多个 PoolWorkerClient 同时连接，校验份额统计、nonce区间、去重与领取工作限流
+ * 区块目标值设得足够难，测试过程中不会出块
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+class MiningPoolServiceTest {
+
+    private static final int SHARE_DIFFICULTY = 2;
+
+    private static final int BLOCK_DIFFICULTY = 12;
+
+    private static final double GET_WORK_PER_SECOND = 5;
+
+    private MiningPoolService miningPoolService;
+
+    private PowService powService;
+
+    private URI poolUri;
+
+    private final List<WebSocketClient> clients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String minerAddress = AddressUtil.publicKeyToAddress(SignatureUtil.generateKeyPair().getPublic());
+        Block latestBlock = new Block();
+        latestBlock.setIndex(5);
+        latestBlock.setHash(CryptoUtil.sha256("latest"));
+
+        BlockCache blockCache = mock(BlockCache.class);
+        when(blockCache.getTipEpoch()).thenReturn(new AtomicLong(1));
+        when(blockCache.getLatestBlock()).thenReturn(latestBlock);
+        when(blockCache.getPoolShareDifficulty()).thenReturn(SHARE_DIFFICULTY);
+        when(blockCache.getPoolGetWorkPerSecond()).thenReturn(GET_WORK_PER_SECOND);
+
+        BlockService blockService = mock(BlockService.class);
+        when(blockService.getNextBits()).thenReturn(TargetUtil.difficultyToBits(BLOCK_DIFFICULTY));
+        when(blockService.createHeaderTemplate(anyString(), anyString(), anyLong(), anyInt()))
+                .thenAnswer(invocation -> new BlockHeaderTemplate(invocation.getArgument(0), invocation.getArgument(1),
+                        invocation.getArgument(2), invocation.getArgument(3)));
+
+        powService = mock(PowService.class);
+        when(powService.createCoinbaseTransaction(anyLong(), anyLong())).thenAnswer(invocation ->
+                new CoinbaseTransaction(minerAddress, invocation.getArgument(0), invocation.getArgument(1)));
+        when(powService.prepareValidTransactions(anyLong(), anyLong())).thenAnswer(invocation -> {
+            List<PublicLedgerTransaction> transactions = new ArrayList<>();
+            transactions.add(new CoinbaseTransaction(minerAddress, invocation.getArgument(0)));
+            return transactions;
+        });
+
+        Mempool mempool = mock(Mempool.class);
+        when(mempool.getVersion()).thenReturn(0L);
+
+        miningPoolService = new MiningPoolService();
+        ReflectionTestUtils.setField(miningPoolService, "blockCache", blockCache);
+        ReflectionTestUtils.setField(miningPoolService, "blockService", blockService);
+        ReflectionTestUtils.setField(miningPoolService, "powService", powService);
+        ReflectionTestUtils.setField(miningPoolService, "mempool", mempool);
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        MiningPoolServer server = new MiningPoolServer();
+        ReflectionTestUtils.setField(server, "miningPoolService", miningPoolService);
+        server.initPoolServer(port);
+        poolUri = new URI("ws://127.0.0.1:" + port);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.forEach(WebSocketClient::close);
+        miningPoolService.destroy();
+    }
+
+    @Test
+    void multipleWorkersShareThePool() throws Exception {
+        int workerCount = 3;
+        for (int i = 0; i < workerCount; i++) {
+            PoolWorkerClient client = new PoolWorkerClient(poolUri, "worker-" + i, 2, HeaderHashKernels.SCALAR);
+            connect(client);
+        }
+
+        long deadline = System.currentTimeMillis() + 20_000;
+        List<PoolWorkerStats> stats = miningPoolService.workerStats();
+        while (System.currentTimeMillis() < deadline && !allWorkersBusy(stats, workerCount)) {
+            Thread.sleep(200);
+            stats = miningPoolService.workerStats();
+        }
+
+        assertEquals(workerCount, stats.size());
+        for (PoolWorkerStats worker : stats) {
+            assertTrue(worker.getSharesAccepted() > 0, worker.getName() + " 没有被接受的份额");
+            assertEquals(0, worker.getSharesRejected(), worker.getName() + " 有份额被拒绝");
+            assertTrue(worker.getWorkUnits() > 1, worker.getName() + " 没有在区间耗尽后领取新单元");
+            assertTrue(worker.getHashrate() > 0);
+        }
+        verify(powService, never()).submitBlock(any(), anyInt(), anyString(), any());
+    }
+
+    @Test
+    void workUnitsHaveBoundedDisjointRanges() throws Exception {
+        TestWorker first = connect(new TestWorker(poolUri));
+        TestWorker second = connect(new TestWorker(poolUri));
+        first.send(JSON.toJSONString(new Message(BlockConstant.POOL_SUBSCRIBE, "first")));
+        second.send(JSON.toJSONString(new Message(BlockConstant.POOL_SUBSCRIBE, "second")));
+        WorkUnit a = first.nextWork();
+        WorkUnit b = second.nextWork();
+
+        long expectedEnd = (long) (TargetUtil.expectedHashes(TargetUtil.difficultyToBits(SHARE_DIFFICULTY)) * 1024 - 1);
+        assertEquals(0, a.getNonceStart());
+        assertEquals(expectedEnd, a.getNonceEnd());
+        assertTrue(a.getExtraNonce() != b.getExtraNonce());
+        assertTrue(!a.getMerkleRoot().equals(b.getMerkleRoot()));
+    }
+
+    @Test
+    void duplicateAndOutOfRangeSharesAreRejected() throws Exception {
+        TestWorker worker = connect(new TestWorker(poolUri));
+        worker.send(JSON.toJSONString(new Message(BlockConstant.POOL_SUBSCRIBE, "checker")));
+        WorkUnit unit = worker.nextWork();
+
+        int nonce = findShare(unit);
+        worker.submit(unit.getJobId(), nonce);
+        assertTrue(worker.nextResult().isAccepted());
+        worker.submit(unit.getJobId(), nonce);
+        assertEquals("duplicate", worker.nextResult().getReason());
+        worker.submit(unit.getJobId(), (int) (unit.getNonceEnd() + 1));
+        assertEquals("out-of-range", worker.nextResult().getReason());
+        worker.submit(unit.getJobId() + 1000, nonce);
+        assertEquals("unknown-job", worker.nextResult().getReason());
+    }
+
+    @Test
+    void getWorkIsRateLimitedPerConnection() throws Exception {
+        TestWorker worker = connect(new TestWorker(poolUri));
+        worker.send(JSON.toJSONString(new Message(BlockConstant.POOL_SUBSCRIBE, "greedy")));
+        assertNotNull(worker.nextWork());
+        for (int i = 0; i < 50; i++) {
+            worker.send(JSON.toJSONString(new Message(BlockConstant.POOL_GET_WORK)));
+        }
+        Thread.sleep(500);
+        int received = worker.works.size();
+        assertTrue(received >= 1 && received <= 1 + GET_WORK_PER_SECOND, "收到工作单元: " + received);
+        assertEquals(50 - received, miningPoolService.workerStats().get(0).getGetWorkThrottled());
+
+        // 其他连接不受影响
+        TestWorker other = connect(new TestWorker(poolUri));
+        other.send(JSON.toJSONString(new Message(BlockConstant.POOL_SUBSCRIBE, "polite")));
+        assertNotNull(other.nextWork());
+        other.send(JSON.toJSONString(new Message(BlockConstant.POOL_GET_WORK)));
+        assertNotNull(other.nextWork());
+    }
+
+    private static boolean allWorkersBusy(List<PoolWorkerStats> stats, int workerCount) {
+        return stats.size() == workerCount
+                && stats.stream().allMatch(worker -> worker.getSharesAccepted() > 0 && worker.getWorkUnits() > 1);
+    }
+
+    private static int findShare(WorkUnit unit) {
+        BlockHeaderTemplate header = new BlockHeaderTemplate(unit.getPreviousHash(), unit.getMerkleRoot(),
+                unit.getTimestamp(), unit.getBits());
+        byte[] shareTarget = TargetUtil.bitsToTargetBytes(unit.getShareBits());
+        byte[] buffer = header.newHeaderBuffer();
+        byte[] hash = new byte[CryptoUtil.SHA256_SIZE];
+        for (long nonce = unit.getNonceStart(); nonce <= unit.getNonceEnd(); nonce++) {
+            header.hash(buffer, (int) nonce, hash);
+            if (CryptoUtil.meetsTarget(hash, shareTarget)) {
+                return (int) nonce;
+            }
+        }
+        throw new AssertionError("工作单元区间内没有满足份额目标值的nonce");
+    }
+
+    private <T extends WebSocketClient> T connect(T client) throws InterruptedException {
+        // 服务端在后台线程中绑定端口，首次连接可能早于绑定完成
+        boolean open = client.connectBlocking(1, TimeUnit.SECONDS);
+        for (int attempt = 0; !open && attempt < 50; attempt++) {
+            Thread.sleep(100);
+            open = client.reconnectBlocking();
+        }
+        if (open) {
+            clients.add(client);
+            return client;
+        }
+        throw new AssertionError("无法连接矿池: " + poolUri);
+    }
+
+    /**
+     * 只收发消息、不计算哈希的worker
+     */
+    private static class TestWorker extends WebSocketClient {
+        final BlockingQueue<WorkUnit> works = new LinkedBlockingQueue<>();
+        final BlockingQueue<ShareResult> results = new LinkedBlockingQueue<>();
+
+        TestWorker(URI serverUri) {
+            super(serverUri);
+        }
+
+        WorkUnit nextWork() throws InterruptedException {
+            WorkUnit unit = works.poll(5, TimeUnit.SECONDS);
+            assertNotNull(unit, "没有收到工作单元");
+            return unit;
+        }
+
+        ShareResult nextResult() throws InterruptedException {
+            ShareResult result = results.poll(5, TimeUnit.SECONDS);
+            assertNotNull(result, "没有收到份额校验结果");
+            return result;
+        }
+
+        void submit(long jobId, int nonce) {
+            send(JSON.toJSONString(new Message(BlockConstant.POOL_SUBMIT,
+                    JSON.toJSONString(new ShareSubmit(jobId, nonce)))));
+        }
+
+        @Override
+        public void onOpen(ServerHandshake serverHandshake) {
+        }
+
+        @Override
+        public void onMessage(String msg) {
+            Message message = JSON.parseObject(msg, Message.class);
+            if (message.getType() == BlockConstant.POOL_WORK) {
+                works.add(JSON.parseObject(message.getData(), WorkUnit.class));
+            } else if (message.getType() == BlockConstant.POOL_SUBMIT_RESULT) {
+                results.add(JSON.parseObject(message.getData(), ShareResult.class));
+            }
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) {
+        }
+
+        @Override
+        public void onError(Exception e) {
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.freedom.chain.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.freedom.chain.model.block.BlockCache;
+import com.freedom.chain.model.ledger.PublicLedgerTransaction;
+import com.freedom.chain.model.ledger.UtxoInput;
+import com.freedom.chain.model.ledger.UtxoOutput;
+import com.freedom.chain.utils.AddressUtil;
+import com.freedom.chain.utils.CryptoUtil;
+import com.freedom.chain.utils.SignatureUtil;
+import org.java_websocket.WebSocket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @description: TX_DATA 只接受向该邻居请求过的交易：其他邻居发来的、未请求的、重复发送的交易都直接丢弃
+ * @author: freedom
+ * @create: 2025-11-27
+ **/
+class TransactionRelayTest {
+
+    private static final long AMOUNT = 1_000_000;
+
+    private static final KeyPair KEY_PAIR = SignatureUtil.generateKeyPair();
+
+    private static final String ADDRESS = AddressUtil.publicKeyToAddress(KEY_PAIR.getPublic());
+
+    private Mempool mempool;
+
+    private SignatureWorkers signatureWorkers;
+
+    private TransactionRelay relay;
+
+    private WebSocket requested;
+
+    private WebSocket other;
+
+    @BeforeEach
+    void setUp() {
+        BlockCache blockCache = mock(BlockCache.class);
+        when(blockCache.getVerifyThreads()).thenReturn(1);
+        when(blockCache.getTxRelayIntervalMs()).thenReturn(60_000L);
+        mempool = mock(Mempool.class);
+        when(mempool.getUtxoAmount(anyString(), anyInt())).thenReturn(BigInteger.valueOf(AMOUNT));
+        when(mempool.add(any())).thenReturn(true);
+        BlockService blockService = mock(BlockService.class);
+        when(blockService.getSockets()).thenReturn(List.of());
+
+        signatureWorkers = new SignatureWorkers();
+        ReflectionTestUtils.setField(signatureWorkers, "blockCache", blockCache);
+        signatureWorkers.init();
+
+        relay = new TransactionRelay();
+        ReflectionTestUtils.setField(relay, "signatureWorkers", signatureWorkers);
+        ReflectionTestUtils.setField(relay, "blockCache", blockCache);
+        ReflectionTestUtils.setField(relay, "mempool", mempool);
+        ReflectionTestUtils.setField(relay, "blockService", blockService);
+        relay.init();
+
+        requested = socket();
+        other = socket();
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.destroy();
+        signatureWorkers.destroy();
+    }
+
+    @Test
+    void acceptsTransactionFromRequestedPeer() {
+        PublicLedgerTransaction tx = transaction("requested");
+        relay.handleInventory(requested, JSON.toJSONString(List.of(tx.getTxHash())));
+        verify(requested).send(anyString());
+
+        relay.handleTransactions(requested, JSON.toJSONString(List.of(tx)));
+        verify(mempool).add(any());
+    }
+
+    @Test
+    void dropsTransactionFromOtherPeer() {
+        PublicLedgerTransaction tx = transaction("other");
+        relay.handleInventory(requested, JSON.toJSONString(List.of(tx.getTxHash())));
+
+        relay.handleTransactions(other, JSON.toJSONString(List.of(tx)));
+        verify(mempool, never()).add(any());
+
+        // 请求记录未被其他邻居消耗，被请求的邻居仍可送达
+        relay.handleTransactions(requested, JSON.toJSONString(List.of(tx)));
+        verify(mempool).add(any());
+    }
+
+    @Test
+    void dropsUnrequestedAndRepeatedTransactions() {
+        PublicLedgerTransaction unrequested = transaction("unrequested");
+        relay.handleTransactions(requested, JSON.toJSONString(List.of(unrequested)));
+        verify(mempool, never()).add(any());
+
+        PublicLedgerTransaction tx = transaction("repeated");
+        relay.handleInventory(requested, JSON.toJSONString(List.of(tx.getTxHash())));
+        relay.handleTransactions(requested, JSON.toJSONString(List.of(tx)));
+        relay.handleTransactions(requested, JSON.toJSONString(List.of(tx)));
+        verify(mempool, times(1)).add(any());
+    }
+
+    private static WebSocket socket() {
+        WebSocket socket = mock(WebSocket.class);
+        when(socket.isOpen()).thenReturn(true);
+        return socket;
+    }
+
+    /**
+     * 花费一个（由 mock 的交易池提供金额的）输出点、手续费1000聪的签名交易
+     */
+    private static PublicLedgerTransaction transaction(String name) {
+        UtxoInput input = new UtxoInput();
+        input.setPrevTxHash(CryptoUtil.sha256(name));
+        input.setPrevOutIndex(0);
+        input.setSequence(0xFFFFFFFFL);
+        UtxoOutput output = new UtxoOutput();
+        output.setRecipientAddress(ADDRESS);
+        output.setAmount(BigInteger.valueOf(AMOUNT - 1000));
+        output.setOutputIndex(0);
+
+        PublicLedgerTransaction tx = new PublicLedgerTransaction();
+        tx.setFromAddress(ADDRESS);
+        tx.setToAddress(ADDRESS);
+        tx.setTimestamp(1_700_000_000_000L);
+        tx.setPublicKey(SignatureUtil.publicKeyToHex(KEY_PAIR.getPublic()));
+        tx.setUtxoInputs(List.of(input));
+        tx.setUtxoOutputs(List.of(output));
+        tx.setFee(BigInteger.valueOf(1000));
+        tx.generateTxHash();
+        tx.sign(KEY_PAIR.getPrivate());
+        return tx;
+    }
+}
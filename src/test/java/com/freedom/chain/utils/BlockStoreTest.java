@@ -0,0 +1,273 @@
+package com.freedom.chain.utils;
+
+import com.alibaba.fastjson2.JSON;
+import com.freedom.chain.model.block.Block;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @description: 区块存储在临时目录中的行为：截断末尾写了一半的记录、损坏位置之后的段改名为 .corrupt、
+ * 中途停机的目录替换恢复、从旧格式 block.json 迁移
+ * @author: freedom
+ * @create: 2025-11-30
+ **/
+class BlockStoreTest {
+
+    /**
+     * 段大小下限，每个段只容纳一条记录
+     */
+    private static final long ONE_RECORD_PER_SEGMENT = 1;
+
+    private static final long LARGE_SEGMENT = 64 * 1024 * 1024;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void reloadsAppendedBlocksAcrossSegments() throws IOException {
+        List<Block> chain = chain("segments", 5);
+        try (BlockStore store = store(ONE_RECORD_PER_SEGMENT)) {
+            assertTrue(store.load().isEmpty());
+            for (Block block : chain) {
+                store.append(block);
+            }
+        }
+        assertEquals(5, segmentFiles().size());
+        assertEquals(hashes(chain), hashes(reload(ONE_RECORD_PER_SEGMENT)));
+    }
+
+    @Test
+    void truncatesTornTailRecord() throws IOException {
+        List<Block> chain = chain("torn", 3);
+        try (BlockStore store = store(LARGE_SEGMENT)) {
+            store.load();
+            for (Block block : chain) {
+                store.append(block);
+            }
+        }
+        Path segment = segmentFiles().get(0);
+        long complete = Files.size(segment);
+        // 写入中途停机：只写了记录头的一部分
+        try (FileChannel out = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            out.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 50, 1, 2}));
+        }
+
+        Block next = block("torn", 4, chain.get(2));
+        try (BlockStore store = store(LARGE_SEGMENT)) {
+            assertEquals(hashes(chain), hashes(store.load()));
+            assertEquals(complete, Files.size(segment));
+            // 截断后继续在原位置追加
+            store.append(next);
+        }
+        List<Block> expected = new ArrayList<>(chain);
+        expected.add(next);
+        assertEquals(hashes(expected), hashes(reload(LARGE_SEGMENT)));
+    }
+
+    @Test
+    void truncatesRecordWithBadChecksum() throws IOException {
+        List<Block> chain = chain("checksum", 3);
+        try (BlockStore store = store(LARGE_SEGMENT)) {
+            store.load();
+            for (Block block : chain) {
+                store.append(block);
+            }
+        }
+        flipLastByte(segmentFiles().get(0));
+        assertEquals(hashes(chain.subList(0, 2)), hashes(reload(LARGE_SEGMENT)));
+    }
+
+    @Test
+    void renamesSegmentsAfterCorruptionToCorrupt() throws IOException {
+        List<Block> chain = chain("corrupt", 4);
+        try (BlockStore store = store(ONE_RECORD_PER_SEGMENT)) {
+            store.load();
+            for (Block block : chain) {
+                store.append(block);
+            }
+        }
+        List<Path> segments = segmentFiles();
+        assertEquals(4, segments.size());
+        flipLastByte(segments.get(1));
+
+        Block replacement = block("corrupt-replacement", 2, chain.get(0));
+        try (BlockStore store = store(ONE_RECORD_PER_SEGMENT)) {
+            assertEquals(hashes(chain.subList(0, 1)), hashes(store.load()));
+            store.append(replacement);
+        }
+        assertEquals(2, segmentFiles().size());
+        assertTrue(Files.exists(corruptOf(segments.get(2))));
+        assertTrue(Files.exists(corruptOf(segments.get(3))));
+        assertEquals(hashes(List.of(chain.get(0), replacement)), hashes(reload(ONE_RECORD_PER_SEGMENT)));
+    }
+
+    @Test
+    void rewriteReplacesChain() throws IOException {
+        List<Block> oldChain = chain("rewrite-old", 3);
+        List<Block> newChain = chain("rewrite-new", 5);
+        try (BlockStore store = store(ONE_RECORD_PER_SEGMENT)) {
+            store.load();
+            for (Block block : oldChain) {
+                store.append(block);
+            }
+            store.rewrite(newChain);
+            Block next = block("rewrite-new", 6, newChain.get(4));
+            store.append(next);
+            newChain = new ArrayList<>(newChain);
+            newChain.add(next);
+        }
+        assertFalse(Files.exists(root.resolve("blocks.tmp")));
+        assertFalse(Files.exists(root.resolve("blocks.old")));
+        assertEquals(hashes(newChain), hashes(reload(ONE_RECORD_PER_SEGMENT)));
+    }
+
+    @Test
+    void failedSwapKeepsAppendingToCurrentChain() throws IOException {
+        List<Block> oldChain = chain("failed-swap", 2);
+        Block next = block("failed-swap", 3, oldChain.get(1));
+        try (BlockStore store = store(LARGE_SEGMENT)) {
+            store.load();
+            // 残留的非空 blocks.old 使 blocks → blocks.old 的改名失败
+            Files.createDirectories(root.resolve("blocks.old"));
+            Files.writeString(root.resolve("blocks.old").resolve("leftover"), "x");
+            for (Block block : oldChain) {
+                store.append(block);
+            }
+            assertThrows(IOException.class, () -> store.rewrite(chain("failed-swap-new", 4)));
+            store.append(next);
+        }
+        List<Block> expected = new ArrayList<>(oldChain);
+        expected.add(next);
+        assertEquals(hashes(expected), hashes(reload(LARGE_SEGMENT)));
+    }
+
+    @Test
+    void interruptedSwapUsesCompletedNewChain() throws IOException {
+        List<Block> oldChain = chain("swap-old", 2);
+        List<Block> newChain = chain("swap-new", 3);
+        write(root.resolve("blocks"), oldChain);
+        write(root.resolve("blocks.tmp"), newChain);
+        // 停机发生在 blocks → blocks.old 之后、blocks.tmp → blocks 之前
+        Files.move(root.resolve("blocks"), root.resolve("blocks.old"));
+
+        assertEquals(hashes(newChain), hashes(reload(LARGE_SEGMENT)));
+        assertFalse(Files.exists(root.resolve("blocks.tmp")));
+        assertFalse(Files.exists(root.resolve("blocks.old")));
+    }
+
+    @Test
+    void interruptedSwapRestoresOldChain() throws IOException {
+        List<Block> oldChain = chain("restore-old", 2);
+        write(root.resolve("blocks"), oldChain);
+        Files.move(root.resolve("blocks"), root.resolve("blocks.old"));
+
+        assertEquals(hashes(oldChain), hashes(reload(LARGE_SEGMENT)));
+        assertFalse(Files.exists(root.resolve("blocks.old")));
+    }
+
+    @Test
+    void interruptedTmpWriteKeepsCurrentChain() throws IOException {
+        List<Block> oldChain = chain("partial-old", 2);
+        write(root.resolve("blocks"), oldChain);
+        // 停机发生在写入临时目录的过程中，尚未参与改名
+        write(root.resolve("blocks.tmp"), chain("partial-new", 4));
+
+        assertEquals(hashes(oldChain), hashes(reload(LARGE_SEGMENT)));
+        assertFalse(Files.exists(root.resolve("blocks.tmp")));
+    }
+
+    @Test
+    void migratesLegacyBlockJson() throws IOException {
+        List<Block> chain = chain("legacy", 3);
+        List<Map<String, Block>> legacy = new ArrayList<>();
+        for (Block block : chain) {
+            legacy.add(Map.of(block.getHash(), block));
+        }
+        Files.writeString(root.resolve("block.json"), JSON.toJSONString(legacy));
+
+        assertEquals(hashes(chain), hashes(reload(LARGE_SEGMENT)));
+        assertFalse(Files.exists(root.resolve("block.json")));
+        assertTrue(Files.exists(root.resolve("block.json.migrated")));
+        assertEquals(1, segmentFiles().size());
+        // 迁移只进行一次，之后从段文件加载
+        assertEquals(hashes(chain), hashes(reload(LARGE_SEGMENT)));
+    }
+
+    private BlockStore store(long segmentBytes) {
+        return store(root.resolve("blocks"), segmentBytes);
+    }
+
+    private BlockStore store(Path dir, long segmentBytes) {
+        return new BlockStore(dir, root.resolve("block.json"), segmentBytes, BlockStore.FsyncPolicy.NEVER, 0);
+    }
+
+    private List<Block> reload(long segmentBytes) throws IOException {
+        try (BlockStore store = store(segmentBytes)) {
+            return store.load();
+        }
+    }
+
+    private void write(Path dir, List<Block> blocks) throws IOException {
+        try (BlockStore store = store(dir, LARGE_SEGMENT)) {
+            store.load();
+            for (Block block : blocks) {
+                store.append(block);
+            }
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (var files = Files.list(root.resolve("blocks"))) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private static Path corruptOf(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + ".corrupt");
+    }
+
+    private static void flipLastByte(Path segment) throws IOException {
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(segment, bytes);
+    }
+
+    private static List<Block> chain(String name, int length) {
+        List<Block> chain = new ArrayList<>();
+        Block previous = null;
+        for (int i = 1; i <= length; i++) {
+            previous = block(name, i, previous);
+            chain.add(previous);
+        }
+        return chain;
+    }
+
+    private static Block block(String name, int index, Block previous) {
+        Block block = new Block();
+        block.setIndex(index);
+        block.setTimestamp(1_700_000_000_000L + index);
+        block.setPreviousHash(previous != null ? previous.getHash() : "");
+        block.setHash(CryptoUtil.sha256(name + "-" + index));
+        block.setTransactions(List.of());
+        return block;
+    }
+
+    private static List<String> hashes(List<Block> blocks) {
+        return blocks.stream().map(Block::getHash).toList();
+    }
+}
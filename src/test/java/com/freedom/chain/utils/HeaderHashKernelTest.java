@@ -0,0 +1,86 @@
+package com.freedom.chain.utils;
+
+import com.freedom.chain.model.block.BlockHeaderTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * @description: 各挖矿哈希内核的结果必须与 CryptoUtil.sha256Bytes(完整区块头) 逐字节一致
+ * 向量内核只在以 -Pvector 构建、且JVM加载了 jdk.incubator.vector 时参与测试
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+class HeaderHashKernelTest {
+
+    private static final int HEADERS = 8;
+
+    private static final int NONCES_PER_HEADER = 512;
+
+    @Test
+    void digestKernelMatchesSha256() {
+        assertMatchesSha256(HeaderHashKernels.create(HeaderHashKernels.DIGEST));
+    }
+
+    @Test
+    void scalarKernelMatchesSha256() {
+        assertMatchesSha256(HeaderHashKernels.create(HeaderHashKernels.SCALAR));
+    }
+
+    @Test
+    void vectorKernelMatchesSha256() {
+        HeaderHashKernel kernel = HeaderHashKernels.createVector();
+        assumeTrue(kernel != null, "向量内核不可用");
+        assertMatchesSha256(kernel);
+    }
+
+    @Test
+    void resolveFallsBackWhenVectorUnavailable() {
+        assertEquals(HeaderHashKernels.SCALAR, HeaderHashKernels.resolve("scalar"));
+        assertEquals(HeaderHashKernels.DIGEST, HeaderHashKernels.resolve("unknown"));
+        String expected = HeaderHashKernels.isVectorAvailable() ? HeaderHashKernels.VECTOR : HeaderHashKernels.SCALAR;
+        assertEquals(expected, HeaderHashKernels.resolve("vector"));
+    }
+
+    /**
+     * 同一内核实例依次切换多个随机区块头，覆盖步长1与交错步长、以及nonce跨越有符号/无符号边界的情况
+     */
+    private static void assertMatchesSha256(HeaderHashKernel kernel) {
+        Random random = new Random(20251124L);
+        int lanes = kernel.lanes();
+        byte[] out = new byte[lanes * CryptoUtil.SHA256_SIZE];
+        int[] steps = {1, 3, 7};
+        int[] starts = {0, Integer.MAX_VALUE - 64, -64};
+        for (int h = 0; h < HEADERS; h++) {
+            byte[] previousHash = new byte[CryptoUtil.SHA256_SIZE];
+            byte[] merkleRoot = new byte[CryptoUtil.SHA256_SIZE];
+            random.nextBytes(previousHash);
+            random.nextBytes(merkleRoot);
+            String previous = CryptoUtil.bytesToHex(previousHash);
+            String merkle = CryptoUtil.bytesToHex(merkleRoot);
+            long timestamp = 1_700_000_000_000L + random.nextInt(1 << 30);
+            int bits = TargetUtil.difficultyToBits(1 + random.nextInt(6));
+            kernel.init(BlockHeaderTemplate.encodeHeader(previous, merkle, timestamp, bits, random.nextInt()));
+
+            int step = steps[h % steps.length];
+            int start = starts[h % starts.length];
+            for (int i = 0; i < NONCES_PER_HEADER; i += lanes) {
+                int first = start + i * step;
+                kernel.hash(first, step, out);
+                for (int lane = 0; lane < lanes; lane++) {
+                    int nonce = first + lane * step;
+                    byte[] expected = CryptoUtil.sha256Bytes(
+                            BlockHeaderTemplate.encodeHeader(previous, merkle, timestamp, bits, nonce));
+                    byte[] actual = Arrays.copyOfRange(out, lane * CryptoUtil.SHA256_SIZE,
+                            (lane + 1) * CryptoUtil.SHA256_SIZE);
+                    assertArrayEquals(expected, actual, kernel.name() + " 内核结果不一致，nonce: " + nonce);
+                }
+            }
+        }
+    }
+}
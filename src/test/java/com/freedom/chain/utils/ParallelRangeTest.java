@@ -0,0 +1,40 @@
+package com.freedom.chain.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @description: 每个下标恰好执行一次，任务抛出的异常在调用线程中重新抛出
+ * @author: freedom
+ * @create: 2025-11-29
+ **/
+class ParallelRangeTest {
+
+    @Test
+    void runsEveryIndexOnce() {
+        try (ParallelRange parallel = new ParallelRange(4, "test-%d")) {
+            for (int size : new int[]{0, 1, 3, 4, 17, 1000}) {
+                AtomicIntegerArray counts = new AtomicIntegerArray(size);
+                parallel.run(size, counts::incrementAndGet);
+                for (int i = 0; i < size; i++) {
+                    assertEquals(1, counts.get(i), "size " + size + ", index " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rethrowsTaskFailure() {
+        try (ParallelRange parallel = new ParallelRange(4, "test-%d")) {
+            assertThrows(IllegalArgumentException.class, () -> parallel.run(100, i -> {
+                if (i == 42) {
+                    throw new IllegalArgumentException("boom");
+                }
+            }));
+        }
+    }
+}
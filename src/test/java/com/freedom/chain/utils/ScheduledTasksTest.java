@@ -0,0 +1,60 @@
+package com.freedom.chain.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @description: 定时任务抛出异常后仍按周期继续执行
+ * @author: freedom
+ * @create: 2025-11-27
+ **/
+class ScheduledTasksTest {
+
+    @Test
+    void failingTaskKeepsRunning() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            AtomicInteger runs = new AtomicInteger();
+            CountDownLatch latch = new CountDownLatch(3);
+            ScheduledFuture<?> future = ScheduledTasks.scheduleWithFixedDelay(executor, "test", () -> {
+                latch.countDown();
+                if (runs.incrementAndGet() % 2 == 1) {
+                    throw new IOException("boom");
+                }
+                throw new IllegalStateException("boom");
+            }, 0, 10, TimeUnit.MILLISECONDS);
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertFalse(future.isDone());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void fixedRateTaskKeepsRunning() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            CountDownLatch latch = new CountDownLatch(3);
+            ScheduledFuture<?> future = ScheduledTasks.scheduleAtFixedRate(executor, "test", () -> {
+                latch.countDown();
+                throw new IllegalStateException("boom");
+            }, 0, 10, TimeUnit.MILLISECONDS);
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertFalse(future.isDone());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.freedom.chain.utils;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.crypto.signers.StandardDSAEncoding;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jce.spec.ECNamedCurveParameterSpec;
+import org.bouncycastle.jce.spec.ECPublicKeySpec;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.BigIntegers;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @description: Secp256k1Verifier 与 BouncyCastle ECDSASigner 在固定种子的语料上结果逐项一致：
+ * 边界私钥（1、2、n-1、n-2）与随机私钥的有效签名、篡改数据、s 取 n-s、随机 (r, s)、r = 1，
+ * x(R) 落在 [n, p) 内需要比较 r + n 的签名，以及格式错误的DER签名（两者都应拒绝）
+ * @author: freedom
+ * @create: 2025-11-29
+ **/
+class Secp256k1VerifierTest {
+
+    private static final BouncyCastleProvider BC = new BouncyCastleProvider();
+
+    private static final ECNamedCurveParameterSpec SPEC = ECNamedCurveTable.getParameterSpec(SignatureUtil.CURVE_NAME);
+
+    private static final ECDomainParameters DOMAIN = new ECDomainParameters(SPEC.getCurve(), SPEC.getG(), SPEC.getN(),
+            SPEC.getH());
+
+    private static final BigInteger N = SPEC.getN();
+
+    private static final BigInteger P = SPEC.getCurve().getField().getCharacteristic();
+
+    private static final int RANDOM_KEYS = 32;
+
+    private static final int MESSAGES_PER_KEY = 8;
+
+    @Test
+    void boundaryPrivateKeysMatchBouncyCastle() {
+        Random random = new Random(20251129L);
+        for (BigInteger d : List.of(BigInteger.ONE, BigInteger.TWO, N.subtract(BigInteger.ONE), N.subtract(BigInteger.TWO))) {
+            assertCorpusMatches(d, random);
+        }
+    }
+
+    @Test
+    void randomPrivateKeysMatchBouncyCastle() {
+        Random random = new Random(20251130L);
+        for (int i = 0; i < RANDOM_KEYS; i++) {
+            BigInteger d;
+            do {
+                d = new BigInteger(256, random);
+            } while (d.signum() == 0 || d.compareTo(N) >= 0);
+            assertCorpusMatches(d, random);
+        }
+    }
+
+    /**
+     * 构造 x(R) ∈ [n, p) 的签名：r = x(R) - n，只有比较 (r + n)·Z² 时才能验证通过
+     */
+    @Test
+    void signatureWithPointXAboveOrderMatchesBouncyCastle() {
+        Random random = new Random(20251201L);
+        ECPoint point = null;
+        // 从 n + 1 开始找（r = x - n 不能为0）
+        for (BigInteger x = N.add(BigInteger.ONE); point == null && x.compareTo(P) < 0; x = x.add(BigInteger.ONE)) {
+            BigInteger rhs = x.pow(3).add(BigInteger.valueOf(7)).mod(P);
+            // p ≡ 3 (mod 4)，平方根为 rhs^((p+1)/4)
+            BigInteger y = rhs.modPow(P.add(BigInteger.ONE).shiftRight(2), P);
+            if (y.multiply(y).mod(P).equals(rhs)) {
+                point = SPEC.getCurve().createPoint(x, y);
+            }
+        }
+        assertNotNull(point);
+        BigInteger r = point.normalize().getAffineXCoord().toBigInteger().subtract(N);
+
+        for (int i = 0; i < MESSAGES_PER_KEY; i++) {
+            // 任取 u1、u2，令 Q = u2⁻¹·(R - u1·G)，则 u1·G + u2·Q = R
+            BigInteger u1 = new BigInteger(255, random).add(BigInteger.ONE);
+            BigInteger u2 = new BigInteger(255, random).add(BigInteger.ONE);
+            ECPoint q = point.subtract(SPEC.getG().multiply(u1)).multiply(u2.modInverse(N)).normalize();
+            BigInteger s = r.multiply(u2.modInverse(N)).mod(N);
+            BigInteger e = u1.multiply(s).mod(N);
+            byte[] hash = BigIntegers.asUnsignedByteArray(32, e);
+
+            Secp256k1Verifier.PreparedKey key = Secp256k1Verifier.prepare(publicKey(q));
+            assertTrue(bcVerify(q, hash, r, s));
+            assertTrue(Secp256k1Verifier.verify(hash, r, s, key));
+            assertMatches(q, key, hash, r.add(BigInteger.ONE), s);
+            assertMatches(q, key, hash, r, N.subtract(s));
+        }
+    }
+
+    @Test
+    void malformedSignaturesRejectedByBoth() throws IOException {
+        Random random = new Random(20251202L);
+        BigInteger d = new BigInteger(255, random).add(BigInteger.ONE);
+        ECPoint q = SPEC.getG().multiply(d).normalize();
+        String publicKeyHex = SignatureUtil.publicKeyToHex(publicKey(q));
+        byte[] data = new byte[CryptoUtil.SHA256_SIZE];
+        random.nextBytes(data);
+        byte[] hash = CryptoUtil.sha256Bytes(data);
+        BigInteger[] rs = sign(d, hash);
+        byte[] valid = StandardDSAEncoding.INSTANCE.encode(N, rs[0], rs[1]);
+        assertEquals(Boolean.TRUE, specialized(data, valid, publicKeyHex));
+        assertEquals(Boolean.TRUE, jca(data, valid, publicKeyHex));
+
+        List<byte[]> malformed = new ArrayList<>();
+        // 截断、尾部多余字节、错误的标签与长度
+        malformed.add(Arrays.copyOf(valid, valid.length - 1));
+        malformed.add(Arrays.copyOf(valid, valid.length + 1));
+        byte[] wrongTag = valid.clone();
+        wrongTag[0] = 0x31;
+        malformed.add(wrongTag);
+        byte[] wrongLength = valid.clone();
+        wrongLength[1]++;
+        malformed.add(wrongLength);
+        malformed.add(new byte[0]);
+        // 非最短编码（r 前多一个 0x00）、负数 r、r ≥ n、s = n
+        malformed.add(der(concat(new byte[]{0x00}, BigIntegers.asUnsignedByteArray(rs[0])), rs[1].toByteArray()));
+        malformed.add(der(new byte[]{(byte) 0x80, 0x01}, rs[1].toByteArray()));
+        malformed.add(der(N.toByteArray(), rs[1].toByteArray()));
+        malformed.add(der(rs[0].toByteArray(), N.toByteArray()));
+        for (int i = 0; i < 16; i++) {
+            byte[] flipped = valid.clone();
+            flipped[random.nextInt(4)] ^= (byte) (1 << random.nextInt(8));
+            malformed.add(flipped);
+        }
+
+        for (byte[] signature : malformed) {
+            Boolean expected = jca(data, signature, publicKeyHex);
+            assertEquals(expected, specialized(data, signature, publicKeyHex), CryptoUtil.bytesToHex(signature));
+        }
+        assertNull(specialized(data, Arrays.copyOf(valid, valid.length - 1), publicKeyHex));
+        assertNull(specialized(data, der(N.toByteArray(), rs[1].toByteArray()), publicKeyHex));
+    }
+
+    /**
+     * 同一私钥下每条消息依次对比：有效签名、篡改数据、s 取 n-s、随机 (r, s)、r = 1
+     */
+    private static void assertCorpusMatches(BigInteger d, Random random) {
+        ECPoint q = SPEC.getG().multiply(d).normalize();
+        Secp256k1Verifier.PreparedKey key = Secp256k1Verifier.prepare(publicKey(q));
+        for (int i = 0; i < MESSAGES_PER_KEY; i++) {
+            byte[] hash = new byte[CryptoUtil.SHA256_SIZE];
+            random.nextBytes(hash);
+            BigInteger[] rs = sign(d, hash);
+            BigInteger r = rs[0];
+            BigInteger s = rs[1];
+            byte[] tampered = hash.clone();
+            tampered[random.nextInt(tampered.length)] ^= (byte) (1 << random.nextInt(8));
+            BigInteger randomR = new BigInteger(256, random).mod(N);
+            BigInteger randomS = new BigInteger(256, random).mod(N);
+
+            assertTrue(Secp256k1Verifier.verify(hash, r, s, key), "有效签名验证失败，d = " + d);
+            assertMatches(q, key, hash, r, s);
+            assertMatches(q, key, tampered, r, s);
+            assertMatches(q, key, hash, r, N.subtract(s));
+            assertMatches(q, key, hash, randomR, randomS);
+            assertMatches(q, key, hash, BigInteger.ONE, s);
+        }
+    }
+
+    private static void assertMatches(ECPoint q, Secp256k1Verifier.PreparedKey key, byte[] hash, BigInteger r, BigInteger s) {
+        assertEquals(bcVerify(q, hash, r, s), Secp256k1Verifier.verify(hash, r, s, key),
+                "结果不一致，Q = " + q + "，r = " + r.toString(16) + "，s = " + s.toString(16));
+    }
+
+    private static boolean bcVerify(ECPoint q, byte[] hash, BigInteger r, BigInteger s) {
+        ECDSASigner signer = new ECDSASigner();
+        signer.init(false, new ECPublicKeyParameters(q, DOMAIN));
+        return signer.verifySignature(hash, r, s);
+    }
+
+    /**
+     * 确定性签名（RFC 6979），结果只取决于私钥与消息
+     */
+    private static BigInteger[] sign(BigInteger d, byte[] hash) {
+        ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+        signer.init(true, new ECPrivateKeyParameters(d, DOMAIN));
+        return signer.generateSignature(hash);
+    }
+
+    private static PublicKey publicKey(ECPoint q) {
+        try {
+            return KeyFactory.getInstance("EC", BC).generatePublic(new ECPublicKeySpec(q, SPEC));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 专用实现验签；签名格式错误返回null
+     */
+    private static Boolean specialized(byte[] data, byte[] signature, String publicKeyHex) {
+        try {
+            return SignatureUtil.ecdsaVerify(data, signature, publicKeyHex);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * JCA 验签；签名格式错误返回null
+     */
+    private static Boolean jca(byte[] data, byte[] signature, String publicKeyHex) {
+        try {
+            return SignatureUtil.jcaVerify(data, signature, SignatureUtil.parsePublicKey(publicKeyHex));
+        } catch (SignatureException e) {
+            return null;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按给定的整数内容字节编码 SEQUENCE { INTEGER r, INTEGER s }（不检查内容是否合法）
+     */
+    private static byte[] der(byte[] r, byte[] s) {
+        byte[] body = concat(new byte[]{0x02, (byte) r.length}, r, new byte[]{0x02, (byte) s.length}, s);
+        return concat(new byte[]{0x30, (byte) body.length}, body);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+}
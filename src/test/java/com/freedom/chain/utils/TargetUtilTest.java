@@ -0,0 +1,104 @@
+package com.freedom.chain.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @description: 紧凑格式与目标值互转、初始难度换算、目标值调整的比例、单次调整倍数限制与最小难度上限
+ * @author: freedom
+ * @create: 2025-11-30
+ **/
+class TargetUtilTest {
+
+    private static final long EXPECTED = BlockConstant.EXPECTED_BLOCK_TIME_MS * BlockConstant.DIFFICULTY_ADJUST_WINDOW;
+
+    /**
+     * 目标值 2^239，减半、加倍后都能用紧凑格式精确表示
+     */
+    private static final int BITS = 0x1F008000;
+
+    @Test
+    void compactRoundTrip() {
+        assertEquals(BigInteger.valueOf(0xFFFF).shiftLeft(208), TargetUtil.bitsToTarget(0x1D00FFFF));
+        assertEquals(0x1D00FFFF, TargetUtil.targetToBits(BigInteger.valueOf(0xFFFF).shiftLeft(208)));
+        assertEquals(TargetUtil.POW_LIMIT_BITS, TargetUtil.targetToBits(TargetUtil.POW_LIMIT));
+        // 最高有效字节会被当作符号位时，尾数右移一个字节
+        assertEquals(0x02008000, TargetUtil.targetToBits(BigInteger.valueOf(0x80)));
+        assertEquals(BigInteger.valueOf(0x80), TargetUtil.bitsToTarget(0x02008000));
+        assertEquals(BigInteger.ONE, TargetUtil.bitsToTarget(0x01010000));
+    }
+
+    @Test
+    void invalidBits() {
+        assertTrue(TargetUtil.isValidBits(TargetUtil.POW_LIMIT_BITS));
+        assertTrue(TargetUtil.isValidBits(BITS));
+        // 目标值为0、负数、溢出、超过最大目标值
+        assertFalse(TargetUtil.isValidBits(0));
+        assertFalse(TargetUtil.isValidBits(0x1D80FFFF));
+        assertFalse(TargetUtil.isValidBits(0x2200FFFF));
+        assertFalse(TargetUtil.isValidBits(0x2100FFFF));
+        assertEquals(BigInteger.ZERO, TargetUtil.bitsToTarget(0x1D80FFFF));
+        assertEquals(BigInteger.ZERO, TargetUtil.bitsToTarget(0x2200FFFF));
+    }
+
+    @Test
+    void targetBytesAreBigEndian() {
+        for (int bits : new int[]{TargetUtil.POW_LIMIT_BITS, BITS, 0x1D00FFFF, 0x01010000}) {
+            byte[] bytes = TargetUtil.bitsToTargetBytes(bits);
+            assertEquals(TargetUtil.TARGET_SIZE, bytes.length);
+            assertEquals(TargetUtil.bitsToTarget(bits), new BigInteger(1, bytes));
+        }
+        assertEquals(0x0F, TargetUtil.bitsToTargetBytes(TargetUtil.POW_LIMIT_BITS)[0]);
+    }
+
+    @Test
+    void difficultyToBits() {
+        assertEquals(TargetUtil.POW_LIMIT_BITS, TargetUtil.difficultyToBits(1));
+        // 小于1按1处理
+        assertEquals(TargetUtil.POW_LIMIT_BITS, TargetUtil.difficultyToBits(0));
+        // 4个十六进制前导零：目标值 2^240 - 1，精度为最高3个有效字节
+        assertEquals(0x1F00FFFF, TargetUtil.difficultyToBits(4));
+        byte[] target = TargetUtil.bitsToTargetBytes(TargetUtil.difficultyToBits(4));
+        assertEquals(0, target[0]);
+        assertEquals(0, target[1]);
+        assertEquals((byte) 0xFF, target[2]);
+    }
+
+    @Test
+    void retargetScalesWithActualTimespan() {
+        BigInteger target = TargetUtil.bitsToTarget(BITS);
+        assertEquals(BITS, TargetUtil.retarget(BITS, EXPECTED, EXPECTED));
+        // 出块快一倍，目标值减半（难度加倍）；慢一倍则目标值加倍
+        assertEquals(target.shiftRight(1), TargetUtil.bitsToTarget(TargetUtil.retarget(BITS, EXPECTED / 2, EXPECTED)));
+        assertEquals(target.shiftLeft(1), TargetUtil.bitsToTarget(TargetUtil.retarget(BITS, EXPECTED * 2, EXPECTED)));
+    }
+
+    @Test
+    void retargetIsClamped() {
+        long factor = BlockConstant.MAX_ADJUST_FACTOR;
+        int fastest = TargetUtil.retarget(BITS, EXPECTED / factor, EXPECTED);
+        int slowest = TargetUtil.retarget(BITS, EXPECTED * factor, EXPECTED);
+        assertEquals(TargetUtil.bitsToTarget(BITS).divide(BigInteger.valueOf(factor)), TargetUtil.bitsToTarget(fastest));
+        assertEquals(TargetUtil.bitsToTarget(BITS).multiply(BigInteger.valueOf(factor)), TargetUtil.bitsToTarget(slowest));
+        // 超出倍数限制（含0和负数耗时，例如伪造的时间戳）按限制处理
+        assertEquals(fastest, TargetUtil.retarget(BITS, 1, EXPECTED));
+        assertEquals(fastest, TargetUtil.retarget(BITS, 0, EXPECTED));
+        assertEquals(fastest, TargetUtil.retarget(BITS, -EXPECTED, EXPECTED));
+        assertEquals(slowest, TargetUtil.retarget(BITS, EXPECTED * 100, EXPECTED));
+        assertEquals(slowest, TargetUtil.retarget(BITS, Long.MAX_VALUE, EXPECTED));
+    }
+
+    @Test
+    void retargetStaysWithinBounds() {
+        // 不低于最小难度
+        assertEquals(TargetUtil.POW_LIMIT_BITS, TargetUtil.retarget(TargetUtil.POW_LIMIT_BITS, EXPECTED * 4, EXPECTED));
+        assertTrue(TargetUtil.isValidBits(TargetUtil.retarget(0x1F0FFFFF, EXPECTED * 4, EXPECTED)));
+        // 目标值不会降到0
+        assertEquals(BigInteger.ONE, TargetUtil.bitsToTarget(TargetUtil.retarget(0x01010000, 0, EXPECTED)));
+    }
+}
@@ -0,0 +1,186 @@
+package com.freedom.chain.utils;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * @description: 基于 Vector API（jdk.incubator.vector）的多lane SHA-256 区块头哈希内核：
+ * 每个lane对应一个nonce，按CPU首选向量宽度一次计算4/8/16个nonce（NEON / AVX2 / AVX-512）
+ * 与 ScalarHeaderKernel 一样复用第一个分组的中间状态，第二个分组中只有W[3]（nonce）逐lane不同
+ * 该类只通过 HeaderHashKernels 反射加载，运行时缺少向量模块时回退到标量内核
+ * @author: freedom
+ * @create: 2025-11-24
+ **/
+public class VectorHeaderKernel implements HeaderHashKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * 少于4个lane时向量化没有收益
+     */
+    private static final int MIN_LANES = 4;
+
+    /**
+     * 前3轮只用到 W[0..2]（与nonce无关），在 init 中按标量算好，向量压缩从第3轮开始
+     */
+    private static final int PRECOMPUTED_ROUNDS = 3;
+
+    private final int lanes = SPECIES.length();
+
+    /**
+     * lane序号 0..lanes-1，用于生成各lane的nonce
+     */
+    private final IntVector laneIndex = IntVector.zero(SPECIES).addIndex(1);
+
+    private final int[] midstate = new int[8];
+
+    /**
+     * 第3轮开始时的状态
+     */
+    private final int[] roundState = new int[8];
+
+    /**
+     * 第二个分组的16个消息字（W[3]逐lane填入）
+     */
+    private final int[] block = new int[16];
+
+    /**
+     * 消息扩展缓冲区：按 [轮次][lane] 排列，每轮一个向量
+     */
+    private final int[] w;
+
+    /**
+     * 输出状态：按 [字][lane] 排列
+     */
+    private final int[] digest;
+
+    public VectorHeaderKernel() {
+        if (lanes < MIN_LANES) {
+            throw new UnsupportedOperationException("当前CPU的向量宽度不足: " + lanes + " lanes");
+        }
+        w = new int[64 * lanes];
+        digest = new int[8 * lanes];
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + lanes;
+    }
+
+    @Override
+    public int lanes() {
+        return lanes;
+    }
+
+    @Override
+    public void init(byte[] header) {
+        ScalarHeaderKernel.computeMidstate(header, midstate);
+        block[0] = ScalarHeaderKernel.readInt(header, 64);
+        block[1] = ScalarHeaderKernel.readInt(header, 68);
+        block[2] = ScalarHeaderKernel.readInt(header, 72);
+        block[4] = ScalarHeaderKernel.PADDING_WORD;
+        for (int i = 5; i < 15; i++) {
+            block[i] = 0;
+        }
+        block[15] = ScalarHeaderKernel.LENGTH_WORD;
+
+        int a = midstate[0], b = midstate[1], c = midstate[2], d = midstate[3];
+        int e = midstate[4], f = midstate[5], g = midstate[6], h = midstate[7];
+        for (int t = 0; t < PRECOMPUTED_ROUNDS; t++) {
+            int s1 = Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25);
+            int ch = (e & f) ^ (~e & g);
+            int t1 = h + s1 + ch + ScalarHeaderKernel.K[t] + block[t];
+            int s0 = Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22);
+            int maj = (a & b) ^ (a & c) ^ (b & c);
+            h = g;
+            g = f;
+            f = e;
+            e = d + t1;
+            d = c;
+            c = b;
+            b = a;
+            a = t1 + s0 + maj;
+        }
+        roundState[0] = a;
+        roundState[1] = b;
+        roundState[2] = c;
+        roundState[3] = d;
+        roundState[4] = e;
+        roundState[5] = f;
+        roundState[6] = g;
+        roundState[7] = h;
+    }
+
+    @Override
+    public void hash(int firstNonce, int nonceStep, byte[] out) {
+        // 1. 第二个分组：W[3]为各lane的nonce，其余字所有lane相同
+        for (int t = 0; t < 16; t++) {
+            IntVector word = t == 3
+                    ? laneIndex.mul(nonceStep).add(firstNonce)
+                    : IntVector.broadcast(SPECIES, block[t]);
+            word.intoArray(w, t * lanes);
+        }
+        // 2. 消息扩展
+        for (int t = 16; t < 64; t++) {
+            IntVector w15 = IntVector.fromArray(SPECIES, w, (t - 15) * lanes);
+            IntVector w2 = IntVector.fromArray(SPECIES, w, (t - 2) * lanes);
+            IntVector s0 = w15.lanewise(VectorOperators.ROR, 7)
+                    .lanewise(VectorOperators.XOR, w15.lanewise(VectorOperators.ROR, 18))
+                    .lanewise(VectorOperators.XOR, w15.lanewise(VectorOperators.LSHR, 3));
+            IntVector s1 = w2.lanewise(VectorOperators.ROR, 17)
+                    .lanewise(VectorOperators.XOR, w2.lanewise(VectorOperators.ROR, 19))
+                    .lanewise(VectorOperators.XOR, w2.lanewise(VectorOperators.LSHR, 10));
+            IntVector.fromArray(SPECIES, w, (t - 16) * lanes)
+                    .add(s0)
+                    .add(IntVector.fromArray(SPECIES, w, (t - 7) * lanes))
+                    .add(s1)
+                    .intoArray(w, t * lanes);
+        }
+        // 3. 压缩：从预先算好的第3轮状态开始
+        IntVector a = IntVector.broadcast(SPECIES, roundState[0]);
+        IntVector b = IntVector.broadcast(SPECIES, roundState[1]);
+        IntVector c = IntVector.broadcast(SPECIES, roundState[2]);
+        IntVector d = IntVector.broadcast(SPECIES, roundState[3]);
+        IntVector e = IntVector.broadcast(SPECIES, roundState[4]);
+        IntVector f = IntVector.broadcast(SPECIES, roundState[5]);
+        IntVector g = IntVector.broadcast(SPECIES, roundState[6]);
+        IntVector h = IntVector.broadcast(SPECIES, roundState[7]);
+        for (int t = PRECOMPUTED_ROUNDS; t < 64; t++) {
+            IntVector s1 = e.lanewise(VectorOperators.ROR, 6)
+                    .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 11))
+                    .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 25));
+            IntVector ch = e.and(f).lanewise(VectorOperators.XOR, e.not().and(g));
+            IntVector t1 = h.add(s1).add(ch).add(ScalarHeaderKernel.K[t])
+                    .add(IntVector.fromArray(SPECIES, w, t * lanes));
+            IntVector s0 = a.lanewise(VectorOperators.ROR, 2)
+                    .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 13))
+                    .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 22));
+            IntVector maj = a.and(b).lanewise(VectorOperators.XOR, a.and(c))
+                    .lanewise(VectorOperators.XOR, b.and(c));
+            IntVector t2 = s0.add(maj);
+            h = g;
+            g = f;
+            f = e;
+            e = d.add(t1);
+            d = c;
+            c = b;
+            b = a;
+            a = t1.add(t2);
+        }
+        a.add(midstate[0]).intoArray(digest, 0);
+        b.add(midstate[1]).intoArray(digest, lanes);
+        c.add(midstate[2]).intoArray(digest, 2 * lanes);
+        d.add(midstate[3]).intoArray(digest, 3 * lanes);
+        e.add(midstate[4]).intoArray(digest, 4 * lanes);
+        f.add(midstate[5]).intoArray(digest, 5 * lanes);
+        g.add(midstate[6]).intoArray(digest, 6 * lanes);
+        h.add(midstate[7]).intoArray(digest, 7 * lanes);
+        // 4. 按lane转成大端字节
+        for (int lane = 0; lane < lanes; lane++) {
+            for (int i = 0; i < 8; i++) {
+                ScalarHeaderKernel.writeInt(out, lane * CryptoUtil.SHA256_SIZE + i * 4, digest[i * lanes + lane]);
+            }
+        }
+    }
+}